@@ -0,0 +1,102 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Represents the content of a file compressed with Deflate, as UTF-8, together with the
+ * statistics of the content, so that a file that isn't being read can answer for its
+ * length, size, characters and lines without inflating it. Immutable.
+ */
+final class ColdContent implements StoredContent {
+    private final byte[] deflated;
+    private final int length;
+    private final long size;
+    private final int charCount;
+    private final int lineCount;
+
+    private ColdContent(byte[] deflated, Rope text) {
+        this.deflated = deflated;
+        this.length = text.length();
+        this.size = text.utf8Length();
+        this.charCount = text.codePointCount();
+        this.lineCount = text.lineCount();
+    }
+
+    /*
+     * REQUIRES:  content is the string of text
+     * EFFECTS:   return the given content compressed, or null if it can't be restored from
+     *                UTF-8, i.e. it has half of a surrogate pair without the other
+     */
+    static ColdContent of(Rope text, String content) {
+        byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length != text.utf8Length()) {
+            return null;
+        }
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, utf8.length / 4)];
+            int count = 0;
+            while (!deflater.finished()) {
+                if (count == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                count += deflater.deflate(buffer, count, buffer.length - count);
+            }
+            return new ColdContent(Arrays.copyOf(buffer, count), text);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public String load() {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            byte[] utf8 = new byte[(int) size];
+            int count = 0;
+            while (count < utf8.length && !inflater.finished()) {
+                count += inflater.inflate(utf8, count, utf8.length - count);
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            // the bytes were deflated by this class and are never modified
+            throw new IllegalStateException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /*
+     * EFFECTS:   return the number of bytes of the compressed content
+     */
+    int getCompressedSize() {
+        return deflated.length;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public int getCharCount() {
+        return charCount;
+    }
+
+    @Override
+    public int getLineCount() {
+        return lineCount;
+    }
+}
@@ -0,0 +1,93 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a policy that keeps the content of files nobody reads compressed in memory.
+ * compressIdle() compresses the content of every file under the root directory that hasn't
+ * been read for the idle time; reading a compressed file inflates it transparently. The
+ * files inflated most recently stay inflated in a hot cache of a fixed number of files,
+ * and the least recently inflated file is compressed again when the cache overflows.
+ * Files whose content is shared with other files through a ContentStore are left alone.
+ * Files are only compressed outside the storage's lock, and the storage never takes its
+ * lock while holding a file's monitor.
+ */
+public final class ColdStorage {
+    private final Dir rootDir;
+    private final long idleMillis;
+    private final int hotCapacity;
+    private final Map<File, Boolean> hot;
+
+    /*
+     * REQUIRES:  idleMillis >= 0, hotCapacity >= 0
+     * EFFECTS:   create a storage for the files under the given root directory, compressing
+     *                files not read for idleMillis and keeping up to hotCapacity recently
+     *                inflated files inflated
+     */
+    public ColdStorage(Dir rootDir, long idleMillis, int hotCapacity) {
+        this.rootDir = rootDir;
+        this.idleMillis = idleMillis;
+        this.hotCapacity = hotCapacity;
+        this.hot = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /*
+     * MODIFIES:  this, the files under the root directory
+     * EFFECTS:   compress the content of every file under the root directory not read for the
+     *                idle time, taking them out of the hot cache; return the number of files
+     *                compressed
+     */
+    public int compressIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        int compressed = 0;
+        for (Iterator<DirNode> it = DirWalker.stream(rootDir).iterator(); it.hasNext(); ) {
+            DirNode node = it.next();
+            if (node instanceof File && ((File) node).getLastAccess() <= cutoff) {
+                File file = (File) node;
+                synchronized (this) {
+                    hot.remove(file);
+                }
+                compressed += file.compress(this) ? 1 : 0;
+            }
+        }
+        return compressed;
+    }
+
+    /*
+     * EFFECTS:   return the number of files under the root directory whose content is
+     *                compressed, and the total bytes of their compressed and of their
+     *                original content, in that order
+     */
+    public long[] getStats() {
+        return DirWalker.reduce(rootDir, node -> {
+            StoredContent stored = node instanceof File ? ((File) node).getStoredContent() : null;
+            if (!(stored instanceof ColdContent)) {
+                return new long[3];
+            }
+            return new long[]{1, ((ColdContent) stored).getCompressedSize(), stored.getSize()};
+        }, (a, b) -> new long[]{a[0] + b[0], a[1] + b[1], a[2] + b[2]});
+    }
+
+    /*
+     * MODIFIES:  this, the least recently inflated files
+     * EFFECTS:   put the given file, just inflated, into the hot cache, and compress the files
+     *                that no longer fit in it
+     */
+    void inflated(File file) {
+        List<File> evicted = new ArrayList<>();
+        synchronized (this) {
+            hot.put(file, Boolean.TRUE);
+            for (Iterator<File> it = hot.keySet().iterator(); hot.size() > hotCapacity; ) {
+                evicted.add(it.next());
+                it.remove();
+            }
+        }
+        for (File coldFile : evicted) {
+            coldFile.compress(this);
+        }
+    }
+}
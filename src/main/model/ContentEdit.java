@@ -0,0 +1,94 @@
+package model;
+
+/**
+ * Represents one change of the content of a file: the removedLength characters at offset of
+ * the content before were replaced by the insertedLength characters at offset of the content
+ * after. Both contents are immutable ropes, so the change can be examined after it is made,
+ * in time proportional to the text changed. The content before is null if it wasn't known,
+ * e.g. content replaced without being loaded, and then so is the range.
+ */
+public final class ContentEdit {
+    private final Rope before;
+    private final Rope after;
+    private final int offset;
+    private final int removedLength;
+    private final int insertedLength;
+
+    /*
+     * REQUIRES:  before and after only differ in the given range, or before is null
+     * EFFECTS:   create an edit replacing removedLength characters at offset of before by
+     *                insertedLength characters of after
+     */
+    ContentEdit(Rope before, Rope after, int offset, int removedLength, int insertedLength) {
+        this.before = before;
+        this.after = after;
+        this.offset = offset;
+        this.removedLength = removedLength;
+        this.insertedLength = insertedLength;
+    }
+
+    /*
+     * REQUIRES:  beforeContent is the string of before, afterContent that of after
+     * EFFECTS:   return the edit from before to after, trimmed to the range between their
+     *                longest common prefix and suffix, so replacing the whole content by a
+     *                slightly different one is a small edit
+     */
+    static ContentEdit between(Rope before, String beforeContent, Rope after, String afterContent) {
+        int max = Math.min(beforeContent.length(), afterContent.length());
+        int prefix = 0;
+        while (prefix < max && beforeContent.charAt(prefix) == afterContent.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix && beforeContent.charAt(beforeContent.length() - 1 - suffix)
+                == afterContent.charAt(afterContent.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return new ContentEdit(before, after, prefix, beforeContent.length() - prefix - suffix,
+                afterContent.length() - prefix - suffix);
+    }
+
+    /*
+     * EFFECTS:   return true if the content before this edit is known
+     */
+    public boolean isKnown() {
+        return before != null;
+    }
+
+    /*
+     * EFFECTS:   return the offset of the range changed
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /*
+     * EFFECTS:   return the number of characters removed
+     */
+    public int getRemovedLength() {
+        return removedLength;
+    }
+
+    /*
+     * EFFECTS:   return the number of characters inserted
+     */
+    public int getInsertedLength() {
+        return insertedLength;
+    }
+
+    /*
+     * REQUIRES:  isKnown()
+     * EFFECTS:   return the text removed
+     */
+    public String getRemovedText() {
+        return before.subSequence(offset, offset + removedLength).toString();
+    }
+
+    /*
+     * REQUIRES:  isKnown()
+     * EFFECTS:   return the text inserted
+     */
+    public String getInsertedText() {
+        return after.subSequence(offset, offset + insertedLength).toString();
+    }
+}
@@ -0,0 +1,241 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Represents a content-addressed store that lets files with identical content share one
+ * copy of it, kept up to date by observing the root directory. Each distinct content is
+ * held once, in a blob keyed by its SHA-256 hash and counting the files that reference it.
+ * A file that is added to the tree is queued, and references the blob of its content once
+ * the queue is drained by sharePending, which every query of the store calls first; so
+ * adding a file does no work on its content while its directory is locked, and content is
+ * only hashed outside the tree's locks and the store's lock. Files whose content is stored
+ * elsewhere (see StoredContent), e.g. not read from disk yet, are left alone rather than
+ * loaded. Changing the content of a file breaks its sharing (copy on write), and removing a
+ * file from the tree drops its reference. A blob is freed once no file references it. The
+ * store never takes a file's monitor while holding its own lock.
+ */
+public final class ContentStore implements TreeObserver {
+    private final Map<String, Blob> blobs;
+    private final Set<File> pending;
+    private long sharedSize;
+    private long storedSize;
+
+    /*
+     * MODIFIES:  rootDir
+     * EFFECTS:   create a store holding the content of every file under the given root
+     *                directory, and register it as an observer of the root directory
+     */
+    public ContentStore(Dir rootDir) {
+        blobs = new HashMap<>();
+        pending = ConcurrentHashMap.newKeySet();
+        // registered first, so files added during the walk are shared either way
+        rootDir.addObserver(this);
+        filesIn(rootDir).forEach(this::share);
+    }
+
+    /*
+     * EFFECTS:   return the number of distinct contents held by this store
+     */
+    public int getBlobCount() {
+        sharePending();
+        synchronized (this) {
+            return blobs.size();
+        }
+    }
+
+    /*
+     * EFFECTS:   return the total size in bytes of the content of every file sharing a blob,
+     *                i.e. the size the shared files would take without this store
+     */
+    public long getSharedSize() {
+        sharePending();
+        synchronized (this) {
+            return sharedSize;
+        }
+    }
+
+    /*
+     * EFFECTS:   return the total size in bytes of the distinct contents held by this store
+     */
+    public long getStoredSize() {
+        sharePending();
+        synchronized (this) {
+            return storedSize;
+        }
+    }
+
+    /*
+     * REQUIRES:  no lock of the tree is held
+     * MODIFIES:  this, the files added since the last call
+     * EFFECTS:   let the files added to the tree since the last call reference the blobs of
+     *                their contents; a file removed meanwhile drops its reference again
+     */
+    public void sharePending() {
+        for (File file : new ArrayList<>(pending)) {
+            share(file);
+            // removed after sharing, so a removal that raced with it is seen either here or
+            //     by nodeRemoved, which unshares after taking the file out of the queue
+            if (!pending.remove(file)) {
+                file.unshare();
+            }
+        }
+    }
+
+    @Override
+    public void nodeAdded(Dir parent, DirNode node) {
+        pending.addAll(filesIn(node));
+    }
+
+    @Override
+    public void nodeRemoved(Dir parent, DirNode node) {
+        for (File file : filesIn(node)) {
+            pending.remove(file);
+            file.unshare();
+        }
+    }
+
+    @Override
+    public void nodeMoved(Dir oldParent, String oldName, DirNode node) {
+        // blobs refer to content, not paths
+    }
+
+    /*
+     * MODIFIES:  this, file
+     * EFFECTS:   let the given file reference the blob of its content, adding a blob if this is
+     *                the first file with that content; do nothing if the file is empty, already
+     *                shares a blob, has its content stored elsewhere, or is changed while its
+     *                content is hashed
+     */
+    private void share(File file) {
+        if (file.getStoredContent() != null) {
+            return;
+        }
+        Rope text = file.getText();
+        if (text.length() == 0) {
+            return;
+        }
+        String content = file.getContent();
+        String hash = hash(content);
+        Blob blob;
+        synchronized (this) {
+            blob = blobs.get(hash);
+            if (blob == null) {
+                blob = new Blob(this, hash, text, content);
+                blobs.put(hash, blob);
+                storedSize += blob.size;
+            } else if (!blob.content.equals(content)) {
+                // a hash collision, never seen in practice; the file keeps its own content
+                return;
+            }
+            blob.refs++;
+            sharedSize += blob.size;
+        }
+        if (!file.share(text, blob)) {
+            release(blob);
+        }
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   drop one reference to the given blob, freeing it if no file references it
+     */
+    private synchronized void release(Blob blob) {
+        blob.refs--;
+        sharedSize -= blob.size;
+        if (blob.refs == 0) {
+            blobs.remove(blob.hash);
+            storedSize -= blob.size;
+        }
+    }
+
+    /*
+     * EFFECTS:   return the SHA-256 hash of the given content encoded in UTF-8, in hexadecimal
+     */
+    private static String hash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * EFFECTS:   return the given file, or every file in the subtree of the given directory
+     */
+    private static List<File> filesIn(DirNode node) {
+        if (node instanceof File) {
+            return List.of((File) node);
+        }
+        return DirWalker.stream((Dir) node)
+                .filter(child -> child instanceof File)
+                .map(child -> (File) child)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Represents one distinct content held by a store, with the number of files referencing it.
+     */
+    static final class Blob {
+        private final String hash;
+        private final Rope text;
+        private final String content;
+        private final long size;
+        private final ContentStore store;
+        private int refs;
+
+        private Blob(ContentStore store, String hash, Rope text, String content) {
+            this.store = store;
+            this.hash = hash;
+            this.text = text;
+            this.content = content;
+            this.size = text.utf8Length();
+        }
+
+        /*
+         * EFFECTS:   return the shared content as a rope
+         */
+        Rope getText() {
+            return text;
+        }
+
+        /*
+         * EFFECTS:   return the shared content as a string
+         */
+        String getContent() {
+            return content;
+        }
+
+        /*
+         * EFFECTS:   return true if more than one file references this blob
+         */
+        boolean isShared() {
+            synchronized (store) {
+                return refs > 1;
+            }
+        }
+
+        /*
+         * MODIFIES:  this, the store holding this
+         * EFFECTS:   drop one reference to this blob, freeing it if no file references it
+         */
+        void release() {
+            store.release(this);
+        }
+    }
+}
@@ -3,30 +3,93 @@ package model;
 import model.exceptions.DuplicateException;
 import model.exceptions.IllegalNameException;
 import model.exceptions.NotFoundException;
-import org.json.JSONArray;
 import org.json.JSONObject;
 import persistence.Writable;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
 /**
  * Represents a directory in file system.
  * Like a general file system, all files in the directory should have unique
  * names, and all subdirectories should have unique names.
+ * Files and subdirectories are indexed by name, so lookup, containment check and
+ * deletion take constant time; each child records when it was added, so it can be
+ * persisted in insertion order.
+ * Each directory also keeps running totals of the files, subdirectories, content
+ * size, characters and lines in its subtree, and an upper bound on the latest modification time in it;
+ * every change is pushed up the parent chain, so the totals are read in constant
+ * time. Child names are also kept in alphabetical order, so ordered listings, pages
+ * and prefix queries need no sorting.
+ * The absolute path of a directory in the tree is cached. Moving or removing a
+ * subtree only advances a shared path epoch; caches computed in an earlier epoch are
+ * revalidated lazily, reusing the cached string whenever the parent's path is
+ * unchanged. Adding a directory or subtree, or moving or removing one with no
+ * subdirectories, leaves every other cache valid: no path is cached outside the tree.
+ *
+ * A directory tree is safe to use from several threads, with no lock over the whole
+ * tree. Reads (lookups, listings, totals, paths) take no lock: children live in
+ * concurrent maps, ordered names are copy-on-write, and totals are atomic. Each
+ * directory has its own read/write lock; a change takes the write lock of the one
+ * directory it modifies, and the read lock is taken by readers that need a consistent
+ * view of a whole directory (e.g. toJson). An operation that modifies several
+ * directories must lock them in ascending order of id (see lockInOrder) to avoid
+ * deadlock; moving a subdirectory also locks the common ancestor of its old and new
+ * parents, so that two moves that could together put a directory below itself
+ * always run one after the other.
+ * Totals are pushed up the parent chain one directory at a time, each under the
+ * totals monitor of that directory alone, which is also held while a subdirectory's
+ * parent is changed and its totals read; so a change racing with a move is counted
+ * in exactly the ancestors it ends up below, and no two totals monitors are ever
+ * held at once.
+ *
+ * Every change also advances a version number on the changed directory and all its
+ * ancestors. A directory caches the immutable snapshot of its subtree (see DirSnapshot)
+ * together with the version it was taken at, so a new snapshot rebuilds only the
+ * directories whose version moved and shares everything else with the previous one.
  */
-public class Dir implements Writable {
-    private final String name;
+public class Dir implements DirNode, Writable {
+    private static final AtomicInteger pathEpoch = new AtomicInteger();
+    private static final PathCache ROOT_PATH = new PathCache("~", null, 0, true);
+    private static final AtomicLong nextId = new AtomicLong();
+    private static final int MAX_SNAPSHOT_ATTEMPTS = 4;
+
+    private final long id;
+    private volatile String name;
     private final boolean isRootDir;
-    private Dir parentDir;
-    private final List<Dir> subDirs;
-    private final List<File> files;
-    private final Set<String> subDirNames;
-    private final Set<String> fileNames;
-    private int numFiles;
-    private int numSubDirs;
+    private volatile Dir parentDir;
+    private volatile Map<String, Dir> subDirs;
+    private volatile Map<String, File> files;
+    private final SortedNames orderedSubDirNames;
+    private final SortedNames orderedFileNames;
+    private final AtomicInteger totalNumFiles;
+    private final AtomicInteger totalNumSubDirs;
+    private final AtomicLong totalSize;
+    private final AtomicLong totalCharCount;
+    private final AtomicLong totalLineCount;
+    private final AtomicLong latestModified;
+    private final AtomicLong version;
+    private final ReentrantReadWriteLock lock;
+    private final Object totalsLock;
+    private final List<TreeObserver> observers;
+    private volatile PathCache pathCache;
+    private volatile DirSnapshot snapshot;
+    private long insertionSeq;
+    private long nextInsertionSeq;
     private EventLog eventLog = EventLog.getInstance();
 
     /*
@@ -34,13 +97,7 @@ public class Dir implements Writable {
      *                with name "root"
      */
     public Dir() {
-        files = new ArrayList<>();
-        subDirs = new ArrayList<>();
-        name = "root";
-        isRootDir = true;
-        subDirNames = new HashSet<>();
-        fileNames = new HashSet<>();
-        numFiles = 0;
+        this("root", true);
     }
 
     /*
@@ -49,15 +106,30 @@ public class Dir implements Writable {
      *                given name is blank (i.e. empty or contains only white space
      */
     public Dir(String name) throws IllegalNameException {
-        checkDirNameLegality(name, "Dir.Dir");
+        this(checkDirNameLegality(name, "Dir.Dir"), false);
+    }
 
-        files = new ArrayList<>();
-        subDirs = new ArrayList<>();
+    /*
+     * EFFECTS:   create an empty directory with the given name
+     */
+    private Dir(String name, boolean isRootDir) {
+        id = nextId.getAndIncrement();
+        files = new ConcurrentHashMap<>();
+        subDirs = new ConcurrentHashMap<>();
+        orderedFileNames = new SortedNames();
+        orderedSubDirNames = new SortedNames();
+        totalNumFiles = new AtomicInteger();
+        totalNumSubDirs = new AtomicInteger();
+        totalSize = new AtomicLong();
+        totalCharCount = new AtomicLong();
+        totalLineCount = new AtomicLong();
+        latestModified = new AtomicLong(Long.MIN_VALUE);
+        version = new AtomicLong();
+        lock = new ReentrantReadWriteLock();
+        totalsLock = new Object();
+        observers = isRootDir ? new CopyOnWriteArrayList<>() : null;
         this.name = name;
-        isRootDir = false;
-        subDirNames = new HashSet<>();
-        fileNames = new HashSet<>();
-        numFiles = 0;
+        this.isRootDir = isRootDir;
     }
 
     /*
@@ -66,11 +138,13 @@ public class Dir implements Writable {
      *                same filename, throw DuplicateException if the filename exists
      */
     public void addFile(File file) throws DuplicateException {
-        checkDuplicateFile(file.getName(), "Dir.addFile_File");
-
-        files.add(file);
-        fileNames.add(file.getName());
-        numFiles++;
+        lock.writeLock().lock();
+        try {
+            checkDuplicateFile(file.getName(), "Dir.addFile_File");
+            attachFile(file);
+        } finally {
+            lock.writeLock().unlock();
+        }
         eventLog.logEvent(new Event("added file to " + name + ": " + file.getName()));
     }
 
@@ -83,14 +157,64 @@ public class Dir implements Writable {
      */
     public void addFile(String fileName) throws IllegalNameException, DuplicateException {
         checkFileNameLegality(fileName, "Dir.addFile_String");
-        checkDuplicateFile(fileName, "Dir.addFile_String");
-
-        files.add(new File(fileName));
-        fileNames.add(fileName);
-        numFiles++;
+        lock.writeLock().lock();
+        try {
+            checkDuplicateFile(fileName, "Dir.addFile_String");
+            attachFile(new File(fileName));
+        } finally {
+            lock.writeLock().unlock();
+        }
         eventLog.logEvent(new Event("added file to " + name + ": " + fileName));
     }
 
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   add all given files if none of them has the same name as a file in this
+     *                directory or another given file, otherwise add none and throw
+     *                DuplicateException; the names, totals and event log are updated once
+     *                for the whole batch, and an empty batch changes nothing
+     */
+    public void addFiles(Collection<File> newFiles) throws DuplicateException {
+        if (newFiles.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<String> names = checkDuplicateFiles(newFiles, "Dir.addFiles");
+            files = reserve(files, newFiles.size());
+            long[] contentDelta = linkFiles(newFiles);
+            orderedFileNames.addAll(names);
+            long modified = newFiles.stream().mapToLong(file -> file.getDateModified().getTime()).max().getAsLong();
+            updateTotals(newFiles.size(), 0, contentDelta[0], contentDelta[1], contentDelta[2], modified);
+            newFiles.forEach(this::notifyNodeAdded);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        eventLog.logEvent(new Event("added " + newFiles.size() + " files to " + name));
+    }
+
+    /*
+     * REQUIRES:  the write lock of this is held, no file in this directory has the same
+     *                name as one of the given files
+     * MODIFIES:  this, newFiles
+     * EFFECTS:   put the given files into this directory and make this their parent;
+     *                return their total size, characters and lines, in that order
+     */
+    private long[] linkFiles(Collection<File> newFiles) {
+        long[] contentDelta = new long[3];
+        for (File file : newFiles) {
+            file.setInsertionSeq(nextInsertionSeq++);
+            files.put(file.getName(), file);
+            synchronized (file) {
+                file.setParentDir(this);
+                contentDelta[0] += file.getSize();
+                contentDelta[1] += file.getCharCount();
+                contentDelta[2] += file.getLineCount();
+            }
+        }
+        return contentDelta;
+    }
+
     /*
      * EFFECTS:   return file that has the given name in this directory,
      *                return null if the file cannot be found
@@ -99,14 +223,69 @@ public class Dir implements Writable {
      */
     public File getFile(String fileName) throws IllegalNameException, NotFoundException {
         checkFileNameLegality(fileName, "Dir.getFile");
-        checkFileExistence(fileName, "Dir.getFile");
+        File file = findFile(fileName);
+        checkFileExistence(file, "Dir.getFile");
+        return file;
+    }
 
-        for (File file: files) {
-            if (file.getName().equals(fileName)) {
-                return file;
-            }
+    /*
+     * EFFECTS:   return file that has the given name in this directory, null if there
+     *                is no such file (including when the name is blank); never throws
+     */
+    public File findFile(String fileName) {
+        return files.get(fileName);
+    }
+
+    /*
+     * REQUIRES:  the write lock of this is held, no file in this directory has the
+     *                same name as the given file
+     * MODIFIES:  this, file, all ancestors of this
+     * EFFECTS:   link the given file into this directory
+     */
+    private void attachFile(File file) {
+        linkFile(file);
+        notifyNodeAdded(file);
+    }
+
+    /*
+     * REQUIRES:  the write lock of this is held, no file in this directory has the
+     *                same name as the given file
+     * MODIFIES:  this, file, all ancestors of this
+     * EFFECTS:   put the given file into this directory without notifying observers
+     */
+    private void linkFile(File file) {
+        file.setInsertionSeq(nextInsertionSeq++);
+        files.put(file.getName(), file);
+        orderedFileNames.add(file.getName());
+        synchronized (file) {
+            file.setParentDir(this);
+            updateTotals(1, 0, file.getSize(), file.getCharCount(), file.getLineCount(),
+                    file.getDateModified().getTime());
+        }
+    }
+
+    /*
+     * REQUIRES:  the write lock of this is held, the given file is in this directory
+     * MODIFIES:  this, file, all ancestors of this
+     * EFFECTS:   unlink the given file from this directory
+     */
+    private void detachFile(File file) {
+        notifyNodeRemoved(file);
+        unlinkFile(file);
+    }
+
+    /*
+     * REQUIRES:  the write lock of this is held, the given file is in this directory
+     * MODIFIES:  this, file, all ancestors of this
+     * EFFECTS:   take the given file out of this directory without notifying observers
+     */
+    private void unlinkFile(File file) {
+        files.remove(file.getName());
+        orderedFileNames.remove(file.getName());
+        synchronized (file) {
+            file.setParentDir(null);
+            updateTotals(-1, 0, -file.getSize(), -file.getCharCount(), -file.getLineCount());
         }
-        return null;
     }
 
     /*
@@ -118,13 +297,29 @@ public class Dir implements Writable {
      */
     public void deleteFile(String fileName) throws IllegalNameException, NotFoundException {
         checkFileNameLegality(fileName, "Dir.deleteFile");
-        checkFileExistence(fileName, "Dir.deleteFile");
+        if (!removeFile(fileName)) {
+            checkFileExistence(null, "Dir.deleteFile");
+        }
+    }
 
-        if (files.removeIf(file -> file.getName().equals(fileName))) {
-            numFiles--;
-            fileNames.remove(fileName);
-            eventLog.logEvent(new Event("removed file from " + name + ": " + fileName));
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   delete file with the given filename in this directory, return true if
+     *                it was deleted, false if there is no such file; never throws
+     */
+    public boolean removeFile(String fileName) {
+        lock.writeLock().lock();
+        try {
+            File removed = files.get(fileName);
+            if (removed == null) {
+                return false;
+            }
+            detachFile(removed);
+        } finally {
+            lock.writeLock().unlock();
         }
+        eventLog.logEvent(new Event("removed file from " + name + ": " + fileName));
+        return true;
     }
 
     /*
@@ -135,12 +330,13 @@ public class Dir implements Writable {
      *                throws DuplicateException if the dirname exists,
      */
     public void addSubDir(Dir dir) throws DuplicateException {
-        checkDuplicateSubDir(dir.getName(), "Dir.addSubDir_DirNode");
-
-        subDirs.add(dir);
-        dir.addParentDir(this);
-        numSubDirs++;
-        subDirNames.add(dir.getName());
+        lock.writeLock().lock();
+        try {
+            checkDuplicateSubDir(dir.getName(), "Dir.addSubDir_DirNode");
+            attachSubDir(dir);
+        } finally {
+            lock.writeLock().unlock();
+        }
         eventLog.logEvent(new Event("added directory to " + name + ": " + dir.getName()));
     }
 
@@ -155,24 +351,455 @@ public class Dir implements Writable {
      */
     public void addSubDir(String dirName) throws IllegalNameException, DuplicateException {
         checkDirNameLegality(dirName, "Dir.addSubDir_String");
-        checkDuplicateSubDir(dirName, "Dir.addSubDir_String");
-
-        Dir child = new Dir(dirName);
-        subDirs.add(child);
-        child.addParentDir(this);
-        numSubDirs++;
-        subDirNames.add(dirName);
+        lock.writeLock().lock();
+        try {
+            checkDuplicateSubDir(dirName, "Dir.addSubDir_String");
+            attachSubDir(new Dir(dirName));
+        } finally {
+            lock.writeLock().unlock();
+        }
         eventLog.logEvent(new Event("added directory to " + name + ": " + dirName));
     }
 
+    /*
+     * REQUIRES:  must not add self or an ancestor as subdirectory
+     * MODIFIES:  this
+     * EFFECTS:   add all given subdirectories if none of them has the same name as a
+     *                subdirectory of this directory or another given directory, otherwise
+     *                add none and throw DuplicateException; the names, totals and event
+     *                log are updated once for the whole batch, and an empty batch changes nothing
+     */
+    public void addSubDirs(Collection<Dir> dirs) throws DuplicateException {
+        if (dirs.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<String> names = checkDuplicateSubDirs(dirs, "Dir.addSubDirs");
+            subDirs = reserve(subDirs, dirs.size());
+            for (Dir dir : dirs) {
+                dir.insertionSeq = nextInsertionSeq++;
+                subDirs.put(dir.getName(), dir);
+            }
+            orderedSubDirNames.addAll(names);
+            linkSubDirs(dirs);
+            dirs.forEach(this::notifyNodeAdded);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        eventLog.logEvent(new Event("added " + dirs.size() + " directories to " + name));
+    }
+
+    /*
+     * REQUIRES:  the write lock of this is held, the given directories are in this directory
+     * MODIFIES:  this, dirs, all ancestors of this
+     * EFFECTS:   make this the parent of the given directories and add their subtrees to the
+     *                totals of this directory and its ancestors
+     */
+    private void linkSubDirs(Collection<Dir> dirs) {
+        long[] delta = new long[6];
+        delta[5] = Long.MIN_VALUE;
+        for (Dir dir : dirs) {
+            long[] totals = dir.setParentDir(this);
+            for (int i = 0; i < 5; i++) {
+                delta[i] += totals[i];
+            }
+            delta[1]++;
+            delta[5] = Math.max(delta[5], totals[5]);
+        }
+        updateTotals((int) delta[0], (int) delta[1], delta[2], delta[3], delta[4], delta[5]);
+    }
+
+    /*
+     * REQUIRES:  the write lock of this is held
+     * EFFECTS:   return the given map, or a copy of it sized for the given number of extra
+     *                entries if they outnumber the current ones, so a large batch is
+     *                inserted without rehashing along the way
+     */
+    private static <T> Map<String, T> reserve(Map<String, T> map, int extra) {
+        if (extra <= map.size()) {
+            return map;
+        }
+        Map<String, T> reserved = new ConcurrentHashMap<>(map.size() + extra);
+        reserved.putAll(map);
+        return reserved;
+    }
+
+    /*
+     * REQUIRES:  the write lock of this is held, no subdirectory of this directory has
+     *                the same name as the given directory
+     * MODIFIES:  this, dir, all ancestors of this
+     * EFFECTS:   link the given directory, with its whole subtree, into this directory
+     */
+    private void attachSubDir(Dir dir) {
+        linkSubDir(dir);
+        notifyNodeAdded(dir);
+    }
+
+    /*
+     * REQUIRES:  the write lock of this is held, no subdirectory of this directory has
+     *                the same name as the given directory
+     * MODIFIES:  this, dir, all ancestors of this
+     * EFFECTS:   put the given directory into this directory without notifying observers
+     */
+    private void linkSubDir(Dir dir) {
+        dir.insertionSeq = nextInsertionSeq++;
+        subDirs.put(dir.getName(), dir);
+        orderedSubDirNames.add(dir.getName());
+        long[] totals = dir.setParentDir(this);
+        updateTotals((int) totals[0], (int) totals[1] + 1, totals[2], totals[3], totals[4], totals[5]);
+    }
+
+    /*
+     * REQUIRES:  the write lock of this is held, the given directory is in this directory
+     * MODIFIES:  this, dir, all ancestors of this
+     * EFFECTS:   unlink the given directory, with its whole subtree, from this directory
+     */
+    private void detachSubDir(Dir dir) {
+        notifyNodeRemoved(dir);
+        unlinkSubDir(dir);
+    }
+
+    /*
+     * REQUIRES:  the write lock of this is held, the given directory is in this directory
+     * MODIFIES:  this, dir, all ancestors of this
+     * EFFECTS:   take the given directory out of this directory without notifying observers
+     */
+    private void unlinkSubDir(Dir dir) {
+        subDirs.remove(dir.getName());
+        orderedSubDirNames.remove(dir.getName());
+        long[] totals = dir.setParentDir(null);
+        resetAbsPaths(dir, totals[1]);
+        updateTotals(-(int) totals[0], -((int) totals[1] + 1), -totals[2], -totals[3], -totals[4]);
+    }
+
+    /*
+     * REQUIRES:  targetDir is in the same tree as this directory
+     * MODIFIES:  this, targetDir, the moved file
+     * EFFECTS:   move the file with the given name from this directory into targetDir,
+     *                renaming it to newName; the existing file is relinked, so the cost
+     *                doesn't depend on its content. Moving a file onto itself does nothing.
+     *            throws IllegalNameException if newName is blank,
+     *            throws NotFoundException if there is no file with the given name,
+     *            throws DuplicateException if targetDir already has a file named newName
+     */
+    public void moveFile(String fileName, Dir targetDir, String newName)
+            throws IllegalNameException, NotFoundException, DuplicateException {
+        checkFileNameLegality(newName, "Dir.moveFile");
+        lockInOrder(this, targetDir);
+        try {
+            File file = files.get(fileName);
+            checkFileExistence(file, "Dir.moveFile");
+            if (targetDir == this && fileName.equals(newName)) {
+                return;
+            }
+            targetDir.checkDuplicateFile(newName, "Dir.moveFile");
+            unlinkFile(file);
+            file.setName(newName);
+            targetDir.linkFile(file);
+            targetDir.notifyNodeMoved(this, fileName, file);
+        } finally {
+            unlockInOrder(this, targetDir);
+        }
+        eventLog.logEvent(new Event("moved file from " + name + " to " + targetDir.getName() + ": "
+                + fileName + " -> " + newName));
+    }
+
+    /*
+     * REQUIRES:  targetDir is in the same tree as this directory
+     * MODIFIES:  this, targetDir, the moved directory
+     * EFFECTS:   move the subdirectory with the given name, with its whole subtree, from this
+     *                directory into targetDir, renaming it to newName; the subtree is
+     *                relinked rather than copied, so the cost doesn't depend on its size.
+     *                Moving a directory onto itself does nothing.
+     *            throws IllegalNameException if newName is blank or targetDir is the moved
+     *                directory or below it,
+     *            throws NotFoundException if there is no subdirectory with the given name,
+     *            throws DuplicateException if targetDir already has a subdirectory named newName
+     */
+    public void moveSubDir(String dirName, Dir targetDir, String newName)
+            throws IllegalNameException, NotFoundException, DuplicateException {
+        checkDirNameLegality(newName, "Dir.moveSubDir");
+        // the common ancestor is held throughout, so that no concurrent move can put targetDir below
+        //     the moved directory
+        Dir[] locked = lockForMove(this, targetDir);
+        try {
+            Dir dir = subDirs.get(dirName);
+            checkSubDirExistence(dir, "Dir.moveSubDir");
+            if (targetDir == this && dirName.equals(newName)) {
+                return;
+            }
+            checkNotBelow(targetDir, dir, "Dir.moveSubDir");
+            targetDir.checkDuplicateSubDir(newName, "Dir.moveSubDir");
+            unlinkSubDir(dir);
+            dir.rename(newName);
+            targetDir.linkSubDir(dir);
+            targetDir.notifyNodeMoved(this, dirName, dir);
+        } finally {
+            unlockAll(locked);
+        }
+        eventLog.logEvent(new Event("moved directory from " + name + " to " + targetDir.getName() + ": "
+                + dirName + " -> " + newName));
+    }
+
+    /*
+     * REQUIRES:  the directory isn't in any directory
+     * MODIFIES:  this
+     * EFFECTS:   change the name of this directory and drop everything cached under the old name
+     */
+    private void rename(String newName) {
+        name = newName;
+        pathCache = null;
+        version.incrementAndGet();
+    }
+
+    /*
+     * EFFECTS:   throws IllegalNameException if the given directory is dir or below it
+     */
+    private static void checkNotBelow(Dir target, Dir dir, String methodIdentifier) throws IllegalNameException {
+        for (Dir ancestor = target; ancestor != null; ancestor = ancestor.parentDir) {
+            if (ancestor == dir) {
+                throw new IllegalNameException(methodIdentifier + ": Directory can't be moved into itself.");
+            }
+        }
+    }
+
+    /*
+     * MODIFIES:  this and all ancestors of this
+     * EFFECTS:   add the given deltas to the subtree totals of this directory and
+     *                every directory above it, and advance their versions; called after
+     *                the change itself is visible, so a snapshot that raced with it is
+     *                never cached
+     */
+    void updateTotals(int fileDelta, int subDirDelta, long sizeDelta, long charDelta, long lineDelta) {
+        updateTotals(fileDelta, subDirDelta, sizeDelta, charDelta, lineDelta, Long.MIN_VALUE);
+    }
+
+    /*
+     * MODIFIES:  this and all ancestors of this
+     * EFFECTS:   as updateTotals, also raising the latest modification time of this
+     *                directory and every directory above it to at least modified
+     */
+    void updateTotals(int fileDelta, int subDirDelta, long sizeDelta, long charDelta, long lineDelta,
+                      long modified) {
+        Dir dir = this;
+        while (dir != null) {
+            dir = dir.addToTotals(fileDelta, subDirDelta, sizeDelta, charDelta, lineDelta, modified);
+        }
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   add the given deltas to the subtree totals of this directory alone, under
+     *                its totals monitor, and return its parent as of that moment
+     */
+    private Dir addToTotals(int fileDelta, int subDirDelta, long sizeDelta, long charDelta, long lineDelta,
+                            long modified) {
+        synchronized (totalsLock) {
+            totalNumFiles.addAndGet(fileDelta);
+            totalNumSubDirs.addAndGet(subDirDelta);
+            totalSize.addAndGet(sizeDelta);
+            totalCharCount.addAndGet(charDelta);
+            totalLineCount.addAndGet(lineDelta);
+            if (latestModified.get() < modified) {
+                latestModified.accumulateAndGet(modified, Math::max);
+            }
+            version.incrementAndGet();
+            return parentDir;
+        }
+    }
+
+    /*
+     * MODIFIES:  first, second
+     * EFFECTS:   acquire the write locks of the given directories in ascending order of
+     *                id, the lock order every multi-directory change must follow
+     */
+    static void lockInOrder(Dir first, Dir second) {
+        Dir lower = first.id <= second.id ? first : second;
+        Dir higher = lower == first ? second : first;
+        lower.lock.writeLock().lock();
+        if (higher != lower) {
+            higher.lock.writeLock().lock();
+        }
+    }
+
+    /*
+     * REQUIRES:  source and target are in the same tree
+     * MODIFIES:  source, target, their common ancestor
+     * EFFECTS:   acquire the write locks of source, target and their nearest common ancestor in
+     *                ascending order of id, retrying if a concurrent move changed the common
+     *                ancestor meanwhile; return the directories locked, for unlockAll
+     */
+    private static Dir[] lockForMove(Dir source, Dir target) {
+        while (true) {
+            Dir ancestor = commonAncestor(source, target);
+            Dir[] locked = Stream.of(source, target, ancestor).filter(Objects::nonNull).distinct()
+                    .sorted(Comparator.comparingLong(dir -> dir.id)).toArray(Dir[]::new);
+            for (Dir dir : locked) {
+                dir.lock.writeLock().lock();
+            }
+            if (commonAncestor(source, target) == ancestor) {
+                return locked;
+            }
+            unlockAll(locked);
+        }
+    }
+
+    /*
+     * EFFECTS:   return the nearest directory that is first or above it and also second or above
+     *                it, null if they are in different trees
+     */
+    private static Dir commonAncestor(Dir first, Dir second) {
+        Set<Dir> above = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Dir dir = first; dir != null; dir = dir.parentDir) {
+            above.add(dir);
+        }
+        for (Dir dir = second; dir != null; dir = dir.parentDir) {
+            if (above.contains(dir)) {
+                return dir;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * MODIFIES:  the given directories
+     * EFFECTS:   release the write locks of the given directories, taken by lockForMove
+     */
+    private static void unlockAll(Dir[] locked) {
+        for (Dir dir : locked) {
+            dir.lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * MODIFIES:  first, second
+     * EFFECTS:   release the write locks taken by lockInOrder
+     */
+    static void unlockInOrder(Dir first, Dir second) {
+        first.lock.writeLock().unlock();
+        if (second != first) {
+            second.lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * REQUIRES:  this is the root directory
+     * MODIFIES:  this
+     * EFFECTS:   register the given observer to be notified of every file and directory
+     *                added to or removed from this tree
+     */
+    public void addObserver(TreeObserver observer) {
+        observers.add(observer);
+    }
+
+    /*
+     * REQUIRES:  this is the root directory
+     * MODIFIES:  this
+     * EFFECTS:   unregister the given observer, do nothing if it isn't registered
+     */
+    public void removeObserver(TreeObserver observer) {
+        observers.remove(observer);
+    }
+
+    /*
+     * EFFECTS:   notify the observers of the tree containing this directory that the
+     *                given node has been added to this directory
+     */
+    private void notifyNodeAdded(DirNode node) {
+        List<TreeObserver> treeObservers = getRootDir().observers;
+        if (treeObservers != null) {
+            for (TreeObserver observer : treeObservers) {
+                observer.nodeAdded(this, node);
+            }
+        }
+    }
+
+    /*
+     * EFFECTS:   notify the observers of the tree containing this directory that the
+     *                given node is about to be removed from this directory
+     */
+    private void notifyNodeRemoved(DirNode node) {
+        List<TreeObserver> treeObservers = getRootDir().observers;
+        if (treeObservers != null && node != null) {
+            for (TreeObserver observer : treeObservers) {
+                observer.nodeRemoved(this, node);
+            }
+        }
+    }
+
+    /*
+     * EFFECTS:   notify the observers of the tree containing this directory that the given
+     *                node, named oldName in oldParent, has been moved into this directory
+     */
+    private void notifyNodeMoved(Dir oldParent, String oldName, DirNode node) {
+        List<TreeObserver> treeObservers = getRootDir().observers;
+        if (treeObservers != null) {
+            for (TreeObserver observer : treeObservers) {
+                observer.nodeMoved(oldParent, oldName, node);
+            }
+        }
+    }
+
+    /*
+     * EFFECTS:   notify the observers of the tree containing this directory that the content
+     *                of the given file in this directory has been updated
+     */
+    void notifyFileUpdated(File file) {
+        List<TreeObserver> treeObservers = getRootDir().observers;
+        if (treeObservers != null) {
+            for (TreeObserver observer : treeObservers) {
+                observer.fileUpdated(file);
+            }
+        }
+    }
+
+    /*
+     * EFFECTS:   notify the observers of the tree containing this directory that the content
+     *                of the given file in this directory has been changed by the given edit
+     */
+    void notifyFileEdited(File file, ContentEdit edit) {
+        List<TreeObserver> treeObservers = getRootDir().observers;
+        if (treeObservers != null) {
+            for (TreeObserver observer : treeObservers) {
+                observer.fileEdited(file, edit);
+            }
+        }
+    }
+
+    /*
+     * EFFECTS:   return true if the tree containing this directory has observers
+     */
+    boolean isObserved() {
+        List<TreeObserver> treeObservers = getRootDir().observers;
+        return treeObservers != null && !treeObservers.isEmpty();
+    }
+
+    /*
+     * EFFECTS:   return the topmost directory of the tree containing this directory
+     */
+    private Dir getRootDir() {
+        Dir dir = this;
+        while (dir.parentDir != null) {
+            dir = dir.parentDir;
+        }
+        return dir;
+    }
+
     /*
      * REQUIRES:  must not add self as parent directory
      * MODIFIES:  this
-     * EFFECTS:   add a parent directory,
-     *                return true if the process is successful, false otherwise
+     * EFFECTS:   make the given directory the parent of this one, null to detach it, and return
+     *                the subtree totals of this directory at that moment: files, subdirectories,
+     *                size, characters, lines and latest modification time; changes of the totals made before are
+     *                pushed up the old parent chain, and those made after up the new one
      */
-    private void addParentDir(Dir dir) {
-        parentDir = dir;
+    private long[] setParentDir(Dir dir) {
+        synchronized (totalsLock) {
+            parentDir = dir;
+            return new long[]{totalNumFiles.get(), totalNumSubDirs.get(), totalSize.get(), totalCharCount.get(),
+                totalLineCount.get(), latestModified.get()};
+        }
     }
 
     /*
@@ -183,19 +810,55 @@ public class Dir implements Writable {
      */
     public Dir getSubDir(String dirName) throws IllegalNameException, NotFoundException {
         checkDirNameLegality(dirName, "Dir.getSubDir");
-        checkSubDirExistence(dirName, "Dir.getSubDir");
+        Dir dir = findSubDir(dirName);
+        checkSubDirExistence(dir, "Dir.getSubDir");
+        return dir;
+    }
 
-        for (Dir dir : subDirs) {
-            if (dir.getName().equals(dirName)) {
-                return dir;
-            }
-        }
-        return null;
+    /*
+     * EFFECTS:   return the subdirectory in this directory with the given name, null if
+     *                there is no such subdirectory (including when the name is blank);
+     *                never throws
+     */
+    public Dir findSubDir(String dirName) {
+        return subDirs.get(dirName);
+    }
+
+    /*
+     * EFFECTS:   return the file whose name equals the given key, null if there is none;
+     *                the key may be any object that hashes and compares like the name
+     */
+    File lookupFile(Object key) {
+        return files.get(key);
+    }
+
+    /*
+     * EFFECTS:   return the subdirectory whose name equals the given key, null if there
+     *                is none; the key may be any object that hashes and compares like the name
+     */
+    Dir lookupSubDir(Object key) {
+        return subDirs.get(key);
+    }
+
+    /*
+     * EFFECTS:   return a read-only view of the files in this directory, in no particular order
+     */
+    public Collection<File> getFiles() {
+        return Collections.unmodifiableCollection(files.values());
+    }
+
+    /*
+     * EFFECTS:   return a read-only view of the subdirectories in this directory, in no
+     *                particular order
+     */
+    public Collection<Dir> getSubDirs() {
+        return Collections.unmodifiableCollection(subDirs.values());
     }
 
     /*
      * EFFECTS:   return the parent directory of this directory
      */
+    @Override
     public Dir getParentDir() {
         return parentDir;
     }
@@ -209,42 +872,81 @@ public class Dir implements Writable {
      */
     public void deleteSubDir(String dirName) throws IllegalNameException, NotFoundException {
         checkDirNameLegality(dirName, "Dir.deleteSubDir");
-        checkSubDirExistence(dirName, "Dir.deleteSubDir");
+        if (!removeSubDir(dirName)) {
+            checkSubDirExistence(null, "Dir.deleteSubDir");
+        }
+    }
 
-        if (subDirs.removeIf(child -> child.getName().equals(dirName))) {
-            numSubDirs--;
-            subDirNames.remove(dirName);
-            eventLog.logEvent(new Event("removed directory from " + name + ": " + dirName));
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   delete subdirectory with the given name in this directory, return true
+     *                if it was deleted, false if there is no such subdirectory; never throws
+     */
+    public boolean removeSubDir(String dirName) {
+        lock.writeLock().lock();
+        try {
+            Dir removed = subDirs.get(dirName);
+            if (removed == null) {
+                return false;
+            }
+            detachSubDir(removed);
+        } finally {
+            lock.writeLock().unlock();
         }
+        eventLog.logEvent(new Event("removed directory from " + name + ": " + dirName));
+        return true;
     }
 
     /*
-     * EFFECTS:   return file names in alphabetical order
+     * EFFECTS:   return a read-only view of file names in alphabetical order
      */
     public List<String> getOrderedFileNames() {
-        return getOrderedNames(fileNames);
+        return orderedFileNames.asList();
     }
 
     /*
-     * EFFECTS:   return subdirectory names in alphabetical order
+     * EFFECTS:   return a read-only view of subdirectory names in alphabetical order
      */
     public List<String> getOrderedSubDirNames() {
-        return getOrderedNames(subDirNames);
+        return orderedSubDirNames.asList();
+    }
+
+    /*
+     * EFFECTS:   return at most limit file names in alphabetical order, starting from
+     *                the name at position start
+     */
+    public List<String> getFileNamesFrom(int start, int limit) {
+        return orderedFileNames.range(start, limit);
+    }
+
+    /*
+     * EFFECTS:   return at most limit subdirectory names in alphabetical order, starting
+     *                from the name at position start
+     */
+    public List<String> getSubDirNamesFrom(int start, int limit) {
+        return orderedSubDirNames.range(start, limit);
     }
 
     /*
-     * EFFECTS:   return names in the given name set in alphabetical order
+     * EFFECTS:   return file names starting with the given prefix, ignoring case,
+     *                in alphabetical order
      */
-    private List<String> getOrderedNames(Set<String> nameSet) {
-        ArrayList<String> nameList = new ArrayList<>(nameSet);
-        nameList.sort(String.CASE_INSENSITIVE_ORDER);
-        return nameList;
+    public List<String> getFileNamesWithPrefix(String prefix) {
+        return orderedFileNames.withPrefix(prefix);
+    }
 
+    /*
+     * EFFECTS:   return subdirectory names starting with the given prefix, ignoring
+     *                case, in alphabetical order
+     */
+    public List<String> getSubDirNamesWithPrefix(String prefix) {
+        return orderedSubDirNames.withPrefix(prefix);
     }
 
     /*
      * EFFECTS:   return the name of this directory
      */
+    @Override
     public String getName() {
         return name;
     }
@@ -260,14 +962,14 @@ public class Dir implements Writable {
      * EFFECTS:   return the number of files in this directory
      */
     public int getNumFiles() {
-        return numFiles;
+        return files.size();
     }
 
     /*
      * EFFECTS:   return the number of subdirectories in this directory
      */
     public int getNumSubDirs() {
-        return numSubDirs;
+        return subDirs.size();
     }
 
 
@@ -276,17 +978,7 @@ public class Dir implements Writable {
      *                files in all subdirectories
      */
     public int getTotalNumFiles() {
-        int totalNum = getNumFiles();
-        if (getNumSubDirs() != 0) {
-            totalNum += getOrderedSubDirNames().stream().mapToInt(name -> {
-                try {
-                    return getSubDir(name).getTotalNumFiles();
-                } catch (IllegalNameException | NotFoundException e) {
-                    throw new RuntimeException(e);
-                }
-            }).sum();
-        }
-        return totalNum;
+        return totalNumFiles.get();
     }
 
     /*
@@ -294,28 +986,111 @@ public class Dir implements Writable {
      *                including all nested subdirectories in subdirectories
      */
     public int getTotalNumSubDirs() {
-        int totalNum = getNumSubDirs();
-        if (getNumSubDirs() != 0) {
-            totalNum += getOrderedSubDirNames().stream().mapToInt(name -> {
-                try {
-                    return getSubDir(name).getTotalNumSubDirs();
-                } catch (IllegalNameException | NotFoundException e) {
-                    throw new RuntimeException(e);
-                }
-            }).sum();
-        }
-        return totalNum;
+        return totalNumSubDirs.get();
+    }
+
+    /*
+     * EFFECTS:   return the total size of all files in this directory,
+     *                including files in all nested subdirectories
+     */
+    public long getTotalSize() {
+        return totalSize.get();
+    }
+
+    /*
+     * EFFECTS:   return the total number of characters (code points) of all files in this
+     *                directory, including files in all nested subdirectories
+     */
+    public long getTotalCharCount() {
+        return totalCharCount.get();
+    }
+
+    /*
+     * EFFECTS:   return the total number of lines of all files in this directory, including
+     *                files in all nested subdirectories
+     */
+    public long getTotalLineCount() {
+        return totalLineCount.get();
+    }
+
+    /*
+     * EFFECTS:   return an upper bound on the modification time, in milliseconds since the
+     *                epoch, of every file in this directory and below it: never earlier than
+     *                the latest one, but not lowered when files are removed; Long.MIN_VALUE
+     *                if no file has ever been in this subtree
+     */
+    public long getLatestModified() {
+        return latestModified.get();
     }
 
     /*
      * EFFECTS:   return the absolute path of this directory
      */
+    @Override
     public String getAbsPath() {
+        // the epoch is read before the parent, as a subtree is unlinked before the epoch advances
+        return absPath(pathEpoch.get()).absPath;
+    }
+
+    /*
+     * EFFECTS:   return the absolute path of this directory as of the given path epoch,
+     *                caching it if this directory is in the tree
+     */
+    private PathCache absPath(int epoch) {
+        Dir parent = parentDir;
         if (isRootDir) {
-            return "~";
-        } else {
-            return parentDir.getAbsPath() + "/" + name;
+            return ROOT_PATH;
+        } else if (parent == null) {
+            return new PathCache(name, null, epoch, false);
         }
+        PathCache cache = pathCache;
+        if (cache == null || cache.epoch != epoch) {
+            PathCache parentCache = parent.absPath(epoch);
+            String parentAbsPath = parentCache.absPath;
+            // parents return the same cached string for as long as their path is unchanged
+            if (cache == null || cache.parentAbsPath != parentAbsPath) {
+                cache = new PathCache(parentAbsPath + "/" + name, parentAbsPath, epoch, parentCache.rooted);
+            } else {
+                cache = new PathCache(cache.absPath, parentAbsPath, epoch, parentCache.rooted);
+            }
+            if (cache.rooted) {
+                pathCache = cache;
+            }
+        }
+        return cache;
+    }
+
+    /*
+     * REQUIRES:  the given directory, with the given number of subdirectories below it,
+     *                has just been unlinked from its parent, to be removed or moved
+     * MODIFIES:  dir
+     * EFFECTS:   drop the cached absolute path of the given directory; if paths are cached
+     *                below it, they are stale too, so mark every cached absolute path as
+     *                possibly stale. Nothing else changes path, so linking a directory or
+     *                unlinking one with no subdirectories leaves every other cache valid
+     */
+    private static void resetAbsPaths(Dir dir, long numSubDirs) {
+        boolean wasCached = dir.pathCache != null;
+        dir.pathCache = null;
+        if (wasCached && numSubDirs > 0) {
+            invalidateAbsPaths();
+        }
+    }
+
+    /*
+     * EFFECTS:   mark every cached absolute path as possibly stale, to be revalidated
+     *                on its next use
+     */
+    private static void invalidateAbsPaths() {
+        pathEpoch.incrementAndGet();
+    }
+
+    /*
+     * EFFECTS:   return the position of this directory among the children of its parent,
+     *                in the order they were added
+     */
+    long getInsertionSeq() {
+        return insertionSeq;
     }
 
     /*
@@ -323,7 +1098,7 @@ public class Dir implements Writable {
      *            returns false otherwise
      */
     public boolean containsFile(String fileName) {
-        return fileNames.contains(fileName);
+        return files.containsKey(fileName);
     }
 
     /*
@@ -331,7 +1106,7 @@ public class Dir implements Writable {
      *            returns false otherwise
      */
     public boolean containsSubDir(String dirName) {
-        return subDirNames.contains(dirName);
+        return subDirs.containsKey(dirName);
     }
 
     /*
@@ -349,19 +1124,20 @@ public class Dir implements Writable {
     /*
      * EFFECTS:   check the given subdirectory name, throws IllegalNameException if name is blank
      */
-    private void checkDirNameLegality(String name, String methodIdentifier) throws IllegalNameException {
+    private static String checkDirNameLegality(String name, String methodIdentifier) throws IllegalNameException {
         try {
             checkName(name);
         } catch (IllegalNameException e) {
             String illegalDirNameMsg = "Directory name must be nonblank string.";
             throw new IllegalNameException(methodIdentifier + ": " + illegalDirNameMsg);
         }
+        return name;
     }
 
     /*
      * EFFECTS:   check the given name, throws IllegalNameException if name is blank
      */
-    private void checkName(String name) throws IllegalNameException {
+    private static void checkName(String name) throws IllegalNameException {
         if (name.isBlank()) {
             throw new IllegalNameException();
         }
@@ -390,67 +1166,162 @@ public class Dir implements Writable {
     }
 
     /*
-     * EFFECTS:   check the given filename, throws NotFoundException if the file can't be found in directory
+     * EFFECTS:   return the names of the given files, throws DuplicateException if one of them
+     *                is already in this directory or appears twice among the given files
      */
-    private void checkFileExistence(String name, String methodIdentifier) throws NotFoundException {
-        if (!containsFile(name)) {
+    private List<String> checkDuplicateFiles(Collection<File> newFiles, String methodIdentifier)
+            throws DuplicateException {
+        List<String> names = new ArrayList<>(newFiles.size());
+        for (File file : newFiles) {
+            names.add(file.getName());
+        }
+        Set<String> seen = new HashSet<>(names.size() * 2);
+        for (String fileName : names) {
+            if (!seen.add(fileName)) {
+                throw new DuplicateException(methodIdentifier + ": File appears twice: " + fileName);
+            }
+            checkDuplicateFile(fileName, methodIdentifier);
+        }
+        return names;
+    }
+
+    /*
+     * EFFECTS:   return the names of the given directories, throws DuplicateException if one of
+     *                them is already in this directory or appears twice among the given directories
+     */
+    private List<String> checkDuplicateSubDirs(Collection<Dir> dirs, String methodIdentifier)
+            throws DuplicateException {
+        List<String> names = new ArrayList<>(dirs.size());
+        for (Dir dir : dirs) {
+            names.add(dir.getName());
+        }
+        Set<String> seen = new HashSet<>(names.size() * 2);
+        for (String dirName : names) {
+            if (!seen.add(dirName)) {
+                throw new DuplicateException(methodIdentifier + ": Directory appears twice: " + dirName);
+            }
+            checkDuplicateSubDir(dirName, methodIdentifier);
+        }
+        return names;
+    }
+
+    /*
+     * EFFECTS:   check the looked-up file, throws NotFoundException if the file can't be found in directory
+     */
+    private void checkFileExistence(File file, String methodIdentifier) throws NotFoundException {
+        if (file == null) {
             String noFileMsg = "File can't be found.";
             throw new NotFoundException(methodIdentifier + ": " + noFileMsg);
         }
     }
 
     /*
-     * EFFECTS:   check the given subdir name, throws NotFoundException if the subdir can't be found in directory
+     * EFFECTS:   check the looked-up subdir, throws NotFoundException if the subdir can't be found in directory
      */
-    private void checkSubDirExistence(String name, String methodIdentifier) throws NotFoundException {
-        if (!containsSubDir(name)) {
+    private void checkSubDirExistence(Dir dir, String methodIdentifier) throws NotFoundException {
+        if (dir == null) {
             String noDirMsg = "Directory can't be found.";
             throw new NotFoundException(methodIdentifier + ": " + noDirMsg);
         }
     }
 
-    @Override
-    public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-        json.put("name", name);
-        json.put("isRootDir", isRootDir);
-        json.put("subDirs", subDirsToJson());
-        json.put("files", filesToJson());
-        return json;
+    /*
+     * EFFECTS:   return an immutable snapshot of this directory and its whole subtree;
+     *                if the subtree changes while the snapshot is taken, try again so the
+     *                result matches a single state of the subtree, giving up after a few
+     *                attempts under continuous changes
+     */
+    public DirSnapshot snapshot() {
+        DirSnapshot taken = buildSnapshot();
+        for (int attempt = 1; attempt < MAX_SNAPSHOT_ATTEMPTS && taken.getVersion() != version.get(); attempt++) {
+            taken = buildSnapshot();
+        }
+        return taken;
     }
 
     /*
-     * EFFECTS:   returns subdirectories as JSONArray
+     * MODIFIES:  this and directories below it
+     * EFFECTS:   return a snapshot of this directory, reusing the cached snapshot of every
+     *                directory in the subtree that hasn't changed since it was taken
      */
-    private JSONArray subDirsToJson() {
-        JSONArray jsonArray = new JSONArray();
-
-        for (Dir dir : subDirs) {
-            jsonArray.put(dir.toJson());
+    private DirSnapshot buildSnapshot() {
+        long current = version.get();
+        DirSnapshot cached = snapshot;
+        if (cached != null && cached.getVersion() == current) {
+            return cached;
         }
-
-        return jsonArray;
+        List<DirSnapshot> subDirSnapshots = new ArrayList<>();
+        List<FileSnapshot> fileSnapshots = new ArrayList<>();
+        snapshotChildren(subDirSnapshots, fileSnapshots);
+        DirSnapshot built = new DirSnapshot(name, isRootDir, subDirSnapshots, fileSnapshots, current);
+        if (version.get() == current) {
+            snapshot = built;
+        }
+        return built;
     }
 
     /*
-     * EFFECTS:   returns files as JSONArray
+     * MODIFIES:  subDirSnapshots, fileSnapshots
+     * EFFECTS:   add snapshots of the subdirectories and files of this directory, in the
+     *                order they were added, to the given lists
      */
-    private JSONArray filesToJson() {
-        JSONArray jsonArray = new JSONArray();
-
-        for (File file: files) {
-            jsonArray.put(file.toJson());
+    private void snapshotChildren(List<DirSnapshot> subDirSnapshots, List<FileSnapshot> fileSnapshots) {
+        List<Dir> orderedSubDirs;
+        List<File> orderedFiles;
+        lock.readLock().lock();
+        try {
+            orderedSubDirs = inInsertionOrder(subDirs.values(), Comparator.comparingLong(Dir::getInsertionSeq));
+            orderedFiles = inInsertionOrder(files.values(), Comparator.comparingLong(File::getInsertionSeq));
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (Dir dir : orderedSubDirs) {
+            subDirSnapshots.add(dir.buildSnapshot());
         }
+        for (File file : orderedFiles) {
+            fileSnapshots.add(file.snapshot());
+        }
+    }
 
-        return jsonArray;
+    /*
+     * EFFECTS:   returns the given children sorted in the order they were added
+     */
+    private static <T> List<T> inInsertionOrder(Collection<T> children, Comparator<T> order) {
+        List<T> ordered = new ArrayList<>(children);
+        ordered.sort(order);
+        return ordered;
     }
 
+    @Override
+    public JSONObject toJson() {
+        return snapshot().toJson();
+    }
 
     /*
      * EFFECTS:   returns a string representation of a directory
      */
     @Override
     public String toString() {
-        return getName() + " (" + getNumSubDirs() + " folders, " + getNumFiles() + " files)";
+        return getName() + " (" + getNumSubDirs() + " folders, " + getNumFiles() + " files, " + getTotalSize()
+                + " bytes, " + getTotalCharCount() + " characters, " + getTotalLineCount() + " lines in total)";
+    }
+
+    /**
+     * Represents a cached absolute path, with the parent path and path epoch it was
+     * computed from, and whether it starts at the root; replaced as a whole so that
+     * concurrent readers see a consistent entry.
+     */
+    private static class PathCache {
+        private final String absPath;
+        private final String parentAbsPath;
+        private final int epoch;
+        private final boolean rooted;
+
+        PathCache(String absPath, String parentAbsPath, int epoch, boolean rooted) {
+            this.absPath = absPath;
+            this.parentAbsPath = parentAbsPath;
+            this.epoch = epoch;
+            this.rooted = rooted;
+        }
     }
 }
@@ -0,0 +1,16 @@
+package model;
+
+/**
+ * Represents a node in the file system tree, either a directory or a file
+ * (composite design pattern).
+ */
+public interface DirNode {
+    // EFFECTS: return the name of this node
+    String getName();
+
+    // EFFECTS: return the absolute path of this node
+    String getAbsPath();
+
+    // EFFECTS: return the directory containing this node, null if it has none
+    Dir getParentDir();
+}
@@ -0,0 +1,176 @@
+package model;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import persistence.Writable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Represents an immutable view of a directory and its whole subtree at one point in
+ * time. Snapshots are persistent: a directory caches its snapshot until something in
+ * its subtree changes, and a new snapshot reuses the cached snapshots of every
+ * unchanged subdirectory and file. Taking a snapshot after a change therefore costs
+ * time and memory proportional to the changed directories and the path above them,
+ * not to the size of the tree. A snapshot can be read from any thread without locking.
+ */
+public final class DirSnapshot implements Writable {
+    private final String name;
+    private final boolean isRootDir;
+    private final List<DirSnapshot> subDirs;
+    private final List<FileSnapshot> files;
+    private final int totalNumFiles;
+    private final int totalNumSubDirs;
+    private final long totalSize;
+    private final long version;
+
+    /*
+     * REQUIRES:  subDirs and files are in the order they were added and are never modified
+     * EFFECTS:   create a snapshot of a directory with the given name and children, taken
+     *                when the directory was at the given version
+     */
+    DirSnapshot(String name, boolean isRootDir, List<DirSnapshot> subDirs, List<FileSnapshot> files,
+                long version) {
+        this.name = name;
+        this.isRootDir = isRootDir;
+        this.subDirs = Collections.unmodifiableList(subDirs);
+        this.files = Collections.unmodifiableList(files);
+        this.version = version;
+        int numFiles = files.size();
+        int numSubDirs = subDirs.size();
+        long size = 0;
+        for (FileSnapshot file : files) {
+            size += file.getSize();
+        }
+        for (DirSnapshot subDir : subDirs) {
+            numFiles += subDir.totalNumFiles;
+            numSubDirs += subDir.totalNumSubDirs;
+            size += subDir.totalSize;
+        }
+        totalNumFiles = numFiles;
+        totalNumSubDirs = numSubDirs;
+        totalSize = size;
+    }
+
+    /*
+     * EFFECTS:   return the name of this directory
+     */
+    public String getName() {
+        return name;
+    }
+
+    /*
+     * EFFECTS:   return true if this directory is root directory, false otherwise
+     */
+    public boolean isRootDir() {
+        return isRootDir;
+    }
+
+    /*
+     * EFFECTS:   return the subdirectories of this directory in the order they were added
+     */
+    public List<DirSnapshot> getSubDirs() {
+        return subDirs;
+    }
+
+    /*
+     * EFFECTS:   return the files of this directory in the order they were added
+     */
+    public List<FileSnapshot> getFiles() {
+        return files;
+    }
+
+    /*
+     * EFFECTS:   return the subdirectory with the given name, null if there is none;
+     *                linear in the number of subdirectories
+     */
+    public DirSnapshot getSubDir(String dirName) {
+        for (DirSnapshot subDir : subDirs) {
+            if (subDir.name.equals(dirName)) {
+                return subDir;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * EFFECTS:   return the file with the given name, null if there is none;
+     *                linear in the number of files
+     */
+    public FileSnapshot getFile(String fileName) {
+        for (FileSnapshot file : files) {
+            if (file.getName().equals(fileName)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * EFFECTS:   return the total number of files in this directory, including
+     *                files in all subdirectories
+     */
+    public int getTotalNumFiles() {
+        return totalNumFiles;
+    }
+
+    /*
+     * EFFECTS:   return the total number of subdirectories in this directory,
+     *                including all nested subdirectories in subdirectories
+     */
+    public int getTotalNumSubDirs() {
+        return totalNumSubDirs;
+    }
+
+    /*
+     * EFFECTS:   return the total size of all files in this directory,
+     *                including files in all nested subdirectories
+     */
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    /*
+     * EFFECTS:   return the version of the directory this snapshot was taken from
+     */
+    long getVersion() {
+        return version;
+    }
+
+    @Override
+    public JSONObject toJson() {
+        return toJson(FileSnapshot::toJson);
+    }
+
+    /*
+     * EFFECTS:   return the JSON representation of this directory and its subtree, with each file
+     *                represented by the given function
+     */
+    public JSONObject toJson(Function<FileSnapshot, JSONObject> fileToJson) {
+        JSONObject json = new JSONObject();
+        json.put("name", name);
+        json.put("isRootDir", isRootDir);
+        JSONArray subDirsJson = new JSONArray();
+        for (DirSnapshot subDir : subDirs) {
+            subDirsJson.put(subDir.toJson(fileToJson));
+        }
+        JSONArray filesJson = new JSONArray();
+        for (FileSnapshot file : files) {
+            filesJson.put(fileToJson.apply(file));
+        }
+        json.put("subDirs", subDirsJson);
+        json.put("files", filesJson);
+        return json;
+    }
+
+    /*
+     * EFFECTS:   returns a string representation of a directory
+     */
+    @Override
+    public String toString() {
+        return name + " (" + subDirs.size() + " folders, " + files.size() + " files, " + totalSize
+                + " bytes in total)";
+    }
+}
@@ -0,0 +1,108 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Represents a splittable traversal of every directory and file in a subtree, in no
+ * particular order. The pending part of the traversal is a deque of nodes whose
+ * subtrees haven't been visited yet; a split hands the oldest half of that work, by
+ * subtree size, to a new spliterator, expanding a lone directory first if needed.
+ * Subtree sizes come from the totals kept by each directory, so splitting never
+ * walks the tree. Changes made during the traversal may or may not be seen.
+ */
+class DirSpliterator implements Spliterator<DirNode> {
+    private final Deque<DirNode> pending;
+    private final Deque<DirNode> expanded;
+    private long estimate;
+
+    /*
+     * EFFECTS:   create a spliterator over the given directory and its whole subtree
+     */
+    DirSpliterator(Dir root) {
+        pending = new ArrayDeque<>();
+        expanded = new ArrayDeque<>();
+        pending.add(root);
+        estimate = weight(root);
+    }
+
+    /*
+     * EFFECTS:   create a spliterator over the subtrees of the given nodes
+     */
+    private DirSpliterator(Deque<DirNode> pending, long estimate) {
+        this.pending = pending;
+        this.expanded = new ArrayDeque<>();
+        this.estimate = estimate;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super DirNode> action) {
+        DirNode node = expanded.pollFirst();
+        if (node == null) {
+            node = pending.pollLast();
+            if (node == null) {
+                return false;
+            }
+            if (node instanceof Dir) {
+                pushChildren((Dir) node);
+            }
+        }
+        estimate--;
+        action.accept(node);
+        return true;
+    }
+
+    @Override
+    public Spliterator<DirNode> trySplit() {
+        while (pending.size() == 1 && pending.peekFirst() instanceof Dir) {
+            Dir dir = (Dir) pending.pollFirst();
+            expanded.add(dir);
+            pushChildren(dir);
+        }
+        if (pending.size() < 2) {
+            return null;
+        }
+        Deque<DirNode> prefix = new ArrayDeque<>();
+        long half = estimate / 2;
+        long taken = 0;
+        while (pending.size() > 1 && taken < half) {
+            DirNode node = pending.pollFirst();
+            prefix.add(node);
+            taken += weight(node);
+        }
+        estimate = Math.max(estimate - taken, 0);
+        return new DirSpliterator(prefix, taken);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Math.max(estimate, 0);
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   add the subdirectories and files of the given directory to the pending nodes
+     */
+    private void pushChildren(Dir dir) {
+        pending.addAll(dir.getSubDirs());
+        pending.addAll(dir.getFiles());
+    }
+
+    /*
+     * EFFECTS:   return the number of nodes in the subtree of the given node
+     */
+    private static long weight(DirNode node) {
+        if (node instanceof Dir) {
+            Dir dir = (Dir) node;
+            return 1L + dir.getTotalNumSubDirs() + dir.getTotalNumFiles();
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,254 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Walks a directory tree without recursion, so walks of deep trees never overflow
+ * the stack. An ordered walk visits the subdirectories of each directory, then its
+ * files, each in alphabetical order:
+ *   - PRE_ORDER visits a directory before everything below it,
+ *   - POST_ORDER visits a directory after everything below it,
+ *   - BREADTH_FIRST visits the tree level by level.
+ * preOrder() gives the same pre-order as a lazy stream that can skip whole subtrees.
+ * For work that doesn't need an order, stream() gives a splittable stream of every
+ * node that can run in parallel, and reduce() splits the tree into fork/join tasks
+ * by subdirectory. Walks see the live tree; changes made during a walk may or may
+ * not be seen.
+ */
+public final class DirWalker {
+    // subtrees with fewer nodes than this are reduced on the current thread
+    private static final int SEQUENTIAL_THRESHOLD = 10_000;
+
+    /**
+     * Represents the order in which an ordered walk visits the tree.
+     */
+    public enum Order {
+        PRE_ORDER, POST_ORDER, BREADTH_FIRST
+    }
+
+    private DirWalker() {
+    }
+
+    /*
+     * EFFECTS:   visit the given directory and every directory and file below it in the
+     *                given order
+     */
+    public static void walk(Dir root, Order order, TreeVisitor visitor) {
+        if (order == Order.BREADTH_FIRST) {
+            walkBreadthFirst(root, visitor);
+        } else {
+            walkDepthFirst(root, order == Order.PRE_ORDER, visitor);
+        }
+    }
+
+    /*
+     * EFFECTS:   visit the subtree depth first, each directory before its children if
+     *                preOrder, after them otherwise
+     */
+    private static void walkDepthFirst(Dir root, boolean preOrder, TreeVisitor visitor) {
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(new Frame(root, 0));
+        while (!stack.isEmpty()) {
+            Frame frame = stack.pop();
+            if (frame.node instanceof File) {
+                visitor.visitFile((File) frame.node, frame.depth);
+            } else if (frame.expanded) {
+                if (!preOrder) {
+                    visitor.visitDir((Dir) frame.node, frame.depth);
+                }
+            } else {
+                if (preOrder) {
+                    visitor.visitDir((Dir) frame.node, frame.depth);
+                }
+                frame.expanded = true;
+                stack.push(frame);
+                List<Frame> children = childrenOf((Dir) frame.node, frame.depth + 1);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            }
+        }
+    }
+
+    /*
+     * EFFECTS:   visit the subtree level by level
+     */
+    private static void walkBreadthFirst(Dir root, TreeVisitor visitor) {
+        Deque<Frame> queue = new ArrayDeque<>();
+        queue.add(new Frame(root, 0));
+        while (!queue.isEmpty()) {
+            Frame frame = queue.poll();
+            if (frame.node instanceof File) {
+                visitor.visitFile((File) frame.node, frame.depth);
+            } else {
+                visitor.visitDir((Dir) frame.node, frame.depth);
+                queue.addAll(childrenOf((Dir) frame.node, frame.depth + 1));
+            }
+        }
+    }
+
+    /*
+     * EFFECTS:   return frames for the subdirectories and then the files of the given
+     *                directory, each in alphabetical order, at the given depth
+     */
+    private static List<Frame> childrenOf(Dir dir, int depth) {
+        List<String> subDirNames = dir.getOrderedSubDirNames();
+        List<String> fileNames = dir.getOrderedFileNames();
+        List<Frame> children = new ArrayList<>(subDirNames.size() + fileNames.size());
+        for (String name : subDirNames) {
+            Dir subDir = dir.findSubDir(name);
+            if (subDir != null) {
+                children.add(new Frame(subDir, depth));
+            }
+        }
+        for (String name : fileNames) {
+            File file = dir.findFile(name);
+            if (file != null) {
+                children.add(new Frame(file, depth));
+            }
+        }
+        return children;
+    }
+
+    /*
+     * EFFECTS:   return a lazy stream of the given directory and every directory and file below
+     *                it in pre-order, each directory's subdirectories and then files in
+     *                alphabetical order; the children of a directory are only listed once the
+     *                stream reaches it, and only if enter accepts the directory and its depth
+     *                below root, so rejected subtrees are never visited
+     */
+    public static Stream<DirNode> preOrder(Dir root, BiPredicate<Dir, Integer> enter) {
+        Iterator<DirNode> iterator = new PreOrderIterator(root, enter);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    /*
+     * EFFECTS:   return a splittable spliterator over the given directory and every
+     *                directory and file below it, in no particular order
+     */
+    public static Spliterator<DirNode> spliterator(Dir root) {
+        return new DirSpliterator(root);
+    }
+
+    /*
+     * EFFECTS:   return a sequential stream of the given directory and every directory and
+     *                file below it, in no particular order; call parallel() on it to
+     *                spread the work over every core
+     */
+    public static Stream<DirNode> stream(Dir root) {
+        return StreamSupport.stream(spliterator(root), false);
+    }
+
+    /*
+     * REQUIRES:  combiner is associative and commutative, as nodes are combined in no particular order
+     * EFFECTS:   map every node in the subtree of root with mapper and combine the results
+     *                with combiner, splitting the tree by subdirectory into fork/join tasks
+     *                on the common pool
+     */
+    public static <R> R reduce(Dir root, Function<DirNode, R> mapper, BinaryOperator<R> combiner) {
+        return ForkJoinPool.commonPool().invoke(new ReduceTask<>(root, mapper, combiner));
+    }
+
+    /**
+     * Represents a node waiting to be visited in an ordered walk, at its depth below the
+     * start of the walk; a directory is expanded once its children have been queued.
+     */
+    private static class Frame {
+        private final DirNode node;
+        private final int depth;
+        private boolean expanded;
+
+        Frame(DirNode node, int depth) {
+            this.node = node;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * Represents a lazy pre-order walk: the stack holds the nodes still to be produced, and a
+     * directory's children are pushed only when the directory itself is produced.
+     */
+    private static class PreOrderIterator implements Iterator<DirNode> {
+        private final Deque<Frame> stack;
+        private final BiPredicate<Dir, Integer> enter;
+
+        PreOrderIterator(Dir root, BiPredicate<Dir, Integer> enter) {
+            this.stack = new ArrayDeque<>();
+            this.enter = enter;
+            stack.push(new Frame(root, 0));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public DirNode next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Frame frame = stack.pop();
+            if (frame.node instanceof Dir && enter.test((Dir) frame.node, frame.depth)) {
+                List<Frame> children = childrenOf((Dir) frame.node, frame.depth + 1);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            }
+            return frame.node;
+        }
+    }
+
+    /**
+     * Represents the reduction of one subtree. Large subdirectories are forked as their
+     * own tasks; small ones are reduced on the current thread.
+     */
+    private static class ReduceTask<R> extends RecursiveTask<R> {
+        private final Dir dir;
+        private final Function<DirNode, R> mapper;
+        private final BinaryOperator<R> combiner;
+
+        ReduceTask(Dir dir, Function<DirNode, R> mapper, BinaryOperator<R> combiner) {
+            this.dir = dir;
+            this.mapper = mapper;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            List<ReduceTask<R>> forked = new ArrayList<>();
+            R result = mapper.apply(dir);
+            for (File file : dir.getFiles()) {
+                result = combiner.apply(result, mapper.apply(file));
+            }
+            for (Dir subDir : dir.getSubDirs()) {
+                ReduceTask<R> task = new ReduceTask<>(subDir, mapper, combiner);
+                if (subDir.getTotalNumFiles() + subDir.getTotalNumSubDirs() < SEQUENTIAL_THRESHOLD) {
+                    result = combiner.apply(result, task.compute());
+                } else {
+                    forked.add(task);
+                    task.fork();
+                }
+            }
+            for (ReduceTask<R> task : forked) {
+                result = combiner.apply(result, task.join());
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Represents the undo and redo history of every file in a tree, recorded as it observes the
+ * edits of their contents, so the history of a file survives switching to other files and
+ * back, and moving or renaming the file. Each step is a compact delta: the offset of the
+ * range it changed, the text needed to reverse it (the text removed while it can be undone,
+ * the text inserted while it can be redone) and the length of the other side, which is read
+ * back from the file when the step is taken. A change of the whole content is trimmed to
+ * the range that differs (see ContentEdit), and typing or deleting that continues the last
+ * step within MERGE_MILLIS is merged into it. As contents are ropes, taking a step costs
+ * O(log n) plus the text it changes however many steps came before, so no full copies of a
+ * content are kept to replay from.
+ * The steps of all files together are bounded by a byte budget; when it is exceeded, the
+ * oldest steps are evicted first, whichever files they belong to. A change whose content
+ * before isn't known, e.g. content replaced without being loaded, ends the history of its
+ * file. Like other observers, the history takes its lock while holding a file's monitor.
+ */
+public final class EditHistory implements TreeObserver {
+    static final int STEP_OVERHEAD = 48;
+    private static final long MERGE_MILLIS = 1000;
+
+    private final Map<File, FileHistory> histories;
+    private final Deque<Step> steps;
+    private final Set<File> applying;
+    private long byteBudget;
+    private long usedBytes;
+    private int liveSteps;
+
+    /*
+     * REQUIRES:  byteBudget >= 0
+     * MODIFIES:  rootDir
+     * EFFECTS:   create an empty history of the files under the given root directory, holding
+     *                at most byteBudget bytes of steps, and register it as an observer of the
+     *                root directory
+     */
+    public EditHistory(Dir rootDir, long byteBudget) {
+        this.histories = new HashMap<>();
+        this.steps = new ArrayDeque<>();
+        this.applying = new HashSet<>();
+        this.byteBudget = byteBudget;
+        rootDir.addObserver(this);
+    }
+
+    /*
+     * EFFECTS:   return the bytes the steps of all files take, approximately
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /*
+     * EFFECTS:   return the most bytes the steps of all files may take
+     */
+    public synchronized long getByteBudget() {
+        return byteBudget;
+    }
+
+    /*
+     * REQUIRES:  byteBudget >= 0
+     * MODIFIES:  this
+     * EFFECTS:   set the most bytes the steps of all files may take, evicting the oldest steps
+     *                until they fit
+     */
+    public synchronized void setByteBudget(long byteBudget) {
+        this.byteBudget = byteBudget;
+        evict();
+    }
+
+    /*
+     * EFFECTS:   return true if the given file has a change to undo
+     */
+    public synchronized boolean canUndo(File file) {
+        FileHistory history = histories.get(file);
+        return history != null && !history.undo.isEmpty();
+    }
+
+    /*
+     * EFFECTS:   return true if the given file has an undone change to redo
+     */
+    public synchronized boolean canRedo(File file) {
+        FileHistory history = histories.get(file);
+        return history != null && !history.redo.isEmpty();
+    }
+
+    /*
+     * MODIFIES:  this, file
+     * EFFECTS:   undo the last change of the given file that isn't undone, and return the offset
+     *                of the range it changed; return -1 if there is none
+     */
+    public int undo(File file) {
+        return takeStep(file, true);
+    }
+
+    /*
+     * MODIFIES:  this, file
+     * EFFECTS:   redo the last change of the given file undone since it was last edited, and
+     *                return the offset of the range it changed; return -1 if there is none
+     */
+    public int redo(File file) {
+        return takeStep(file, false);
+    }
+
+    @Override
+    public synchronized void fileEdited(File file, ContentEdit edit) {
+        if (applying.contains(file)) {
+            return;
+        }
+        if (!edit.isKnown()) {
+            drop(file);
+            return;
+        }
+        if (edit.getRemovedLength() == 0 && edit.getInsertedLength() == 0) {
+            return;
+        }
+        FileHistory history = histories.computeIfAbsent(file, f -> new FileHistory());
+        clear(history.redo);
+        long now = System.currentTimeMillis();
+        Step last = history.undo.peekLast();
+        long lastBytes = last == null ? 0 : last.bytes();
+        if (last != null && last.merge(edit, now)) {
+            usedBytes += last.bytes() - lastBytes;
+        } else {
+            Step step = new Step(history, edit.getOffset(), edit.getRemovedText(), edit.getInsertedLength(), now);
+            history.undo.addLast(step);
+            steps.addLast(step);
+            liveSteps++;
+            usedBytes += step.bytes();
+        }
+        evict();
+    }
+
+    @Override
+    public void nodeAdded(Dir parent, DirNode node) {
+        // a new file has no history until it is edited
+    }
+
+    @Override
+    public synchronized void nodeRemoved(Dir parent, DirNode node) {
+        if (node instanceof File) {
+            drop((File) node);
+        } else {
+            DirWalker.stream((Dir) node).filter(child -> child instanceof File).forEach(file -> drop((File) file));
+        }
+    }
+
+    @Override
+    public void nodeMoved(Dir oldParent, String oldName, DirNode node) {
+        // histories belong to files, not paths
+    }
+
+    /*
+     * MODIFIES:  this, file
+     * EFFECTS:   take the last step of the given file off its undo stack if undo, else off its redo
+     *                stack, apply it to the file and put it on the other stack; return the offset of
+     *                the range it changed, or -1 if there is no step or the file no longer matches
+     *                it, which ends the history of the file
+     */
+    private int takeStep(File file, boolean undo) {
+        synchronized (file) {
+            Step step = pollStep(file, undo);
+            if (step == null) {
+                return -1;
+            }
+            try {
+                String other = file.subSequence(step.offset, step.offset + step.otherLength).toString();
+                file.replace(step.offset, step.otherLength, step.text, new Date());
+                synchronized (this) {
+                    stepTaken(step, other, undo);
+                }
+                return step.offset;
+            } catch (IndexOutOfBoundsException e) {
+                synchronized (this) {
+                    release(step);
+                    drop(file);
+                }
+                return -1;
+            } finally {
+                synchronized (this) {
+                    applying.remove(file);
+                }
+            }
+        }
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   take the last step of the given file off its undo stack if undo, else off its redo
+     *                stack, and ignore the edits of the file until it is taken; return null if there
+     *                is none
+     */
+    private synchronized Step pollStep(File file, boolean undo) {
+        FileHistory history = histories.get(file);
+        Step step = history == null ? null : (undo ? history.undo : history.redo).pollLast();
+        if (step != null) {
+            applying.add(file);
+        }
+        return step;
+    }
+
+    /*
+     * REQUIRES:  the lock of this is held, step has just been applied, replacing other by its text
+     * MODIFIES:  this
+     * EFFECTS:   turn the given step around so that it reverses itself, put it on the redo stack
+     *                of its file if undone, else on the undo stack, and evict steps if over budget;
+     *                do nothing if it was evicted while it was taken
+     */
+    private void stepTaken(Step step, String other, boolean undone) {
+        if (step.dropped) {
+            return;
+        }
+        long before = step.bytes();
+        step.otherLength = step.text.length();
+        step.text = other;
+        step.mergeable = false;
+        usedBytes += step.bytes() - before;
+        (undone ? step.history.redo : step.history.undo).addLast(step);
+        evict();
+    }
+
+    /*
+     * REQUIRES:  the lock of this is held
+     * MODIFIES:  this
+     * EFFECTS:   evict the oldest steps until the steps fit in the byte budget; an undone step is
+     *                evicted with the steps undone after it, which can't be redone without it
+     */
+    private void evict() {
+        while (usedBytes > byteBudget && !steps.isEmpty()) {
+            Step oldest = steps.pollFirst();
+            if (oldest.dropped) {
+                continue;
+            }
+            FileHistory history = oldest.history;
+            if (history.undo.peekFirst() == oldest) {
+                history.undo.pollFirst();
+                release(oldest);
+            } else if (history.redo.peekLast() == oldest) {
+                clear(history.redo);
+            } else {
+                // being taken, so on neither stack; it isn't put back once taken
+                release(oldest);
+            }
+        }
+        if (steps.size() > 2 * liveSteps + 64) {
+            steps.removeIf(step -> step.dropped);
+        }
+    }
+
+    /*
+     * REQUIRES:  the lock of this is held
+     * MODIFIES:  this
+     * EFFECTS:   end the history of the given file
+     */
+    private void drop(File file) {
+        FileHistory history = histories.remove(file);
+        if (history != null) {
+            clear(history.undo);
+            clear(history.redo);
+        }
+    }
+
+    /*
+     * REQUIRES:  the lock of this is held
+     * MODIFIES:  this, stack
+     * EFFECTS:   release every step of the given stack and empty it
+     */
+    private void clear(Deque<Step> stack) {
+        stack.forEach(this::release);
+        stack.clear();
+    }
+
+    /*
+     * REQUIRES:  the lock of this is held
+     * MODIFIES:  this
+     * EFFECTS:   stop counting the given step, which is on no stack; it is skipped when evicting
+     */
+    private void release(Step step) {
+        if (!step.dropped) {
+            step.dropped = true;
+            liveSteps--;
+            usedBytes -= step.bytes();
+        }
+    }
+
+    /**
+     * Represents the history of one file: the steps that can be undone, the last on top, and
+     * the steps undone since it was last edited, the last undone on top.
+     */
+    private static final class FileHistory {
+        private final Deque<Step> undo = new ArrayDeque<>();
+        private final Deque<Step> redo = new ArrayDeque<>();
+    }
+
+    /**
+     * Represents one step of the history of a file: replacing the otherLength characters at
+     * offset by text reverses the change it records.
+     */
+    private static final class Step {
+        private final FileHistory history;
+        private int offset;
+        private String text;
+        private int otherLength;
+        private long lastMillis;
+        private boolean mergeable;
+        private boolean dropped;
+
+        Step(FileHistory history, int offset, String text, int otherLength, long now) {
+            this.history = history;
+            this.offset = offset;
+            this.text = text;
+            this.otherLength = otherLength;
+            this.lastMillis = now;
+            this.mergeable = true;
+        }
+
+        /*
+         * EFFECTS:   return the bytes this step takes, approximately
+         */
+        long bytes() {
+            return STEP_OVERHEAD + 2L * text.length();
+        }
+
+        /*
+         * MODIFIES:  this
+         * EFFECTS:   merge the given edit into this step and return true if it was made within
+         *                MERGE_MILLIS of the last edit merged and continues it: typing on after the
+         *                text this step inserted, or deleting on before or after the text this step
+         *                deleted
+         */
+        boolean merge(ContentEdit edit, long now) {
+            if (!mergeable || now - lastMillis > MERGE_MILLIS) {
+                return false;
+            }
+            if (edit.getRemovedLength() == 0 && edit.getOffset() == offset + otherLength) {
+                otherLength += edit.getInsertedLength();
+            } else if (edit.getInsertedLength() == 0 && otherLength == 0
+                    && edit.getOffset() + edit.getRemovedLength() == offset) {
+                text = edit.getRemovedText() + text;
+                offset = edit.getOffset();
+            } else if (edit.getInsertedLength() == 0 && otherLength == 0 && edit.getOffset() == offset) {
+                text = text + edit.getRemovedText();
+            } else {
+                return false;
+            }
+            lastMillis = now;
+            return true;
+        }
+    }
+}
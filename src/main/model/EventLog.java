@@ -1,14 +1,16 @@
 package model;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Represents a log of alarm system events.
  * We use the Singleton Design Pattern to ensure that there is only
  * one EventLog in the system and that the system has global access
  * to the single instance of the EventLog.
+ * Events may be logged from any thread; iteration is weakly consistent and
+ * never fails because of concurrent logging.
  */
 public class EventLog implements Iterable<Event> {
     /** the only EventLog in the system (Singleton Design Pattern) */
@@ -20,7 +22,7 @@ public class EventLog implements Iterable<Event> {
      * (Singleton Design Pattern).
      */
     private EventLog() {
-        events = new ArrayList<>();
+        events = new ConcurrentLinkedQueue<>();
     }
 
     /**
@@ -29,7 +31,7 @@ public class EventLog implements Iterable<Event> {
      * (Singleton Design Pattern)
      * @return  instance of EventLog
      */
-    public static EventLog getInstance() {
+    public static synchronized EventLog getInstance() {
         if (theLog == null) {
             theLog = new EventLog();
         }
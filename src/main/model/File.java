@@ -4,19 +4,44 @@ import model.exceptions.IllegalNameException;
 import org.json.JSONObject;
 import persistence.Writable;
 
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.Calendar;
 import java.util.Date;
 
 /**
  * Represents a file in file system with a file name, file content, and meta
- * information of the file, such as date created, date modified, file size
+ * information of the file, such as date created, date modified, file size.
+ * The size of a file is the size of its content encoded in UTF-8, as stored on disk.
+ * The content is kept as a rope, so inserting or deleting text costs O(log n)
+ * rather than a copy of the whole document; the content as a string is only built
+ * when asked for, and cached until the next change.
+ * A file in a tree with a ContentStore shares its content with the files whose content is
+ * identical, until its content is changed. The content of a file can also be stored elsewhere:
+ * compressed while nobody reads it (see ColdStorage), or on disk until first read (see
+ * persistence.JsonReader). While it is stored, text and content are null, and reading the
+ * content loads it. Content held outside the heap by an OffHeapStore is decoded on every read
+ * instead, and a change to it is stored there again, so it never stays on the heap.
+ * Content and metadata can be read from any thread without locking; changes are
+ * made while holding the file's monitor. The immutable snapshot of a file is cached
+ * until the file is next changed.
  */
-public class File implements Writable {
-    private String name;
+public class File implements DirNode, Writable {
+    private volatile String name;
     private final Date dateCreated;
-    private Date dateModified;
-    private String content;
-    private int size;
+    private volatile Date dateModified;
+    private volatile Rope text;
+    private volatile String content;
+    private volatile long size;
+    private volatile int charCount;
+    private volatile int lineCount;
+    private volatile Dir parentDir;
+    private volatile FileSnapshot snapshot;
+    private ContentStore.Blob blob;
+    private volatile StoredContent stored;
+    private ColdStorage coldStorage;
+    private volatile long lastAccess = System.currentTimeMillis();
+    private long insertionSeq;
     private final String illegalFileNameMsg = "File name must be nonempty string.";
     private EventLog eventLog = EventLog.getInstance();
 
@@ -32,6 +57,7 @@ public class File implements Writable {
         this.name = name;
         this.dateCreated = Calendar.getInstance().getTime();
         this.dateModified = this.dateCreated;
+        this.text = Rope.of("");
         this.content = "";
         this.size = 0;
     }
@@ -48,8 +74,11 @@ public class File implements Writable {
         this.name = name;
         this.dateCreated = Calendar.getInstance().getTime();
         this.dateModified = this.dateCreated;
+        this.text = Rope.of(content);
         this.content = content;
-        this.size = content.length();
+        this.size = text.utf8Length();
+        this.charCount = text.codePointCount();
+        this.lineCount = text.lineCount();
     }
 
     /*
@@ -65,13 +94,37 @@ public class File implements Writable {
         this.name = name;
         this.dateCreated = dateCreated;
         this.dateModified = dateModified;
+        this.text = Rope.of(content);
         this.content = content;
-        this.size = content.length();
+        this.size = text.utf8Length();
+        this.charCount = text.codePointCount();
+        this.lineCount = text.lineCount();
+    }
+
+    /*
+     * EFFECTS:   create a file with the given name and time stamp whose content is kept in the given
+     *     store until it is first read;
+     *     throws IllegalNameException if the given name is blank, i.e. name is empty
+     *     or contains only white space
+     */
+    public File(String name, StoredContent stored, Date dateCreated, Date dateModified)
+            throws IllegalNameException {
+        if (name.isBlank()) {
+            throw new IllegalNameException("File.File_String_StoredContent_Date_Date: " + illegalFileNameMsg);
+        }
+        this.name = name;
+        this.dateCreated = dateCreated;
+        this.dateModified = dateModified;
+        this.stored = stored;
+        this.size = stored.getSize();
+        this.charCount = stored.getCharCount();
+        this.lineCount = stored.getLineCount();
     }
 
     /*
      * EFFECTS:   return name of file
      */
+    @Override
     public String getName() {
         return name;
     }
@@ -91,38 +144,525 @@ public class File implements Writable {
     }
 
     /*
-     * EFFECTS:   return content of file
+     * EFFECTS:   return content of file, building it from the rope if it has been edited
+     *                since it was last asked for
      */
     public String getContent() {
-        return content;
+        lastAccess = System.currentTimeMillis();
+        String cached = content;
+        if (cached != null) {
+            return cached;
+        }
+        Rope current = text();
+        synchronized (this) {
+            if (content == null && text == current) {
+                content = current.toString();
+            }
+            return content != null ? content : current.toString();
+        }
+    }
+
+    /*
+     * EFFECTS:   return a reader of the content of file; content held outside the heap is decoded
+     *                as it is read, without building a string
+     */
+    public Reader openReader() {
+        lastAccess = System.currentTimeMillis();
+        StoredContent current = stored;
+        if (current != null && current.isResident()) {
+            return current.openReader();
+        }
+        return new StringReader(getContent());
     }
 
     /*
-     * EFFECTS:   return size of file
+     * EFFECTS:   return content of file without keeping it or recording a read, for background
+     *                readers such as indexes: content stored elsewhere is loaded each time rather
+     *                than kept in memory, and the string of an edited file isn't cached
      */
-    public int getSize() {
+    public String readContent() {
+        String cached = content;
+        if (cached != null) {
+            return cached;
+        }
+        Rope current = text;
+        if (current != null) {
+            return current.toString();
+        }
+        StoredContent currentStored = stored;
+        // both can be null only while the content is being replaced
+        return currentStored != null ? currentStored.load() : currentText().toString();
+    }
+
+    /*
+     * EFFECTS:   return content of file as an immutable rope, without building a string
+     */
+    public Rope getText() {
+        return text();
+    }
+
+    /*
+     * EFFECTS:   return the content of file in [start, end) without building a string;
+     *            throws IndexOutOfBoundsException if the range is invalid
+     */
+    public CharSequence subSequence(int start, int end) {
+        return text().subSequence(start, end);
+    }
+
+    /*
+     * EFFECTS:   return the number of lines in file, where text after the last line break is a line;
+     *                kept up to date on every change, like the size
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /*
+     * EFFECTS:   return the offset of the first character of the given line, counted from 0,
+     *                or the length of file if line is the line count, in O(log n);
+     *            throws IndexOutOfBoundsException if line is not in [0, getLineCount()]
+     */
+    public int getLineStart(int line) {
+        return text().lineStart(line);
+    }
+
+    /*
+     * EFFECTS:   return the line, counted from 0, of the character at the given offset, in O(log n);
+     *            throws IndexOutOfBoundsException if offset is not in [0, getLength()]
+     */
+    public int getLineOf(int offset) {
+        return text().lineOf(offset);
+    }
+
+    /*
+     * EFFECTS:   return the lines of file from line from up to but excluding line to, counted from 0,
+     *                with their line breaks, without building the rest of the content;
+     *            throws IndexOutOfBoundsException unless 0 <= from <= to <= getLineCount()
+     */
+    public CharSequence getLines(int from, int to) {
+        return text().lines(from, to);
+    }
+
+    /*
+     * EFFECTS:   return size of file in bytes, i.e. of its content encoded in UTF-8; kept up to date
+     *                on every change in O(log n) rather than by encoding the content
+     */
+    public long getSize() {
         return size;
     }
 
+    /*
+     * EFFECTS:   return the length of the content of file in UTF-16 code units, the unit of the
+     *                offsets taken by insert, delete and subSequence
+     */
+    public int getLength() {
+        StoredContent current = stored;
+        return current != null ? current.getLength() : currentText().length();
+    }
+
+    /*
+     * EFFECTS:   return the number of characters (code points) in file, a surrogate pair counting
+     *                as one; kept up to date on every change, like the size
+     */
+    public int getCharCount() {
+        return charCount;
+    }
+
+    /*
+     * EFFECTS:   return the directory containing this file, null if the file
+     *                hasn't been added to a directory
+     */
+    @Override
+    public Dir getParentDir() {
+        return parentDir;
+    }
+
+    /*
+     * EFFECTS:   return the absolute path of this file, or just its name if the file
+     *                hasn't been added to a directory
+     */
+    @Override
+    public String getAbsPath() {
+        if (parentDir == null) {
+            return name;
+        }
+        return parentDir.getAbsPath() + "/" + name;
+    }
+
+    /*
+     * REQUIRES:  the file isn't in any directory
+     * MODIFIES:  this
+     * EFFECTS:   change the name of this file
+     */
+    synchronized void setName(String name) {
+        this.name = name;
+        this.snapshot = null;
+    }
+
     /*
      * MODIFIES:  this
-     * EFFECTS:   save given content to file
+     * EFFECTS:   set the directory containing this file
+     */
+    void setParentDir(Dir dir) {
+        parentDir = dir;
+    }
+
+    /*
+     * MODIFIES:  this, parent directories of this
+     * EFFECTS:   save given content to file, update the size totals of the
+     *                directories above it and notify the observers of its tree, with
+     *                the range that differs from the content before if it has observers
      */
     public void update(String content, Date now) {
-        this.content = content;
-        this.size = content.length();
-        this.dateModified = now;
+        synchronized (this) {
+            Rope before = parentDir != null && parentDir.isObserved() ? textLocked() : null;
+            String beforeContent = before != null && this.content == null ? before.toString() : this.content;
+            Rope after = Rope.of(content);
+            setText(after, content, now);
+            if (before != null) {
+                edited(ContentEdit.between(before, beforeContent, after, content));
+            }
+        }
+        eventLog.logEvent(new Event("updated file: " + name));
+    }
+
+    /*
+     * MODIFIES:  this, parent directories of this
+     * EFFECTS:   insert str into the content of this file before the character at the given
+     *                offset, in O(log n), and update and notify like update;
+     *            throws IndexOutOfBoundsException if offset is not in [0, getLength()]
+     */
+    public void insert(int offset, String str, Date now) {
+        synchronized (this) {
+            Rope before = textLocked();
+            Rope after = before.insert(offset, str);
+            setText(after, null, now);
+            edited(new ContentEdit(before, after, offset, 0, str.length()));
+        }
+        eventLog.logEvent(new Event("updated file: " + name));
+    }
+
+    /*
+     * MODIFIES:  this, parent directories of this
+     * EFFECTS:   delete the count characters starting at the given offset from the content of
+     *                this file, in O(log n), and update and notify like update;
+     *            throws IndexOutOfBoundsException if the range is invalid
+     */
+    public void delete(int offset, int count, Date now) {
+        synchronized (this) {
+            Rope before = textLocked();
+            Rope after = before.delete(offset, count);
+            setText(after, null, now);
+            edited(new ContentEdit(before, after, offset, count, 0));
+        }
+        eventLog.logEvent(new Event("updated file: " + name));
+    }
+
+    /*
+     * MODIFIES:  this, parent directories of this
+     * EFFECTS:   replace the count characters starting at the given offset of the content of this
+     *                file by str, as one change, in O(log n), and update and notify like update;
+     *            throws IndexOutOfBoundsException if the range is invalid
+     */
+    public void replace(int offset, int count, String str, Date now) {
+        synchronized (this) {
+            Rope before = textLocked();
+            Rope after = before.delete(offset, count).insert(offset, str);
+            setText(after, null, now);
+            edited(new ContentEdit(before, after, offset, count, str.length()));
+        }
         eventLog.logEvent(new Event("updated file: " + name));
     }
 
+    /*
+     * REQUIRES:  the given content isn't resident, e.g. it is on disk
+     * MODIFIES:  this, parent directories of this
+     * EFFECTS:   replace the content of this file with the given stored content without loading it,
+     *                e.g. content too large to load that was edited and written elsewhere, and
+     *                update and notify like update
+     */
+    public void update(StoredContent stored, Date now) {
+        synchronized (this) {
+            unshare();
+            this.stored = stored;
+            this.text = null;
+            this.content = null;
+            this.coldStorage = null;
+            changed(stored.getSize(), stored.getCharCount(), stored.getLineCount(), now);
+            edited(new ContentEdit(null, null, 0, 0, 0));
+        }
+        eventLog.logEvent(new Event("updated file: " + name));
+    }
+
+    /*
+     * REQUIRES:  the monitor of this is held, content is null or the string of text
+     * MODIFIES:  this, parent directories of this
+     * EFFECTS:   replace the content of this file with the given text, update the size totals of
+     *                the directories above it and notify the observers of its tree
+     */
+    private void setText(Rope text, String content, Date now) {
+        unshare();
+        StoredContent old = stored;
+        OffHeapStore.Handle offHeap = old instanceof OffHeapStore.Handle
+                ? ((OffHeapStore.Handle) old).getStore().store(text, content != null ? content : text.toString())
+                : null;
+        if (offHeap != null) {
+            this.stored = offHeap;
+            this.text = null;
+            this.content = null;
+        } else {
+            this.text = text;
+            this.content = content;
+            this.stored = null;
+        }
+        this.coldStorage = null;
+        changed(text.utf8Length(), text.codePointCount(), text.lineCount(), now);
+    }
+
+    /*
+     * REQUIRES:  the monitor of this is held
+     * MODIFIES:  this, parent directories of this
+     * EFFECTS:   record that the content of this file changed to the given numbers of bytes,
+     *                characters and lines at the given time, update the totals of the directories
+     *                above it and notify the observers of its tree
+     */
+    private void changed(long newSize, int newCharCount, int newLineCount, Date now) {
+        long sizeDelta = newSize - size;
+        long charDelta = newCharCount - charCount;
+        long lineDelta = newLineCount - lineCount;
+        this.size = newSize;
+        this.charCount = newCharCount;
+        this.lineCount = newLineCount;
+        this.dateModified = now;
+        this.snapshot = null;
+        if (parentDir != null) {
+            parentDir.updateTotals(0, 0, sizeDelta, charDelta, lineDelta, now.getTime());
+            parentDir.notifyFileUpdated(this);
+        }
+    }
+
+    /*
+     * REQUIRES:  the monitor of this is held
+     * EFFECTS:   notify the observers of the tree of this file of the given edit of its content
+     */
+    private void edited(ContentEdit edit) {
+        if (parentDir != null) {
+            parentDir.notifyFileEdited(this, edit);
+        }
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   replace the content of this file with the identical content held by the given
+     *                blob and return true, unless the content has changed since it was the given
+     *                text or this already shares a blob
+     */
+    synchronized boolean share(Rope expected, ContentStore.Blob blob) {
+        if (text != expected || this.blob != null) {
+            return false;
+        }
+        this.blob = blob;
+        this.text = blob.getText();
+        this.content = blob.getContent();
+        this.snapshot = null;
+        return true;
+    }
+
+    /*
+     * MODIFIES:  this, the store holding the blob of this
+     * EFFECTS:   stop sharing the blob of this file, if any, keeping its content
+     */
+    synchronized void unshare() {
+        if (blob != null) {
+            blob.release();
+            blob = null;
+        }
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   record a read of the content of this file and return the content as a rope,
+     *                loading it if it is stored
+     */
+    private Rope text() {
+        lastAccess = System.currentTimeMillis();
+        return currentText();
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   return the content of this file as a rope, loading it if it is stored,
+     *                without recording a read
+     */
+    private Rope currentText() {
+        Rope current = text;
+        if (current != null) {
+            return current;
+        }
+        StoredContent resident = stored;
+        return resident != null && resident.isResident() ? Rope.of(resident.load()) : load();
+    }
+
+    /*
+     * REQUIRES:  the monitor of this is held
+     * EFFECTS:   return the content of this file as a rope, loading it without keeping it if it
+     *                is stored; the caller is about to replace it
+     */
+    private Rope textLocked() {
+        return text != null ? text : Rope.of(stored.load());
+    }
+
+    /*
+     * MODIFIES:  this, the cold storage that compressed this
+     * EFFECTS:   load the content of this file if it is stored, and put this file into the hot
+     *                cache of the storage that compressed it, if any; return the content
+     *            throws UncheckedIOException if the content is on disk and can't be read
+     */
+    private Rope load() {
+        ColdStorage storage;
+        Rope loaded;
+        synchronized (this) {
+            if (text != null) {
+                return text;
+            }
+            if (stored.isResident()) {
+                return Rope.of(stored.load());
+            }
+            String loadedContent = stored.load();
+            loaded = Rope.of(loadedContent);
+            storage = coldStorage;
+            text = loaded;
+            content = loadedContent;
+            // cleared after text is set, so readers always see one or the other
+            stored = null;
+            coldStorage = null;
+        }
+        if (storage != null) {
+            storage.inflated(this);
+        }
+        return loaded;
+    }
+
+    /*
+     * MODIFIES:  this, parent directories of this
+     * EFFECTS:   replace the content of this file with the same content compressed, on behalf of
+     *                the given storage, and return true; return false and do nothing if the file
+     *                is empty, compressed, shares its content with other files through a
+     *                ContentStore, can't be compressed, or changes while it is compressed; a file
+     *                alone with its content gives up its blob
+     */
+    boolean compress(ColdStorage storage) {
+        Rope current = text;
+        if (current == null || current.length() == 0 || isSharing()) {
+            return false;
+        }
+        String cached = content;
+        ColdContent compressed = ColdContent.of(current, cached != null ? cached : current.toString());
+        synchronized (this) {
+            if (compressed == null || text != current || isSharing()) {
+                return false;
+            }
+            unshare();
+            stored = compressed;
+            coldStorage = storage;
+            text = null;
+            content = null;
+            snapshot = null;
+            if (parentDir != null) {
+                // directory snapshots cached so far hold the rope; rebuild them without it
+                parentDir.updateTotals(0, 0, 0, 0, 0);
+            }
+        }
+        return true;
+    }
+
+    /*
+     * MODIFIES:  this, parent directories of this
+     * EFFECTS:   move the content of this file into the given store and return true; return false
+     *                and do nothing if the file is empty, already off the heap, shares its content
+     *                with other files through a ContentStore, or can't be encoded; content that is
+     *                stored elsewhere is loaded first
+     */
+    synchronized boolean moveOffHeap(OffHeapStore store) {
+        if (stored instanceof OffHeapStore.Handle || getLength() == 0 || isSharing()) {
+            return false;
+        }
+        Rope current = textLocked();
+        OffHeapStore.Handle handle = store.store(current, content != null ? content : current.toString());
+        if (handle == null) {
+            return false;
+        }
+        unshare();
+        stored = handle;
+        coldStorage = null;
+        text = null;
+        content = null;
+        snapshot = null;
+        if (parentDir != null) {
+            // directory snapshots cached so far hold the rope; rebuild them without it
+            parentDir.updateTotals(0, 0, 0, 0, 0);
+        }
+        return true;
+    }
+
+    /*
+     * EFFECTS:   return true if this file shares its content with other files
+     */
+    private synchronized boolean isSharing() {
+        return blob != null && blob.isShared();
+    }
+
+    /*
+     * EFFECTS:   return the stored content of this file, null if its content is in memory
+     */
+    StoredContent getStoredContent() {
+        return stored;
+    }
+
+    /*
+     * EFFECTS:   return the time in milliseconds the content of this file was last read
+     */
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    /*
+     * EFFECTS:   return the position of this file among the files of its directory,
+     *                in the order they were added
+     */
+    long getInsertionSeq() {
+        return insertionSeq;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   record the position of this file among the files of its directory
+     */
+    void setInsertionSeq(long insertionSeq) {
+        this.insertionSeq = insertionSeq;
+    }
+
+    /*
+     * EFFECTS:   return an immutable snapshot of this file, the cached one if the file
+     *                hasn't changed since it was taken
+     */
+    public FileSnapshot snapshot() {
+        FileSnapshot cached = snapshot;
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = text != null ? new FileSnapshot(name, dateCreated, dateModified, text, content)
+                        : new FileSnapshot(name, dateCreated, dateModified, stored);
+            }
+            return snapshot;
+        }
+    }
+
     @Override
     public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-        json.put("name", name);
-        json.put("dateCreated", dateCreated);
-        json.put("dateModified", dateModified);
-        json.put("content", content);
-        return json;
+        return snapshot().toJson();
     }
 
     /*
@@ -0,0 +1,151 @@
+package model;
+
+import org.json.JSONObject;
+import persistence.Writable;
+
+import java.util.Date;
+
+/**
+ * Represents an immutable view of a file at one point in time: its name, dates and
+ * content. A file caches its snapshot until it is next changed, so every directory
+ * snapshot taken in between shares the same instance. The snapshot shares the rope of
+ * the file's content, so taking it after an edit copies nothing; the content as a
+ * string is built when first asked for. The snapshot of a file whose content is stored
+ * elsewhere (see StoredContent) holds the stored content instead, and loads it each time
+ * it is asked for.
+ */
+public final class FileSnapshot implements Writable {
+    private final String name;
+    private final Date dateCreated;
+    private final Date dateModified;
+    private final Rope text;
+    private volatile String content;
+    private final StoredContent stored;
+
+    /*
+     * REQUIRES:  content is null or the string of text
+     * EFFECTS:   create a snapshot of a file with the given name, dates and content
+     */
+    FileSnapshot(String name, Date dateCreated, Date dateModified, Rope text, String content) {
+        this.name = name;
+        this.dateCreated = dateCreated;
+        this.dateModified = dateModified;
+        this.text = text;
+        this.content = content;
+        this.stored = null;
+    }
+
+    /*
+     * EFFECTS:   create a snapshot of a file with the given name, dates and stored content
+     */
+    FileSnapshot(String name, Date dateCreated, Date dateModified, StoredContent stored) {
+        this.name = name;
+        this.dateCreated = dateCreated;
+        this.dateModified = dateModified;
+        this.text = null;
+        this.content = null;
+        this.stored = stored;
+    }
+
+    /*
+     * EFFECTS:   return name of file
+     */
+    public String getName() {
+        return name;
+    }
+
+    /*
+     * EFFECTS:   return created date of file
+     */
+    public Date getDateCreated() {
+        return new Date(dateCreated.getTime());
+    }
+
+    /*
+     * EFFECTS:   return modified date of file
+     */
+    public Date getDateModified() {
+        return new Date(dateModified.getTime());
+    }
+
+    /*
+     * EFFECTS:   return content of file
+     */
+    public String getContent() {
+        if (stored != null) {
+            // not cached, so the snapshot of a stored file stays small
+            return stored.load();
+        }
+        String cached = content;
+        if (cached == null) {
+            // racing threads build equal strings from the same immutable rope
+            cached = text.toString();
+            content = cached;
+        }
+        return cached;
+    }
+
+    /*
+     * EFFECTS:   return content of file as an immutable rope
+     */
+    public Rope getText() {
+        return stored != null ? Rope.of(stored.load()) : text;
+    }
+
+    /*
+     * EFFECTS:   return size of file in bytes, i.e. of its content encoded in UTF-8
+     */
+    public long getSize() {
+        return stored != null ? stored.getSize() : text.utf8Length();
+    }
+
+    /*
+     * EFFECTS:   return the number of characters (code points) in file
+     */
+    public int getCharCount() {
+        return stored != null ? stored.getCharCount() : text.codePointCount();
+    }
+
+    /*
+     * EFFECTS:   return the number of lines in file
+     */
+    public int getLineCount() {
+        return stored != null ? stored.getLineCount() : text.lineCount();
+    }
+
+    /*
+     * EFFECTS:   return the length of the content of file in UTF-16 code units
+     */
+    public int getLength() {
+        return stored != null ? stored.getLength() : text.length();
+    }
+
+    /*
+     * EFFECTS:   return the content of file as it is stored elsewhere, null if it is in memory
+     */
+    public StoredContent getStoredContent() {
+        return stored;
+    }
+
+    /*
+     * EFFECTS:   return the JSON representation of file without its content
+     */
+    public JSONObject toMetadataJson() {
+        JSONObject json = new JSONObject();
+        json.put("name", name);
+        json.put("dateCreated", dateCreated);
+        json.put("dateModified", dateModified);
+        json.put("size", getSize());
+        json.put("length", getLength());
+        json.put("characters", getCharCount());
+        json.put("lines", getLineCount());
+        return json;
+    }
+
+    @Override
+    public JSONObject toJson() {
+        JSONObject json = toMetadataJson();
+        json.put("content", getContent());
+        return json;
+    }
+}
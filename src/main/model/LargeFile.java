@@ -0,0 +1,351 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents content too large to hold in memory as a string or rope, e.g. a log of several
+ * gigabytes, opened for viewing and editing a window of lines at a time. The content on disk
+ * (the base) is mapped read-only into memory, in regions of up to REGION bytes, so the
+ * operating system only pages in the parts that are read; edits are kept in an overlay of
+ * replaced line ranges. Lines are numbered with longs and found through a sparse index of the
+ * offset of every LINE_STRIDE-th line of the base, built by one scan when it is opened.
+ * Writing streams the unchanged ranges of the base from disk and the edited lines from the
+ * overlay, so the whole content is never in memory.
+ * The content is read as UTF-8 with '\n' line breaks; a line includes its line break, and
+ * text after the last line break is a line. The base stays readable through the channel
+ * opened with it, even if the file is replaced on disk, until it is closed.
+ */
+public final class LargeFile implements Closeable {
+    static final int LINE_STRIDE = 1024;
+    private static final long REGION = 1L << 30;
+
+    private final FileChannel channel;
+    private final long baseOffset;
+    private final long baseSize;
+    private final long regionSize;
+    private final MappedByteBuffer[] regions;
+    private long[] lineStarts;
+    private long baseLineCount;
+    private List<Piece> pieces;
+    private long lineCount;
+    private boolean modified;
+
+    private LargeFile(FileChannel channel, long baseOffset, long baseSize, long regionSize) throws IOException {
+        this.channel = channel;
+        this.baseOffset = baseOffset;
+        this.baseSize = baseSize;
+        this.regionSize = regionSize;
+        this.regions = new MappedByteBuffer[(int) ((baseSize + regionSize - 1) / regionSize)];
+        for (int r = 0; r < regions.length; r++) {
+            long start = r * regionSize;
+            regions[r] = channel.map(FileChannel.MapMode.READ_ONLY, baseOffset + start,
+                    Math.min(regionSize, baseSize - start));
+        }
+        indexLines();
+        this.pieces = new ArrayList<>();
+        if (baseLineCount > 0) {
+            pieces.add(new Piece(0, baseLineCount, null));
+        }
+        this.lineCount = baseLineCount;
+    }
+
+    /*
+     * EFFECTS:   open the whole file at the given path;
+     *            throws IOException if it can't be opened or mapped
+     */
+    public static LargeFile open(Path path) throws IOException {
+        return open(path, 0, Files.size(path));
+    }
+
+    /*
+     * REQUIRES:  offset and size are within the file at the given path
+     * EFFECTS:   open the size bytes from offset of the file at the given path, e.g. one content
+     *                of a content file;
+     *            throws IOException if it can't be opened or mapped
+     */
+    public static LargeFile open(Path path, long offset, long size) throws IOException {
+        return open(path, offset, size, REGION);
+    }
+
+    /*
+     * REQUIRES:  offset and size are within the file at the given path, regionSize > 0
+     * EFFECTS:   open like open(path, offset, size), mapping regions of regionSize bytes
+     */
+    static LargeFile open(Path path, long offset, long size, long regionSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new LargeFile(channel, offset, size, regionSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /*
+     * EFFECTS:   return the number of lines
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /*
+     * EFFECTS:   return true if lines have been replaced since this was opened
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /*
+     * REQUIRES:  the lines hold fewer than 2^31 bytes
+     * EFFECTS:   return the count lines from line from, counted from 0, with their line breaks, or
+     *                the lines up to the last if there are fewer;
+     *            throws IndexOutOfBoundsException if from is not in [0, getLineCount()] or count < 0
+     */
+    public String getLines(long from, int count) {
+        if (from < 0 || from > lineCount || count < 0) {
+            throw new IndexOutOfBoundsException("lines " + from + "+" + count + " of " + lineCount);
+        }
+        long to = Math.min(lineCount, from + count);
+        StringBuilder out = new StringBuilder();
+        long line = 0;
+        for (Piece piece : pieces) {
+            long start = Math.max(from, line);
+            long end = Math.min(to, line + piece.lineCount);
+            if (start < end) {
+                piece.appendTo(this, start - line, end - line, out);
+            }
+            line += piece.lineCount;
+        }
+        return out.toString();
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   replace the lines from line from up to but excluding line to, counted from 0, by
+     *                the lines of the given text, which gets a line break at its end if it has none
+     *                and isn't the end of the content;
+     *            throws IndexOutOfBoundsException unless 0 <= from <= to <= getLineCount()
+     */
+    public void replaceLines(long from, long to, String text) {
+        if (from < 0 || from > to || to > lineCount) {
+            throw new IndexOutOfBoundsException("lines " + from + "-" + to + " of " + lineCount);
+        }
+        List<String> lines = splitLines(!text.isEmpty() && !text.endsWith("\n") && to < lineCount
+                ? text + "\n" : text);
+        Piece overlay = lines.isEmpty() ? null : new Piece(-1, lines.size(), lines);
+        List<Piece> result = new ArrayList<>();
+        long line = 0;
+        for (Piece piece : pieces) {
+            long end = line + piece.lineCount;
+            if (line < from) {
+                result.add(piece.sub(0, Math.min(end, from) - line));
+            }
+            if (end > from && overlay != null) {
+                result.add(overlay);
+                overlay = null;
+            }
+            if (end > to) {
+                result.add(piece.sub(Math.max(line, to) - line, piece.lineCount));
+            }
+            line = end;
+        }
+        if (overlay != null) {
+            result.add(overlay);
+        }
+        pieces = result;
+        lineCount += lines.size() - (to - from);
+        modified = true;
+    }
+
+    /*
+     * MODIFIES:  out
+     * EFFECTS:   write the content, with the edits, to the given channel, copying the unchanged
+     *                ranges of the base from disk; return the number of bytes written;
+     *            throws IOException if the content can't be read or written
+     */
+    public long writeTo(WritableByteChannel out) throws IOException {
+        long written = 0;
+        for (Piece piece : pieces) {
+            if (piece.lines == null) {
+                long start = baseLineOffset(piece.baseLine);
+                long end = baseLineOffset(piece.baseLine + piece.lineCount);
+                for (long done = 0; done < end - start; ) {
+                    done += channel.transferTo(baseOffset + start + done, end - start - done, out);
+                }
+                written += end - start;
+            } else {
+                ByteBuffer buffer = ByteBuffer.wrap(String.join("", piece.lines).getBytes(StandardCharsets.UTF_8));
+                written += buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+        }
+        return written;
+    }
+
+    /*
+     * EFFECTS:   write the content, with the edits, to a temporary file next to the given path and
+     *                then move it over that path, so the file at the path is never half written;
+     *                the path may be the file this was opened from, which stays readable by this
+     *            throws IOException if the content can't be written
+     */
+    public void writeTo(Path target) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                writeTo(out);
+                out.force(false);
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   close the channel of the base; the mapped regions are released when this is
+     *                garbage collected
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   count the lines of the base and record the offset of every LINE_STRIDE-th line
+     */
+    private void indexLines() {
+        long[] starts = new long[16];
+        int indexed = baseSize > 0 ? 1 : 0;
+        long breaks = 0;
+        for (int r = 0; r < regions.length; r++) {
+            MappedByteBuffer region = regions[r];
+            for (int i = 0, limit = region.limit(); i < limit; i++) {
+                if (region.get(i) == '\n' && ++breaks % LINE_STRIDE == 0 && r * regionSize + i + 1 < baseSize) {
+                    if (indexed == starts.length) {
+                        starts = Arrays.copyOf(starts, indexed * 2);
+                    }
+                    starts[indexed++] = r * regionSize + i + 1;
+                }
+            }
+        }
+        boolean trailing = baseSize > 0 && byteAt(baseSize - 1) != '\n';
+        baseLineCount = breaks + (trailing ? 1 : 0);
+        lineStarts = Arrays.copyOf(starts, indexed);
+    }
+
+    /*
+     * REQUIRES:  0 <= line <= baseLineCount
+     * EFFECTS:   return the offset in the base of the start of the given line of the base, or the
+     *                size of the base if it is the line count; scans at most LINE_STRIDE lines
+     */
+    private long baseLineOffset(long line) {
+        if (line >= baseLineCount) {
+            return baseSize;
+        }
+        long pos = lineStarts[(int) (line / LINE_STRIDE)];
+        for (long skip = line % LINE_STRIDE; skip > 0; pos++) {
+            if (byteAt(pos) == '\n') {
+                skip--;
+            }
+        }
+        return pos;
+    }
+
+    /*
+     * REQUIRES:  0 <= pos < baseSize
+     * EFFECTS:   return the byte at the given offset of the base
+     */
+    private byte byteAt(long pos) {
+        return regions[(int) (pos / regionSize)].get((int) (pos % regionSize));
+    }
+
+    /*
+     * REQUIRES:  0 <= start <= end <= baseSize, end - start < 2^31
+     * EFFECTS:   return the bytes of the base in [start, end) decoded from UTF-8
+     */
+    private String decode(long start, long end) {
+        byte[] bytes = new byte[(int) (end - start)];
+        for (int done = 0; done < bytes.length; ) {
+            long pos = start + done;
+            ByteBuffer region = regions[(int) (pos / regionSize)].duplicate();
+            region.position((int) (pos % regionSize));
+            int count = Math.min(region.remaining(), bytes.length - done);
+            region.get(bytes, done, count);
+            done += count;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * EFFECTS:   return the lines of the given text, each with its line break
+     */
+    private static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            end = end < 0 ? text.length() : end + 1;
+            lines.add(text.substring(start, end));
+            start = end;
+        }
+        return lines;
+    }
+
+    /**
+     * Represents a range of lines of the content: lineCount lines of the base from baseLine,
+     * or, if lines isn't null, lines of the overlay.
+     */
+    private static final class Piece {
+        private final long baseLine;
+        private final long lineCount;
+        private final List<String> lines;
+
+        Piece(long baseLine, long lineCount, List<String> lines) {
+            this.baseLine = baseLine;
+            this.lineCount = lineCount;
+            this.lines = lines;
+        }
+
+        /*
+         * REQUIRES:  0 <= from < to <= lineCount
+         * EFFECTS:   return the lines of this piece in [from, to)
+         */
+        Piece sub(long from, long to) {
+            if (lines == null) {
+                return new Piece(baseLine + from, to - from, null);
+            }
+            return new Piece(-1, to - from, new ArrayList<>(lines.subList((int) from, (int) to)));
+        }
+
+        /*
+         * REQUIRES:  0 <= from < to <= lineCount
+         * MODIFIES:  out
+         * EFFECTS:   append the lines of this piece in [from, to) of the given file to out
+         */
+        void appendTo(LargeFile file, long from, long to, StringBuilder out) {
+            if (lines == null) {
+                out.append(file.decode(file.baseLineOffset(baseLine + from), file.baseLineOffset(baseLine + to)));
+            } else {
+                lines.subList((int) from, (int) to).forEach(out::append);
+            }
+        }
+    }
+}
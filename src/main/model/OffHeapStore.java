@@ -0,0 +1,324 @@
+package model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Represents a store that keeps the content of files outside the Java heap, encoded in
+ * UTF-8, so that the garbage collector never has to trace or copy it. Observing the root
+ * directory, the store moves the content of every file in the tree, and of every file
+ * added later, into direct byte buffers; the file keeps only a handle, and reading the
+ * content decodes it on demand without keeping it on the heap. A change to a file stores
+ * the new content the same way.
+ * Memory comes from a slab allocator: slabs of a fixed size are allocated once, each is
+ * cut into chunks of one size class (powers of two from MIN_CHUNK up to the slab size),
+ * and freed chunks are reused by later content of the same class. Content larger than a
+ * slab gets a buffer of its own. A chunk is freed when its handle is garbage collected,
+ * so a snapshot holding an old handle can always read it.
+ */
+public final class OffHeapStore implements TreeObserver {
+    private static final int MIN_CHUNK = 64;
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int slabSize;
+    private final List<ByteBuffer> slabs;
+    private final List<Deque<Integer>> freeChunks;
+    private long reservedBytes;
+    private long usedBytes;
+
+    /*
+     * REQUIRES:  slabSize is a power of two in [MIN_CHUNK, MIN_CHUNK * 2^16]
+     * MODIFIES:  rootDir
+     * EFFECTS:   create a store with slabs of slabSize bytes, move the content of every file
+     *                under the given root directory into it, and register it as an observer of
+     *                the root directory
+     */
+    public OffHeapStore(Dir rootDir, int slabSize) {
+        this.slabSize = slabSize;
+        this.slabs = new ArrayList<>();
+        this.freeChunks = new ArrayList<>();
+        for (int chunk = MIN_CHUNK; chunk <= slabSize; chunk *= 2) {
+            freeChunks.add(new ArrayDeque<>());
+        }
+        // registered first, so files added during the walk are moved either way
+        rootDir.addObserver(this);
+        filesIn(rootDir).forEach(file -> file.moveOffHeap(this));
+    }
+
+    /*
+     * EFFECTS:   return the bytes of direct memory allocated by this store, in slabs and in
+     *                buffers of content larger than a slab
+     */
+    public synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    /*
+     * EFFECTS:   return the bytes of content held by this store
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    @Override
+    public void nodeAdded(Dir parent, DirNode node) {
+        filesIn(node).forEach(file -> file.moveOffHeap(this));
+    }
+
+    @Override
+    public void nodeRemoved(Dir parent, DirNode node) {
+        // a removed file keeps its handle; the chunk is freed once the handle is unreachable
+    }
+
+    @Override
+    public void nodeMoved(Dir oldParent, String oldName, DirNode node) {
+        // handles refer to content, not paths
+    }
+
+    /*
+     * REQUIRES:  content is the string of text
+     * MODIFIES:  this
+     * EFFECTS:   copy the given content into this store and return its handle, or null if it
+     *                can't be restored from UTF-8, i.e. it has half of a surrogate pair without
+     *                the other
+     */
+    Handle store(Rope text, String content) {
+        byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length != text.utf8Length()) {
+            return null;
+        }
+        Chunk chunk = allocate(utf8.length);
+        ByteBuffer view = chunk.buffer.duplicate();
+        view.position(chunk.offset());
+        view.put(utf8);
+        Handle handle = new Handle(this, chunk.buffer, chunk.offset(), utf8.length, text);
+        CLEANER.register(handle, chunk);
+        return handle;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   return a chunk of at least the given number of bytes, from the free chunks of
+     *                its size class, a new slab of that class, or a buffer of its own if it is
+     *                larger than a slab
+     */
+    private synchronized Chunk allocate(int bytes) {
+        usedBytes += bytes;
+        if (bytes > slabSize) {
+            reservedBytes += bytes;
+            return new Chunk(this, ByteBuffer.allocateDirect(bytes), -1, -1, bytes);
+        }
+        int sizeClass = sizeClass(bytes);
+        Deque<Integer> free = freeChunks.get(sizeClass);
+        if (free.isEmpty()) {
+            slabs.add(ByteBuffer.allocateDirect(slabSize));
+            reservedBytes += slabSize;
+            int chunkSize = MIN_CHUNK << sizeClass;
+            for (int offset = 0; offset < slabSize; offset += chunkSize) {
+                free.add(encode(slabs.size() - 1, offset));
+            }
+        }
+        int encoded = free.pop();
+        return new Chunk(this, slabs.get(encoded >>> 16), sizeClass, encoded, bytes);
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   return the given chunk to the free chunks of its size class
+     */
+    private synchronized void free(Chunk chunk) {
+        usedBytes -= chunk.bytes;
+        if (chunk.sizeClass < 0) {
+            // the buffer of its own is released by the garbage collector
+            reservedBytes -= chunk.bytes;
+            return;
+        }
+        freeChunks.get(chunk.sizeClass).push(chunk.encoded);
+    }
+
+    /*
+     * EFFECTS:   return the index of the smallest size class whose chunks hold the given bytes
+     */
+    private static int sizeClass(int bytes) {
+        int sizeClass = 0;
+        while ((MIN_CHUNK << sizeClass) < bytes) {
+            sizeClass++;
+        }
+        return sizeClass;
+    }
+
+    /*
+     * REQUIRES:  offset is a multiple of MIN_CHUNK below the slab size, slab < 2^15
+     * EFFECTS:   return the given chunk of the given slab as one int, the slab in the high
+     *                16 bits and the offset in units of MIN_CHUNK in the low 16 bits
+     */
+    private static int encode(int slab, int offset) {
+        return (slab << 16) | (offset / MIN_CHUNK);
+    }
+
+    /*
+     * EFFECTS:   return the given file, or every file in the subtree of the given directory
+     */
+    private static List<File> filesIn(DirNode node) {
+        if (node instanceof File) {
+            return List.of((File) node);
+        }
+        return DirWalker.stream((Dir) node)
+                .filter(child -> child instanceof File)
+                .map(child -> (File) child)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Represents a chunk of direct memory allocated by a store; run when the handle of the
+     * content in it is garbage collected, it returns the chunk to the store.
+     */
+    private static final class Chunk implements Runnable {
+        private final OffHeapStore store;
+        private final ByteBuffer buffer;
+        private final int sizeClass;
+        private final int encoded;
+        private final int bytes;
+
+        // a chunk with size class -1 is a buffer of its own; otherwise encoded is its slab and offset
+        Chunk(OffHeapStore store, ByteBuffer buffer, int sizeClass, int encoded, int bytes) {
+            this.store = store;
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+            this.encoded = encoded;
+            this.bytes = bytes;
+        }
+
+        /*
+         * EFFECTS:   return the offset of this chunk in its buffer
+         */
+        int offset() {
+            return sizeClass < 0 ? 0 : (encoded & 0xffff) * MIN_CHUNK;
+        }
+
+        @Override
+        public void run() {
+            store.free(this);
+        }
+    }
+
+    /**
+     * Represents the content of one file held in a store, with its statistics. The chunk
+     * holding it stays allocated for as long as the handle is reachable.
+     */
+    static final class Handle implements StoredContent {
+        private final OffHeapStore store;
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int bytes;
+        private final int length;
+        private final int charCount;
+        private final int lineCount;
+
+        private Handle(OffHeapStore store, ByteBuffer buffer, int offset, int bytes, Rope text) {
+            this.store = store;
+            this.buffer = buffer;
+            this.offset = offset;
+            this.bytes = bytes;
+            this.length = text.length();
+            this.charCount = text.codePointCount();
+            this.lineCount = text.lineCount();
+        }
+
+        /*
+         * EFFECTS:   return the store holding this content
+         */
+        OffHeapStore getStore() {
+            return store;
+        }
+
+        @Override
+        public String load() {
+            byte[] utf8 = new byte[bytes];
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset);
+            view.get(utf8);
+            // the chunk must not be freed while it is read
+            Reference.reachabilityFence(this);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Reader openReader() {
+            return new InputStreamReader(new ChunkInputStream(this), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public boolean isResident() {
+            return true;
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+
+        @Override
+        public long getSize() {
+            return bytes;
+        }
+
+        @Override
+        public int getCharCount() {
+            return charCount;
+        }
+
+        @Override
+        public int getLineCount() {
+            return lineCount;
+        }
+    }
+
+    /**
+     * Represents a stream of the bytes of the content of a handle, read straight from direct
+     * memory; it holds the handle so that the chunk isn't freed while the stream is in use.
+     */
+    private static final class ChunkInputStream extends InputStream {
+        private final Handle handle;
+        private final ByteBuffer view;
+
+        ChunkInputStream(Handle handle) {
+            this.handle = handle;
+            this.view = handle.buffer.duplicate();
+            view.position(handle.offset);
+            view.limit(handle.offset + handle.bytes);
+        }
+
+        @Override
+        public int read() {
+            int result = view.hasRemaining() ? view.get() & 0xff : -1;
+            Reference.reachabilityFence(handle);
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!view.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, view.remaining());
+            view.get(b, off, count);
+            Reference.reachabilityFence(handle);
+            return count;
+        }
+    }
+}
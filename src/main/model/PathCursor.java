@@ -0,0 +1,158 @@
+package model;
+
+/**
+ * Represents a reusable cursor that resolves paths such as "~/a//b/../c" against a
+ * directory tree. The cursor walks the path in place: each segment is looked up
+ * through a probe that views the characters of the path, so resolving a path
+ * allocates nothing. "~" jumps to the root directory, ".." moves to the parent
+ * directory (staying at the root), and "." and empty segments are skipped.
+ * A cursor is not thread-safe; use one per thread.
+ */
+public class PathCursor {
+    private final NameProbe probe = new NameProbe();
+
+    /*
+     * EFFECTS:   resolve the given directory path, relative to currentDir unless it
+     *                starts with "~"; return the directory it names, or null if no
+     *                such directory exists
+     */
+    public Dir resolveDir(Dir rootDir, Dir currentDir, CharSequence path) {
+        return resolveDir(rootDir, currentDir, path, 0, path.length());
+    }
+
+    /*
+     * EFFECTS:   resolve the directory path formed by the characters of path from
+     *                start (inclusive) to end (exclusive), as resolveDir does
+     */
+    public Dir resolveDir(Dir rootDir, Dir currentDir, CharSequence path, int start, int end) {
+        Dir dir = currentDir;
+        int segmentStart = start;
+        while (segmentStart <= end && dir != null) {
+            int segmentEnd = indexOfSlash(path, segmentStart, end);
+            dir = step(rootDir, dir, path, segmentStart, segmentEnd);
+            segmentStart = segmentEnd + 1;
+        }
+        return dir;
+    }
+
+    /*
+     * EFFECTS:   resolve the given file path, relative to currentDir unless it starts
+     *                with "~"; return the file it names, or null if no such file exists
+     */
+    public File resolveFile(Dir rootDir, Dir currentDir, CharSequence path) {
+        int end = path.length();
+        int divider = lastIndexOfSlash(path, end);
+        Dir dir = divider < 0 ? currentDir : resolveDir(rootDir, currentDir, path, 0, divider);
+        if (dir == null) {
+            return null;
+        }
+        return dir.lookupFile(probe.view(path, divider + 1, end));
+    }
+
+    /*
+     * EFFECTS:   return the directory reached from dir by the segment of path from start
+     *                to end, null if there is no such directory
+     */
+    private Dir step(Dir rootDir, Dir dir, CharSequence path, int start, int end) {
+        int length = end - start;
+        if (length == 0 || (length == 1 && path.charAt(start) == '.')) {
+            return dir;
+        } else if (length == 1 && path.charAt(start) == '~') {
+            return rootDir;
+        } else if (length == 2 && path.charAt(start) == '.' && path.charAt(start + 1) == '.') {
+            return dir.isRootDir() ? rootDir : dir.getParentDir();
+        }
+        return dir.lookupSubDir(probe.view(path, start, end));
+    }
+
+    /*
+     * EFFECTS:   return the index of the first '/' in path from start, or end if none
+     */
+    private static int indexOfSlash(CharSequence path, int start, int end) {
+        int index = start;
+        while (index < end && path.charAt(index) != '/') {
+            index++;
+        }
+        return index;
+    }
+
+    /*
+     * EFFECTS:   return the index of the last '/' in path before end, or -1 if none
+     */
+    private static int lastIndexOfSlash(CharSequence path, int end) {
+        int index = end - 1;
+        while (index >= 0 && path.charAt(index) != '/') {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * Represents a view of one segment of a path, used as a lookup key in maps
+     * keyed by name. It hashes like the String with the same characters and equals
+     * such a String, which is all HashMap.get needs; equality is deliberately
+     * one-sided, so a probe must never be stored as a key.
+     */
+    private static class NameProbe implements CharSequence {
+        private CharSequence path;
+        private int start;
+        private int end;
+
+        /*
+         * MODIFIES:  this
+         * EFFECTS:   point this probe at the characters of path from start to end
+         */
+        NameProbe view(CharSequence path, int start, int end) {
+            this.path = path;
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return path.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return path.subSequence(start + from, start + to);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + path.charAt(i);
+            }
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof String) || ((String) other).length() != length()) {
+                return false;
+            }
+            String name = (String) other;
+            if (path instanceof String) {
+                return name.regionMatches(0, (String) path, start, length());
+            }
+            for (int i = 0; i < length(); i++) {
+                if (name.charAt(i) != path.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return path.subSequence(start, end).toString();
+        }
+    }
+}
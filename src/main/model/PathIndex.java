@@ -0,0 +1,178 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents an index from absolute path to node for a whole file system tree.
+ * The index observes the root directory and stays up to date as files and
+ * directories are added and removed, so resolving a path is one hash lookup
+ * regardless of its depth. Paths are in normalized form, e.g. "~/src/Main.java".
+ * The index may be read and updated from several threads. A change that races with
+ * the registration of a moved subtree can leave a stale entry behind, so every hit
+ * is checked against the node's current path and stale entries are dropped, and
+ * callers that resolve a path by walking the tree can add the node they found back
+ * to the index.
+ * Moving a directory re-keys every entry below it, so no entry outlives its path:
+ * the move itself stays constant-time in the tree, while the index pays for the size
+ * of the moved subtree, as it does when a subtree is added or removed.
+ */
+public class PathIndex implements TreeObserver {
+    private final Map<String, Dir> dirs;
+    private final Map<String, File> files;
+
+    /*
+     * MODIFIES:  rootDir
+     * EFFECTS:   create an index of every node under the given root directory and
+     *                register it as an observer of the root directory
+     */
+    public PathIndex(Dir rootDir) {
+        dirs = new ConcurrentHashMap<>();
+        files = new ConcurrentHashMap<>();
+        register(rootDir, rootDir.getAbsPath());
+        rootDir.addObserver(this);
+    }
+
+    /*
+     * EFFECTS:   return the directory with the given absolute path, null if there
+     *                is no such directory
+     */
+    public Dir getDir(String absPath) {
+        Dir dir = dirs.get(absPath);
+        if (dir != null && !dir.getAbsPath().equals(absPath)) {
+            dirs.remove(absPath, dir);
+            return null;
+        }
+        return dir;
+    }
+
+    /*
+     * EFFECTS:   return the file with the given absolute path, null if there is no
+     *                such file
+     */
+    public File getFile(String absPath) {
+        File file = files.get(absPath);
+        if (file != null && !isAt(file, absPath)) {
+            files.remove(absPath, file);
+            return null;
+        }
+        return file;
+    }
+
+    /*
+     * EFFECTS:   return true if the given file currently has the given absolute path
+     */
+    private static boolean isAt(File file, String absPath) {
+        Dir parentDir = file.getParentDir();
+        if (parentDir == null) {
+            return false;
+        }
+        String parentPath = parentDir.getAbsPath();
+        String name = file.getName();
+        return absPath.length() == parentPath.length() + 1 + name.length()
+                && absPath.startsWith(parentPath)
+                && absPath.charAt(parentPath.length()) == '/'
+                && absPath.endsWith(name);
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   index the given node under its current absolute path
+     */
+    public void add(DirNode node) {
+        if (node instanceof File) {
+            files.put(node.getAbsPath(), (File) node);
+        } else {
+            dirs.put(node.getAbsPath(), (Dir) node);
+        }
+    }
+
+    /*
+     * EFFECTS:   return the number of indexed directories and files
+     */
+    public int size() {
+        return dirs.size() + files.size();
+    }
+
+    @Override
+    public void nodeAdded(Dir parent, DirNode node) {
+        String absPath = parent.getAbsPath() + "/" + node.getName();
+        if (node instanceof File) {
+            files.put(absPath, (File) node);
+        } else {
+            register((Dir) node, absPath);
+        }
+    }
+
+    @Override
+    public void nodeRemoved(Dir parent, DirNode node) {
+        String absPath = parent.getAbsPath() + "/" + node.getName();
+        if (node instanceof File) {
+            files.remove(absPath);
+        } else {
+            unregister((Dir) node, absPath);
+        }
+    }
+
+    @Override
+    public void nodeMoved(Dir oldParent, String oldName, DirNode node) {
+        String oldAbsPath = oldParent.getAbsPath() + "/" + oldName;
+        if (node instanceof File) {
+            files.remove(oldAbsPath, node);
+            add(node);
+        } else {
+            unregister((Dir) node, oldAbsPath);
+            register((Dir) node, node.getAbsPath());
+        }
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   index the given directory under the given path, together with every
+     *                file and directory below it
+     */
+    private void register(Dir dir, String absPath) {
+        Deque<Dir> pendingDirs = new ArrayDeque<>();
+        Deque<String> pendingPaths = new ArrayDeque<>();
+        pendingDirs.push(dir);
+        pendingPaths.push(absPath);
+        while (!pendingDirs.isEmpty()) {
+            Dir current = pendingDirs.pop();
+            String currentPath = pendingPaths.pop();
+            dirs.put(currentPath, current);
+            for (File file : current.getFiles()) {
+                files.put(currentPath + "/" + file.getName(), file);
+            }
+            for (Dir subDir : current.getSubDirs()) {
+                pendingDirs.push(subDir);
+                pendingPaths.push(currentPath + "/" + subDir.getName());
+            }
+        }
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   remove the given directory indexed under the given path from the
+     *                index, together with every file and directory below it
+     */
+    private void unregister(Dir dir, String absPath) {
+        Deque<Dir> pendingDirs = new ArrayDeque<>();
+        Deque<String> pendingPaths = new ArrayDeque<>();
+        pendingDirs.push(dir);
+        pendingPaths.push(absPath);
+        while (!pendingDirs.isEmpty()) {
+            Dir current = pendingDirs.pop();
+            String currentPath = pendingPaths.pop();
+            dirs.remove(currentPath, current);
+            for (File file : current.getFiles()) {
+                files.remove(currentPath + "/" + file.getName(), file);
+            }
+            for (Dir subDir : current.getSubDirs()) {
+                pendingDirs.push(subDir);
+                pendingPaths.push(currentPath + "/" + subDir.getName());
+            }
+        }
+    }
+}
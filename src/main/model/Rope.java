@@ -0,0 +1,527 @@
+package model;
+
+/**
+ * Represents an immutable sequence of characters stored as a balanced tree of pieces,
+ * each piece a range of a shared string, as in a piece table. Creating a rope from a
+ * string copies nothing; inserting, deleting and taking a subsequence split and join
+ * the tree in O(log n) time for n pieces, copying only small pieces that are merged
+ * with their neighbours, so typing doesn't leave one piece per keystroke. Ropes are
+ * persistent: an edit returns a new rope that shares all untouched pieces with the old
+ * one, which stays valid. The tree is kept balanced like an AVL tree, with the
+ * heights of the two children of every node differing by at most one.
+ *
+ * Ropes also index lines. Each shared string finds its line breaks once, when first
+ * asked, and each node caches the number of line breaks below it, so an edited rope
+ * only counts them in its O(log n) new nodes. Line counts and conversions between
+ * lines and offsets then take O(log n) time. A line is the text up to and including a
+ * '\n', or the text after the last '\n' if there is any.
+ *
+ * The size of a rope encoded in UTF-8 and its number of characters (code points) are
+ * kept the same way: each shared string records both counts at regular checkpoints
+ * when first asked, so a piece counts them from the nearest checkpoints rather than
+ * by encoding itself, and each node caches the sums below it.
+ */
+public final class Rope implements CharSequence {
+    // pieces at most this long are copied into one piece when they become adjacent
+    private static final int MERGE_LIMIT = 256;
+    // characters between the checkpoints at which a shared string records its UTF-8 size and characters
+    private static final int CHECKPOINT = 1024;
+    private static final Rope EMPTY = new Rope(new Buffer(""), 0, 0);
+
+    // a leaf holds the piece base[start, start + length); a branch holds left and right
+    private final Buffer base;
+    private final int start;
+    private final Rope left;
+    private final Rope right;
+    private final int length;
+    private final int height;
+    // counts below, -1 until first counted; racing threads count the same, and a long must be volatile
+    //     to be written atomically
+    private int lineBreaks;
+    private int codePoints;
+    private volatile long utf8Length;
+
+    /*
+     * EFFECTS:   create a leaf for the given range of base
+     */
+    private Rope(Buffer base, int start, int end) {
+        this.base = base;
+        this.start = start;
+        this.left = null;
+        this.right = null;
+        this.length = end - start;
+        this.height = 0;
+        this.lineBreaks = -1;
+        this.codePoints = -1;
+        this.utf8Length = -1;
+    }
+
+    /*
+     * REQUIRES:  left and right are nonempty and their heights differ by at most one
+     * EFFECTS:   create a branch with the given children
+     */
+    private Rope(Rope left, Rope right) {
+        this.base = null;
+        this.start = 0;
+        this.left = left;
+        this.right = right;
+        this.length = left.length + right.length;
+        this.height = Math.max(left.height, right.height) + 1;
+        this.lineBreaks = -1;
+        this.codePoints = -1;
+        this.utf8Length = -1;
+    }
+
+    /*
+     * EFFECTS:   return a rope of the given string, sharing it rather than copying it
+     */
+    public static Rope of(String str) {
+        return str.isEmpty() ? EMPTY : new Rope(new Buffer(str), 0, str.length());
+    }
+
+    /*
+     * EFFECTS:   return the number of characters in this rope
+     */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /*
+     * EFFECTS:   return the character at the given index;
+     *            throws IndexOutOfBoundsException if index is not in [0, length())
+     */
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Rope.charAt: index " + index + ", length " + length);
+        }
+        Rope node = this;
+        while (node.base == null) {
+            if (index < node.left.length) {
+                node = node.left;
+            } else {
+                index -= node.left.length;
+                node = node.right;
+            }
+        }
+        return node.base.text.charAt(node.start + index);
+    }
+
+    /*
+     * EFFECTS:   return the characters in [start, end) as a rope sharing the pieces of this one;
+     *            throws IndexOutOfBoundsException if the range is invalid
+     */
+    @Override
+    public Rope subSequence(int start, int end) {
+        checkRange(start, end);
+        if (start == 0 && end == length) {
+            return this;
+        }
+        return split(split(this, end)[0], start)[1];
+    }
+
+    /*
+     * EFFECTS:   return this rope with str inserted before the character at the given offset;
+     *            throws IndexOutOfBoundsException if offset is not in [0, length()]
+     */
+    public Rope insert(int offset, String str) {
+        checkRange(offset, offset);
+        if (str.isEmpty()) {
+            return this;
+        }
+        Rope[] parts = split(this, offset);
+        return concat(concat(parts[0], of(str)), parts[1]);
+    }
+
+    /*
+     * EFFECTS:   return this rope without the count characters starting at the given offset;
+     *            throws IndexOutOfBoundsException if the range is invalid
+     */
+    public Rope delete(int offset, int count) {
+        checkRange(offset, offset + count);
+        if (count == 0) {
+            return this;
+        }
+        return concat(split(this, offset)[0], split(this, offset + count)[1]);
+    }
+
+    /*
+     * EFFECTS:   return the rope of the characters of a followed by those of b
+     */
+    public static Rope concat(Rope a, Rope b) {
+        if (a.length == 0) {
+            return b;
+        } else if (b.length == 0) {
+            return a;
+        } else if (a.base != null && b.base != null && a.length + b.length <= MERGE_LIMIT) {
+            return new Rope(new Buffer(a.toString() + b), 0, a.length + b.length);
+        } else if (a.height > b.height + 1 || (a.base == null && b.length <= MERGE_LIMIT && b.base != null)) {
+            return balance(a.left, concat(a.right, b));
+        } else if (b.height > a.height + 1 || (b.base == null && a.length <= MERGE_LIMIT && a.base != null)) {
+            return balance(concat(a, b.left), b.right);
+        }
+        return new Rope(a, b);
+    }
+
+    /*
+     * REQUIRES:  a and b are nonempty and their heights differ by at most two
+     * EFFECTS:   return a balanced rope of a followed by b, rotating once if needed
+     */
+    private static Rope balance(Rope a, Rope b) {
+        if (a.height > b.height + 1) {
+            if (a.left.height >= a.right.height) {
+                return new Rope(a.left, new Rope(a.right, b));
+            }
+            return new Rope(new Rope(a.left, a.right.left), new Rope(a.right.right, b));
+        } else if (b.height > a.height + 1) {
+            if (b.right.height >= b.left.height) {
+                return new Rope(new Rope(a, b.left), b.right);
+            }
+            return new Rope(new Rope(a, b.left.left), new Rope(b.left.right, b.right));
+        }
+        return new Rope(a, b);
+    }
+
+    /*
+     * REQUIRES:  0 <= index <= rope.length()
+     * EFFECTS:   return the ropes of the characters of rope before and from the given index
+     */
+    private static Rope[] split(Rope rope, int index) {
+        if (index == 0) {
+            return new Rope[] {EMPTY, rope};
+        } else if (index == rope.length) {
+            return new Rope[] {rope, EMPTY};
+        } else if (rope.base != null) {
+            return new Rope[] {new Rope(rope.base, rope.start, rope.start + index),
+                new Rope(rope.base, rope.start + index, rope.start + rope.length)};
+        } else if (index < rope.left.length) {
+            Rope[] parts = split(rope.left, index);
+            return new Rope[] {parts[0], concat(parts[1], rope.right)};
+        } else if (index > rope.left.length) {
+            Rope[] parts = split(rope.right, index - rope.left.length);
+            return new Rope[] {concat(rope.left, parts[0]), parts[1]};
+        }
+        return new Rope[] {rope.left, rope.right};
+    }
+
+    /*
+     * EFFECTS:   return the number of lines in this rope
+     */
+    public int lineCount() {
+        int breaks = lineBreaks();
+        return length > 0 && charAt(length - 1) != '\n' ? breaks + 1 : breaks;
+    }
+
+    /*
+     * EFFECTS:   return the offset of the first character of the given line, counted from 0,
+     *                or length() if line is lineCount();
+     *            throws IndexOutOfBoundsException if line is not in [0, lineCount()]
+     */
+    public int lineStart(int line) {
+        if (line < 0 || line > lineCount()) {
+            throw new IndexOutOfBoundsException("Rope.lineStart: line " + line + ", lines " + lineCount());
+        } else if (line == 0) {
+            return 0;
+        } else if (line > lineBreaks()) {
+            return length;
+        }
+        Rope node = this;
+        int offset = 0;
+        while (node.base == null) {
+            if (line <= node.left.lineBreaks()) {
+                node = node.left;
+            } else {
+                line -= node.left.lineBreaks();
+                offset += node.left.length;
+                node = node.right;
+            }
+        }
+        int[] breaks = node.base.lineBreaks();
+        return offset + breaks[lowerBound(breaks, node.start) + line - 1] - node.start + 1;
+    }
+
+    /*
+     * EFFECTS:   return the line, counted from 0, of the character at the given offset, or the
+     *                line that would start there if offset is length();
+     *            throws IndexOutOfBoundsException if offset is not in [0, length()]
+     */
+    public int lineOf(int offset) {
+        checkRange(offset, offset);
+        Rope node = this;
+        int line = 0;
+        while (node.base == null) {
+            if (offset < node.left.length) {
+                node = node.left;
+            } else {
+                line += node.left.lineBreaks();
+                offset -= node.left.length;
+                node = node.right;
+            }
+        }
+        int[] breaks = node.base.lineBreaks();
+        return line + lowerBound(breaks, node.start + offset) - lowerBound(breaks, node.start);
+    }
+
+    /*
+     * EFFECTS:   return the lines from line from up to but excluding line to, counted from 0,
+     *                with their line breaks, as a rope sharing the pieces of this one;
+     *            throws IndexOutOfBoundsException unless 0 <= from <= to <= lineCount()
+     */
+    public Rope lines(int from, int to) {
+        if (from > to) {
+            throw new IndexOutOfBoundsException("Rope.lines: from " + from + " after to " + to);
+        }
+        return subSequence(lineStart(from), lineStart(to));
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   return the number of bytes of this rope encoded in UTF-8, counting and caching
+     *                those of nodes not yet counted; a surrogate pair counts as one 4-byte character
+     */
+    public long utf8Length() {
+        long bytes = utf8Length;
+        if (bytes < 0) {
+            if (base != null) {
+                bytes = base.utf8Before(start + length) - base.utf8Before(start);
+            } else {
+                bytes = left.utf8Length() + right.utf8Length();
+            }
+            utf8Length = bytes;
+        }
+        return bytes;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   return the number of characters (code points) in this rope, counting and caching
+     *                those of nodes not yet counted; a surrogate pair counts as one character
+     */
+    public int codePointCount() {
+        int count = codePoints;
+        if (count < 0) {
+            if (base != null) {
+                count = base.codePointsBefore(start + length) - base.codePointsBefore(start);
+            } else {
+                count = left.codePointCount() + right.codePointCount();
+            }
+            codePoints = count;
+        }
+        return count;
+    }
+
+    /*
+     * EFFECTS:   return the number of bytes of the given character in UTF-8, counting each half
+     *                of a surrogate pair as 2 of the 4 bytes of the pair
+     */
+    private static int utf8Length(char c) {
+        if (c < 0x80) {
+            return 1;
+        } else if (c < 0x800 || Character.isSurrogate(c)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   return the number of line breaks in this rope, counting and caching those of
+     *                nodes not yet counted
+     */
+    private int lineBreaks() {
+        int breaks = lineBreaks;
+        if (breaks < 0) {
+            if (base != null) {
+                int[] offsets = base.lineBreaks();
+                breaks = lowerBound(offsets, start + length) - lowerBound(offsets, start);
+            } else {
+                breaks = left.lineBreaks() + right.lineBreaks();
+            }
+            lineBreaks = breaks;
+        }
+        return breaks;
+    }
+
+    /*
+     * REQUIRES:  values is sorted in ascending order
+     * EFFECTS:   return the number of values less than the given key
+     */
+    private static int lowerBound(int[] values, int key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * EFFECTS:   throws IndexOutOfBoundsException unless 0 <= start <= end <= length()
+     */
+    private void checkRange(int start, int end) {
+        if (start < 0 || end < start || end > length) {
+            throw new IndexOutOfBoundsException("Rope: range [" + start + ", " + end + "), length " + length);
+        }
+    }
+
+    /*
+     * EFFECTS:   return the number of pieces in this rope
+     */
+    int pieces() {
+        return base != null ? 1 : left.pieces() + right.pieces();
+    }
+
+    /*
+     * EFFECTS:   return the height of the tree of this rope, 0 for a single piece
+     */
+    int height() {
+        return height;
+    }
+
+    /*
+     * MODIFIES:  sb
+     * EFFECTS:   append the characters of this rope to sb
+     */
+    private void appendTo(StringBuilder sb) {
+        if (base != null) {
+            sb.append(base.text, start, start + length);
+        } else {
+            left.appendTo(sb);
+            right.appendTo(sb);
+        }
+    }
+
+    /*
+     * EFFECTS:   return the characters of this rope as a string, copying every piece
+     */
+    @Override
+    public String toString() {
+        if (base != null && start == 0 && length == base.text.length()) {
+            return base.text;
+        }
+        StringBuilder sb = new StringBuilder(length);
+        appendTo(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Represents a string shared by the pieces of ropes, with the offsets of its line
+     * breaks and its UTF-8 size and characters at every CHECKPOINT characters, each
+     * found when first asked for.
+     */
+    private static final class Buffer {
+        private final String text;
+        private volatile int[] lineBreaks;
+        private volatile Checkpoints checkpoints;
+
+        Buffer(String text) {
+            this.text = text;
+        }
+
+        /*
+         * MODIFIES:  this
+         * EFFECTS:   return the offsets of the '\n' characters of the text in ascending order
+         */
+        int[] lineBreaks() {
+            int[] breaks = lineBreaks;
+            if (breaks == null) {
+                int count = 0;
+                for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+                    count++;
+                }
+                breaks = new int[count];
+                count = 0;
+                for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+                    breaks[count++] = i;
+                }
+                lineBreaks = breaks;
+            }
+            return breaks;
+        }
+
+        /*
+         * REQUIRES:  0 <= end <= the length of the text
+         * EFFECTS:   return the UTF-8 size of the text before the given offset
+         */
+        long utf8Before(int end) {
+            Checkpoints counts = checkpoints();
+            if (counts.ascii) {
+                return end;
+            }
+            long bytes = counts.utf8[end / CHECKPOINT];
+            for (int i = end - end % CHECKPOINT; i < end; i++) {
+                bytes += utf8Length(text.charAt(i));
+            }
+            return bytes;
+        }
+
+        /*
+         * REQUIRES:  0 <= end <= the length of the text
+         * EFFECTS:   return the number of characters (code points) in the text before the given offset
+         */
+        int codePointsBefore(int end) {
+            Checkpoints counts = checkpoints();
+            if (counts.ascii) {
+                return end;
+            }
+            int count = counts.codePoints[end / CHECKPOINT];
+            for (int i = end - end % CHECKPOINT; i < end; i++) {
+                count += Character.isLowSurrogate(text.charAt(i)) ? 0 : 1;
+            }
+            return count;
+        }
+
+        /*
+         * MODIFIES:  this
+         * EFFECTS:   return the checkpoints of the text, finding them in one pass if not yet found
+         */
+        private Checkpoints checkpoints() {
+            Checkpoints counts = checkpoints;
+            if (counts == null) {
+                counts = new Checkpoints(text);
+                checkpoints = counts;
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Represents the UTF-8 size and number of characters of a string before every
+     * CHECKPOINT-th character; an ASCII string keeps no checkpoints, as both equal the offset.
+     */
+    private static final class Checkpoints {
+        private final boolean ascii;
+        private final long[] utf8;
+        private final int[] codePoints;
+
+        Checkpoints(String text) {
+            int size = text.length() / CHECKPOINT + 1;
+            long[] bytes = new long[size];
+            int[] count = new int[size];
+            long totalBytes = 0;
+            int total = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (i % CHECKPOINT == 0) {
+                    bytes[i / CHECKPOINT] = totalBytes;
+                    count[i / CHECKPOINT] = total;
+                }
+                char c = text.charAt(i);
+                totalBytes += utf8Length(c);
+                total += Character.isLowSurrogate(c) ? 0 : 1;
+            }
+            if (text.length() % CHECKPOINT == 0) {
+                bytes[size - 1] = totalBytes;
+                count[size - 1] = total;
+            }
+            ascii = totalBytes == text.length();
+            utf8 = ascii ? null : bytes;
+            codePoints = ascii ? null : count;
+        }
+    }
+}
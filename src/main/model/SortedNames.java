@@ -0,0 +1,253 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Represents a set of names kept in case-insensitive alphabetical order.
+ * Names are inserted and removed by binary search, so ordered iteration, paging
+ * and prefix queries never sort and return read-only views instead of copies.
+ * The names are held in sorted chunks of at most MAX_CHUNK names, which are
+ * copy-on-write: a change copies the chunk it touches and the table of chunks, about
+ * O(MAX_CHUNK + n / MIN_CHUNK) rather than O(n), and publishes them as a new
+ * version, so readers never lock and always see a consistent list. Changes must be
+ * made by one thread at a time.
+ */
+class SortedNames {
+    // case-insensitive order, with the natural order breaking ties such as "a" and "A"
+    static final Comparator<String> ORDER = String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+    static final int MIN_CHUNK = 512;
+    static final int MAX_CHUNK = 2 * MIN_CHUNK;
+
+    private volatile Version view;
+
+    /*
+     * EFFECTS:   create an empty set of ordered names
+     */
+    SortedNames() {
+        view = new Version(new String[0][]);
+    }
+
+    /*
+     * REQUIRES:  name is not in this set
+     * MODIFIES:  this
+     * EFFECTS:   insert the given name at its ordered position
+     */
+    void add(String name) {
+        String[][] chunks = view.chunks;
+        if (chunks.length == 0) {
+            view = new Version(new String[][]{{name}});
+            return;
+        }
+        int chunkIndex = chunkFor(chunks, name);
+        String[] chunk = chunks[chunkIndex];
+        int index = -(Arrays.binarySearch(chunk, name, ORDER) + 1);
+        String[] grown = new String[chunk.length + 1];
+        System.arraycopy(chunk, 0, grown, 0, index);
+        grown[index] = name;
+        System.arraycopy(chunk, index, grown, index + 1, chunk.length - index);
+        if (grown.length <= MAX_CHUNK) {
+            view = new Version(replace(chunks, chunkIndex, 1, grown));
+        } else {
+            String[] low = Arrays.copyOfRange(grown, 0, grown.length / 2);
+            String[] high = Arrays.copyOfRange(grown, grown.length / 2, grown.length);
+            view = new Version(replace(chunks, chunkIndex, 1, low, high));
+        }
+    }
+
+    /*
+     * REQUIRES:  none of the given names is in this set, and they are distinct
+     * MODIFIES:  this
+     * EFFECTS:   insert all given names at their ordered positions, sorting the new names
+     *                and merging them with the current ones in a single pass
+     */
+    void addAll(Collection<String> names) {
+        String[] added = names.toArray(new String[0]);
+        Arrays.sort(added, ORDER);
+        Version current = view;
+        String[] merged = new String[current.size + added.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < current.size && j < added.length) {
+            merged[k++] = ORDER.compare(current.get(i), added[j]) < 0 ? current.get(i++) : added[j++];
+        }
+        while (i < current.size) {
+            merged[k++] = current.get(i++);
+        }
+        System.arraycopy(added, j, merged, k, added.length - j);
+        String[][] chunks = new String[(merged.length + MIN_CHUNK - 1) / MIN_CHUNK][];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = Arrays.copyOfRange(merged, c * MIN_CHUNK, Math.min(merged.length, (c + 1) * MIN_CHUNK));
+        }
+        view = new Version(chunks);
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   remove the given name, do nothing if it isn't in this set; a chunk left
+     *                with fewer than MIN_CHUNK / 2 names is merged with a neighbour when they fit
+     *                in one, so the chunks stay few
+     */
+    void remove(String name) {
+        String[][] chunks = view.chunks;
+        int chunkIndex = chunks.length == 0 ? -1 : chunkFor(chunks, name);
+        int index = chunkIndex < 0 ? -1 : Arrays.binarySearch(chunks[chunkIndex], name, ORDER);
+        if (index < 0) {
+            return;
+        }
+        String[] chunk = chunks[chunkIndex];
+        String[] shrunk = new String[chunk.length - 1];
+        System.arraycopy(chunk, 0, shrunk, 0, index);
+        System.arraycopy(chunk, index + 1, shrunk, index, chunk.length - index - 1);
+        int other = chunkIndex + 1 < chunks.length ? chunkIndex + 1 : chunkIndex - 1;
+        if (shrunk.length >= MIN_CHUNK / 2 || other < 0 || chunks[other].length + shrunk.length > MAX_CHUNK) {
+            view = new Version(shrunk.length == 0 ? replace(chunks, chunkIndex, 1)
+                    : replace(chunks, chunkIndex, 1, shrunk));
+            return;
+        }
+        String[] low = other < chunkIndex ? chunks[other] : shrunk;
+        String[] high = other < chunkIndex ? shrunk : chunks[other];
+        String[] joined = Arrays.copyOf(low, low.length + high.length);
+        System.arraycopy(high, 0, joined, low.length, high.length);
+        view = new Version(replace(chunks, Math.min(chunkIndex, other), 2, joined));
+    }
+
+    /*
+     * EFFECTS:   return a read-only view of all names in order
+     */
+    List<String> asList() {
+        return view;
+    }
+
+    /*
+     * EFFECTS:   return a read-only view of at most limit names in order, starting
+     *                from the name at the given position
+     */
+    List<String> range(int start, int limit) {
+        List<String> current = view;
+        int from = Math.min(Math.max(start, 0), current.size());
+        int to = (int) Math.min((long) from + Math.max(limit, 0), current.size());
+        return current.subList(from, to);
+    }
+
+    /*
+     * EFFECTS:   return a read-only view of the names starting with the given prefix,
+     *                ignoring case, in order
+     */
+    List<String> withPrefix(String prefix) {
+        List<String> current = view;
+        return current.subList(boundary(current, prefix, false), boundary(current, prefix, true));
+    }
+
+    /*
+     * REQUIRES:  chunks is not empty
+     * EFFECTS:   return the index of the chunk the given name belongs in: the last one whose
+     *                first name doesn't sort after it, or the first chunk
+     */
+    private static int chunkFor(String[][] chunks, String name) {
+        int low = 1;
+        int high = chunks.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ORDER.compare(chunks[mid][0], name) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    /*
+     * EFFECTS:   return a copy of the given chunks with count chunks from index replaced by
+     *                the given ones
+     */
+    private static String[][] replace(String[][] chunks, int index, int count, String[]... replacement) {
+        String[][] result = new String[chunks.length - count + replacement.length][];
+        System.arraycopy(chunks, 0, result, 0, index);
+        System.arraycopy(replacement, 0, result, index, replacement.length);
+        System.arraycopy(chunks, index + count, result, index + replacement.length, chunks.length - index - count);
+        return result;
+    }
+
+    /*
+     * EFFECTS:   return the index of the first name that sorts after the given prefix,
+     *                if inclusive, names starting with the prefix count as before it
+     */
+    private static int boundary(List<String> names, String prefix, boolean inclusive) {
+        int low = 0;
+        int high = names.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = comparePrefix(names.get(mid), prefix);
+            if (cmp < 0 || (inclusive && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * EFFECTS:   compare the leading characters of name with prefix, ignoring case;
+     *                return 0 if name starts with prefix
+     */
+    private static int comparePrefix(String name, String prefix) {
+        int length = Math.min(name.length(), prefix.length());
+        for (int i = 0; i < length; i++) {
+            char c1 = name.charAt(i);
+            char c2 = prefix.charAt(i);
+            if (c1 != c2) {
+                c1 = Character.toLowerCase(Character.toUpperCase(c1));
+                c2 = Character.toLowerCase(Character.toUpperCase(c2));
+                if (c1 != c2) {
+                    return c1 - c2;
+                }
+            }
+        }
+        return name.length() < prefix.length() ? -1 : 0;
+    }
+
+    /**
+     * Represents one version of the names: immutable chunks, with the position of the first
+     * name of each, read as a single list.
+     */
+    private static final class Version extends AbstractList<String> implements RandomAccess {
+        private final String[][] chunks;
+        private final int[] starts;
+        private final int size;
+
+        Version(String[][] chunks) {
+            this.chunks = chunks;
+            this.starts = new int[chunks.length];
+            int total = 0;
+            for (int c = 0; c < chunks.length; c++) {
+                starts[c] = total;
+                total += chunks[c].length;
+            }
+            this.size = total;
+        }
+
+        @Override
+        public String get(int index) {
+            Objects.checkIndex(index, size);
+            int chunk = Arrays.binarySearch(starts, index);
+            if (chunk < 0) {
+                chunk = -(chunk + 1) - 1;
+            }
+            return chunks[chunk][index - starts[chunk]];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
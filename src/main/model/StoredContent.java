@@ -0,0 +1,41 @@
+package model;
+
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * Represents the content of a file kept somewhere other than in memory as a rope, e.g.
+ * compressed (see ColdStorage), outside the heap (see OffHeapStore) or on disk and not
+ * read yet (see persistence.JsonReader), together with the statistics of the content, so
+ * that a file can answer for its length, size, characters and lines without loading it.
+ * Implementations are immutable.
+ */
+public interface StoredContent {
+    // EFFECTS: return the content, loaded from wherever it is kept
+    //     throws UncheckedIOException if the content is on disk and can't be read
+    String load();
+
+    // EFFECTS: return a reader of the content, decoding it as it is read where the content
+    //     allows, so that the whole content is never on the heap at once
+    default Reader openReader() {
+        return new StringReader(load());
+    }
+
+    // EFFECTS: return true if the content is kept where it can be read cheaply every time, so a
+    //     file should load it on each read rather than keep it in memory
+    default boolean isResident() {
+        return false;
+    }
+
+    // EFFECTS: return the length of the content in UTF-16 code units
+    int getLength();
+
+    // EFFECTS: return the size of the content in bytes, encoded in UTF-8
+    long getSize();
+
+    // EFFECTS: return the number of characters (code points) in the content
+    int getCharCount();
+
+    // EFFECTS: return the number of lines in the content
+    int getLineCount();
+}
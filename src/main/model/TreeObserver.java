@@ -0,0 +1,34 @@
+package model;
+
+/**
+ * Represents an observer of structural changes in a file system tree.
+ * Observers are registered on the root directory and are notified of changes
+ * anywhere below it (observer design pattern).
+ */
+public interface TreeObserver {
+    // EFFECTS: called after node (a file, or a directory with its whole subtree)
+    //     has been added to parent
+    void nodeAdded(Dir parent, DirNode node);
+
+    // EFFECTS: called before node (a file, or a directory with its whole subtree)
+    //     is removed from parent, while its absolute path is still valid
+    void nodeRemoved(Dir parent, DirNode node);
+
+    // EFFECTS: called after node (a file, or a directory with its whole subtree) has been
+    //     moved from oldParent, where it was named oldName, to its current parent and name;
+    //     the subtree itself is unchanged
+    void nodeMoved(Dir oldParent, String oldName, DirNode node);
+
+    // EFFECTS: called after the content of file, which is in the observed tree, has been
+    //     updated, while the file's monitor is held so that updates of one file are reported
+    //     in order; observers that don't look at content can ignore it
+    default void fileUpdated(File file) {
+    }
+
+    // EFFECTS: called after fileUpdated for a change of the content of file that replaced a range
+    //     of it, with the range and the content before and after; a change whose content before
+    //     isn't known is reported with an edit that isn't known. Only reported while the tree has
+    //     observers, since finding the range of a whole new content costs a comparison
+    default void fileEdited(File file, ContentEdit edit) {
+    }
+}
@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * Represents an action applied to every node reached by a DirWalker walk
+ * (visitor design pattern). Depths are counted from the directory the walk
+ * starts at, which has depth 0.
+ */
+public interface TreeVisitor {
+    // EFFECTS: called for each directory reached by the walk, at the given depth
+    void visitDir(Dir dir, int depth);
+
+    // EFFECTS: called for each file reached by the walk, at the given depth
+    void visitFile(File file, int depth);
+}
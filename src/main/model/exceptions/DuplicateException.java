@@ -1,11 +1,12 @@
 package model.exceptions;
 
+// Reported to the user only; built without a stack trace, see NotFoundException
 public class DuplicateException extends Exception {
 //    public DuplicateException() {
 //        super();
 //    }
 
     public DuplicateException(String msg) {
-        super(msg);
+        super(msg, null, false, false);
     }
 }
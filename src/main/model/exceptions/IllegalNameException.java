@@ -1,11 +1,12 @@
 package model.exceptions;
 
+// Reported to the user only, so it is built without a stack trace
 public class IllegalNameException extends Exception {
     public IllegalNameException() {
-        super();
+        super(null, null, false, false);
     }
 
     public IllegalNameException(String msg) {
-        super(msg);
+        super(msg, null, false, false);
     }
 }
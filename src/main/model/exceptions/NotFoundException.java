@@ -1,11 +1,13 @@
 package model.exceptions;
 
+// Thrown only to report a failed operation to the user, so no stack trace is recorded;
+//     hot paths use the lookups that return null or Optional instead
 public class NotFoundException extends Exception {
 //    public NotFoundException() {
 //        super();
 //    }
 
     public NotFoundException(String msg) {
-        super(msg);
+        super(msg, null, false, false);
     }
 }
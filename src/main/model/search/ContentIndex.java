@@ -0,0 +1,262 @@
+package model.search;
+
+import model.Dir;
+import model.DirNode;
+import model.DirWalker;
+import model.File;
+import model.TreeObserver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Represents an index over the contents of every file in a tree, kept up to date by
+ * observing the root directory. Each indexed file gets a small integer id, reused once
+ * the file is removed, and a summary of its content computed by the subclass (e.g. its
+ * tokens). Summaries are computed outside the index lock, the index itself is only
+ * changed under the write lock, and subclasses answer queries under the read lock.
+ * Moves don't change the index, as ids refer to files rather than paths. An added or
+ * edited file is only marked stale and summarized before the next query, so adding a
+ * file does no work on its content while its directory is locked, and a burst of
+ * small edits to a large file costs one summary rather than one per edit. Contents are
+ * read with File.readContent, so indexing a file doesn't load content stored elsewhere
+ * into memory for good.
+ *
+ * @param <T> the type of the summary of the content of one file
+ */
+public abstract class ContentIndex<T> implements TreeObserver {
+    // files summarized at once while building; indexing a chunk lets its summaries share
+    //     what they can with the index before the next chunk is summarized
+    private static final int BUILD_CHUNK = 1_000;
+
+    private final Map<File, Integer> ids;
+    private final List<File> files;
+    private final List<T> summaries;
+    private final Deque<Integer> freeIds;
+    private final Set<File> stale;
+    private final ReentrantReadWriteLock lock;
+
+    /*
+     * EFFECTS:   create an empty index; call build to fill it
+     */
+    protected ContentIndex() {
+        ids = new HashMap<>();
+        files = new ArrayList<>();
+        summaries = new ArrayList<>();
+        freeIds = new ArrayDeque<>();
+        stale = ConcurrentHashMap.newKeySet();
+        lock = new ReentrantReadWriteLock();
+    }
+
+    /*
+     * REQUIRES:  called once, at the end of the subclass constructor
+     * MODIFIES:  this, rootDir
+     * EFFECTS:   index every file under the given root directory, summarizing chunks of files
+     *                in parallel, and register this as an observer of the root directory
+     */
+    protected final void build(Dir rootDir) {
+        lock.writeLock().lock();
+        try {
+            // registered first and under the lock, so changes during the build wait and then apply
+            rootDir.addObserver(this);
+            List<File> all = filesIn(rootDir);
+            for (int from = 0; from < all.size(); from += BUILD_CHUNK) {
+                List<File> chunk = all.subList(from, Math.min(all.size(), from + BUILD_CHUNK));
+                List<T> summarized = chunk.parallelStream()
+                        .map(file -> summarize(file.readContent()))
+                        .collect(Collectors.toList());
+                for (int i = 0; i < chunk.size(); i++) {
+                    index(chunk.get(i), summarized.get(i));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * EFFECTS:   return the summary of the given content; called without any lock held,
+     *                possibly from several threads at once
+     */
+    protected abstract T summarize(String content);
+
+    /*
+     * REQUIRES:  the write lock is held
+     * MODIFIES:  this, summary
+     * EFFECTS:   change the postings of the file with the given id from those of the old
+     *                summary (null if the file is new) to those of the given summary (null if
+     *                the file is being removed)
+     */
+    protected abstract void reindex(int id, T old, T summary);
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   summarize and reindex the files added or edited since the last query, then take the
+     *                read lock; pair with unlockRead
+     */
+    protected final void lockRead() {
+        if (!stale.isEmpty()) {
+            refreshStale();
+        }
+        lock.readLock().lock();
+    }
+
+    /*
+     * EFFECTS:   release the read lock taken by lockRead
+     */
+    protected final void unlockRead() {
+        lock.readLock().unlock();
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   summarize the stale files outside the lock and reindex those still indexed
+     */
+    private void refreshStale() {
+        Map<File, T> summarized = new HashMap<>();
+        for (Iterator<File> it = stale.iterator(); it.hasNext(); ) {
+            File file = it.next();
+            // removed before summarizing, so an edit made meanwhile marks the file stale again
+            it.remove();
+            summarized.put(file, summarize(file.readContent()));
+        }
+        lock.writeLock().lock();
+        try {
+            summarized.forEach((file, summary) -> {
+                if (ids.containsKey(file)) {
+                    index(file, summary);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * REQUIRES:  the read lock is held, id is the id of an indexed file
+     * EFFECTS:   return the file with the given id
+     */
+    protected final File getFile(int id) {
+        return files.get(id);
+    }
+
+    /*
+     * REQUIRES:  the read lock is held, id is the id of an indexed file
+     * EFFECTS:   return the summary of the file with the given id
+     */
+    protected final T getSummary(int id) {
+        return summaries.get(id);
+    }
+
+    @Override
+    public void nodeAdded(Dir parent, DirNode node) {
+        List<File> added = filesIn(node);
+        lock.writeLock().lock();
+        try {
+            // indexed with no summary, so removing them before they are summarized frees their ids
+            for (File file : added) {
+                index(file, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        stale.addAll(added);
+    }
+
+    @Override
+    public void nodeRemoved(Dir parent, DirNode node) {
+        List<File> removed = filesIn(node);
+        lock.writeLock().lock();
+        try {
+            removed.forEach(this::unindex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void nodeMoved(Dir oldParent, String oldName, DirNode node) {
+        // ids refer to files, not paths
+    }
+
+    @Override
+    public void fileUpdated(File file) {
+        stale.add(file);
+    }
+
+    /*
+     * REQUIRES:  the write lock is held
+     * MODIFIES:  this
+     * EFFECTS:   index the given file under the given summary, replacing its old summary if
+     *                it is already indexed
+     */
+    private void index(File file, T summary) {
+        Integer id = ids.get(file);
+        T old = null;
+        if (id == null) {
+            id = freeIds.isEmpty() ? files.size() : freeIds.pop();
+            ids.put(file, id);
+            if (id == files.size()) {
+                files.add(file);
+                summaries.add(null);
+            } else {
+                files.set(id, file);
+            }
+        } else {
+            old = summaries.get(id);
+        }
+        reindex(id, old, summary);
+        summaries.set(id, summary);
+    }
+
+    /*
+     * REQUIRES:  the write lock is held
+     * MODIFIES:  this
+     * EFFECTS:   take the given file out of the index and free its id
+     */
+    private void unindex(File file) {
+        Integer id = ids.remove(file);
+        if (id != null) {
+            reindex(id, summaries.get(id), null);
+            files.set(id, null);
+            summaries.set(id, null);
+            freeIds.push(id);
+        }
+    }
+
+    /*
+     * MODIFIES:  files
+     * EFFECTS:   return the given files ordered by absolute path, building each path once
+     */
+    static List<File> sortByPath(List<File> files) {
+        Map<File, String> paths = new HashMap<>();
+        for (File file : files) {
+            paths.put(file, file.getAbsPath());
+        }
+        files.sort(Comparator.comparing(paths::get));
+        return files;
+    }
+
+    /*
+     * EFFECTS:   return the given file, or every file in the subtree of the given directory
+     */
+    static List<File> filesIn(DirNode node) {
+        if (node instanceof File) {
+            return List.of((File) node);
+        }
+        return DirWalker.stream((Dir) node)
+                .filter(child -> child instanceof File)
+                .map(child -> (File) child)
+                .collect(Collectors.toList());
+    }
+}
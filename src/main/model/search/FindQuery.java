@@ -0,0 +1,350 @@
+package model.search;
+
+import model.Dir;
+import model.DirNode;
+import model.DirWalker;
+import model.File;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Represents a find query: a conjunction of predicates on the name, path, type, size and
+ * dates of files and directories, in the style of find(1). Glob patterns are compiled
+ * once (see Glob). Size and date predicates only match files.
+ *
+ * Running a query walks the tree lazily in pre-order and skips every subtree that
+ * cannot hold a match, judged from the directory alone: deeper than the maximum depth,
+ * holding no files when only files can match, with a total size below the minimum size,
+ * last modified no later than the modified-after date, or off the literal prefix of the
+ * path pattern. Results are produced as the stream is consumed.
+ */
+public class FindQuery {
+    private static final Pattern SIZE = Pattern.compile("([+-]?)(\\d+)([ckMG]?)");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd[['T'][ ]HH:mm[:ss]]");
+
+    private Predicate<String> name;
+    private Predicate<String> path;
+    private String pathPrefix;
+    private Class<? extends DirNode> type;
+    private long minSize;
+    private long maxSize;
+    private long modifiedAfter;
+    private long modifiedBefore;
+    private long createdAfter;
+    private long createdBefore;
+    private boolean filesOnly;
+    private int maxDepth;
+
+    /*
+     * EFFECTS:   create a query that matches every file and directory
+     */
+    public FindQuery() {
+        name = any -> true;
+        path = any -> true;
+        pathPrefix = "";
+        type = DirNode.class;
+        minSize = Long.MIN_VALUE;
+        maxSize = Long.MAX_VALUE;
+        modifiedAfter = Long.MIN_VALUE;
+        modifiedBefore = Long.MAX_VALUE;
+        createdAfter = Long.MIN_VALUE;
+        createdBefore = Long.MAX_VALUE;
+        maxDepth = Integer.MAX_VALUE;
+    }
+
+    /*
+     * REQUIRES:  expression is a list of find(1)-style primaries, all of which must hold:
+     *                -name GLOB, -iname GLOB, -path GLOB (against the absolute path), -type f|d,
+     *                -size [+|-]N[c|k|M|G] (more than, less than or exactly N units, rounding up;
+     *                bytes if no unit), -newer DATE, -older DATE, -cnewer DATE, -colder DATE
+     *                (modified or created after or before DATE, given as yyyy-MM-dd with an
+     *                optional HH:mm[:ss] time in the default time zone), -maxdepth N
+     * EFFECTS:   return the query described by the expression;
+     *            throws IllegalArgumentException if a primary is unknown or its argument is invalid
+     */
+    public static FindQuery parse(List<String> expression) {
+        FindQuery query = new FindQuery();
+        for (int i = 0; i < expression.size(); i += 2) {
+            String primary = expression.get(i);
+            if (i + 1 == expression.size()) {
+                throw new IllegalArgumentException("missing argument to '" + primary + "'");
+            }
+            query.apply(primary, expression.get(i + 1));
+        }
+        return query;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   add the given primary with the given argument to this query;
+     *            throws IllegalArgumentException if the primary is unknown or the argument is invalid
+     */
+    private void apply(String primary, String argument) {
+        switch (primary) {
+            case "-name":
+                name(argument, false);
+                break;
+            case "-iname":
+                name(argument, true);
+                break;
+            case "-path":
+                path(argument);
+                break;
+            case "-type":
+                type(parseType(argument));
+                break;
+            case "-size":
+                size(argument);
+                break;
+            case "-maxdepth":
+                maxDepth(parseCount(argument));
+                break;
+            default:
+                applyDate(primary, parseDate(argument));
+                break;
+        }
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   add the given date primary to this query;
+     *            throws IllegalArgumentException if the primary is unknown
+     */
+    private void applyDate(String primary, Date date) {
+        switch (primary) {
+            case "-newer":
+                modifiedAfter(date);
+                break;
+            case "-older":
+                modifiedBefore(date);
+                break;
+            case "-cnewer":
+                createdAfter(date);
+                break;
+            case "-colder":
+                createdBefore(date);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown predicate '" + primary + "'");
+        }
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   only match nodes whose name matches the given glob, ignoring case if ignoreCase
+     */
+    public FindQuery name(String glob, boolean ignoreCase) {
+        name = name.and(Glob.compile(glob, ignoreCase));
+        return this;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   only match nodes whose absolute path matches the given glob, in which '*'
+     *                also matches '/'
+     */
+    public FindQuery path(String glob) {
+        path = path.and(Glob.compile(glob, false));
+        String prefix = Glob.literalPrefix(glob);
+        if (prefix.length() > pathPrefix.length()) {
+            pathPrefix = prefix;
+        }
+        return this;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   only match nodes of the given type: File, Dir, or DirNode for both
+     */
+    public FindQuery type(Class<? extends DirNode> type) {
+        this.type = type;
+        return this;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   only match files whose size is at least min and at most max
+     */
+    public FindQuery size(long min, long max) {
+        minSize = Math.max(minSize, min);
+        maxSize = Math.min(maxSize, max);
+        filesOnly = true;
+        return this;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   only match files last modified after the given date
+     */
+    public FindQuery modifiedAfter(Date date) {
+        modifiedAfter = Math.max(modifiedAfter, date.getTime());
+        filesOnly = true;
+        return this;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   only match files last modified before the given date
+     */
+    public FindQuery modifiedBefore(Date date) {
+        modifiedBefore = Math.min(modifiedBefore, date.getTime());
+        filesOnly = true;
+        return this;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   only match files created after the given date
+     */
+    public FindQuery createdAfter(Date date) {
+        createdAfter = Math.max(createdAfter, date.getTime());
+        filesOnly = true;
+        return this;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   only match files created before the given date
+     */
+    public FindQuery createdBefore(Date date) {
+        createdBefore = Math.min(createdBefore, date.getTime());
+        filesOnly = true;
+        return this;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   only match nodes at most the given number of levels below the starting directory
+     */
+    public FindQuery maxDepth(int depth) {
+        maxDepth = Math.min(maxDepth, depth);
+        return this;
+    }
+
+    /*
+     * EFFECTS:   return a lazy stream of the matches at or below the given directory, in
+     *                pre-order, skipping subtrees that cannot hold a match
+     */
+    public Stream<DirNode> find(Dir root) {
+        return DirWalker.preOrder(root, this::canContainMatch).filter(this::matches);
+    }
+
+    /*
+     * EFFECTS:   return true if the given node satisfies every predicate of this query
+     */
+    public boolean matches(DirNode node) {
+        if (!type.isInstance(node) || !name.test(node.getName()) || !path.test(node.getAbsPath())) {
+            return false;
+        }
+        if (!(node instanceof File)) {
+            return !filesOnly;
+        }
+        File file = (File) node;
+        long modified = file.getDateModified().getTime();
+        long created = file.getDateCreated().getTime();
+        return file.getSize() >= minSize && file.getSize() <= maxSize
+                && modified > modifiedAfter && modified < modifiedBefore
+                && created > createdAfter && created < createdBefore;
+    }
+
+    /*
+     * EFFECTS:   return false if nothing below the given directory, at the given depth below
+     *                the starting directory, can match, judged from its totals and path alone
+     */
+    boolean canContainMatch(Dir dir, int depth) {
+        if (depth >= maxDepth) {
+            return false;
+        }
+        if ((filesOnly || type == File.class) && dir.getTotalNumFiles() == 0) {
+            return false;
+        }
+        if (filesOnly && (dir.getTotalSize() < minSize || dir.getLatestModified() <= modifiedAfter)) {
+            return false;
+        }
+        String below = dir.getAbsPath() + "/";
+        return below.startsWith(pathPrefix) || pathPrefix.startsWith(below);
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   add a size predicate given as [+|-]N[c|k|M|G];
+     *            throws IllegalArgumentException if it is malformed
+     */
+    private void size(String spec) {
+        Matcher matcher = SIZE.matcher(spec);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("invalid size '" + spec + "'");
+        }
+        long unit = 1L << (10 * "ckMG".indexOf(matcher.group(3).isEmpty() ? "c" : matcher.group(3)));
+        long count = Long.parseLong(matcher.group(2));
+        switch (matcher.group(1)) {
+            case "+":
+                size(count * unit + 1, Long.MAX_VALUE);
+                break;
+            case "-":
+                size(Long.MIN_VALUE, (count - 1) * unit);
+                break;
+            default:
+                size((count - 1) * unit + 1, count * unit);
+                break;
+        }
+    }
+
+    /*
+     * EFFECTS:   return the node type named by f or d;
+     *            throws IllegalArgumentException for anything else
+     */
+    private static Class<? extends DirNode> parseType(String type) {
+        if (type.equals("f")) {
+            return File.class;
+        } else if (type.equals("d")) {
+            return Dir.class;
+        }
+        throw new IllegalArgumentException("unknown type '" + type + "', expected f or d");
+    }
+
+    /*
+     * EFFECTS:   return the given non-negative count;
+     *            throws IllegalArgumentException if it isn't one
+     */
+    private static int parseCount(String count) {
+        try {
+            int value = Integer.parseInt(count);
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        throw new IllegalArgumentException("invalid count '" + count + "'");
+    }
+
+    /*
+     * EFFECTS:   return the date given as yyyy-MM-dd with an optional HH:mm[:ss] time, in the
+     *                default time zone;
+     *            throws IllegalArgumentException if it is malformed
+     */
+    static Date parseDate(String date) {
+        try {
+            TemporalAccessor parsed = DATE.withLocale(Locale.ROOT).parseBest(date.trim(),
+                    LocalDateTime::from, LocalDate::from);
+            LocalDateTime time = parsed instanceof LocalDate
+                    ? ((LocalDate) parsed).atStartOfDay() : (LocalDateTime) parsed;
+            return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid date '" + date + "', expected yyyy-MM-dd [HH:mm[:ss]]");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package model.search;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles shell glob patterns into matchers: '*' matches any run of characters, '?' any
+ * one character, [abc] and [!abc] a character in or not in a set, {a,b} either of the
+ * alternatives, and '\' makes the next character literal. The common shapes "name",
+ * "*suffix" and "prefix*" compile to plain string comparisons; other patterns compile
+ * to a regular expression.
+ */
+final class Glob {
+    private static final String SPECIAL = "*?[{\\";
+
+    private Glob() {
+    }
+
+    /*
+     * EFFECTS:   return a matcher for the whole of a string against the given glob
+     */
+    static Predicate<String> compile(String glob, boolean ignoreCase) {
+        if (!ignoreCase) {
+            int special = indexOfSpecial(glob, 0);
+            if (special < 0) {
+                return glob::equals;
+            }
+            String rest = glob.substring(special + 1);
+            if (glob.charAt(special) == '*' && indexOfSpecial(rest, 0) < 0) {
+                String prefix = glob.substring(0, special);
+                if (prefix.isEmpty()) {
+                    return name -> name.endsWith(rest);
+                } else if (rest.isEmpty()) {
+                    return name -> name.startsWith(prefix);
+                }
+            }
+        }
+        int flags = ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+        Pattern pattern = Pattern.compile(toRegex(glob), flags | Pattern.DOTALL);
+        return name -> pattern.matcher(name).matches();
+    }
+
+    /*
+     * EFFECTS:   return the part of the glob before its first special character, which every
+     *                match starts with
+     */
+    static String literalPrefix(String glob) {
+        int special = indexOfSpecial(glob, 0);
+        return special < 0 ? glob : glob.substring(0, special);
+    }
+
+    /*
+     * EFFECTS:   return the index of the first special character at or after from, -1 if none
+     */
+    private static int indexOfSpecial(String glob, int from) {
+        for (int i = from; i < glob.length(); i++) {
+            if (SPECIAL.indexOf(glob.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * EFFECTS:   return a regular expression matching what the glob matches
+     */
+    private static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int braces = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else if (c == '[' && glob.indexOf(']', i + 2) > 0) {
+                i = appendClass(glob, i, regex);
+            } else if (c == '{') {
+                braces++;
+                regex.append("(?:");
+            } else if (c == ',' && braces > 0) {
+                regex.append('|');
+            } else if (c == '}' && braces > 0) {
+                braces--;
+                regex.append(')');
+            } else if (c == '\\' && i + 1 < glob.length()) {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        regex.append(")".repeat(braces));
+        return regex.toString();
+    }
+
+    /*
+     * REQUIRES:  glob.charAt(open) == '[' and the class is closed by a later ']'
+     * MODIFIES:  regex
+     * EFFECTS:   append the character class opened at open to regex and return the index of
+     *                its closing ']'; a ']' right after the '[' or "[!" is a member of the set
+     */
+    private static int appendClass(String glob, int open, StringBuilder regex) {
+        int i = open + 1;
+        regex.append('[');
+        if (glob.charAt(i) == '!' || glob.charAt(i) == '^') {
+            regex.append('^');
+            i++;
+        }
+        int first = i;
+        for (; i < glob.length() && (glob.charAt(i) != ']' || i == first); i++) {
+            char c = glob.charAt(i);
+            boolean range = c == '-' && i != first && i + 1 < glob.length() && glob.charAt(i + 1) != ']';
+            regex.append(range || Character.isLetterOrDigit(c) ? String.valueOf(c) : "\\" + c);
+        }
+        regex.append(']');
+        return i;
+    }
+}
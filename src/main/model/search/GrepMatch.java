@@ -0,0 +1,58 @@
+package model.search;
+
+/**
+ * Represents one match of a regular expression in a file: the absolute path of the file,
+ * the line and column where the match starts (both counted from 1) and the text of that line.
+ */
+public final class GrepMatch {
+    private final String path;
+    private final int line;
+    private final int column;
+    private final String text;
+
+    /*
+     * EFFECTS:   create a match at the given line and column of the file with the given path
+     */
+    public GrepMatch(String path, int line, int column, String text) {
+        this.path = path;
+        this.line = line;
+        this.column = column;
+        this.text = text;
+    }
+
+    /*
+     * EFFECTS:   return the absolute path of the file
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /*
+     * EFFECTS:   return the line of the match, counted from 1
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /*
+     * EFFECTS:   return the column where the match starts, counted from 1
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /*
+     * EFFECTS:   return the text of the line of the match
+     */
+    public String getText() {
+        return text;
+    }
+
+    /*
+     * EFFECTS:   return the match in the form path:line:column: text
+     */
+    @Override
+    public String toString() {
+        return path + ":" + line + ":" + column + ": " + text;
+    }
+}
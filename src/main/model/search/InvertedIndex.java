@@ -0,0 +1,190 @@
+package model.search;
+
+import model.Dir;
+import model.File;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a full-text inverted index over the contents of every file in a tree.
+ * Each token (see Tokens) maps to the sorted ids of the files containing it, and each
+ * file id maps back to the positions of its tokens. When a file is updated its old and
+ * new token sets are diffed, so only the postings of tokens it gained or lost are touched.
+ *
+ * A query is a list of words and "quoted phrases"; a file matches if it contains every
+ * word, and the words of every phrase next to each other in order. The index may be
+ * queried and updated from several threads.
+ */
+public class InvertedIndex extends ContentIndex<Tokens> {
+    private final Map<String, PostingList> postings;
+
+    /*
+     * MODIFIES:  rootDir
+     * EFFECTS:   create an index of every file under the given root directory and register
+     *                it as an observer of the root directory
+     */
+    public InvertedIndex(Dir rootDir) {
+        postings = new HashMap<>();
+        build(rootDir);
+    }
+
+    /*
+     * EFFECTS:   return the files matching the given query, ordered by absolute path
+     */
+    public List<File> search(String query) {
+        List<String> words = new ArrayList<>();
+        List<List<String>> phrases = new ArrayList<>();
+        parseQuery(query, words, phrases);
+        List<File> matches = new ArrayList<>();
+        if (words.isEmpty()) {
+            return matches;
+        }
+        lockRead();
+        try {
+            for (int id : idsContainingAll(words)) {
+                File file = getFile(id);
+                if (file.getParentDir() != null && containsPhrases(getSummary(id), phrases)) {
+                    matches.add(file);
+                }
+            }
+        } finally {
+            unlockRead();
+        }
+        return sortByPath(matches);
+    }
+
+    /*
+     * EFFECTS:   return the number of distinct tokens in the index
+     */
+    public int getNumTokens() {
+        lockRead();
+        try {
+            return postings.size();
+        } finally {
+            unlockRead();
+        }
+    }
+
+    /*
+     * MODIFIES:  words, phrases
+     * EFFECTS:   add every token of the query to words, and the tokens of each quoted part
+     *                of the query to phrases as one list
+     */
+    private static void parseQuery(String query, List<String> words, List<List<String>> phrases) {
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<String> tokens = Tokens.split(parts[i]);
+            words.addAll(tokens);
+            if (i % 2 == 1 && tokens.size() > 1) {
+                phrases.add(tokens);
+            }
+        }
+    }
+
+    /*
+     * REQUIRES:  the read lock is held, words is not empty
+     * EFFECTS:   return the ids of the files containing every given word
+     */
+    private int[] idsContainingAll(List<String> words) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String word : new LinkedHashSet<>(words)) {
+            PostingList list = postings.get(word);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        return PostingList.intersect(lists);
+    }
+
+    /*
+     * EFFECTS:   return true if the given text contains each phrase as consecutive tokens
+     */
+    private static boolean containsPhrases(Tokens text, List<List<String>> phrases) {
+        for (List<String> phrase : phrases) {
+            if (!containsPhrase(text, phrase)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * EFFECTS:   return true if the words of the phrase occur in the given text one after another
+     */
+    private static boolean containsPhrase(Tokens text, List<String> phrase) {
+        for (int start : text.positionsOf(phrase.get(0))) {
+            boolean found = true;
+            for (int i = 1; i < phrase.size() && found; i++) {
+                found = text.occursAt(phrase.get(i), start + i);
+            }
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected Tokens summarize(String content) {
+        return Tokens.of(content);
+    }
+
+    /*
+     * REQUIRES:  the write lock is held
+     * MODIFIES:  this, text
+     * EFFECTS:   walk the old and new sorted token lists together, so only tokens the file
+     *                lost or gained have their postings changed; tokens of the new text are
+     *                replaced by the instances already in the index
+     */
+    @Override
+    protected void reindex(int id, Tokens old, Tokens text) {
+        int oldSize = old == null ? 0 : old.size();
+        int newSize = text == null ? 0 : text.size();
+        int i = 0;
+        int j = 0;
+        while (i < oldSize || j < newSize) {
+            int cmp = i == oldSize ? 1 : j == newSize ? -1 : old.get(i).compareTo(text.get(j));
+            if (cmp < 0) {
+                removePosting(old.get(i++), id);
+            } else if (cmp > 0) {
+                text.share(j, addPosting(text.get(j), id));
+                j++;
+            } else {
+                text.share(j++, old.get(i++));
+            }
+        }
+    }
+
+    /*
+     * REQUIRES:  the write lock is held
+     * MODIFIES:  this
+     * EFFECTS:   add the given id to the postings of the given token and return the instance
+     *                of the token shared by every text containing it
+     */
+    private String addPosting(String token, int id) {
+        PostingList list = postings.computeIfAbsent(token, PostingList::new);
+        list.add(id);
+        return list.getToken();
+    }
+
+    /*
+     * REQUIRES:  the write lock is held
+     * MODIFIES:  this
+     * EFFECTS:   remove the given id from the postings of the given token, and the token
+     *                itself once no file contains it
+     */
+    private void removePosting(String token, int id) {
+        PostingList list = postings.get(token);
+        if (list != null) {
+            list.remove(id);
+            if (list.size() == 0) {
+                postings.remove(token);
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package model.search;
+
+import model.Dir;
+import model.DirNode;
+import model.DirWalker;
+import model.File;
+import model.TreeObserver;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Represents an index of the absolute path of every file and directory in a tree for
+ * fuzzy "go to file" matching. A query matches a path if its characters occur in the
+ * path in order, ignoring case; matches are ranked by how well the query lines up with
+ * the path (see score), best first. Each entry keeps a bit mask of the characters in its
+ * path, so most paths are rejected with one AND. The index observes the root directory:
+ * adding or removing a node costs the size of its subtree, and so does moving it, as the
+ * paths below it change.
+ *
+ * While a query is being typed, each keystroke usually extends the previous query; the
+ * index then only looks at the paths that matched the previous query, as long as the
+ * tree hasn't changed in between.
+ */
+public class NameIndex implements TreeObserver {
+    private static final int MATCH = 16;
+    private static final int BOUNDARY_BONUS = 10;
+    private static final int CONSECUTIVE_BONUS = 8;
+    private static final int NAME_BONUS = 4;
+    private static final int GAP_PENALTY = 1;
+
+    private final List<Entry> entries;
+    private final Map<DirNode, Integer> positions;
+    private final ReentrantReadWriteLock lock;
+    private long version;
+    private volatile LastQuery lastQuery;
+
+    /*
+     * MODIFIES:  rootDir
+     * EFFECTS:   create an index of every file and directory below the given root directory
+     *                and register it as an observer of the root directory
+     */
+    public NameIndex(Dir rootDir) {
+        entries = new ArrayList<>();
+        positions = new HashMap<>();
+        lock = new ReentrantReadWriteLock();
+        lock.writeLock().lock();
+        try {
+            rootDir.addObserver(this);
+            addSubtree(rootDir);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * EFFECTS:   return up to limit nodes of the given type (File, Dir, or DirNode for both)
+     *                whose absolute path fuzzily matches the given query, best match first;
+     *                an empty query matches nothing
+     */
+    public <T extends DirNode> List<T> search(String query, int limit, Class<T> type) {
+        String lowerQuery = toLowerCase(query.replace(" ", ""));
+        if (lowerQuery.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<Entry> matches;
+        long queryMask = mask(lowerQuery);
+        lock.readLock().lock();
+        try {
+            LastQuery last = lastQuery;
+            boolean narrowing = last != null && last.version == version && lowerQuery.startsWith(last.query);
+            List<Entry> scope = narrowing ? last.matches : entries;
+            matches = new ArrayList<>(scope.size());
+            for (Entry entry : scope) {
+                if ((entry.mask & queryMask) == queryMask && isSubsequence(lowerQuery, entry.lowerPath)) {
+                    matches.add(entry);
+                }
+            }
+            lastQuery = new LastQuery(lowerQuery, version, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return best(matches, lowerQuery, limit, type);
+    }
+
+    /*
+     * EFFECTS:   return the number of indexed files and directories
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * EFFECTS:   return the nodes of the best limit entries, best first, keeping only the
+     *                worst of them at the head of a bounded heap
+     */
+    private static <T extends DirNode> List<T> best(List<Entry> matches, String query, int limit, Class<T> type) {
+        Comparator<Scored> byRank = Comparator.comparingInt((Scored scored) -> scored.score)
+                .thenComparing(scored -> -scored.entry.path.length())
+                .thenComparing(scored -> scored.entry.path, Comparator.reverseOrder());
+        PriorityQueue<Scored> heap = new PriorityQueue<>(byRank);
+        for (Entry entry : matches) {
+            if (type.isInstance(entry.node)) {
+                int score = score(query, entry);
+                // most entries can't beat the worst kept one and never touch the heap
+                if (heap.size() < limit || score >= heap.peek().score) {
+                    heap.add(new Scored(entry, score));
+                    if (heap.size() > limit) {
+                        heap.poll();
+                    }
+                }
+            }
+        }
+        List<T> nodes = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            nodes.add(0, type.cast(heap.poll().entry.node));
+        }
+        return nodes;
+    }
+
+    /*
+     * EFFECTS:   return true if the characters of query occur in text in order
+     */
+    private static boolean isSubsequence(String query, String text) {
+        int q = 0;
+        for (int t = 0; t < text.length() && q < query.length(); t++) {
+            if (text.charAt(t) == query.charAt(q)) {
+                q++;
+            }
+        }
+        return q == query.length();
+    }
+
+    /*
+     * REQUIRES:  query is a subsequence of entry.lowerPath
+     * EFFECTS:   return how well the query lines up with the path: the query is matched
+     *                against the shortest window of the path ending at its last possible
+     *                match, and each matched character scores more at the start of a word
+     *                (after '/', '.', '_', '-' or a lower-to-upper case change), right after
+     *                the previous match, or in the last name of the path; skipped characters
+     *                within the window cost a little
+     */
+    static int score(String query, Entry entry) {
+        String text = entry.lowerPath;
+        int end = text.length() - 1;
+        for (int q = query.length() - 1; q >= 0; end--) {
+            if (text.charAt(end) == query.charAt(q)) {
+                q--;
+            }
+        }
+        int start = end + 1;
+        int score = 0;
+        int previous = -2;
+        for (int t = start, q = 0; q < query.length(); t++) {
+            if (text.charAt(t) == query.charAt(q)) {
+                score += MATCH + (isBoundary(entry.path, t) ? BOUNDARY_BONUS : 0)
+                        + (t == previous + 1 ? CONSECUTIVE_BONUS : 0) + (t >= entry.nameStart ? NAME_BONUS : 0);
+                score -= previous >= 0 ? GAP_PENALTY * (t - previous - 1) : 0;
+                previous = t;
+                q++;
+            }
+        }
+        return score;
+    }
+
+    /*
+     * EFFECTS:   return true if the character at the given index of the path starts a word
+     */
+    private static boolean isBoundary(String path, int i) {
+        if (i == 0) {
+            return true;
+        }
+        char before = path.charAt(i - 1);
+        return "/._- ".indexOf(before) >= 0
+                || (Character.isLowerCase(before) && Character.isUpperCase(path.charAt(i)));
+    }
+
+    /*
+     * EFFECTS:   return the given text with each character in lower case, keeping its length
+     *                so indices into it are indices into the text
+     */
+    private static String toLowerCase(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /*
+     * EFFECTS:   return a mask with one bit for each letter and digit of the given lower-case
+     *                text, and one bit shared by every other character
+     */
+    private static long mask(String text) {
+        long mask = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                mask |= 1L << (c - 'a');
+            } else if (c >= '0' && c <= '9') {
+                mask |= 1L << (26 + c - '0');
+            } else {
+                mask |= 1L << 36;
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public void nodeAdded(Dir parent, DirNode node) {
+        lock.writeLock().lock();
+        try {
+            addSubtree(node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void nodeRemoved(Dir parent, DirNode node) {
+        lock.writeLock().lock();
+        try {
+            forEachInSubtree(node, this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void nodeMoved(Dir oldParent, String oldName, DirNode node) {
+        lock.writeLock().lock();
+        try {
+            forEachInSubtree(node, this::remove);
+            addSubtree(node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * REQUIRES:  the write lock is held
+     * MODIFIES:  this
+     * EFFECTS:   add an entry for the given node and every node below it, except root directories
+     */
+    private void addSubtree(DirNode node) {
+        forEachInSubtree(node, child -> {
+            if (!(child instanceof Dir && ((Dir) child).isRootDir()) && !positions.containsKey(child)) {
+                positions.put(child, entries.size());
+                entries.add(new Entry(child));
+            }
+        });
+    }
+
+    /*
+     * REQUIRES:  the write lock is held
+     * MODIFIES:  this
+     * EFFECTS:   remove the entry of the given node, if any, by moving the last entry into its place
+     */
+    private void remove(DirNode node) {
+        Integer position = positions.remove(node);
+        if (position != null) {
+            Entry last = entries.remove(entries.size() - 1);
+            if (position < entries.size()) {
+                entries.set(position, last);
+                positions.put(last.node, position);
+            }
+        }
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   apply action to the given node and every node below it; every change goes
+     *                through here, so this also invalidates the last query
+     */
+    private void forEachInSubtree(DirNode node, Consumer<DirNode> action) {
+        version++;
+        if (node instanceof File) {
+            action.accept(node);
+        } else {
+            DirWalker.stream((Dir) node).forEach(action);
+        }
+    }
+
+    /**
+     * Represents an indexed node with its path as it was when the node was indexed.
+     */
+    static final class Entry {
+        private final DirNode node;
+        private final String path;
+        private final String lowerPath;
+        private final long mask;
+        private final int nameStart;
+
+        Entry(DirNode node) {
+            this.node = node;
+            this.path = node.getAbsPath();
+            this.lowerPath = toLowerCase(path);
+            this.mask = mask(lowerPath);
+            this.nameStart = path.lastIndexOf('/') + 1;
+        }
+    }
+
+    /**
+     * Represents a match with its score.
+     */
+    private static final class Scored {
+        private final Entry entry;
+        private final int score;
+
+        Scored(Entry entry, int score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Represents the last query answered, with the entries that matched it, at the version
+     * of the index it was answered against.
+     */
+    private static final class LastQuery {
+        private final String query;
+        private final long version;
+        private final List<Entry> matches;
+
+        LastQuery(String query, long version, List<Entry> matches) {
+            this.query = query;
+            this.version = version;
+            this.matches = matches;
+        }
+    }
+}
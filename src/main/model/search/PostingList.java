@@ -0,0 +1,115 @@
+package model.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Represents the postings of one token: the ids of the files containing it, kept sorted
+ * in a growable array so lists can be intersected by binary search.
+ */
+final class PostingList {
+    private final String token;
+    private int[] ids;
+    private int size;
+
+    /*
+     * EFFECTS:   create an empty posting list that isn't kept for a token string
+     */
+    PostingList() {
+        this(null);
+    }
+
+    /*
+     * EFFECTS:   create an empty posting list of the given token
+     */
+    PostingList(String token) {
+        this.token = token;
+        this.ids = new int[2];
+    }
+
+    /*
+     * EFFECTS:   return the intersection of the given posting lists as sorted ids, starting
+     *                from the shortest list so each step only checks ids still in the running
+     */
+    static int[] intersect(List<PostingList> lists) {
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+        List<PostingList> bySize = new ArrayList<>(lists);
+        bySize.sort(Comparator.comparingInt(PostingList::size));
+        int[] candidates = bySize.get(0).toArray();
+        int numCandidates = candidates.length;
+        for (int i = 1; i < bySize.size() && numCandidates > 0; i++) {
+            int kept = 0;
+            for (int c = 0; c < numCandidates; c++) {
+                if (bySize.get(i).contains(candidates[c])) {
+                    candidates[kept++] = candidates[c];
+                }
+            }
+            numCandidates = kept;
+        }
+        return Arrays.copyOf(candidates, numCandidates);
+    }
+
+    /*
+     * EFFECTS:   return the token of this list, null if it has none; every indexed text
+     *                shares this instance
+     */
+    String getToken() {
+        return token;
+    }
+
+    /*
+     * EFFECTS:   return the number of files in this list
+     */
+    int size() {
+        return size;
+    }
+
+    /*
+     * EFFECTS:   return true if the file with the given id is in this list
+     */
+    boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    /*
+     * EFFECTS:   return the ids in this list in ascending order
+     */
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   add the given id, keeping the list sorted; constant time when ids are added in
+     *                ascending order, as they are while an index is built
+     */
+    void add(int id) {
+        int i = size == 0 || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+        if (i >= 0) {
+            return;
+        }
+        i = -i - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, i, ids, i + 1, size - i);
+        ids[i] = id;
+        size++;
+    }
+
+    /*
+     * MODIFIES:  this
+     * EFFECTS:   remove the given id if it is in this list
+     */
+    void remove(int id) {
+        int i = Arrays.binarySearch(ids, 0, size, id);
+        if (i >= 0) {
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            size--;
+        }
+    }
+}
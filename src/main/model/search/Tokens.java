@@ -0,0 +1,114 @@
+package model.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Represents the tokens of one text, each with the positions where it occurs. A token is
+ * a maximal run of letters and digits, lower-cased; everything else separates tokens. The
+ * position of a token is the number of tokens before it. Distinct tokens are kept sorted,
+ * with the positions of all of them in one flat array, so a text costs a few arrays
+ * rather than an object per token.
+ */
+final class Tokens {
+    private final String[] tokens;
+    private final int[] starts;
+    private final int[] positions;
+
+    /*
+     * REQUIRES:  tokens is sorted and has no duplicates, the positions of tokens[i] are
+     *                positions[starts[i]] to positions[starts[i + 1] - 1] in ascending order
+     * EFFECTS:   create the tokens of a text
+     */
+    private Tokens(String[] tokens, int[] starts, int[] positions) {
+        this.tokens = tokens;
+        this.starts = starts;
+        this.positions = positions;
+    }
+
+    /*
+     * EFFECTS:   return the tokens of the given text, in order
+     */
+    static List<String> split(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inToken = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inToken && start < 0) {
+                start = i;
+            } else if (!inToken && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /*
+     * EFFECTS:   return the distinct tokens of the given text with their positions
+     */
+    static Tokens of(String text) {
+        List<String> split = split(text);
+        Map<String, Integer> counts = new HashMap<>(Math.max(16, split.size() * 4 / 3));
+        for (String token : split) {
+            counts.merge(token, 1, Integer::sum);
+        }
+        String[] tokens = counts.keySet().toArray(new String[0]);
+        Arrays.sort(tokens);
+        int[] starts = new int[tokens.length + 1];
+        for (int i = 0; i < tokens.length; i++) {
+            starts[i + 1] = starts[i] + counts.get(tokens[i]);
+            counts.put(tokens[i], starts[i]);
+        }
+        int[] positions = new int[split.size()];
+        for (int position = 0; position < split.size(); position++) {
+            // counts now holds the next free slot of each token
+            positions[counts.merge(split.get(position), 1, Integer::sum) - 1] = position;
+        }
+        return new Tokens(tokens, starts, positions);
+    }
+
+    /*
+     * EFFECTS:   return the number of distinct tokens
+     */
+    int size() {
+        return tokens.length;
+    }
+
+    /*
+     * EFFECTS:   return the i-th distinct token in sorted order
+     */
+    String get(int i) {
+        return tokens[i];
+    }
+
+    /*
+     * REQUIRES:  token.equals(get(i))
+     * MODIFIES:  this
+     * EFFECTS:   store the given equal instance of the i-th token in place of its own, so
+     *                texts sharing a token can share one string
+     */
+    void share(int i, String token) {
+        tokens[i] = token;
+    }
+
+    /*
+     * EFFECTS:   return true if the given token occurs at the given position
+     */
+    boolean occursAt(String token, int position) {
+        int i = Arrays.binarySearch(tokens, token);
+        return i >= 0 && Arrays.binarySearch(positions, starts[i], starts[i + 1], position) >= 0;
+    }
+
+    /*
+     * EFFECTS:   return the positions where the given token occurs, in ascending order
+     */
+    int[] positionsOf(String token) {
+        int i = Arrays.binarySearch(tokens, token);
+        return i < 0 ? new int[0] : Arrays.copyOfRange(positions, starts[i], starts[i + 1]);
+    }
+}
@@ -0,0 +1,175 @@
+package model.search;
+
+import model.Dir;
+import model.DirNode;
+import model.File;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Represents a trigram index over the contents of every file in a tree: each trigram
+ * (see Trigrams) maps to the sorted ids of the files containing it. A regular expression
+ * search first takes the trigrams every match must contain from the literal parts of the
+ * expression and intersects their postings, so only files that can match are read; the
+ * candidates are then matched line by line in parallel. Expressions with no required
+ * trigram (e.g. "a.b" or "x|y") read every file in scope, as do patterns compiled with
+ * flags that let a match differ from the literal text, e.g. CASE_INSENSITIVE. When a file is updated its old
+ * and new trigram sets are diffed, so only the postings of trigrams it gained or lost are
+ * touched.
+ */
+public class TrigramIndex extends ContentIndex<int[]> {
+    // flags under which every match still contains the literal parts of the expression
+    private static final int LITERAL_FLAGS = Pattern.LITERAL | Pattern.MULTILINE | Pattern.DOTALL;
+
+    private final Map<Integer, PostingList> postings;
+
+    /*
+     * MODIFIES:  rootDir
+     * EFFECTS:   create an index of every file under the given root directory and register
+     *                it as an observer of the root directory
+     */
+    public TrigramIndex(Dir rootDir) {
+        postings = new HashMap<>();
+        build(rootDir);
+    }
+
+    /*
+     * EFFECTS:   return every match of the pattern in the lines of the given file, or of the
+     *                files below the given directory, ordered by path, line and column
+     */
+    public List<GrepMatch> grep(Pattern pattern, DirNode scope) {
+        int[] required = (pattern.flags() & ~LITERAL_FLAGS) == 0 ? Trigrams.requiredBy(pattern.pattern()) : new int[0];
+        return candidates(required, scope).parallelStream()
+                .flatMap(file -> matchesIn(file, pattern).stream())
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * EFFECTS:   return the files in scope that contain every trigram required by the given
+     *                regular expression, ordered by absolute path
+     */
+    public List<File> candidates(String regex, DirNode scope) {
+        return candidates(Trigrams.requiredBy(regex), scope);
+    }
+
+    /*
+     * EFFECTS:   return the files in scope that contain every one of the given trigrams,
+     *                ordered by absolute path; every file in scope if there are none
+     */
+    private List<File> candidates(int[] required, DirNode scope) {
+        if (required.length == 0) {
+            return sortByPath(new ArrayList<>(filesIn(scope)));
+        }
+        List<File> candidates = new ArrayList<>();
+        lockRead();
+        try {
+            List<PostingList> lists = new ArrayList<>();
+            for (int trigram : required) {
+                PostingList list = postings.get(trigram);
+                if (list == null) {
+                    return candidates;
+                }
+                lists.add(list);
+            }
+            for (int id : PostingList.intersect(lists)) {
+                File file = getFile(id);
+                if (isInScope(file, scope)) {
+                    candidates.add(file);
+                }
+            }
+        } finally {
+            unlockRead();
+        }
+        return sortByPath(candidates);
+    }
+
+    /*
+     * EFFECTS:   return true if the file is the given scope or below it
+     */
+    private static boolean isInScope(File file, DirNode scope) {
+        if (file == scope) {
+            return true;
+        }
+        for (Dir dir = file.getParentDir(); dir != null; dir = dir.getParentDir()) {
+            if (dir == scope) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * EFFECTS:   return the matches of the pattern in each line of the file, in order; '^' and
+     *                '$' match at the start and end of each line
+     */
+    static List<GrepMatch> matchesIn(File file, Pattern pattern) {
+        List<GrepMatch> matches = new ArrayList<>();
+        String content = file.readContent();
+        Matcher matcher = pattern.matcher(content);
+        int lineStart = 0;
+        for (int line = 1; lineStart < content.length(); line++) {
+            int lineEnd = content.indexOf('\n', lineStart);
+            lineEnd = lineEnd < 0 ? content.length() : lineEnd;
+            matcher.region(lineStart, lineEnd);
+            String text = null;
+            while (matcher.find()) {
+                text = text == null ? content.substring(lineStart, lineEnd) : text;
+                matches.add(new GrepMatch(file.getAbsPath(), line, matcher.start() - lineStart + 1, text));
+            }
+            lineStart = lineEnd + 1;
+        }
+        return matches;
+    }
+
+    @Override
+    protected int[] summarize(String content) {
+        return Trigrams.of(content);
+    }
+
+    /*
+     * REQUIRES:  the write lock is held
+     * MODIFIES:  this
+     * EFFECTS:   walk the old and new sorted trigram sets together, so only trigrams the file
+     *                lost or gained have their postings changed
+     */
+    @Override
+    protected void reindex(int id, int[] old, int[] trigrams) {
+        int oldSize = old == null ? 0 : old.length;
+        int newSize = trigrams == null ? 0 : trigrams.length;
+        int i = 0;
+        int j = 0;
+        while (i < oldSize || j < newSize) {
+            int cmp = i == oldSize ? 1 : j == newSize ? -1 : Integer.compare(old[i], trigrams[j]);
+            if (cmp < 0) {
+                removePosting(old[i++], id);
+            } else if (cmp > 0) {
+                postings.computeIfAbsent(trigrams[j++], trigram -> new PostingList()).add(id);
+            } else {
+                i++;
+                j++;
+            }
+        }
+    }
+
+    /*
+     * REQUIRES:  the write lock is held
+     * MODIFIES:  this
+     * EFFECTS:   remove the given id from the postings of the given trigram, and the trigram
+     *                itself once no file contains it
+     */
+    private void removePosting(int trigram, int id) {
+        PostingList list = postings.get(trigram);
+        if (list != null) {
+            list.remove(id);
+            if (list.size() == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+}
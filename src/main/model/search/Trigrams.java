@@ -0,0 +1,175 @@
+package model.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Extracts trigrams, the runs of three consecutive characters, from text and from the
+ * literal parts of regular expressions. A trigram is packed into an int from the low ten
+ * bits of each character, so it is exact for characters below U+0400 and a harmless
+ * collision otherwise: collisions can only add candidate files, never lose one.
+ */
+final class Trigrams {
+    private Trigrams() {
+    }
+
+    /*
+     * EFFECTS:   return the trigram starting at the given index of the given text
+     */
+    static int at(CharSequence text, int i) {
+        return (text.charAt(i) & 0x3FF) << 20 | (text.charAt(i + 1) & 0x3FF) << 10 | (text.charAt(i + 2) & 0x3FF);
+    }
+
+    /*
+     * EFFECTS:   return the distinct trigrams of the given text in ascending order
+     */
+    static int[] of(CharSequence text) {
+        if (text.length() < 3) {
+            return new int[0];
+        }
+        int[] trigrams = new int[text.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = at(text, i);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    /*
+     * EFFECTS:   return the distinct trigrams every match of the given regular expression must
+     *                contain, in ascending order; empty if nothing can be required, e.g. for
+     *                top-level alternation or inline flags
+     */
+    static int[] requiredBy(String regex) {
+        if (regex.contains("(?") || hasTopLevelAlternation(regex)) {
+            return new int[0];
+        }
+        List<int[]> parts = new ArrayList<>();
+        for (String literal : literalsOf(regex)) {
+            parts.add(of(literal));
+        }
+        return parts.stream().flatMapToInt(Arrays::stream).sorted().distinct().toArray();
+    }
+
+    /*
+     * EFFECTS:   return the literal runs of the regular expression that every match must
+     *                contain, taken only from outside groups and character classes; a quantifier
+     *                that makes its character optional drops it from the run, and every
+     *                quantifier ends the run since what follows needn't be adjacent
+     */
+    @SuppressWarnings("methodlength")
+    private static List<String> literalsOf(String regex) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\' && i + 1 < regex.length()) {
+                char escaped = regex.charAt(++i);
+                if (depth == 0 && !Character.isLetterOrDigit(escaped)) {
+                    run.append(escaped);
+                } else {
+                    i = skipEscapeArguments(regex, i);
+                    run = endRun(literals, run);
+                }
+            } else if (c == '{') {
+                i = Math.max(i, regex.indexOf('}', i));
+                run.setLength(Math.max(0, run.length() - 1));
+                run = endRun(literals, run);
+            } else if (c == '[') {
+                i = skipClass(regex, i);
+                run = endRun(literals, run);
+            } else if (c == '(' || c == ')') {
+                depth += c == '(' ? 1 : -1;
+                run = endRun(literals, run);
+            } else if (c == '?' || c == '*') {
+                if (run.length() > 0) {
+                    run.setLength(run.length() - 1);
+                }
+                run = endRun(literals, run);
+            } else if (c == '+') {
+                String last = run.length() > 0 ? run.substring(run.length() - 1) : "";
+                run = endRun(literals, run).append(last);
+            } else if (depth == 0 && c != '.' && c != '^' && c != '$') {
+                run.append(c);
+            } else {
+                run = endRun(literals, run);
+            }
+        }
+        endRun(literals, run);
+        return literals;
+    }
+
+    /*
+     * EFFECTS:   return the index of the last character belonging to the escape sequence whose
+     *                letter or digit is at the given index, e.g. the hex digits of \x41 or the
+     *                braces of \p{Alpha}; errs on the side of skipping too much
+     */
+    private static int skipEscapeArguments(String regex, int i) {
+        int end = i;
+        while (end + 1 < regex.length() && (Character.isLetterOrDigit(regex.charAt(end + 1))
+                || "{}<>_,".indexOf(regex.charAt(end + 1)) >= 0)) {
+            end++;
+        }
+        return end;
+    }
+
+    /*
+     * MODIFIES:  literals
+     * EFFECTS:   add the run to literals if it is long enough to have a trigram, and return a
+     *                new empty run
+     */
+    private static StringBuilder endRun(List<String> literals, StringBuilder run) {
+        if (run.length() >= 3) {
+            literals.add(run.toString());
+        }
+        return new StringBuilder();
+    }
+
+    /*
+     * REQUIRES:  regex.charAt(open) == '['
+     * EFFECTS:   return the index of the ']' closing the character class opened at open, or the
+     *                last index of regex if it isn't closed
+     */
+    private static int skipClass(String regex, int open) {
+        int depth = 0;
+        for (int i = open; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']' && i > open + 1 && --depth == 0) {
+                return i;
+            }
+        }
+        return regex.length() - 1;
+    }
+
+    /*
+     * EFFECTS:   return true if the regular expression has a '|' outside groups and classes
+     */
+    private static boolean hasTopLevelAlternation(String regex) {
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = skipClass(regex, i);
+            } else if (c == '(' || c == ')') {
+                depth += c == '(' ? 1 : -1;
+            } else if (c == '|' && depth == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,342 @@
+package persistence;
+
+import model.FileSnapshot;
+import model.LargeFile;
+import model.StoredContent;
+import org.json.JSONObject;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Represents an append-only file holding the contents of the files of a saved file system, encoded in UTF-8
+//     one after another; the JSON file of the file system refers to each content by its offset and length,
+//     so the tree can be read without reading any content, and a content is only read when first needed.
+//     Contents are never overwritten in place. Once contents no longer saved take up most of the file, it is
+//     compacted: the contents still saved are copied into a fresh file, which atomically replaces it, and the
+//     slices of those contents are moved to their new offsets; a slice of a content left behind can no longer
+//     be loaded
+public class ContentFile {
+    static final long MIN_COMPACT_BYTES = 1 << 20;
+
+    private final Path path;
+    private FileChannel channel;
+
+    // EFFECTS:  constructs a content file at the given path
+    public ContentFile(Path path) {
+        this.path = path.toAbsolutePath().normalize();
+    }
+
+    // EFFECTS:  return the path of this content file
+    public Path getPath() {
+        return path;
+    }
+
+    // MODIFIES: this
+    // EFFECTS:  opens this content file for appending, creating it if needed
+    //     throws IOException if it cannot be opened
+    public void open() throws IOException {
+        // read too, to copy contents out when compacting, which rules out opening it for appending
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    // REQUIRES: this is open
+    // MODIFIES: this
+    // EFFECTS:  append the content of the given file and return where it is stored; return null if the content
+    //     can't be stored in UTF-8, i.e. it has half of a surrogate pair without the other
+    //     throws IOException if the content cannot be written
+    public Slice append(FileSnapshot file) throws IOException {
+        byte[] utf8 = file.getContent().getBytes(StandardCharsets.UTF_8);
+        if (utf8.length != file.getSize()) {
+            return null;
+        }
+        long offset = channel.size();
+        ByteBuffer buffer = ByteBuffer.wrap(utf8);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return new Slice(Segment.of(path), offset, file.getLength(), file.getSize(), file.getCharCount(),
+                file.getLineCount());
+    }
+
+    // REQUIRES: this is open
+    // MODIFIES: this
+    // EFFECTS:  append the content of the given large file, streamed from its base and edits, and return where
+    //     it is stored, with statistics counted from the bytes as they are written
+    //     throws IOException if the content cannot be written or is too long for a file (2^31 UTF-16 code units)
+    public Slice append(LargeFile file) throws IOException {
+        long offset = channel.size();
+        Utf8Counter counter = new Utf8Counter(channel);
+        long size = file.writeTo(counter);
+        if (counter.length > Integer.MAX_VALUE || file.getLineCount() > Integer.MAX_VALUE) {
+            throw new IOException("content of " + size + " bytes is too long for a file");
+        }
+        return new Slice(Segment.of(path), offset, (int) counter.length, size, (int) counter.charCount,
+                (int) file.getLineCount());
+    }
+
+    // REQUIRES: this is open, every content of this file that is still saved is held by one of the given slices
+    // MODIFIES: this, live
+    // EFFECTS:  if the contents not held by the given slices take up more than half of this file and at least
+    //     MIN_COMPACT_BYTES, copy the contents of the given slices into a fresh file, atomically replace this
+    //     file with it, move the slices to their new offsets and return true; return false otherwise
+    //     throws IOException if the fresh file can't be written or moved over this file, leaving this file as is
+    public boolean compact(Collection<Slice> live) throws IOException {
+        Map<Long, Long> moved = new TreeMap<>();
+        for (Slice slice : live) {
+            moved.put(slice.offset, slice.size);
+        }
+        long liveBytes = moved.values().stream().mapToLong(Long::longValue).sum();
+        long deadBytes = channel.size() - liveBytes;
+        if (deadBytes < MIN_COMPACT_BYTES || deadBytes <= liveBytes) {
+            return false;
+        }
+        Path fresh = path.resolveSibling(path.getFileName() + ".compact");
+        copyContents(fresh, moved);
+        close();
+        Segment old = Segment.of(path);
+        old.lock.writeLock().lock();
+        try {
+            Files.move(fresh, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            old.retire(live, moved);
+        } finally {
+            old.lock.writeLock().unlock();
+            open();
+        }
+        return true;
+    }
+
+    // REQUIRES: this is open
+    // MODIFIES: moved
+    // EFFECTS:  write the contents at the offsets in moved, with the sizes they map to, one after another into a
+    //     fresh file at the given path, and map each offset to the offset of its copy
+    //     throws IOException if the fresh file can't be written
+    private void copyContents(Path fresh, Map<Long, Long> moved) throws IOException {
+        try (FileChannel out = FileChannel.open(fresh, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<Long, Long> content : moved.entrySet()) {
+                long newOffset = out.position();
+                long copied = 0;
+                while (copied < content.getValue()) {
+                    copied += channel.transferTo(content.getKey() + copied, content.getValue() - copied, out);
+                }
+                content.setValue(newOffset);
+            }
+            out.force(false);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS:  closes this content file, forcing what was appended to disk
+    //     throws IOException if it cannot be closed
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // EFFECTS:  return the content stored in the content file at the given path at the offset and with the
+    //     statistics recorded in the given JSON representation of a file, as written by Slice.toJson
+    public static Slice parseSlice(Path path, JSONObject json) {
+        return new Slice(Segment.of(path.toAbsolutePath().normalize()), json.getLong("contentOffset"),
+                json.getInt("length"), json.getLong("size"), json.getInt("characters"), json.getInt("lines"));
+    }
+
+    // Represents the content file at a path until it is compacted: its contents are read under its read lock, and
+    //     it is replaced under its write lock, after which the path has a new segment
+    private static final class Segment {
+        private static final Map<Path, Segment> CURRENT = new ConcurrentHashMap<>();
+
+        private final Path path;
+        private final ReentrantReadWriteLock lock;
+        private volatile boolean retired;
+
+        private Segment(Path path) {
+            this.path = path;
+            this.lock = new ReentrantReadWriteLock();
+        }
+
+        // EFFECTS:  return the current segment of the content file at the given path
+        static Segment of(Path path) {
+            return CURRENT.computeIfAbsent(path, Segment::new);
+        }
+
+        // REQUIRES: the write lock of this is held, the file at its path has just been replaced by a copy of the
+        //     contents of the given slices, the offset of each mapped to the offset of its copy
+        // MODIFIES: this, live
+        // EFFECTS:  move the given slices to the new segment of the path and retire this one
+        void retire(Collection<Slice> live, Map<Long, Long> moved) {
+            CURRENT.remove(path, this);
+            Segment replacement = of(path);
+            for (Slice slice : live) {
+                slice.offset = moved.get(slice.offset);
+                // after the offset, so a reader that sees the new segment sees the new offset
+                slice.segment = replacement;
+            }
+            retired = true;
+        }
+    }
+
+    // Represents one content in a content file, read from disk each time it is loaded
+    public static final class Slice implements StoredContent {
+        private volatile Segment segment;
+        private volatile long offset;
+        private final int length;
+        private final long size;
+        private final int charCount;
+        private final int lineCount;
+
+        private Slice(Segment segment, long offset, int length, long size, int charCount, int lineCount) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.size = size;
+            this.charCount = charCount;
+            this.lineCount = lineCount;
+        }
+
+        // EFFECTS:  return the path of the content file holding this content
+        public Path getPath() {
+            return segment.path;
+        }
+
+        // EFFECTS:  return the offset of this content in its content file, which changes when it is compacted
+        public long getOffset() {
+            return offset;
+        }
+
+        // EFFECTS:  return true if this content is stored in the given content file
+        public boolean isIn(ContentFile file) {
+            return segment.path.equals(file.path);
+        }
+
+        // EFFECTS:  return this content mapped from its content file, for viewing and editing without loading it;
+        //     the mapping stays valid if the content file is compacted meanwhile
+        //     throws IOException if it can't be mapped, e.g. the content was left behind by a compaction
+        public LargeFile map() throws IOException {
+            Segment current = lockSegment();
+            try {
+                return LargeFile.open(current.path, offset, size);
+            } finally {
+                current.lock.readLock().unlock();
+            }
+        }
+
+        // EFFECTS:  return the segment holding this content with its read lock held, so it isn't compacted while
+        //     it is read
+        //     throws IOException if the content was left behind by a compaction
+        private Segment lockSegment() throws IOException {
+            while (true) {
+                Segment current = segment;
+                current.lock.readLock().lock();
+                if (segment == current && !current.retired) {
+                    return current;
+                }
+                current.lock.readLock().unlock();
+                if (segment == current) {
+                    throw new IOException(current.path + " was compacted without the content at " + offset);
+                }
+            }
+        }
+
+        // MODIFIES: json
+        // EFFECTS:  record where this content is stored in the given JSON representation of a file
+        public void toJson(JSONObject json) {
+            json.put("contentOffset", offset);
+        }
+
+        @Override
+        public String load() {
+            try {
+                Segment current = lockSegment();
+                try (FileChannel file = FileChannel.open(current.path, StandardOpenOption.READ)) {
+                    ByteBuffer buffer = ByteBuffer.allocate((int) size);
+                    while (buffer.hasRemaining()) {
+                        if (file.read(buffer, offset + buffer.position()) < 0) {
+                            throw new EOFException(current.path + " ends before the content at " + offset);
+                        }
+                    }
+                    return new String(buffer.array(), StandardCharsets.UTF_8);
+                } finally {
+                    current.lock.readLock().unlock();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int getLength() {
+            return length;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public int getCharCount() {
+            return charCount;
+        }
+
+        @Override
+        public int getLineCount() {
+            return lineCount;
+        }
+    }
+
+    // Represents a channel that writes to another channel, counting the UTF-16 code units and characters of the
+    //     UTF-8 it writes
+    private static final class Utf8Counter implements WritableByteChannel {
+        private final WritableByteChannel out;
+        private long length;
+        private long charCount;
+
+        private Utf8Counter(WritableByteChannel out) {
+            this.out = out;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int start = src.position();
+            int written = out.write(src);
+            for (int i = start; i < start + written; i++) {
+                int b = src.get(i) & 0xff;
+                if ((b & 0xc0) != 0x80) {
+                    // a byte starting a character; one of four bytes is a surrogate pair in UTF-16
+                    charCount++;
+                    length += (b & 0xf8) == 0xf0 ? 2 : 1;
+                }
+            }
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return out.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
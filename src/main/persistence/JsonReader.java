@@ -10,14 +10,19 @@ import org.json.JSONObject;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.stream.Stream;
 
-// Represents a reader that reads JSON representation to terminal
+// Represents a reader that reads JSON representation to terminal; the content of a file written to a content
+//     file (see ContentFile) isn't read with the tree, but when the file is first read
 // Cite: this class is based on JsonSerializationDemo course repository
 public class JsonReader {
     private String source;
+    private Path contentPath;
 
     // EFFECTS:  constructs reader to read from source file
     public JsonReader(String source) {
@@ -29,6 +34,8 @@ public class JsonReader {
     public Dir read() throws IOException {
         String jsonData = readFile(source);
         JSONObject jsonObject = new JSONObject(jsonData);
+        contentPath = jsonObject.has("contentFile")
+                ? Paths.get(source).toAbsolutePath().getParent().resolve(jsonObject.getString("contentFile")) : null;
         return parseRootDirNode(jsonObject);
     }
 
@@ -65,44 +72,72 @@ public class JsonReader {
     }
 
     // MODIFIES: dir
-    // EFFECTS:  add subdirectories to the given dir
+    // EFFECTS:  add subdirectories to the given dir in one batch; if the batch has duplicate names,
+    //     add them one by one so that the first of each name is kept
     private void addSubdirs(Dir dir, JSONObject jsonObject) {
         JSONArray jsonArray = jsonObject.getJSONArray("subDirs");
+        List<Dir> subDirs = new ArrayList<>(jsonArray.length());
 
         for (Object dirJsonObject: jsonArray) {
-            try {
-                dir.addSubDir(parseDirNode((JSONObject) dirJsonObject));
-            } catch (DuplicateException e) {
-                System.err.println(e.getMessage());
+            Dir subDir = parseDirNode((JSONObject) dirJsonObject);
+            if (subDir != null) {
+                subDirs.add(subDir);
+            }
+        }
+        try {
+            dir.addSubDirs(subDirs);
+        } catch (DuplicateException e) {
+            for (Dir subDir : subDirs) {
+                try {
+                    dir.addSubDir(subDir);
+                } catch (DuplicateException duplicate) {
+                    System.err.println(duplicate.getMessage());
+                }
             }
         }
     }
 
     // MODIFIES: dir
-    // EFFECTS:  add files to the given dir
+    // EFFECTS:  add files to the given dir in one batch; if the batch has duplicate names, add them
+    //     one by one so that the first of each name is kept
     private void addFiles(Dir dir, JSONObject jsonObject) {
         JSONArray jsonArray = jsonObject.getJSONArray("files");
+        List<File> files = new ArrayList<>(jsonArray.length());
 
         for (Object fileJsonObject : jsonArray) {
-            try {
-                dir.addFile(parseFile((JSONObject) fileJsonObject));
-            } catch (DuplicateException e) {
-                System.err.println(e.getMessage());
+            File file = parseFile((JSONObject) fileJsonObject);
+            if (file != null) {
+                files.add(file);
+            }
+        }
+        try {
+            dir.addFiles(files);
+        } catch (DuplicateException e) {
+            for (File file : files) {
+                try {
+                    dir.addFile(file);
+                } catch (DuplicateException duplicate) {
+                    System.err.println(duplicate.getMessage());
+                }
             }
         }
     }
 
-    // EFFECTS:  parse a file from JSON object and returns it
+    // EFFECTS:  parse a file from JSON object and returns it, with its content left in the content file
+    //     if it is there
     private File parseFile(JSONObject jsonObject) {
         String name = jsonObject.getString("name");
-        String content = jsonObject.getString("content");
         Date dateCreated = new Date(jsonObject.getString("dateCreated"));
         Date dateModified = new Date(jsonObject.getString("dateModified"));
 
         File returnFile = null;
 
         try {
-            returnFile = new File(name, content, dateCreated, dateModified);
+            if (contentPath != null && jsonObject.has("contentOffset")) {
+                returnFile = new File(name, ContentFile.parseSlice(contentPath, jsonObject), dateCreated, dateModified);
+            } else {
+                returnFile = new File(name, jsonObject.getString("content"), dateCreated, dateModified);
+            }
         } catch (IllegalNameException e) {
             System.out.println(e.getMessage());
         }
@@ -1,9 +1,19 @@
 package persistence;
 
 import model.Dir;
+import model.DirSnapshot;
+import model.FileSnapshot;
+import model.StoredContent;
 import org.json.JSONObject;
 
 import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 // Represents a writer that writes JSON representation of Directory to file
 // Cite: this class is based on JsonSerializationDemo course repository
@@ -11,30 +21,121 @@ public class JsonWriter {
     private static final int TAB = 4;
     private PrintWriter writer;
     private String destination;
+    private final ContentFile contentFile;
+    private final Map<FileSnapshot, ContentFile.Slice> written;
+    private final Map<JSONObject, ContentFile.Slice> referenced;
 
-    // EFFECTS:  constructs writer to write to destination file
+    // EFFECTS:  constructs writer to write to destination file, with the content of every file in it
     public JsonWriter(String destination) {
         this.destination = destination;
+        this.contentFile = null;
+        this.written = null;
+        this.referenced = null;
+    }
+
+    // EFFECTS:  constructs writer to write to destination file, with the content of each file appended to the
+    //     content file at contentDestination and only its offset in the destination file (see ContentFile);
+    //     a content already in the content file, e.g. of a file unchanged since the last write, isn't written again;
+    //     the content file is compacted during a write once it is mostly contents no longer written
+    public JsonWriter(String destination, String contentDestination) {
+        this.destination = destination;
+        this.contentFile = new ContentFile(Paths.get(contentDestination));
+        this.written = new WeakHashMap<>();
+        this.referenced = new IdentityHashMap<>();
     }
 
     // MODIFIES: this
-    // EFFECTS:  opens writer, throws FileNotFoundException if destination file
-    //     cannot be opened for writing
-    public void open() throws FileNotFoundException {
+    // EFFECTS:  opens writer, throws IOException (FileNotFoundException if it is the destination file) if
+    //     destination file or content file cannot be opened for writing
+    public void open() throws IOException {
         writer = new PrintWriter(destination);
+        if (contentFile != null) {
+            contentFile.open();
+        }
     }
 
     // MODIFIES: this
     // EFFECTS:  writes JSON representation of given directory to file
-    public void write(Dir dir) {
-        JSONObject json = dir.toJson();
-        writer.print(json.toString(TAB));
+    //     throws IOException if content cannot be written to the content file
+    public void write(Dir dir) throws IOException {
+        write(dir.snapshot());
+    }
+
+    // MODIFIES: this
+    // EFFECTS:  writes JSON representation of given directory snapshot to file
+    //     throws IOException if content cannot be written to the content file
+    public void write(DirSnapshot snapshot) throws IOException {
+        if (contentFile == null) {
+            writer.print(snapshot.toJson().toString(TAB));
+            return;
+        }
+        try {
+            JSONObject json = snapshot.toJson(this::toJsonWithOffset);
+            compact();
+            Path directory = Paths.get(destination).toAbsolutePath().normalize().getParent();
+            json.put("contentFile", directory.relativize(contentFile.getPath()).toString());
+            writer.print(json.toString(TAB));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            referenced.clear();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS:  compact the content file down to the contents referenced by the JSON being written, if it is
+    //     mostly other contents, and record their new offsets in the JSON
+    //     throws IOException if the content file can't be compacted
+    private void compact() throws IOException {
+        if (!contentFile.compact(referenced.values())) {
+            return;
+        }
+        Set<ContentFile.Slice> live = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<JSONObject, ContentFile.Slice> reference : referenced.entrySet()) {
+            reference.getValue().toJson(reference.getKey());
+            live.add(reference.getValue());
+        }
+        written.values().removeIf(slice -> !live.contains(slice));
+    }
+
+    // MODIFIES: this
+    // EFFECTS:  return the JSON representation of the given file with the offset of its content in the content
+    //     file, appending the content unless it is already there; with the content itself if it is empty or
+    //     can't be stored in the content file
+    private JSONObject toJsonWithOffset(FileSnapshot file) {
+        JSONObject json = file.toMetadataJson();
+        ContentFile.Slice slice = written.get(file);
+        StoredContent stored = file.getStoredContent();
+        if (slice == null && stored instanceof ContentFile.Slice && ((ContentFile.Slice) stored).isIn(contentFile)) {
+            slice = (ContentFile.Slice) stored;
+        }
+        if (slice == null && file.getSize() > 0) {
+            try {
+                slice = contentFile.append(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (slice != null) {
+                written.put(file, slice);
+            }
+        }
+        if (slice == null) {
+            json.put("content", file.getContent());
+        } else {
+            slice.toJson(json);
+            referenced.put(json, slice);
+        }
+        return json;
     }
 
     // MODIFIES: this
     // EFFECTS:  closes writer
-    public void close() {
+    //     throws IOException if the content file cannot be closed
+    public void close() throws IOException {
         writer.close();
+        if (contentFile != null) {
+            contentFile.close();
+        }
     }
 
 }
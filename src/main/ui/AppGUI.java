@@ -18,6 +18,7 @@ public class AppGUI extends JFrame implements WindowListener {
     private static final int WIDTH = 1200;
     private static final int HEIGHT = 1000;
     private EditorUI editorUI;
+    private SearchUI searchUI;
 
     private final FileSystemManager fsManager;
 
@@ -51,10 +52,23 @@ public class AppGUI extends JFrame implements WindowListener {
         fileMenu.setMnemonic('F');
         addMenuItem(fileMenu, new NewFileAction(), KeyStroke.getKeyStroke("control N"), true);
         addMenuItem(fileMenu, new NewFolderAction(), KeyStroke.getKeyStroke("control F"), true, 'F');
-        // addMenuItem(fileMenu, new OpenFileAction(), KeyStroke.getKeyStroke("control O"), true);
+        addMenuItem(fileMenu, new OpenFileAction(), KeyStroke.getKeyStroke("control P"), true);
+        addMenuItem(fileMenu, new OpenLargeFileAction(), KeyStroke.getKeyStroke("control shift O"), true);
         addMenuItem(fileMenu, new SaveFileAction(), KeyStroke.getKeyStroke("control S"), true);
         menuBar.add(fileMenu);
 
+        JMenu editMenu = new JMenu("Edit");
+        editMenu.setMnemonic('E');
+        addMenuItem(editMenu, new UndoAction(), KeyStroke.getKeyStroke("control Z"), true);
+        addMenuItem(editMenu, new RedoAction(), KeyStroke.getKeyStroke("control Y"), true);
+        menuBar.add(editMenu);
+
+        JMenu searchMenu = new JMenu("Search");
+        searchMenu.setMnemonic('S');
+        addMenuItem(searchMenu, new SearchAction(), KeyStroke.getKeyStroke("control shift F"), true);
+        addMenuItem(searchMenu, new GoToLineAction(), KeyStroke.getKeyStroke("control G"), true);
+        menuBar.add(searchMenu);
+
         JMenu terminalMenu = new JMenu("Terminal (unfinished)");
         terminalMenu.setMnemonic('T');
         addMenuItem(terminalMenu, new OpenTerminalAction(), KeyStroke.getKeyStroke("control T"), false);
@@ -95,6 +109,8 @@ public class AppGUI extends JFrame implements WindowListener {
     private void addPanes() {
         editorUI = new EditorUI(fsManager, WIDTH - 20);
         add(editorUI);
+        searchUI = new SearchUI(fsManager, editorUI);
+        add(searchUI, BorderLayout.EAST);
 
         // JPanel terminalPane = new TerminalUI();
         // JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT);
@@ -148,7 +164,22 @@ public class AppGUI extends JFrame implements WindowListener {
 
         @Override
         public void actionPerformed(ActionEvent evt) {
-            // TODO: add open file action
+            editorUI.showQuickOpen();
+        }
+    }
+
+    // Represents the action to be taken when the user wants to view and edit a file on disk too large to load
+    private class OpenLargeFileAction extends AbstractAction {
+        OpenLargeFileAction() {
+            super("Open Large File...");
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent evt) {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(AppGUI.this) == JFileChooser.APPROVE_OPTION) {
+                editorUI.openLargeFile(chooser.getSelectedFile().toPath());
+            }
         }
     }
 
@@ -214,6 +245,54 @@ public class AppGUI extends JFrame implements WindowListener {
         }
     }
 
+    // Represents the action to be taken when the user wants to search the contents of files
+    private class SearchAction extends AbstractAction {
+        SearchAction() {
+            super("Search Files");
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent evt) {
+            searchUI.focusQuery();
+        }
+    }
+
+    // Represents the action to be taken when the user wants to undo the last change of the open file
+    private class UndoAction extends AbstractAction {
+        UndoAction() {
+            super("Undo");
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent evt) {
+            editorUI.undo();
+        }
+    }
+
+    // Represents the action to be taken when the user wants to redo the last change undone in the open file
+    private class RedoAction extends AbstractAction {
+        RedoAction() {
+            super("Redo");
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent evt) {
+            editorUI.redo();
+        }
+    }
+
+    // Represents the action to be taken when the user wants to jump to a line of the open file
+    private class GoToLineAction extends AbstractAction {
+        GoToLineAction() {
+            super("Go to Line");
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent evt) {
+            editorUI.goToLine();
+        }
+    }
+
     // Represents the action to be taken when the user wants to open the terminal of the file system
     private class OpenTerminalAction extends AbstractAction {
         OpenTerminalAction() {
@@ -246,7 +325,7 @@ public class AppGUI extends JFrame implements WindowListener {
 
         @Override
         public void actionPerformed(ActionEvent evt) {
-            String helpMessage = "ctrl + s:  save file";
+            String helpMessage = "ctrl + s:  save file\nctrl + p:  go to file\nctrl + shift + f:  search files";
             JOptionPane.showMessageDialog(null, helpMessage, "Help",
                     JOptionPane.INFORMATION_MESSAGE);
         }
@@ -1,22 +1,39 @@
 package ui;
 
 import model.Dir;
+import model.DirWalker;
+import model.LargeFile;
+import model.Rope;
+import model.TreeVisitor;
 import model.exceptions.DuplicateException;
 import model.exceptions.IllegalNameException;
 import model.exceptions.NotFoundException;
 
 import javax.swing.*;
 
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 import java.awt.*;
+import java.awt.event.AdjustmentEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
 
 // Represents an editor ui with file tree and editor pane
@@ -27,6 +44,7 @@ public class EditorUI extends JPanel implements TreeSelectionListener {
     private static int HEIGHT = 700;
     private static final int DIVIDER_SIZE = 4;
     private static final int DIVIDER_LOCATION = 300;
+    private static final long LARGE_FILE_BYTES = 16L << 20;
 
     private final JSplitPane splitPane;
     private final JEditorPane editorPane;
@@ -38,10 +56,24 @@ public class EditorUI extends JPanel implements TreeSelectionListener {
     private final FileSystemManager fsManager;
     private String currentAbsPath;
 
+    // edits made in the editor since the file was opened or saved, applied to the file on save
+    private final List<PendingEdit> pendingEdits;
+    private final DocumentListener editRecorder;
+    private Document editedDocument;
+    private Rope savedText;
+
+    // the window of a large file shown instead of its whole content, and the path on disk it was opened from,
+    //     null if it is a file of the file system
+    private LargeFileWindow largeWindow;
+    private Path largeFilePath;
+    private boolean paging;
+
     public EditorUI(FileSystemManager fsManager, int width) {
         super(new GridLayout(0, 1));
         WIDTH = width;
         this.fsManager = fsManager;
+        pendingEdits = new ArrayList<>();
+        editRecorder = new EditRecorder();
 
         tree = generateTree();
         tree.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
@@ -52,6 +84,7 @@ public class EditorUI extends JPanel implements TreeSelectionListener {
 
         editorPane = initializeEditorPane();
         editorView = new JScrollPane(editorPane);
+        editorView.getVerticalScrollBar().addAdjustmentListener(this::pageLargeFile);
         treeView = new JScrollPane(tree);
         splitPane = generateSplitPane(treeView, editorView);
         add(splitPane);
@@ -101,39 +134,32 @@ public class EditorUI extends JPanel implements TreeSelectionListener {
     }
 
     // MODIFIES: treeNode
-    // EFFECTS:  create treeNode based on its corresponding directory
+    // EFFECTS:  add tree nodes for the whole subtree of the given dir below treeNode, in one pre-order walk:
+    //     subdirectories (which allow children) before files (which don't), each in alphabetical order
     private void createNodes(DefaultMutableTreeNode treeNode, Dir dir) {
-        addDirectoryNodes(treeNode, dir);
-        addFileNodes(treeNode, dir);
-    }
-
-    // MODIFIES: treeNode
-    // EFFECTS:  add subdirectories in the given dir as children treeNode that allows children
-    private void addDirectoryNodes(DefaultMutableTreeNode treeNode, Dir dir) {
-        for (String subDirName : dir.getOrderedSubDirNames()) {
-            try {
-                Dir subDir = dir.getSubDir(subDirName);
-                DefaultMutableTreeNode subDirTreeNode = new DefaultMutableTreeNode(
-                        new NodeInfo(subDirName, subDir.getAbsPath()),
-                        true);
-                createNodes(subDirTreeNode, subDir);
-                treeNode.add(subDirTreeNode);
-            } catch (IllegalNameException | NotFoundException e) {
-                // TODO: handle exception later
-                throw new RuntimeException(e);
+        Map<Dir, DefaultMutableTreeNode> treeNodes = new HashMap<>();
+        treeNodes.put(dir, treeNode);
+        DirWalker.walk(dir, DirWalker.Order.PRE_ORDER, new TreeVisitor() {
+            @Override
+            public void visitDir(Dir subDir, int depth) {
+                DefaultMutableTreeNode parentNode = treeNodes.get(subDir.getParentDir());
+                if (depth > 0 && parentNode != null) {
+                    DefaultMutableTreeNode subDirTreeNode = new DefaultMutableTreeNode(
+                            new NodeInfo(subDir.getName(), subDir.getAbsPath()), true);
+                    parentNode.add(subDirTreeNode);
+                    treeNodes.put(subDir, subDirTreeNode);
+                }
             }
-        }
-    }
 
-    // MODIFIES: treeNode
-    // EFFECTS:  add files in the given dir as children treeNode that doesn't allow children
-    private void addFileNodes(DefaultMutableTreeNode treeNode, Dir dir) {
-        for (String fileName : dir.getOrderedFileNames()) {
-            DefaultMutableTreeNode fileTreeNode = new DefaultMutableTreeNode(
-                    new NodeInfo(fileName, dir.getAbsPath() + "/" + fileName),
-                    false);
-            treeNode.add(fileTreeNode);
-        }
+            @Override
+            public void visitFile(model.File file, int depth) {
+                DefaultMutableTreeNode parentNode = treeNodes.get(file.getParentDir());
+                if (parentNode != null) {
+                    parentNode.add(new DefaultMutableTreeNode(
+                            new NodeInfo(file.getName(), file.getAbsPath()), false));
+                }
+            }
+        });
     }
 
     @Override
@@ -147,26 +173,299 @@ public class EditorUI extends JPanel implements TreeSelectionListener {
         Object nodeInfo = node.getUserObject();
         if (node.isLeaf() && !node.getAllowsChildren()) {
             NodeInfo fileNode = (NodeInfo) nodeInfo;
-            currentAbsPath = fileNode.absPath;
-            editorPane.setEditable(true);
-            editorPane.setFont(new Font("Arial", Font.PLAIN, 14));
-            editorPane.setText("");
-            editorPane.setContentType("text");
-            editorPane.setText(fsManager.getFileContent(currentAbsPath));
+            openFile(fileNode.absPath);
         } else {
             NodeInfo dirNode = (NodeInfo) nodeInfo;
             currentAbsPath = dirNode.absPath;
+            stopRecordingEdits();
             editorPane.setEditable(false);
             editorPane.setText(fsManager.getDirInfo(currentAbsPath));
         }
     }
 
-    // EFFECTS: save content inside editor to file
+    // MODIFIES: this
+    // EFFECTS: show the content of the file with the given absolute path in the editor pane for editing
+    public void openFile(String absPath) {
+        currentAbsPath = absPath;
+        stopRecordingEdits();
+        editorPane.setEditable(true);
+        editorPane.setFont(new Font("Arial", Font.PLAIN, 14));
+        editorPane.setText("");
+        editorPane.setContentType("text");
+        if (openMappedFile(absPath)) {
+            return;
+        }
+        String content = fsManager.getFileContent(currentAbsPath);
+        editorPane.setText(content);
+        // the editor drops carriage returns, so edits made in it don't line up with such content
+        savedText = content.indexOf('\r') >= 0 ? null : fsManager.lookupFile(absPath).map(model.File::getText)
+                .orElse(null);
+        editedDocument = editorPane.getDocument();
+        editedDocument.addDocumentListener(editRecorder);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stop recording the edits made in the editor pane and drop those not saved
+    private void stopRecordingEdits() {
+        if (editedDocument != null) {
+            editedDocument.removeDocumentListener(editRecorder);
+            editedDocument = null;
+        }
+        pendingEdits.clear();
+        savedText = null;
+        if (largeWindow != null) {
+            try {
+                largeWindow.getFile().close();
+            } catch (IOException e) {
+                // nothing more to release
+            }
+            largeWindow = null;
+            largeFilePath = null;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: show a window of the content of the file with the given absolute path if it is at least
+    //     LARGE_FILE_BYTES and can be mapped from the content file of the saved file system; return true if shown
+    private boolean openMappedFile(String absPath) {
+        if (fsManager.lookupFile(absPath).map(model.File::getSize).orElse(0L) < LARGE_FILE_BYTES) {
+            return false;
+        }
+        try {
+            Optional<LargeFile> file = fsManager.openLargeFile(absPath);
+            file.ifPresent(this::showLargeFile);
+            return file.isPresent();
+        } catch (IOException e) {
+            // shown whole instead
+            return false;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: show a window of the file at the given path on disk, mapped rather than loaded, so it can be larger
+    //     than memory; saving writes it back to that path; show an error message if it can't be opened
+    public void openLargeFile(Path path) {
+        try {
+            LargeFile file = LargeFile.open(path);
+            currentAbsPath = null;
+            stopRecordingEdits();
+            largeFilePath = path;
+            editorPane.setEditable(true);
+            editorPane.setFont(new Font("Arial", Font.PLAIN, 14));
+            editorPane.setContentType("text");
+            showLargeFile(file);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Can't open " + path + ": " + e.getMessage(), "System Error",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: show the first window of lines of the given large file in the editor
+    private void showLargeFile(LargeFile file) {
+        largeWindow = new LargeFileWindow(file, 0);
+        paging = true;
+        editorPane.setText(largeWindow.getText());
+        editorPane.setCaretPosition(0);
+        paging = false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: when the editor is scrolled near the end or the start of the window of a large file and the file
+    //     has more lines that way, move the window by half its lines, keeping the lines in view where they are
+    private void pageLargeFile(AdjustmentEvent e) {
+        if (largeWindow == null || paging || e.getValueIsAdjusting()) {
+            return;
+        }
+        JScrollBar bar = editorView.getVerticalScrollBar();
+        int margin = bar.getVisibleAmount() / 2;
+        long shift = 0;
+        if (bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - margin && largeWindow.hasLinesAfter()) {
+            shift = LargeFileWindow.WINDOW_LINES / 2;
+        } else if (bar.getValue() <= margin && largeWindow.hasLinesBefore()) {
+            shift = -LargeFileWindow.WINDOW_LINES / 2;
+        }
+        if (shift != 0) {
+            int topLine = root().getElementIndex(editorPane.viewToModel2D(new Point(0, bar.getValue())));
+            long topFileLine = largeWindow.getStart() + topLine;
+            moveLargeWindow(largeWindow.getStart() + shift, topFileLine);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: put the edits made to the window of the large file into its overlay, move the window to start at
+    //     the given line and show it, scrolled so that the given line of the file is at the top of the view
+    private void moveLargeWindow(long start, long topFileLine) {
+        paging = true;
+        largeWindow.commit(editorPane.getText());
+        largeWindow.moveTo(start);
+        editorPane.setText(largeWindow.getText());
+        int line = (int) Math.max(0, Math.min(topFileLine - largeWindow.getStart(), root().getElementCount() - 1));
+        int offset = root().getElement(line).getStartOffset();
+        editorPane.setCaretPosition(offset);
+        SwingUtilities.invokeLater(() -> {
+            try {
+                editorView.getVerticalScrollBar().setValue((int) editorPane.modelToView2D(offset).getY());
+            } catch (BadLocationException e) {
+                // the offset is the start of a line of the document
+            }
+            paging = false;
+        });
+    }
+
+    // MODIFIES: this
+    // EFFECTS: save the large file in the editor with the edits made to it, streamed to the file on disk it was
+    //     opened from or appended to the content file of the file system, and show it again at the same place;
+    //     show an error message if it can't be saved, keeping the edits
+    private void saveLargeFile() {
+        LargeFile file = largeWindow.getFile();
+        largeWindow.commit(editorPane.getText());
+        try {
+            if (file.isModified()) {
+                LargeFile saved;
+                if (largeFilePath != null) {
+                    file.writeTo(largeFilePath);
+                    saved = LargeFile.open(largeFilePath);
+                } else {
+                    saved = fsManager.saveLargeFile(currentAbsPath, file);
+                }
+                file.close();
+                file = saved;
+            }
+        } catch (IOException | NotFoundException e) {
+            JOptionPane.showMessageDialog(this, "Can't save: " + e.getMessage(), "System Error",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+        int caret = editorPane.getCaretPosition();
+        largeWindow.reopen(file);
+        paging = true;
+        editorPane.setText(largeWindow.getText());
+        editorPane.setCaretPosition(Math.min(caret, editorPane.getDocument().getLength()));
+        paging = false;
+    }
+
+    // EFFECTS: return the element of the document of the editor pane whose children are its lines
+    private Element root() {
+        return editorPane.getDocument().getDefaultRootElement();
+    }
+
+    // EFFECTS: ask for a line number and move the caret to the start of that line of the open file, or of its
+    //     last line if there are fewer; do nothing if no file is open or the input isn't a number
+    public void goToLine() {
+        if (largeWindow != null) {
+            goToLargeFileLine();
+            return;
+        }
+        if (editedDocument == null) {
+            return;
+        }
+        String input = JOptionPane.showInputDialog(this, "Line number (1-" + lineCount() + ")", "Go to Line",
+                JOptionPane.QUESTION_MESSAGE);
+        if (input != null && input.trim().matches("\\d{1,9}")) {
+            int line = Math.max(1, Math.min(Integer.parseInt(input.trim()), lineCount()));
+            editorPane.setCaretPosition(lineStart(line - 1));
+            editorPane.requestFocusInWindow();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: ask for a line number and move the window of the large file in the editor so that the line is near
+    //     its middle, at the top of the view; do nothing if the input isn't a number
+    private void goToLargeFileLine() {
+        long lines = Math.max(1, largeWindow.getFile().getLineCount());
+        String input = JOptionPane.showInputDialog(this, "Line number (1-" + lines + ")", "Go to Line",
+                JOptionPane.QUESTION_MESSAGE);
+        if (input != null && input.trim().matches("\\d{1,18}")) {
+            long line = Math.max(1, Math.min(Long.parseLong(input.trim()), lines)) - 1;
+            moveLargeWindow(line - LargeFileWindow.WINDOW_LINES / 2, line);
+            editorPane.requestFocusInWindow();
+        }
+    }
+
+    // EFFECTS: return the number of lines in the editor, at least 1; read from the line index of the file
+    //     while there are no unsaved edits, from the line map of the editor's document otherwise
+    private int lineCount() {
+        if (pendingEdits.isEmpty() && savedText != null) {
+            return Math.max(1, savedText.lineCount());
+        }
+        return editedDocument.getDefaultRootElement().getElementCount();
+    }
+
+    // REQUIRES: 0 <= line < lineCount()
+    // EFFECTS: return the offset of the start of the given line, counted from 0, in the editor; read like lineCount
+    private int lineStart(int line) {
+        if (pendingEdits.isEmpty() && savedText != null) {
+            return savedText.lineStart(line);
+        }
+        return editedDocument.getDefaultRootElement().getElement(line).getStartOffset();
+    }
+
+    // EFFECTS: show the "go to file" dialog, which opens the file picked from fuzzy matches of a typed query
+    //     in this editor
+    public void showQuickOpen() {
+        Window owner = SwingUtilities.getWindowAncestor(this);
+        new QuickOpenDialog(owner instanceof Frame ? (Frame) owner : null, fsManager, this).setVisible(true);
+    }
+
+    // EFFECTS: save content inside editor to file by applying the edits made since it was opened or last saved,
+    //     so saving costs time proportional to the edits rather than to the whole document; the whole text is
+    //     saved instead if the file was changed elsewhere meanwhile, or has carriage returns, which the editor drops;
+    //     a large file shown a window at a time is streamed with its edits instead
     public void saveFileContent() {
-        fsManager.updateFileContent(currentAbsPath, editorPane.getText());
+        if (largeWindow != null) {
+            saveLargeFile();
+        } else if (editedDocument != null) {
+            applyEdits();
+        }
         fsManager.save();
     }
 
+    // MODIFIES: this
+    // EFFECTS: apply the edits made in the editor since the file was opened or last saved to the file, each as one
+    //     change that can be undone, or the whole text if the file was changed elsewhere meanwhile
+    private void applyEdits() {
+        Rope current = fsManager.lookupFile(currentAbsPath).map(model.File::getText).orElse(null);
+        if (current == null || current != savedText) {
+            fsManager.updateFileContent(currentAbsPath, editorPane.getText());
+        } else {
+            for (PendingEdit edit : pendingEdits) {
+                edit.applyTo(fsManager, currentAbsPath);
+            }
+        }
+        pendingEdits.clear();
+        savedText = fsManager.lookupFile(currentAbsPath).map(model.File::getText).orElse(null);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: undo the last change of the open file, including the edits made in the editor since it was saved,
+    //     show it and put the caret where it was; do nothing if no file is open or it is a large file
+    public void undo() {
+        takeHistoryStep(true);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: redo the last change undone in the open file, show it and put the caret where it was; do nothing if
+    //     no file is open, it is a large file or it was edited since
+    public void redo() {
+        takeHistoryStep(false);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: apply the edits made in the editor, then undo the last change of the open file if undo, else redo
+    //     the last change undone, and show the file again with the caret at the change
+    private void takeHistoryStep(boolean undo) {
+        if (largeWindow != null || editedDocument == null) {
+            return;
+        }
+        applyEdits();
+        int offset = undo ? fsManager.undo(currentAbsPath) : fsManager.redo(currentAbsPath);
+        if (offset >= 0) {
+            openFile(currentAbsPath);
+            editorPane.setCaretPosition(Math.min(offset, editorPane.getDocument().getLength()));
+        }
+        editorPane.requestFocusInWindow();
+    }
+
     // EFFECTS: update the tree after creating new file or directory
     public void updateTree() {
         tree = generateTree();
@@ -174,6 +473,7 @@ public class EditorUI extends JPanel implements TreeSelectionListener {
         tree.addTreeSelectionListener(this);
         tree.addMouseListener(new TreeNodeRightClickListener());
 
+        stopRecordingEdits();
         editorPane.setText("");
         treeView = new JScrollPane(tree);
         splitPane.setLeftComponent(treeView);
@@ -185,6 +485,86 @@ public class EditorUI extends JPanel implements TreeSelectionListener {
         expandAllChildNodes(new TreePath(root));
     }
 
+    // represents an edit made in the editor pane that hasn't been saved: count characters deleted at offset,
+    //     then text inserted there; consecutive typing or deleting is merged into one edit
+    private static class PendingEdit {
+        private int offset;
+        private int count;
+        private final StringBuilder text;
+
+        PendingEdit(int offset, int count, String text) {
+            this.offset = offset;
+            this.count = count;
+            this.text = new StringBuilder(text);
+        }
+
+        // MODIFIES: this
+        // EFFECTS: merge the insertion of str at the given offset into this edit if it continues it,
+        //     return true if merged
+        boolean mergeInsert(int at, String str) {
+            if (count == 0 && at == offset + text.length()) {
+                text.append(str);
+                return true;
+            }
+            return false;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: merge the deletion of len characters at the given offset into this edit if it continues
+        //     it, i.e. deletes typed text from its end or deletes just before or after it, return true if merged
+        boolean mergeDelete(int at, int len) {
+            if (text.length() > 0) {
+                if (at < offset || at + len != offset + text.length()) {
+                    return false;
+                }
+                text.setLength(at - offset);
+            } else if (at + len == offset) {
+                offset = at;
+                count += len;
+            } else if (at == offset) {
+                count += len;
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        // MODIFIES: fsManager
+        // EFFECTS: apply this edit to the file with the given absolute path, as one change
+        void applyTo(FileSystemManager fsManager, String absPath) {
+            fsManager.replaceFileContent(absPath, offset, count, text.toString());
+        }
+    }
+
+    // represents the listener that records the edits made to the document of the editor pane
+    private class EditRecorder implements DocumentListener {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            try {
+                String str = e.getDocument().getText(e.getOffset(), e.getLength());
+                PendingEdit last = pendingEdits.isEmpty() ? null : pendingEdits.get(pendingEdits.size() - 1);
+                if (last == null || !last.mergeInsert(e.getOffset(), str)) {
+                    pendingEdits.add(new PendingEdit(e.getOffset(), 0, str));
+                }
+            } catch (BadLocationException ex) {
+                // the inserted range is always in the document
+            }
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            PendingEdit last = pendingEdits.isEmpty() ? null : pendingEdits.get(pendingEdits.size() - 1);
+            if (last == null || !last.mergeDelete(e.getOffset(), e.getLength())) {
+                pendingEdits.add(new PendingEdit(e.getOffset(), e.getLength(), ""));
+            }
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            // attribute changes don't change the text
+        }
+    }
+
     // represents information of a tree node
     private static class NodeInfo {
         private final String name;
@@ -245,9 +625,52 @@ public class EditorUI extends JPanel implements TreeSelectionListener {
                 addNewFolderMenuItems();
                 addExpandMenuItems();
             }
+            if (selectedNode.getParent() != null) {
+                addRenameMenuItem();
+                addMoveMenuItem();
+            }
             addDeleteMenuItem();
         }
 
+        // EFFECTS: generate and initialize the "rename" operation for tree nodes other than the root
+        private void addRenameMenuItem() {
+            JMenuItem rename = new JMenuItem("Rename");
+            rename.addActionListener(ae -> {
+                String newName = JOptionPane.showInputDialog(null, "Enter New Name", "Rename",
+                        JOptionPane.QUESTION_MESSAGE);
+                if (newName != null) {
+                    try {
+                        fsManager.rename(getAbsPathFromNode(selectedNode), newName);
+                        updateTree();
+                    } catch (NotFoundException | IllegalNameException | DuplicateException e) {
+                        JOptionPane.showMessageDialog(null, e.getMessage(), "System Error",
+                                JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            });
+            add(rename);
+        }
+
+        // EFFECTS: generate and initialize the "move to" operation for tree nodes other than the root
+        private void addMoveMenuItem() {
+            JMenuItem move = new JMenuItem("Move To...");
+            move.addActionListener(ae -> {
+                String targetPath = JOptionPane.showInputDialog(null,
+                        "Enter target folder path (e.g. ~/src), or a new path ending in the new name",
+                        "Move", JOptionPane.QUESTION_MESSAGE);
+                if (targetPath != null) {
+                    try {
+                        fsManager.move(getAbsPathFromNode(selectedNode), targetPath);
+                        updateTree();
+                    } catch (NotFoundException | IllegalNameException | DuplicateException e) {
+                        JOptionPane.showMessageDialog(null, e.getMessage(), "System Error",
+                                JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            });
+            add(move);
+        }
+
         // EFFECTS: generate and initialize the "new file" operation for non-leaf tree node
         private void addNewFileMenuItems() {
             JMenuItem newFile = new JMenuItem("New File");
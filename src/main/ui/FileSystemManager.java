@@ -1,31 +1,70 @@
 package ui;
 
+import model.ColdStorage;
+import model.ContentStore;
 import model.Dir;
+import model.DirNode;
+import model.DirSnapshot;
+import model.EditHistory;
 import model.File;
+import model.LargeFile;
+import model.OffHeapStore;
+import model.PathCursor;
+import model.PathIndex;
+import model.StoredContent;
 import model.exceptions.DuplicateException;
 import model.exceptions.IllegalNameException;
 import model.exceptions.NotFoundException;
+import model.search.FindQuery;
+import model.search.GrepMatch;
+import model.search.InvertedIndex;
+import model.search.NameIndex;
+import model.search.TrigramIndex;
+import persistence.ContentFile;
 import persistence.JsonReader;
 import persistence.JsonWriter;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.Arrays;
+import java.nio.file.Paths;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class FileSystemManager {
     private static final String JSON_STORE = "./data/fileSystem.json";
+    private static final String CONTENT_STORE = "./data/fileSystem.content";
+    private static final long HISTORY_BYTES = 8L << 20;
     private static JsonWriter jsonWriter;
     private static JsonReader jsonReader;
-    private static Dir rootDir;
+    private static volatile Dir rootDir;
+    private static volatile PathIndex pathIndex;
+    private static volatile NameIndex nameIndex;
+    private static volatile InvertedIndex searchIndex;
+    private static volatile TrigramIndex grepIndex;
+    private static volatile ContentStore contentStore;
+    private static volatile ColdStorage coldStorage;
+    private static volatile OffHeapStore offHeapStore;
+    private static volatile EditHistory editHistory;
+    private static ScheduledExecutorService coldSweeper;
+    private final ThreadLocal<PathCursor> pathCursor;
 
     // MODIFIES: this
     // EFFECTS:  create a file system manager that load file system from ./data/fileSystem.json,
-    //     if the file system file doesn't exist, create a new file system with an empty root directory
+    //     if the file system file doesn't exist, create a new file system with an empty root directory;
+    //     every node is indexed by absolute path, for lookups and for fuzzy matching; the content of each
+    //     file is saved to ./data/fileSystem.content and only read from there when first needed; the changes of
+    //     every file can be undone and redone, within HISTORY_BYTES for all files
     public FileSystemManager() {
         Dir rootDirTmp;
-        jsonWriter = new JsonWriter(JSON_STORE);
+        pathCursor = ThreadLocal.withInitial(PathCursor::new);
+        jsonWriter = new JsonWriter(JSON_STORE, CONTENT_STORE);
         jsonReader = new JsonReader(JSON_STORE);
         try {
             rootDirTmp = jsonReader.read();
@@ -34,6 +73,14 @@ public class FileSystemManager {
             rootDirTmp = new Dir();
         }
         rootDir = rootDirTmp;
+        pathIndex = new PathIndex(rootDir);
+        nameIndex = new NameIndex(rootDir);
+        editHistory = new EditHistory(rootDir, HISTORY_BYTES);
+        searchIndex = null;
+        grepIndex = null;
+        contentStore = null;
+        offHeapStore = null;
+        stopColdStorage();
     }
 
     // EFFECTS: return the root dir
@@ -43,29 +90,163 @@ public class FileSystemManager {
 
     // EFFECTS: get content of file with the given absolute path
     public String getFileContent(String absPath) {
-        if (getFile(absPath) != null) {
-            return getFile(absPath).getContent();
-        }
-        return "Can't get file content!";
+        return lookupFile(absPath).map(File::getContent).orElse("Can't get file content!");
     }
 
     // MODIFIES: this
-    // EFFECTS: update the file with given absolute path with given content
+    // EFFECTS: update the file with given absolute path with given content, do nothing if there is no such file
     public void updateFileContent(String absPath, String content) {
         Date now = Calendar.getInstance().getTime();
-        getFile(absPath).update(content, now);
+        lookupFile(absPath).ifPresent(file -> file.update(content, now));
     }
 
-    // EFFECTS: get file with absolution path, returns null if the path is invalid
-    private File getFile(String absPath) {
-        try {
-            String dirPath = getLocationFromPath(absPath);
-            String fileName = getNameFromPath(absPath);
-            Dir targetDir = findTargetDir(dirPath);
-            return targetDir.getFile(fileName);
-        } catch (NotFoundException | IllegalNameException e) {
-            return null;
+    // MODIFIES: this
+    // EFFECTS: insert text into the file with given absolute path before the character at offset, without
+    //     copying the rest of its content; do nothing if there is no such file
+    //    throws IndexOutOfBoundsException if offset is out of range
+    public void insertFileContent(String absPath, int offset, String text) {
+        Date now = Calendar.getInstance().getTime();
+        lookupFile(absPath).ifPresent(file -> file.insert(offset, text, now));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: delete count characters from offset in the file with given absolute path, without copying the
+    //     rest of its content; do nothing if there is no such file
+    //    throws IndexOutOfBoundsException if the range is out of range
+    public void deleteFileContent(String absPath, int offset, int count) {
+        Date now = Calendar.getInstance().getTime();
+        lookupFile(absPath).ifPresent(file -> file.delete(offset, count, now));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replace count characters from offset in the file with given absolute path by text, as one change;
+    //     do nothing if there is no such file
+    //    throws IndexOutOfBoundsException if the range is out of range
+    public void replaceFileContent(String absPath, int offset, int count, String text) {
+        Date now = Calendar.getInstance().getTime();
+        lookupFile(absPath).ifPresent(file -> file.replace(offset, count, text, now));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: undo the last change of the file with the given absolute path and return the offset where it was;
+    //     return -1 if there is no such file or nothing to undo
+    public int undo(String absPath) {
+        return lookupFile(absPath).map(editHistory::undo).orElse(-1);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: redo the last change undone in the file with the given absolute path and return the offset where
+    //     it was; return -1 if there is no such file or nothing to redo
+    public int redo(String absPath) {
+        return lookupFile(absPath).map(editHistory::redo).orElse(-1);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: keep at most the given number of bytes of undo history for all files, dropping the oldest changes
+    //     until it fits
+    public void setHistoryBudget(long bytes) {
+        editHistory.setByteBudget(bytes);
+    }
+
+    // EFFECTS: return the bytes taken by the undo history of all files and the most it may take, in that order
+    public long[] getHistoryStats() {
+        EditHistory history = editHistory;
+        return new long[]{history.getUsedBytes(), history.getByteBudget()};
+    }
+
+    // EFFECTS: return the file with the given absolute path, empty if the path is invalid or there is
+    //     no such file; never throws
+    public Optional<File> lookupFile(String absPath) {
+        File indexedFile = pathIndex.getFile(absPath);
+        if (indexedFile != null || !absPath.startsWith("~/")) {
+            return Optional.ofNullable(indexedFile);
+        }
+        File file = pathCursor.get().resolveFile(rootDir, rootDir, absPath);
+        if (file != null) {
+            // e.g. left out of the index by a change that raced with a move
+            pathIndex.add(file);
+        }
+        return Optional.ofNullable(file);
+    }
+
+    // EFFECTS: return the absolute paths of up to limit nodes of the given type (File, Dir, or DirNode for
+    //     both) whose path fuzzily matches the given query, i.e. contains its characters in order, best
+    //     match first
+    public List<String> matchPaths(String query, int limit, Class<? extends DirNode> type) {
+        return nameIndex.search(query, limit, type).stream().map(DirNode::getAbsPath).collect(Collectors.toList());
+    }
+
+    // EFFECTS: return the absolute paths of the files whose content matches the given query, in order;
+    //     the query is a list of words and "quoted phrases", and a file matches if it contains all of them;
+    //     the full-text index is built on the first search and kept up to date from then on
+    public List<String> search(String query) {
+        return getSearchIndex().search(query).stream().map(File::getAbsPath).collect(Collectors.toList());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: return the full-text index of the root directory, building it if there is none yet
+    private static InvertedIndex getSearchIndex() {
+        InvertedIndex index = searchIndex;
+        if (index == null) {
+            synchronized (FileSystemManager.class) {
+                index = searchIndex;
+                if (index == null) {
+                    index = new InvertedIndex(rootDir);
+                    searchIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    // EFFECTS: return every match of the given regular expression in the lines of the file with the given
+    //     absolute path, or of every file below the directory with that path, ordered by path, line and column;
+    //     the trigram index narrows the files to read and is built on the first grep
+    //    throws NotFoundException if there is no such file or directory
+    //    throws PatternSyntaxException if the regular expression is invalid
+    public List<GrepMatch> grep(String regex, String absPath) throws NotFoundException {
+        Pattern pattern = Pattern.compile(regex);
+        Optional<Dir> dir = lookupDir(absPath);
+        if (dir.isPresent()) {
+            return getGrepIndex().grep(pattern, dir.get());
+        }
+        Optional<File> file = lookupFile(absPath);
+        if (file.isEmpty()) {
+            throw new NotFoundException("FileSystemManager.grep: no such file or directory.");
+        }
+        return getGrepIndex().grep(pattern, file.get());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: return the trigram index of the root directory, building it if there is none yet
+    private static TrigramIndex getGrepIndex() {
+        TrigramIndex index = grepIndex;
+        if (index == null) {
+            synchronized (FileSystemManager.class) {
+                index = grepIndex;
+                if (index == null) {
+                    index = new TrigramIndex(rootDir);
+                    grepIndex = index;
+                }
+            }
         }
+        return index;
+    }
+
+    // EFFECTS: return a lazy stream of the absolute paths of the nodes at or below the file or directory with
+    //     the given absolute path that satisfy the given find expression (see FindQuery.parse), in pre-order;
+    //     subtrees that cannot hold a match are skipped without being listed
+    //    throws NotFoundException if there is no such file or directory
+    //    throws IllegalArgumentException if the expression is invalid
+    public Stream<String> find(String absPath, List<String> expression) throws NotFoundException {
+        FindQuery query = FindQuery.parse(expression);
+        Optional<Dir> dir = lookupDir(absPath);
+        if (dir.isPresent()) {
+            return query.find(dir.get()).map(DirNode::getAbsPath);
+        }
+        File file = lookupFile(absPath).orElseThrow(() ->
+                new NotFoundException("FileSystemManager.find: no such file or directory."));
+        return Stream.of(file).filter(query::matches).map(DirNode::getAbsPath);
     }
 
     // MODIFIES: this
@@ -73,10 +254,10 @@ public class FileSystemManager {
     //    throws NotFoundException if the target directory to add the file doesn't exist,
     //    throws IllegalNameException if the file name is blank
     public void createFile(String absPath) throws NotFoundException, IllegalNameException, DuplicateException {
-        String dirPath = getLocationFromPath(absPath);
+        checkAbsPath(absPath);
         String fileName = getNameFromPath(absPath);
         try {
-            Dir targetDir = findTargetDir(dirPath);
+            Dir targetDir = findParentDir(absPath);
             targetDir.addFile(fileName);
             save();
         } catch (NotFoundException e) {
@@ -93,10 +274,10 @@ public class FileSystemManager {
     //    throws IllegalNameException if the file name is blank
     //    throws NotFoundException if the file can't be found
     public void deleteFile(String absPath) throws IllegalNameException, NotFoundException {
-        String dirPath = getLocationFromPath(absPath);
+        checkAbsPath(absPath);
         String fileName = getNameFromPath(absPath);
         try {
-            Dir targetDir = findTargetDir(dirPath);
+            Dir targetDir = findParentDir(absPath);
             targetDir.deleteFile(fileName);
             save();
         } catch (IllegalNameException e) {
@@ -106,15 +287,24 @@ public class FileSystemManager {
         }
     }
 
-    // EFFECTS: break the absolute path of a file or directory and return the absolute path of the directory
-    //     where the file or the directory is, i.e., the absolute path of the parent node
-    //     throws IllegalNameException if the path is invalid
-    private String getLocationFromPath(String absPath) throws IllegalNameException {
+    // EFFECTS: check that the given path is the absolute path of a file or directory below the root
+    //     directory, throws IllegalNameException if the path is invalid
+    private void checkAbsPath(String absPath) throws IllegalNameException {
         if (absPath.isBlank() || !absPath.startsWith("~/")) {
-            throw new IllegalNameException("FIleSystemManager.getLocationFromPath:\nabsolute path is invalid.");
+            throw new IllegalNameException("FIleSystemManager.checkAbsPath:\nabsolute path is invalid.");
         }
-        int indexOfDirFileDivider = absPath.lastIndexOf("/");
-        return absPath.substring(0, indexOfDirFileDivider);
+    }
+
+    // EFFECTS: find and return the directory where the file or directory with the given absolute path is,
+    //     i.e., the parent node, resolving the path in place without copying it
+    //     throws NotFoundException if the directory can't be found
+    private Dir findParentDir(String absPath) throws NotFoundException {
+        int indexOfDirFileDivider = absPath.lastIndexOf('/');
+        Dir parentDir = pathCursor.get().resolveDir(rootDir, rootDir, absPath, 0, indexOfDirFileDivider);
+        if (parentDir == null) {
+            throw new NotFoundException("FileSystemManager.findParentDir: no such directory.");
+        }
+        return parentDir;
     }
 
     // EFFECTS: break the absolute path of a file or directory and return the name of the file or directory,
@@ -124,14 +314,118 @@ public class FileSystemManager {
         return absPath.substring(indexOfDirFileDivider + 1);
     }
 
-    // EFFECTS: get metadata of directory with the given absolute path
+    // MODIFIES: this
+    // EFFECTS: let files with identical content share one copy of it from now on, until each is edited;
+    //     do nothing if they already do
+    public void enableDeduplication() {
+        if (contentStore == null) {
+            synchronized (FileSystemManager.class) {
+                if (contentStore == null) {
+                    contentStore = new ContentStore(rootDir);
+                }
+            }
+        }
+    }
+
+    // EFFECTS: return the size of the content of all files over the size they take with identical contents
+    //     held once, e.g. 3.0 if on average each content is shared by three files; 1.0 if deduplication
+    //     isn't enabled
+    public double getDedupRatio() {
+        ContentStore store = contentStore;
+        long totalSize = rootDir.getTotalSize();
+        if (store == null || totalSize == 0) {
+            return 1.0;
+        }
+        return (double) totalSize / (totalSize - store.getSharedSize() + store.getStoredSize());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: from now on, keep the content of files not read for idleMillis compressed in memory, checking
+    //     every idleMillis / 2 on a background thread; up to hotCapacity files read since they were compressed
+    //     stay inflated; replaces any earlier setting
+    public void enableColdStorage(long idleMillis, int hotCapacity) {
+        synchronized (FileSystemManager.class) {
+            stopColdStorage();
+            ColdStorage storage = new ColdStorage(rootDir, idleMillis, hotCapacity);
+            coldSweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cold-storage");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(1, idleMillis / 2);
+            coldSweeper.scheduleWithFixedDelay(storage::compressIdle, period, period, TimeUnit.MILLISECONDS);
+            coldStorage = storage;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stop compressing idle files, leaving those already compressed as they are
+    private static synchronized void stopColdStorage() {
+        if (coldSweeper != null) {
+            coldSweeper.shutdownNow();
+            coldSweeper = null;
+        }
+        coldStorage = null;
+    }
+
+    // EFFECTS: return the number of files whose content is compressed, and the total bytes of their compressed
+    //     and original content, in that order; all 0 if cold storage isn't enabled
+    public long[] getColdStorageStats() {
+        ColdStorage storage = coldStorage;
+        return storage == null ? new long[3] : storage.getStats();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: from now on, keep the content of every file outside the heap, in slabs of slabSize bytes, decoding
+    //     it on each read; content stored on disk is read first; do nothing if it already is
+    public void enableOffHeapStorage(int slabSize) {
+        if (offHeapStore == null) {
+            synchronized (FileSystemManager.class) {
+                if (offHeapStore == null) {
+                    offHeapStore = new OffHeapStore(rootDir, slabSize);
+                }
+            }
+        }
+    }
+
+    // EFFECTS: return the bytes of file content held outside the heap and the bytes of direct memory reserved
+    //     for it, in that order; both 0 if off-heap storage isn't enabled
+    public long[] getOffHeapStats() {
+        OffHeapStore store = offHeapStore;
+        return store == null ? new long[2] : new long[]{store.getUsedBytes(), store.getReservedBytes()};
+    }
+
+    // EFFECTS: get metadata of directory with the given absolute path, with the total size, characters and
+    //          lines of all files below it read from the subtree totals cached in the directory
     public String getDirInfo(String absPath) {
-        try {
-            Dir targetDir = findTargetDir(absPath);
-            return targetDir.toString();
-        } catch (NotFoundException e) {
-            return "No such directory";
+        return lookupDir(absPath).map(Dir::toString).orElse("No such directory");
+    }
+
+    // EFFECTS: get disk usage summary of directory with the given absolute path, read from the
+    //     subtree totals cached in the directory
+    public String getDiskUsage(String absPath) {
+        return lookupDir(absPath).map(dir -> formatDiskUsage(dir, dir.getAbsPath())).orElse("No such directory");
+    }
+
+    // EFFECTS: return a du-style line for the given directory, labelled with the given label
+    public static String formatDiskUsage(Dir dir, String label) {
+        return formatSize(dir.getTotalSize()) + "\t" + label + " (" + dir.getTotalNumSubDirs() + " directories, "
+                + dir.getTotalNumFiles() + " files)";
+    }
+
+    // EFFECTS: return the given number of bytes in human-readable form, e.g. 512B, 1.5K, 20.0M
+    public static String formatSize(long bytes) {
+        String units = "KMGTPE";
+        if (bytes < 1024) {
+            return bytes + "B";
         }
+        int unit = -1;
+        double size = bytes;
+        while (size >= 1024 && unit < units.length() - 1) {
+            size /= 1024;
+            unit++;
+        }
+        return String.format("%.1f%c", size, units.charAt(unit));
     }
 
     // MODIFIES: this
@@ -140,10 +434,10 @@ public class FileSystemManager {
     //    throws IllegalNameException if the name is blank
     //    throws DuplicateException if the directory already exists
     public void createDir(String absPath) throws NotFoundException, IllegalNameException, DuplicateException {
-        String parentDirPath = getLocationFromPath(absPath);
+        checkAbsPath(absPath);
         String newDirName = getNameFromPath(absPath);
         try {
-            Dir parentDir = findTargetDir(parentDirPath);
+            Dir parentDir = findParentDir(absPath);
             parentDir.addSubDir(newDirName);
             save();
         } catch (NotFoundException e) {
@@ -160,10 +454,10 @@ public class FileSystemManager {
     //    throws IllegalNameException if the file name is blank
     //    throws NotFoundException if the file can't be found
     public void deleteDir(String absPath) throws IllegalNameException, NotFoundException {
-        String parentDirPath = getLocationFromPath(absPath);
+        checkAbsPath(absPath);
         String subdirName = getNameFromPath(absPath);
         try {
-            Dir targetDir = findTargetDir(parentDirPath);
+            Dir targetDir = findParentDir(absPath);
             targetDir.deleteSubDir(subdirName);
             save();
         } catch (IllegalNameException e) {
@@ -173,63 +467,132 @@ public class FileSystemManager {
         }
     }
 
-    // EFFECTS: find and return the directory with the given absolute path
-    private Dir findTargetDir(String absPath) throws NotFoundException {
-        String[] dirStrs = absPath.split("/");
-        if (!dirStrs[0].equals("~")) {
-            throw new NotFoundException("FileSystemManager.findTargetDir: the first dir string must be ~");
+    // MODIFIES: this
+    // EFFECTS:  move the file or directory at srcPath to dstPath by relinking the existing node, so the
+    //     cost doesn't depend on the size of a moved subtree; if dstPath is an existing directory the node
+    //     keeps its name and moves into it, otherwise it moves into the parent of dstPath under the last
+    //     name of dstPath; if srcPath names both a file and a directory, the file is moved
+    //    throws NotFoundException if the source or the destination directory doesn't exist
+    //    throws IllegalNameException if a path is invalid or a directory would be moved into itself
+    //    throws DuplicateException if the destination already has a node of that name
+    public void move(String srcPath, String dstPath) throws NotFoundException, IllegalNameException,
+            DuplicateException {
+        checkAbsPath(srcPath);
+        Dir srcParentDir = findParentDir(srcPath);
+        Optional<Dir> dstDir = lookupDir(dstPath);
+        if (dstDir.isPresent()) {
+            moveNode(srcParentDir, getNameFromPath(srcPath), dstDir.get(), getNameFromPath(srcPath));
+        } else {
+            checkAbsPath(dstPath);
+            moveNode(srcParentDir, getNameFromPath(srcPath), findParentDir(dstPath), getNameFromPath(dstPath));
         }
-        Dir targetDir;
-        targetDir = findDirectory(rootDir, Arrays.copyOfRange(dirStrs, 1, dirStrs.length));
-        return targetDir;
+        save();
     }
 
-    // EFFECTS:  find directory based on the given array of relative path, if target dir exists,
-    //               returns its dirNode, otherwise throws NotFoundException
-    public Dir findDirectory(Dir currentDir, String[] dirStrs) throws NotFoundException {
-        if (dirStrs.length == 0) {
-            return currentDir;
-        }
-        Dir nextDir = findNextDirectory(currentDir, dirStrs[0]);
-        if (dirStrs.length == 1) {
-            return nextDir;
+    // MODIFIES: this
+    // EFFECTS:  rename the file or directory with the given absolute path to newName in place;
+    //     if the path names both a file and a directory, the file is renamed
+    //    throws NotFoundException if there is no such file or directory
+    //    throws IllegalNameException if the path is invalid or the new name is blank
+    //    throws DuplicateException if the parent directory already has a node named newName
+    public void rename(String absPath, String newName) throws NotFoundException, IllegalNameException,
+            DuplicateException {
+        checkAbsPath(absPath);
+        Dir parentDir = findParentDir(absPath);
+        moveNode(parentDir, getNameFromPath(absPath), parentDir, newName);
+        save();
+    }
+
+    // MODIFIES: this
+    // EFFECTS:  move the file, or else the directory, named name in srcParentDir into dstDir as newName
+    private void moveNode(Dir srcParentDir, String name, Dir dstDir, String newName) throws NotFoundException,
+            IllegalNameException, DuplicateException {
+        if (srcParentDir.containsFile(name)) {
+            srcParentDir.moveFile(name, dstDir, newName);
         } else {
-            String[] remainingDirStrs = Arrays.copyOfRange(dirStrs, 1, dirStrs.length);
-            return findDirectory(nextDir, remainingDirStrs);
+            srcParentDir.moveSubDir(name, dstDir, newName);
         }
     }
 
-    // EFFECTS:  return the next directory based on the given dir and nextDirName,
-    //               throws NotFoundException if the directory can't be found
-    private Dir findNextDirectory(Dir dir, String nextDirName) throws NotFoundException {
-        if (nextDirName.equals("..")) {
-            if (dir.isRootDir()) {
-                return rootDir;
-            } else {
-                return dir.getParentDir();
-            }
-        } else if (nextDirName.equals("~")) {
-            return rootDir;
-        } else if (dir.containsSubDir(nextDirName)) {
-            try {
-                return dir.getSubDir(nextDirName);
-            } catch (IllegalNameException e) {
-                System.err.println(e.getMessage());
-                throw new NotFoundException(
-                        "FileSystemManager.findNextDirectory: Can't find directory with illegal name.");
-            }
-        } else {
-            throw new NotFoundException("FileSystemManager.findNextDirectory: no such directory.");
+    // EFFECTS: return the directory with the given absolute path, empty if the path doesn't start
+    //     with ~ or there is no such directory; paths that aren't in normalized form (e.g. contain "..")
+    //     are resolved by walking the tree in place; never throws
+    public Optional<Dir> lookupDir(String absPath) {
+        Dir indexedDir = pathIndex.getDir(absPath);
+        if (indexedDir != null) {
+            return Optional.of(indexedDir);
         }
+        if (!absPath.startsWith("~") || (absPath.length() > 1 && absPath.charAt(1) != '/')) {
+            return Optional.empty();
+        }
+        Optional<Dir> dir = lookupDirectory(rootDir, absPath);
+        dir.ifPresent(pathIndex::add);
+        return dir;
+    }
+
+    // EFFECTS: return the directory with the given path relative to currentDir (or absolute, if it starts
+    //     with ~), empty if there is no such directory; never throws
+    public Optional<Dir> lookupDirectory(Dir currentDir, String path) {
+        return Optional.ofNullable(pathCursor.get().resolveDir(rootDir, currentDir, path));
     }
 
-    // EFFECTS: save the current file system state to ./data/fileSystem.json
-    public void save() {
+    // EFFECTS:  find directory based on the given path relative to currentDir (or absolute, if it starts
+    //               with ~), if target dir exists, returns it, otherwise throws NotFoundException
+    public Dir findDirectory(Dir currentDir, String path) throws NotFoundException {
+        Optional<Dir> targetDir = lookupDirectory(currentDir, path);
+        if (targetDir.isEmpty()) {
+            throw new NotFoundException("FileSystemManager.findDirectory: no such directory.");
+        }
+        return targetDir.get();
+    }
+
+    // EFFECTS: return the content of the file with the given absolute path mapped from the content file of the
+    //     saved file system, for viewing and editing without loading it; empty if there is no such file or its
+    //     content has been loaded or changed since the file system was read
+    //     throws IOException if the content file can't be mapped
+    public Optional<LargeFile> openLargeFile(String absPath) throws IOException {
+        StoredContent stored = lookupFile(absPath).map(file -> file.snapshot().getStoredContent()).orElse(null);
+        if (!(stored instanceof ContentFile.Slice)) {
+            return Optional.empty();
+        }
+        return Optional.of(((ContentFile.Slice) stored).map());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: append the content of the given large file, with its edits, to the content file, replace the
+    //     content of the file with the given absolute path by it, and return it mapped again for further editing;
+    //     one save at a time, so contents appended by save and by this don't interleave
+    //     throws IOException if the content can't be written or mapped, NotFoundException if there is no such file
+    public synchronized LargeFile saveLargeFile(String absPath, LargeFile content) throws IOException,
+            NotFoundException {
+        File file = lookupFile(absPath).orElseThrow(() ->
+                new NotFoundException("FileSystemManager.saveLargeFile: no such file."));
+        ContentFile contentFile = new ContentFile(Paths.get(CONTENT_STORE));
+        ContentFile.Slice slice;
+        contentFile.open();
+        try {
+            slice = contentFile.append(content);
+        } finally {
+            contentFile.close();
+        }
+        file.update(slice, Calendar.getInstance().getTime());
+        return slice.map();
+    }
+
+    // EFFECTS: save a snapshot of the current file system state to ./data/fileSystem.json, one save
+    //     at a time; the tree can keep changing while the snapshot is written
+    public synchronized void save() {
+        ContentStore store = contentStore;
+        if (store != null) {
+            // files added since the last save share their contents before they are written
+            store.sharePending();
+        }
+        DirSnapshot snapshot = rootDir.snapshot();
         try {
             jsonWriter.open();
-            jsonWriter.write(rootDir);
+            jsonWriter.write(snapshot);
             jsonWriter.close();
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
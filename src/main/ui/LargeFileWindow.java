@@ -0,0 +1,75 @@
+package ui;
+
+import model.LargeFile;
+
+// Represents the window of lines of a large file shown in the editor: up to WINDOW_LINES lines from a first line,
+//     moved as the user scrolls, so only that window is ever in the editor; the text shown is kept, and edits made
+//     to it are put in the overlay of the file when the window moves or the file is saved
+public class LargeFileWindow {
+    public static final int WINDOW_LINES = 2_000;
+
+    private LargeFile file;
+    private long start;
+    private int lineCount;
+    private String shownText;
+
+    // EFFECTS: constructs a window of the given file starting at the given line, or at its last line if it has
+    //     fewer
+    public LargeFileWindow(LargeFile file, long start) {
+        this.file = file;
+        moveTo(start);
+    }
+
+    // EFFECTS: return the file this is a window of
+    public LargeFile getFile() {
+        return file;
+    }
+
+    // EFFECTS: return the first line of this window, counted from 0
+    public long getStart() {
+        return start;
+    }
+
+    // EFFECTS: return the text of the lines of this window, as last loaded by moveTo
+    public String getText() {
+        return shownText;
+    }
+
+    // EFFECTS: return true if the file has lines after this window
+    public boolean hasLinesAfter() {
+        return start + lineCount < file.getLineCount();
+    }
+
+    // EFFECTS: return true if the file has lines before this window
+    public boolean hasLinesBefore() {
+        return start > 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replace the lines of this window in the file by the given text, as edited in the editor, unless it
+    //     is the text shown; the window must be moved before it is shown again
+    public void commit(String editorText) {
+        if (!editorText.equals(shownText)) {
+            file.replaceLines(start, start + lineCount, editorText);
+            shownText = null;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: move this window to start at the given line, kept within the file, load its text and return the
+    //     number of lines it moved by
+    public long moveTo(long line) {
+        long oldStart = start;
+        start = Math.max(0, Math.min(line, file.getLineCount() - 1));
+        lineCount = (int) Math.min(WINDOW_LINES, file.getLineCount() - start);
+        shownText = file.getLines(start, lineCount);
+        return start - oldStart;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: show the given file, e.g. the same content mapped again after it was saved, from the same line
+    public void reopen(LargeFile file) {
+        this.file = file;
+        moveTo(start);
+    }
+}
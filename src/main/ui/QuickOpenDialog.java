@@ -0,0 +1,130 @@
+package ui;
+
+import model.File;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+// Represents a "go to file" dialog: as a query is typed, the files whose path fuzzily matches it are listed
+//     best first; Enter or a double-click opens the selected file in the editor, Escape closes the dialog
+public class QuickOpenDialog extends JDialog {
+    private static final int MAX_RESULTS = 30;
+    private static final int WIDTH = 500;
+    private static final int HEIGHT = 400;
+
+    private final FileSystemManager fsManager;
+    private final EditorUI editorUI;
+    private final JTextField queryField;
+    private final DefaultListModel<String> results;
+    private final JList<String> resultList;
+
+    // EFFECTS: create a quick-open dialog over the given owner that opens files of the given file system
+    //     in the given editor
+    public QuickOpenDialog(Frame owner, FileSystemManager fsManager, EditorUI editorUI) {
+        super(owner, "Go to File", true);
+        this.fsManager = fsManager;
+        this.editorUI = editorUI;
+
+        queryField = new JTextField();
+        queryField.getDocument().addDocumentListener(new QueryListener());
+        queryField.addKeyListener(new QueryKeyListener());
+        results = new DefaultListModel<>();
+        resultList = new JList<>(results);
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultList.addMouseListener(new ResultClickListener());
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(queryField, BorderLayout.NORTH);
+        panel.add(new JScrollPane(resultList), BorderLayout.CENTER);
+        setContentPane(panel);
+        setSize(WIDTH, HEIGHT);
+        setLocationRelativeTo(owner);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: list the files matching the current query, best first, and select the best one
+    private void updateResults() {
+        results.clear();
+        fsManager.matchPaths(queryField.getText(), MAX_RESULTS, File.class).forEach(results::addElement);
+        if (!results.isEmpty()) {
+            resultList.setSelectedIndex(0);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: move the selection by the given number of rows, staying within the list
+    private void moveSelection(int delta) {
+        if (!results.isEmpty()) {
+            int index = Math.max(0, Math.min(results.size() - 1, resultList.getSelectedIndex() + delta));
+            resultList.setSelectedIndex(index);
+            resultList.ensureIndexIsVisible(index);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: open the selected file in the editor and close the dialog, do nothing if nothing is selected
+    private void openSelected() {
+        String absPath = resultList.getSelectedValue();
+        if (absPath != null) {
+            editorUI.openFile(absPath);
+            dispose();
+        }
+    }
+
+    // represents the listener that updates the results whenever the query changes
+    private class QueryListener implements DocumentListener {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            updateResults();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            updateResults();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            updateResults();
+        }
+    }
+
+    // represents the listener that lets the keyboard drive the dialog while typing the query
+    private class QueryKeyListener extends KeyAdapter {
+        @Override
+        public void keyPressed(KeyEvent e) {
+            switch (e.getKeyCode()) {
+                case KeyEvent.VK_DOWN:
+                    moveSelection(1);
+                    break;
+                case KeyEvent.VK_UP:
+                    moveSelection(-1);
+                    break;
+                case KeyEvent.VK_ENTER:
+                    openSelected();
+                    break;
+                case KeyEvent.VK_ESCAPE:
+                    dispose();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    // represents the MouseListener that opens a result when it is double-clicked
+    private class ResultClickListener extends MouseAdapter {
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            if (e.getClickCount() == 2) {
+                openSelected();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+// Represents a search panel: a query field and the list of files whose content matches the query;
+//     double-clicking a result opens the file in the editor
+public class SearchUI extends JPanel {
+    private static final int WIDTH = 250;
+
+    private final FileSystemManager fsManager;
+    private final EditorUI editorUI;
+    private final JTextField queryField;
+    private final DefaultListModel<String> results;
+    private final JLabel status;
+
+    // EFFECTS: create a search panel that searches the given file system and opens results in the given editor
+    public SearchUI(FileSystemManager fsManager, EditorUI editorUI) {
+        super(new BorderLayout());
+        this.fsManager = fsManager;
+        this.editorUI = editorUI;
+
+        queryField = new JTextField();
+        queryField.setToolTipText("words and \"quoted phrases\"");
+        queryField.addActionListener(e -> search());
+        results = new DefaultListModel<>();
+        JList<String> resultList = new JList<>(results);
+        resultList.addMouseListener(new ResultClickListener(resultList));
+        status = new JLabel(" ");
+
+        add(queryField, BorderLayout.NORTH);
+        add(new JScrollPane(resultList), BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        setPreferredSize(new Dimension(WIDTH, 0));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: move keyboard focus to the query field
+    public void focusQuery() {
+        queryField.requestFocusInWindow();
+        queryField.selectAll();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: list the files matching the query in the query field
+    private void search() {
+        String query = queryField.getText().trim();
+        results.clear();
+        if (query.isEmpty()) {
+            status.setText(" ");
+            return;
+        }
+        long start = System.nanoTime();
+        List<String> paths = fsManager.search(query);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        paths.forEach(results::addElement);
+        status.setText(paths.size() + (paths.size() == 1 ? " file" : " files") + " (" + millis + " ms)");
+    }
+
+    // represents the MouseListener that opens a result in the editor when it is double-clicked
+    private class ResultClickListener extends MouseAdapter {
+        private final JList<String> resultList;
+
+        ResultClickListener(JList<String> resultList) {
+            this.resultList = resultList;
+        }
+
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            String absPath = resultList.getSelectedValue();
+            if (e.getClickCount() == 2 && absPath != null) {
+                editorUI.openFile(absPath);
+            }
+        }
+    }
+}
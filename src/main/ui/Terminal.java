@@ -1,13 +1,22 @@
 package ui;
 
 import model.Dir;
+import model.DirNode;
+import model.DirWalker;
 import model.File;
+import model.TreeVisitor;
 import model.exceptions.DuplicateException;
 import model.exceptions.IllegalNameException;
 import model.exceptions.NotFoundException;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Scanner;
+import java.util.regex.PatternSyntaxException;
 
 // represents the editor terminal ui
 // the design of fields and some methods are based on FitLifeGymKiosk course project
@@ -18,8 +27,23 @@ public class Terminal {
     private static final String VIEW_FILE_COMMAND = "cat";
     private static final String EDIT_FILE_COMMAND = "vim";
     private static final String REMOVE_FILE_COMMAND = "rm";
+    private static final String MOVE_COMMAND = "mv";
     private static final String LIST_ALL_COMMAND = "ls";
     private static final String TREE_COMMAND = "tree";
+    private static final String DISK_USAGE_COMMAND = "du";
+    private static final String SEARCH_COMMAND = "search";
+    private static final String GREP_COMMAND = "grep";
+    private static final String FIND_COMMAND = "find";
+    private static final String HEAD_COMMAND = "head";
+    private static final String TAIL_COMMAND = "tail";
+    private static final String WORD_COUNT_COMMAND = "wc";
+    private static final String DEDUP_COMMAND = "dedup";
+    private static final String COLD_STORAGE_COMMAND = "cold";
+    private static final int DEFAULT_COLD_SECONDS = 300;
+    private static final int HOT_CACHE_FILES = 16;
+    private static final String OFF_HEAP_COMMAND = "offheap";
+    private static final int SLAB_SIZE = 1 << 20;
+    private static final String HISTORY_COMMAND = "history";
     private static final String PRINT_WORKING_DIRECTORY_COMMAND = "pwd";
     private static final String CHANGE_DIRECTORY_COMMAND = "cd";
     private static final String CREATE_DIRECTORY_COMMAND = "mkdir";
@@ -27,6 +51,15 @@ public class Terminal {
     private static final String LAUNCH_EDITOR_GUI_COMMAND = "editor";
     private static final String QUIT_COMMAND = "q";
 
+    private static final String[] COMMANDS = {HELP_COMMAND, CREATE_FILE_COMMAND, VIEW_FILE_COMMAND,
+        EDIT_FILE_COMMAND, REMOVE_FILE_COMMAND, MOVE_COMMAND, LIST_ALL_COMMAND, TREE_COMMAND, DISK_USAGE_COMMAND,
+        SEARCH_COMMAND, GREP_COMMAND, FIND_COMMAND, HEAD_COMMAND, TAIL_COMMAND, WORD_COUNT_COMMAND,
+        DEDUP_COMMAND, COLD_STORAGE_COMMAND, OFF_HEAP_COMMAND, HISTORY_COMMAND, PRINT_WORKING_DIRECTORY_COMMAND,
+        CHANGE_DIRECTORY_COMMAND, CREATE_DIRECTORY_COMMAND, REMOVE_DIRECTORY_COMMAND, LAUNCH_EDITOR_GUI_COMMAND,
+        QUIT_COMMAND};
+    private static final int MAX_COMPLETIONS = 20;
+    private static final int DEFAULT_HEAD_LINES = 10;
+
     private static final String CONSOLE_TEXT_RESET = "\033[0m";
     private static final String CONSOLE_TEXT_BLACK = "\033[0;30m";
     private static final String CONSOLE_TEXT_CYAN = "\033[0;36m";
@@ -55,7 +88,11 @@ public class Terminal {
         while (runProgram) {
             printPrompt();
             str = input.nextLine();
-            handleUserInput(str);
+            if (str.endsWith("\t")) {
+                complete(str.substring(0, str.length() - 1));
+            } else {
+                handleUserInput(str);
+            }
         }
     }
 
@@ -89,12 +126,46 @@ public class Terminal {
                     removeFile(arg);
                     saveFileSystem();
                     break;
+                case MOVE_COMMAND:
+                    move(args);
+                    break;
                 case LIST_ALL_COMMAND:
                     listAll();
                     break;
                 case TREE_COMMAND:
                     tree();
                     break;
+                case DISK_USAGE_COMMAND:
+                    diskUsage(arg);
+                    break;
+                case SEARCH_COMMAND:
+                    search(str.substring(cmd.length()).trim());
+                    break;
+                case GREP_COMMAND:
+                    grep(splitQuoted(str.substring(cmd.length())));
+                    break;
+                case FIND_COMMAND:
+                    find(splitQuoted(str.substring(cmd.length())));
+                    break;
+                case HEAD_COMMAND:
+                case TAIL_COMMAND:
+                    printLines(cmd, splitQuoted(str.substring(cmd.length())));
+                    break;
+                case DEDUP_COMMAND:
+                    deduplicate();
+                    break;
+                case COLD_STORAGE_COMMAND:
+                    coldStorage(arg);
+                    break;
+                case OFF_HEAP_COMMAND:
+                    offHeapStorage();
+                    break;
+                case HISTORY_COMMAND:
+                    editHistory(arg);
+                    break;
+                case WORD_COUNT_COMMAND:
+                    wordCount(splitQuoted(str.substring(cmd.length())));
+                    break;
                 case PRINT_WORKING_DIRECTORY_COMMAND:
                     printWorkingDirectory();
                     break;
@@ -123,6 +194,56 @@ public class Terminal {
         }
     }
 
+    // EFFECTS: print the completions of the last word of the given line, which was entered with a trailing tab:
+    //              command names starting with it if it is the first word, otherwise the paths that fuzzily
+    //              match it, best first, below the current directory (relative) before others (absolute);
+    //              print the completed line if there is exactly one completion
+    private void complete(String line) {
+        int wordStart = line.lastIndexOf(' ') + 1;
+        String word = line.substring(wordStart);
+        List<String> completions = new ArrayList<>();
+        if (wordStart == 0) {
+            for (String command : COMMANDS) {
+                if (command.startsWith(word)) {
+                    completions.add(command);
+                }
+            }
+        } else {
+            completions = completePath(line.substring(0, line.indexOf(' ')), word);
+        }
+        if (completions.size() == 1) {
+            System.out.println(line.substring(0, wordStart) + completions.get(0));
+        } else {
+            list("", completions);
+            System.out.println(completions.isEmpty() ? "no completions for '" + word + "'" : "");
+        }
+    }
+
+    // EFFECTS: return the paths of up to MAX_COMPLETIONS nodes that fuzzily match the given word, directories
+    //              only for commands that take a directory and files only for commands that take a file
+    private List<String> completePath(String cmd, String word) {
+        Class<? extends DirNode> type = DirNode.class;
+        if (List.of(CHANGE_DIRECTORY_COMMAND, CREATE_DIRECTORY_COMMAND, REMOVE_DIRECTORY_COMMAND,
+                DISK_USAGE_COMMAND).contains(cmd)) {
+            type = Dir.class;
+        } else if (List.of(CREATE_FILE_COMMAND, VIEW_FILE_COMMAND, EDIT_FILE_COMMAND, REMOVE_FILE_COMMAND,
+                HEAD_COMMAND, TAIL_COMMAND, WORD_COUNT_COMMAND).contains(cmd)) {
+            type = File.class;
+        }
+        String here = currentDir.getAbsPath() + "/";
+        List<String> below = new ArrayList<>();
+        List<String> elsewhere = new ArrayList<>();
+        for (String path : fsManager.matchPaths(word, MAX_COMPLETIONS * 4, type)) {
+            if (!word.startsWith("~") && path.startsWith(here)) {
+                below.add(path.substring(here.length()));
+            } else {
+                elsewhere.add(path);
+            }
+        }
+        below.addAll(elsewhere);
+        return below.subList(0, Math.min(MAX_COMPLETIONS, below.size()));
+    }
+
     // EFFECTS: prints help information in terminal
     private void printHelp() {
         System.out.println("Terminal commands: ");
@@ -130,16 +251,96 @@ public class Terminal {
         System.out.println("   " + VIEW_FILE_COMMAND      + " <file name>      view content of a file");
         System.out.println("   " + EDIT_FILE_COMMAND      + " <file name>      edit a file");
         System.out.println("   " + REMOVE_FILE_COMMAND    + " <file name>       remove a file");
+        System.out.println("   " + MOVE_COMMAND + " <source> <target>  move or rename a file or directory");
         System.out.println("   " + CHANGE_DIRECTORY_COMMAND + " <dir name>        change directory");
         System.out.println("   " + CREATE_DIRECTORY_COMMAND + " <dir name>     create new directory");
         System.out.println("   " + REMOVE_DIRECTORY_COMMAND + " <dir name>     remove directory");
         System.out.println("   " + PRINT_WORKING_DIRECTORY_COMMAND + "                print current working directory");
         System.out.println("   " + LIST_ALL_COMMAND + "                 list all directories and files");
         System.out.println("   " + TREE_COMMAND + "               print content of current directory as tree");
+        System.out.println("   " + DISK_USAGE_COMMAND + " [dir name]      print disk usage of a directory");
+        System.out.println("   " + SEARCH_COMMAND + " <words> [\"phrase\"]  "
+                + "list files containing all words and phrases");
+        System.out.println("   " + GREP_COMMAND + " [-r] <regex> <path>   print lines matching a regex, "
+                + "in a directory with -r");
+        System.out.println("   " + FIND_COMMAND + " [path] [expression]  list files and directories matching "
+                + "all of -name/-iname/-path <glob>, -type f|d, -size [+-]N[ckMG], -newer/-older/-cnewer/-colder "
+                + "<yyyy-MM-dd>, -maxdepth <n>");
+        System.out.println("   " + HEAD_COMMAND + "|" + TAIL_COMMAND + " [-n <lines>] <file>  print the first or last "
+                + "lines of a file (" + DEFAULT_HEAD_LINES + " by default)");
+        System.out.println("   " + WORD_COUNT_COMMAND + " [-l|-m|-c] <file>  print the number of lines, characters "
+                + "and/or bytes of a file");
+        System.out.println("   " + DEDUP_COMMAND + "              share identical file contents in memory and print "
+                + "the deduplication ratio");
+        System.out.println("   " + COLD_STORAGE_COMMAND + " [seconds]       compress files not read for the given "
+                + "time (" + DEFAULT_COLD_SECONDS + " by default) and print how many are compressed");
+        System.out.println("   " + OFF_HEAP_COMMAND + "            keep file contents outside the Java heap and "
+                + "print the memory they take");
+        System.out.println("   " + HISTORY_COMMAND + " [KB]         limit the undo history of all files to the given "
+                + "size and print the memory it takes");
+        System.out.println("   <partial command or path><tab>  list completions of the last word");
         System.out.println("   " + LAUNCH_EDITOR_GUI_COMMAND + "             launch editor GUI");
         System.out.println("   " + QUIT_COMMAND + "                  quit terminal");
     }
 
+    // MODIFIES: this
+    // EFFECTS:  keep the content of files not read for the given number of seconds (or the default if
+    //               blank) compressed in memory, and print the files compressed so far;
+    //               print error message if the number is invalid
+    private void coldStorage(String secondsStr) {
+        try {
+            int seconds = secondsStr.isEmpty() ? DEFAULT_COLD_SECONDS : Integer.parseInt(secondsStr);
+            if (seconds < 0) {
+                throw new NumberFormatException();
+            }
+            fsManager.enableColdStorage(seconds * 1000L, HOT_CACHE_FILES);
+        } catch (NumberFormatException e) {
+            System.out.println("usage: " + COLD_STORAGE_COMMAND + " [seconds]");
+            return;
+        }
+        long[] stats = fsManager.getColdStorageStats();
+        System.out.println(stats[0] + " files compressed, " + FileSystemManager.formatSize(stats[2]) + " in "
+                + FileSystemManager.formatSize(stats[1]));
+    }
+
+    // MODIFIES: this
+    // EFFECTS:  keep the content of every file outside the heap, and print the memory it takes there
+    private void offHeapStorage() {
+        fsManager.enableOffHeapStorage(SLAB_SIZE);
+        long[] stats = fsManager.getOffHeapStats();
+        System.out.println(FileSystemManager.formatSize(stats[0]) + " of file content off the heap, in "
+                + FileSystemManager.formatSize(stats[1]) + " of direct memory");
+    }
+
+    // MODIFIES: this
+    // EFFECTS:  limit the undo history of all files to the given number of kilobytes, unless blank, and print
+    //               the memory it takes; print error message if the number is invalid
+    private void editHistory(String kilobytesStr) {
+        if (!kilobytesStr.isEmpty()) {
+            try {
+                long kilobytes = Long.parseLong(kilobytesStr);
+                if (kilobytes < 0) {
+                    throw new NumberFormatException();
+                }
+                fsManager.setHistoryBudget(kilobytes << 10);
+            } catch (NumberFormatException e) {
+                System.out.println("usage: " + HISTORY_COMMAND + " [KB]");
+                return;
+            }
+        }
+        long[] stats = fsManager.getHistoryStats();
+        System.out.println(FileSystemManager.formatSize(stats[0]) + " of undo history, at most "
+                + FileSystemManager.formatSize(stats[1]));
+    }
+
+    // MODIFIES: this
+    // EFFECTS:  let files with identical content share one copy of it, and print the deduplication ratio
+    private void deduplicate() {
+        fsManager.enableDeduplication();
+        System.out.printf("identical file contents are shared, deduplication ratio: %.2f%n",
+                fsManager.getDedupRatio());
+    }
+
     // MODIFIES: this
     // EFFECTS:  create a file with the given file name in the current directory
     //               print error message if filename is blank or file exists
@@ -157,13 +358,21 @@ public class Terminal {
     // EFFECTS: print content of file with the given file name in the current directory
     //              if the file doesn't exist, print error message
     private void viewFile(String fileName) {
-        try {
-            File file = currentDir.getFile(fileName);
-            System.out.println(file.getContent());
-        } catch (IllegalNameException e) {
+        File file = currentDir.findFile(fileName);
+        if (fileName.isBlank()) {
             System.out.println("cat: file name must be nonblank string.");
-        } catch (NotFoundException e) {
+        } else if (file == null) {
             System.out.println("cat: failed to open '" + fileName + "': No such file");
+        } else {
+            // streamed, so content held outside the heap is never built into one string
+            PrintWriter out = new PrintWriter(System.out);
+            try (Reader reader = file.openReader()) {
+                reader.transferTo(out);
+            } catch (IOException e) {
+                System.out.println("cat: failed to read '" + fileName + "'");
+            }
+            out.println();
+            out.flush();
         }
     }
 
@@ -194,6 +403,35 @@ public class Terminal {
         }
     }
 
+    // MODIFIES:  this
+    // EFFECTS:   move or rename the file or directory given by the first path to the second path, both
+    //                relative to the current directory unless they start with ~; print error message
+    //                if the move fails
+    private void move(String[] args) {
+        if (args.length != 3) {
+            System.out.println("usage: " + MOVE_COMMAND + " <source> <target>");
+            return;
+        }
+        try {
+            fsManager.move(toAbsPath(args[1]), toAbsPath(args[2]));
+        } catch (NotFoundException e) {
+            System.out.println("mv: no such file or directory: " + args[1] + " or " + args[2]);
+        } catch (IllegalNameException e) {
+            System.out.println("mv: cannot move '" + args[1] + "' to '" + args[2] + "': " + e.getMessage());
+        } catch (DuplicateException e) {
+            System.out.println("mv: cannot move '" + args[1] + "': '" + args[2] + "' already exists");
+        }
+    }
+
+    // EFFECTS:  return the absolute form of the given path, taken relative to the current directory
+    //               unless it starts with ~
+    private String toAbsPath(String path) {
+        if (path.startsWith("~")) {
+            return path;
+        }
+        return currentDir.getAbsPath() + "/" + path;
+    }
+
     // EFFECTS:  print out current working directory
     private void printWorkingDirectory() {
         System.out.println(currentDir.getAbsPath());
@@ -203,9 +441,10 @@ public class Terminal {
     // EFFECTS:  change directory to given directory if it exists, print error message if the process fails
     private void changeDirectory(String dirStr) {
         if (validateDirStr(dirStr)) {
-            try {
-                currentDir = fsManager.findDirectory(currentDir, dirStr.split("/"));
-            } catch (NotFoundException e) {
+            Optional<Dir> targetDir = fsManager.lookupDirectory(currentDir, dirStr);
+            if (targetDir.isPresent()) {
+                currentDir = targetDir.get();
+            } else {
                 System.out.println("cd: no such directory: " + dirStr);
             }
         } else {
@@ -268,29 +507,165 @@ public class Terminal {
 
     // EFFECTS: print contents of the current directory as a tree
     private void tree() {
-        tree(currentDir, 0);
+        DirWalker.walk(currentDir, DirWalker.Order.PRE_ORDER, new TreeVisitor() {
+            @Override
+            public void visitDir(Dir dir, int depth) {
+                if (depth == 0) {
+                    System.out.println(".");
+                } else {
+                    String dirLineHead = getChildrenLineHead(depth - 1);
+                    System.out.println(dirLineHead + CONSOLE_TEXT_CYAN + dir.getName() + CONSOLE_TEXT_RESET);
+                }
+            }
+
+            @Override
+            public void visitFile(File file, int depth) {
+                System.out.println(getChildrenLineHead(depth - 1) + file.getName());
+            }
+        });
         System.out.print("\n" + currentDir.getTotalNumSubDirs() + " directories, ");
         System.out.println(currentDir.getTotalNumFiles() + " files");
     }
 
-    // EFFECTS: print contents of the given directory as a tree
-    private void tree(Dir dir, int depth) {
-        String fileIndent = getChildrenLineHead(depth);
+    // EFFECTS: print the absolute paths of the files whose content matches the given query
+    private void search(String query) {
+        if (query.isEmpty()) {
+            System.out.println(SEARCH_COMMAND + ": missing query");
+            return;
+        }
+        List<String> paths = fsManager.search(query);
+        paths.forEach(System.out::println);
+        System.out.println(paths.size() + (paths.size() == 1 ? " file" : " files"));
+    }
 
-        if (dir == currentDir) {
-            System.out.println(".");
-        } else {
-            String selfIndent = getChildrenLineHead(depth - 1);
-            System.out.println(selfIndent + CONSOLE_TEXT_CYAN + dir.getName() + "\033[0m");
+    // EFFECTS: print path:line:column: text for each match of the regex in the given file, or with -r
+    //              in every file below the given directory (the current directory if none is given);
+    //              print error message if the path or regex is invalid
+    private void grep(List<String> args) {
+        boolean recursive = !args.isEmpty() && args.get(0).equals("-r");
+        List<String> operands = recursive ? args.subList(1, args.size()) : args;
+        if (operands.isEmpty() || operands.size() > 2 || (!recursive && operands.size() != 2)) {
+            System.out.println("usage: " + GREP_COMMAND + " [-r] <regex> <path>");
+            return;
         }
-        dir.getOrderedSubDirNames().forEach(name -> {
-            try {
-                tree(dir.getSubDir(name), depth + 1);
-            } catch (IllegalNameException | NotFoundException e) {
-                System.err.println(e.getMessage());
+        String path = operands.size() == 2 ? operands.get(1) : ".";
+        if (!recursive && fsManager.lookupDirectory(currentDir, path).isPresent()) {
+            System.out.println("grep: " + path + ": Is a directory");
+            return;
+        }
+        try {
+            fsManager.grep(operands.get(0), toAbsPath(path)).forEach(System.out::println);
+        } catch (NotFoundException e) {
+            System.out.println("grep: " + path + ": No such file or directory");
+        } catch (PatternSyntaxException e) {
+            System.out.println("grep: invalid regex: " + e.getDescription());
+        }
+    }
+
+    // EFFECTS: print, as they are found, the absolute paths of the files and directories at or below the given
+    //              path (the current directory if the first argument is a predicate) that match every
+    //              predicate of the expression that follows; print error message if the path or
+    //              expression is invalid
+    private void find(List<String> args) {
+        boolean hasPath = !args.isEmpty() && !args.get(0).startsWith("-");
+        String path = hasPath ? args.get(0) : ".";
+        try {
+            fsManager.find(toAbsPath(path), args.subList(hasPath ? 1 : 0, args.size()))
+                    .forEach(System.out::println);
+        } catch (NotFoundException e) {
+            System.out.println("find: " + path + ": No such file or directory");
+        } catch (IllegalArgumentException e) {
+            System.out.println("find: " + e.getMessage());
+        }
+    }
+
+    // EFFECTS: print the first (head) or last (tail) lines of the given file, 10 unless given with -n;
+    //              only those lines are read, through the line index of the file;
+    //              print error message if the arguments are invalid or the file doesn't exist
+    private void printLines(String cmd, List<String> args) {
+        boolean hasCount = args.size() == 3 && args.get(0).equals("-n") && args.get(1).matches("\\d{1,9}");
+        if (args.size() != 1 && !hasCount) {
+            System.out.println("usage: " + cmd + " [-n <lines>] <file>");
+            return;
+        }
+        String path = args.get(args.size() - 1);
+        Optional<File> file = fsManager.lookupFile(toAbsPath(path));
+        if (file.isEmpty()) {
+            System.out.println(cmd + ": " + path + ": No such file");
+            return;
+        }
+        int count = hasCount ? Integer.parseInt(args.get(1)) : DEFAULT_HEAD_LINES;
+        int lineCount = file.get().getLineCount();
+        CharSequence lines = cmd.equals(HEAD_COMMAND) ? file.get().getLines(0, Math.min(count, lineCount))
+                : file.get().getLines(Math.max(0, lineCount - count), lineCount);
+        System.out.print(lines);
+        if (lines.length() > 0 && lines.charAt(lines.length() - 1) != '\n') {
+            System.out.println();
+        }
+    }
+
+    // EFFECTS: print the number of lines (-l), characters (-m), bytes in UTF-8 (-c), or all three of the given
+    //              file, all kept up to date by the file without reading its content;
+    //              print error message if the arguments are invalid or the file doesn't exist
+    private void wordCount(List<String> args) {
+        boolean hasFlag = args.size() == 2 && List.of("-l", "-m", "-c").contains(args.get(0));
+        if (args.size() != 1 && !hasFlag) {
+            System.out.println("usage: " + WORD_COUNT_COMMAND + " [-l|-m|-c] <file>");
+            return;
+        }
+        String path = args.get(args.size() - 1);
+        Optional<File> file = fsManager.lookupFile(toAbsPath(path));
+        if (file.isEmpty()) {
+            System.out.println(WORD_COUNT_COMMAND + ": " + path + ": No such file");
+            return;
+        }
+        String flag = hasFlag ? args.get(0) : "";
+        long lines = file.get().getLineCount();
+        long chars = file.get().getCharCount();
+        long bytes = file.get().getSize();
+        String counts = flag.equals("-l") ? lines + "" : flag.equals("-m") ? chars + "" : flag.equals("-c")
+                ? bytes + "" : lines + " " + chars + " " + bytes;
+        System.out.println(counts + " " + path);
+    }
+
+    // EFFECTS: return the words of the given string, splitting at spaces outside double quotes;
+    //              the quotes themselves are dropped
+    private static List<String> splitQuoted(String str) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+        for (char c : (str + " ").toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ' ' && !quoted) {
+                if (word.length() > 0) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                }
+            } else {
+                word.append(c);
             }
-        });
-        dir.getOrderedFileNames().forEach(name -> System.out.println(fileIndent + name));
+        }
+        return words;
+    }
+
+    // EFFECTS: print disk usage of each subdirectory of the given directory and its total,
+    //              print error message if the directory doesn't exist
+    private void diskUsage(String dirStr) {
+        Optional<Dir> targetDir = dirStr.isEmpty() ? Optional.of(currentDir)
+                : fsManager.lookupDirectory(currentDir, dirStr);
+        if (targetDir.isEmpty()) {
+            System.out.println("du: no such directory: " + dirStr);
+            return;
+        }
+        Dir dir = targetDir.get();
+        for (String name : dir.getOrderedSubDirNames()) {
+            Dir subDir = dir.findSubDir(name);
+            if (subDir != null) {
+                System.out.println(FileSystemManager.formatDiskUsage(subDir, name));
+            }
+        }
+        System.out.println(FileSystemManager.formatDiskUsage(dir, dirStr.isEmpty() ? "." : dirStr));
     }
 
     // EFFECTS: return leading string for folders and files with the given depth
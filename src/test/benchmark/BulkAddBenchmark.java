@@ -0,0 +1,92 @@
+package benchmark;
+
+import model.Dir;
+import model.Event;
+import model.EventLog;
+import model.File;
+import persistence.JsonReader;
+import persistence.JsonWriter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compares building a tree one node at a time (addFile/addSubDir) with the batched addFiles and
+//     addSubDirs, then loads the same tree through JsonReader, counting time and logged events.
+//     Run with: java benchmark.BulkAddBenchmark [numDirs] [filesPerDir]
+public class BulkAddBenchmark {
+    private static final int WARMUP_ROUNDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        int numDirs = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int filesPerDir = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            buildOneByOne(numDirs / 10, filesPerDir);
+            buildInBatches(numDirs / 10, filesPerDir);
+        }
+        System.out.printf("%-14s %12s %12s%n", "", "ms", "events");
+        EventLog.getInstance().clear();
+        long start = System.nanoTime();
+        Dir rootDir = buildOneByOne(numDirs, filesPerDir);
+        System.out.printf("%-14s %12.1f %12d%n", "one by one", (System.nanoTime() - start) / 1e6, countEvents());
+
+        EventLog.getInstance().clear();
+        start = System.nanoTime();
+        rootDir = buildInBatches(numDirs, filesPerDir);
+        System.out.printf("%-14s %12.1f %12d%n", "in batches", (System.nanoTime() - start) / 1e6, countEvents());
+
+        Path store = Files.createTempFile("bulk-add", ".json");
+        JsonWriter writer = new JsonWriter(store.toString());
+        writer.open();
+        writer.write(rootDir.snapshot());
+        writer.close();
+        rootDir = null;
+        EventLog.getInstance().clear();
+        start = System.nanoTime();
+        Dir loaded = new JsonReader(store.toString()).read();
+        System.out.printf("%-14s %12.1f %12d%n", "JsonReader", (System.nanoTime() - start) / 1e6, countEvents());
+        System.out.println("loaded " + loaded.getTotalNumFiles() + " files in " + loaded.getTotalNumSubDirs()
+                + " directories");
+        Files.delete(store);
+    }
+
+    // EFFECTS: return a tree of numDirs directories with filesPerDir files each, added one at a time
+    private static Dir buildOneByOne(int numDirs, int filesPerDir) throws Exception {
+        Dir rootDir = new Dir();
+        for (int d = 0; d < numDirs; d++) {
+            Dir dir = new Dir("dir" + d);
+            for (int f = 0; f < filesPerDir; f++) {
+                dir.addFile(new File("file" + f, "content " + f));
+            }
+            rootDir.addSubDir(dir);
+        }
+        return rootDir;
+    }
+
+    // EFFECTS: return a tree of numDirs directories with filesPerDir files each, added in batches
+    private static Dir buildInBatches(int numDirs, int filesPerDir) throws Exception {
+        Dir rootDir = new Dir();
+        List<Dir> dirs = new ArrayList<>(numDirs);
+        for (int d = 0; d < numDirs; d++) {
+            Dir dir = new Dir("dir" + d);
+            List<File> files = new ArrayList<>(filesPerDir);
+            for (int f = 0; f < filesPerDir; f++) {
+                files.add(new File("file" + f, "content " + f));
+            }
+            dir.addFiles(files);
+            dirs.add(dir);
+        }
+        rootDir.addSubDirs(dirs);
+        return rootDir;
+    }
+
+    // EFFECTS: return the number of events in the event log
+    private static int countEvents() {
+        int count = 0;
+        for (Event event : EventLog.getInstance()) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,117 @@
+package benchmark;
+
+import model.ColdStorage;
+import model.Dir;
+import model.EventLog;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Measures the heap retained by a workspace of real text (the source files and docs of a directory tree, copied
+//     as many times as asked, each copy edited so that it is distinct) before and after every file is compressed
+//     by cold storage, and the latency of the first read of a compressed file against that of a later read.
+//     Run with: java benchmark.ColdStorageBenchmark [corpusDir] [copies]
+public class ColdStorageBenchmark {
+    private static final int READS = 2_000;
+    private static final int HOT_FILES = 16;
+
+    public static void main(String[] args) throws Exception {
+        Path corpusDir = Paths.get(args.length > 0 ? args[0] : ".");
+        int copies = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        List<String> corpus = readCorpus(corpusDir);
+
+        long before = usedHeap();
+        Dir rootDir = createTree(corpus, copies);
+        List<File> files = new ArrayList<>();
+        for (Dir dir : rootDir.getSubDirs()) {
+            files.addAll(dir.getFiles());
+        }
+        long loaded = usedHeap();
+        ColdStorage storage = new ColdStorage(rootDir, 0, HOT_FILES);
+        long start = System.nanoTime();
+        storage.compressIdle();
+        double elapsed = (System.nanoTime() - start) / 1e6;
+        long compressed = usedHeap();
+        long[] stats = storage.getStats();
+
+        System.out.printf("files: %d, text: %.1f MB, compressed to %.1f MB%n", stats[0], stats[2] / 1e6,
+                stats[1] / 1e6);
+        System.out.printf("heap as loaded:             %10.1f MB%n", (loaded - before) / 1e6);
+        System.out.printf("heap when compressed:       %10.1f MB%n", (compressed - before) / 1e6);
+        System.out.printf("compress every file:        %10.1f ms%n", elapsed);
+        System.out.printf("first read (inflates):      %10.3f us%n", timeReads(files.subList(0, READS)) / 1e3);
+        List<File> hot = files.subList(READS - HOT_FILES, READS);
+        System.out.printf("later read (hot):           %10.3f us%n", timeReads(hot) / 1e3);
+    }
+
+    // EFFECTS: return the content of every .java, .md and .txt file under the given directory
+    private static List<String> readCorpus(Path dir) throws IOException {
+        List<String> corpus = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(".java") || name.endsWith(".md") || name.endsWith(".txt")) {
+                    corpus.add(Files.readString(path));
+                }
+            }
+        }
+        return corpus;
+    }
+
+    // EFFECTS: return a tree with a directory for each copy of the corpus, each file starting with a line
+    //     naming its copy
+    private static Dir createTree(List<String> corpus, int copies)
+            throws IllegalNameException, DuplicateException, NotFoundException {
+        Dir rootDir = new Dir();
+        for (int c = 0; c < copies; c++) {
+            rootDir.addSubDir("copy" + c);
+            Dir dir = rootDir.getSubDir("copy" + c);
+            for (int f = 0; f < corpus.size(); f++) {
+                dir.addFile(new File("file" + f, "// copy " + c + "\n" + corpus.get(f)));
+            }
+        }
+        EventLog.getInstance().clear();
+        return rootDir;
+    }
+
+    // MODIFIES: files
+    // EFFECTS: return the average time in nanoseconds of reading the content of a file, reading each of the
+    //     given files in turn READS times in total; reading a compressed file inflates it, and may compress the
+    //     least recently inflated file
+    private static double timeReads(List<File> files) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            sink += files.get(i % files.size()).getContent().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / READS;
+    }
+
+    // EFFECTS: return the bytes of heap in use after a garbage collection
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // EFFECTS: keep the JIT from eliminating the measured loop
+    private static void consume(long sink) {
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
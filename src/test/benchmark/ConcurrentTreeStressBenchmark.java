@@ -0,0 +1,113 @@
+package benchmark;
+
+import model.Dir;
+import model.EventLog;
+import model.File;
+import model.PathCursor;
+import model.PathIndex;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Stress harness for the thread-safe Dir tree: reader threads resolve paths, list
+//     directories and read contents while one writer keeps adding and deleting files.
+//     Prints read throughput for 1, 2, 4, ... reader threads up to the number of cores.
+//     Run with: java benchmark.ConcurrentTreeStressBenchmark [secondsPerRound]
+public class ConcurrentTreeStressBenchmark {
+    private static final int NUM_DIRS = 200;
+    private static final int FILES_PER_DIR = 200;
+
+    public static void main(String[] args) throws Exception {
+        long millisPerRound = 1000L * (args.length > 0 ? Integer.parseInt(args[0]) : 3);
+        Dir rootDir = createTree();
+        PathIndex pathIndex = new PathIndex(rootDir);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%8s %18s %16s%n", "readers", "reads/s", "writes/s");
+        for (int readers = 1; readers <= cores; readers *= 2) {
+            runRound(rootDir, pathIndex, readers, millisPerRound);
+            EventLog.getInstance().clear();
+        }
+        System.out.println("final tree: " + rootDir.getTotalNumSubDirs() + " directories, "
+                + rootDir.getTotalNumFiles() + " files, " + pathIndex.size() + " indexed paths");
+    }
+
+    // EFFECTS: return a tree of NUM_DIRS directories with FILES_PER_DIR files each
+    private static Dir createTree() throws IllegalNameException, DuplicateException, NotFoundException {
+        Dir rootDir = new Dir();
+        for (int d = 0; d < NUM_DIRS; d++) {
+            rootDir.addSubDir("dir" + d);
+            Dir dir = rootDir.getSubDir("dir" + d);
+            for (int f = 0; f < FILES_PER_DIR; f++) {
+                dir.addFile(new File("file" + f, "content of file " + f));
+            }
+        }
+        return rootDir;
+    }
+
+    // EFFECTS: run the given number of readers next to one writer for the given time and print throughput
+    private static void runRound(Dir rootDir, PathIndex pathIndex, int readers, long millis)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            threads.add(new Thread(() -> read(rootDir, pathIndex, running, reads)));
+        }
+        threads.add(new Thread(() -> write(rootDir, running, writes)));
+        threads.forEach(Thread::start);
+        Thread.sleep(millis);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.printf("%8d %18.0f %16.0f%n", readers,
+                reads.sum() * 1000.0 / millis, writes.sum() * 1000.0 / millis);
+    }
+
+    // EFFECTS: resolve, list and read random nodes until running is cleared
+    private static void read(Dir rootDir, PathIndex pathIndex, AtomicBoolean running, LongAdder reads) {
+        PathCursor cursor = new PathCursor();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long count = 0;
+        long sink = 0;
+        while (running.get()) {
+            String dirPath = "~/dir" + random.nextInt(NUM_DIRS);
+            String filePath = dirPath + "/../" + dirPath.substring(2) + "/file" + random.nextInt(FILES_PER_DIR);
+            Dir dir = pathIndex.getDir(dirPath);
+            File file = cursor.resolveFile(rootDir, rootDir, filePath);
+            sink += dir == null ? 0 : dir.getOrderedFileNames().size() + dir.getTotalSize();
+            sink += file == null ? 0 : file.getContent().length();
+            count += 2;
+        }
+        reads.add(count + (sink == Long.MIN_VALUE ? 1 : 0));
+    }
+
+    // EFFECTS: add and delete files in random directories until running is cleared
+    private static void write(Dir rootDir, AtomicBoolean running, LongAdder writes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long count = 0;
+        while (running.get()) {
+            try {
+                Dir dir = rootDir.getSubDir("dir" + random.nextInt(NUM_DIRS));
+                String name = "file" + random.nextInt(FILES_PER_DIR);
+                if (dir.containsFile(name)) {
+                    dir.deleteFile(name);
+                } else {
+                    dir.addFile(new File(name, "rewritten " + name));
+                }
+                count++;
+            } catch (IllegalNameException | NotFoundException | DuplicateException e) {
+                // another change got there first; try again
+            }
+        }
+        writes.add(count);
+    }
+}
@@ -0,0 +1,92 @@
+package benchmark;
+
+import model.EventLog;
+import model.File;
+
+import java.util.Date;
+import java.util.Random;
+
+// Compares small random edits to a file through its rope (insert and delete) with replacing its
+//     whole content by an edited copy of the string, as a save of the full editor text does,
+//     on documents of 1 MB, 50 MB and 500 MB. The largest needs a few GB of heap.
+//     Run with: java -Xmx4g benchmark.ContentEditBenchmark [sizeInMB...]
+public class ContentEditBenchmark {
+    private static final int ROPE_EDITS = 100_000;
+    // characters copied by the string edits of each size, so the largest doesn't take minutes
+    private static final long STRING_BUDGET = 2_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[] {1, 50, 500};
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        timeRopeEdits(new File("warmup.txt", createDocument(1_000_000, new Random(1))), new Random(1));
+        System.out.printf("%8s %16s %16s %16s%n", "size", "rope edit", "string edit", "materialize");
+        for (int megabytes : sizes) {
+            run(megabytes * 1_000_000, new Random(42));
+        }
+    }
+
+    // EFFECTS: time random edits to a document of the given size both ways and print the results
+    private static void run(int size, Random random) throws Exception {
+        String document = createDocument(size, random);
+        File file = new File("doc.txt", document);
+        double ropeMicros = timeRopeEdits(file, random);
+        long start = System.nanoTime();
+        int length = file.getContent().length();
+        double materializeMillis = (System.nanoTime() - start) / 1e6;
+        file = null;
+        double stringMicros = timeStringEdits(document, random);
+        System.out.printf("%6dMB %13.3f us %13.1f us %13.1f ms%n", length / 1_000_000, ropeMicros,
+                stringMicros, materializeMillis);
+        EventLog.getInstance().clear();
+    }
+
+    // EFFECTS: return a document of the given number of characters, in lines of lowercase words
+    private static String createDocument(int size, Random random) {
+        char[] chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            if (i % 80 == 79) {
+                chars[i] = '\n';
+            } else {
+                chars[i] = random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26));
+            }
+        }
+        return new String(chars);
+    }
+
+    // MODIFIES: file
+    // EFFECTS: return the average time in microseconds of inserting or deleting a few characters at a
+    //     random offset of the file
+    private static double timeRopeEdits(File file, Random random) {
+        Date now = new Date();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROPE_EDITS; i++) {
+            int offset = random.nextInt(file.getLength() - 10);
+            if (i % 2 == 0) {
+                file.insert(offset, "edit", now);
+            } else {
+                file.delete(offset, 4, now);
+            }
+            EventLog.getInstance().clear();
+        }
+        return (System.nanoTime() - start) / 1e3 / ROPE_EDITS;
+    }
+
+    // EFFECTS: return the average time in microseconds of inserting or deleting a few characters at a
+    //     random offset of the document by building a new string, as a full save does
+    private static double timeStringEdits(String document, Random random) {
+        int rounds = (int) Math.max(3, Math.min(1_000, STRING_BUDGET / document.length()));
+        String content = document;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            int offset = random.nextInt(content.length() - 10);
+            if (i % 2 == 0) {
+                content = content.substring(0, offset) + "edit" + content.substring(offset);
+            } else {
+                content = content.substring(0, offset) + content.substring(offset + 4);
+            }
+        }
+        return (System.nanoTime() - start) / 1e3 / rounds;
+    }
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import model.ContentStore;
+import model.Dir;
+import model.EventLog;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+
+import java.util.Random;
+
+// Measures the heap retained by a workspace of many copies of a few templates, as loaded (each file
+//     holding its own string) and after a content store has made identical files share one copy,
+//     and the time the store takes to hash every file.
+//     Run with: java benchmark.DedupBenchmark [numFiles] [numTemplates] [templateSizeInKB]
+public class DedupBenchmark {
+    public static void main(String[] args) throws Exception {
+        int numFiles = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int numTemplates = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int templateSize = (args.length > 2 ? Integer.parseInt(args[2]) : 8) * 1024;
+        String[] templates = createTemplates(numTemplates, templateSize, new Random(42));
+
+        long before = usedHeap();
+        Dir rootDir = createTree(numFiles, templates);
+        long loaded = usedHeap();
+        long start = System.nanoTime();
+        ContentStore store = new ContentStore(rootDir);
+        double elapsed = (System.nanoTime() - start) / 1e6;
+        long deduplicated = usedHeap();
+
+        System.out.printf("files: %d, distinct contents: %d%n", rootDir.getTotalNumFiles(), store.getBlobCount());
+        System.out.printf("heap as loaded:             %10.1f MB%n", (loaded - before) / 1e6);
+        System.out.printf("heap after deduplication:   %10.1f MB%n", (deduplicated - before) / 1e6);
+        System.out.printf("deduplication ratio:        %10.2f%n",
+                (double) store.getSharedSize() / store.getStoredSize());
+        System.out.printf("hash and share every file:  %10.1f ms%n", elapsed);
+    }
+
+    // EFFECTS: return numTemplates random texts of about the given size each
+    private static String[] createTemplates(int numTemplates, int size, Random random) {
+        String[] templates = new String[numTemplates];
+        for (int t = 0; t < numTemplates; t++) {
+            StringBuilder text = new StringBuilder(size + 16);
+            while (text.length() < size) {
+                text.append(random.nextInt(100_000)).append(random.nextInt(10) == 0 ? '\n' : ' ');
+            }
+            templates[t] = text.toString();
+        }
+        return templates;
+    }
+
+    // EFFECTS: return a tree of numFiles files in directories of 100, each holding a fresh copy of a template,
+    //     as if read from disk
+    private static Dir createTree(int numFiles, String[] templates)
+            throws IllegalNameException, DuplicateException, NotFoundException {
+        Dir rootDir = new Dir();
+        for (int f = 0; f < numFiles; f++) {
+            if (f % 100 == 0) {
+                rootDir.addSubDir("dir" + f / 100);
+            }
+            Dir dir = rootDir.getSubDir("dir" + f / 100);
+            dir.addFile(new File("file" + f, new String(templates[f % templates.length].toCharArray())));
+        }
+        EventLog.getInstance().clear();
+        return rootDir;
+    }
+
+    // EFFECTS: return the bytes of heap in use after a garbage collection
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
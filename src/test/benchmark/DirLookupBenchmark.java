@@ -0,0 +1,83 @@
+package benchmark;
+
+import model.Dir;
+import model.EventLog;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+
+import java.util.Random;
+
+// Measures the latency of Dir.getFile and Dir.containsFile in a flat directory
+//     with 10 to 1,000,000 children. Run with: java benchmark.DirLookupBenchmark
+public class DirLookupBenchmark {
+    private static final int[] CHILD_COUNTS = {10, 100, 1_000, 10_000, 100_000, 1_000_000};
+    private static final int LOOKUPS = 2_000_000;
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%12s %16s %16s%n", "children", "getFile (ns/op)", "contains (ns/op)");
+        for (int numChildren : CHILD_COUNTS) {
+            Dir dir = createFlatDir(numChildren);
+            String[] names = pickNames(numChildren);
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                timeGetFile(dir, names);
+                timeContainsFile(dir, names);
+            }
+            System.out.printf("%12d %16.1f %16.1f%n", numChildren,
+                    timeGetFile(dir, names), timeContainsFile(dir, names));
+            EventLog.getInstance().clear();
+        }
+    }
+
+    // EFFECTS: return a directory with the given number of empty files
+    private static Dir createFlatDir(int numChildren) throws IllegalNameException, DuplicateException {
+        Dir dir = new Dir();
+        for (int i = 0; i < numChildren; i++) {
+            dir.addFile(new File("file" + i));
+        }
+        return dir;
+    }
+
+    // EFFECTS: return LOOKUPS names picked uniformly at random from the existing children
+    private static String[] pickNames(int numChildren) {
+        Random random = new Random(42);
+        String[] names = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            names[i] = "file" + random.nextInt(numChildren);
+        }
+        return names;
+    }
+
+    // EFFECTS: return the average latency of getFile in nanoseconds
+    private static double timeGetFile(Dir dir, String[] names) throws IllegalNameException, NotFoundException {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (String name : names) {
+            sink += dir.getFile(name).getSize();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / names.length;
+    }
+
+    // EFFECTS: return the average latency of containsFile in nanoseconds
+    private static double timeContainsFile(Dir dir, String[] names) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (String name : names) {
+            sink += dir.containsFile(name) ? 1 : 0;
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / names.length;
+    }
+
+    // EFFECTS: keep the JIT from eliminating the measured loop
+    private static void consume(long sink) {
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package benchmark;
+
+import model.Dir;
+import model.DirNode;
+import model.DirWalker;
+import model.EventLog;
+import model.File;
+import model.TreeVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Compares sequential and parallel whole-tree walks over a synthetic tree of about 5M nodes
+//     (50 top-level directories x 100 subdirectories x 1,000 files), each computing the number
+//     of nodes and the total content size. Run with: java -Xmx4g benchmark.DirWalkBenchmark [filesPerDir]
+public class DirWalkBenchmark {
+    private static final int TOP_DIRS = 50;
+    private static final int SUB_DIRS = 100;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int filesPerDir = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        Dir rootDir = createTree(filesPerDir);
+        System.out.println("nodes: " + (1 + rootDir.getTotalNumSubDirs() + rootDir.getTotalNumFiles())
+                + ", cores: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-26s %10s%n", "", "ms/walk");
+        for (int i = 0; i < 2; i++) {
+            timeOrderedWalk(rootDir);
+            timeStream(rootDir, false);
+            timeStream(rootDir, true);
+            timeReduce(rootDir);
+        }
+        System.out.printf("%-26s %10.1f%n", "pre-order walk", timeOrderedWalk(rootDir));
+        System.out.printf("%-26s %10.1f%n", "stream, sequential", timeStream(rootDir, false));
+        System.out.printf("%-26s %10.1f%n", "stream, parallel", timeStream(rootDir, true));
+        System.out.printf("%-26s %10.1f%n", "fork/join reduce", timeReduce(rootDir));
+    }
+
+    // EFFECTS: return the synthetic tree
+    private static Dir createTree(int filesPerDir) throws Exception {
+        Dir rootDir = new Dir();
+        List<Dir> topDirs = new ArrayList<>();
+        for (int t = 0; t < TOP_DIRS; t++) {
+            Dir topDir = new Dir("top" + t);
+            List<Dir> subDirs = new ArrayList<>();
+            for (int s = 0; s < SUB_DIRS; s++) {
+                Dir subDir = new Dir("sub" + s);
+                List<File> files = new ArrayList<>();
+                for (int f = 0; f < filesPerDir; f++) {
+                    files.add(new File("file" + f, f % 2 == 0 ? "even" : "odd"));
+                }
+                subDir.addFiles(files);
+                subDirs.add(subDir);
+            }
+            topDir.addSubDirs(subDirs);
+            topDirs.add(topDir);
+        }
+        rootDir.addSubDirs(topDirs);
+        EventLog.getInstance().clear();
+        return rootDir;
+    }
+
+    // EFFECTS: return the average time in milliseconds of an ordered pre-order walk
+    private static double timeOrderedWalk(Dir rootDir) {
+        long[] totals = new long[2];
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            DirWalker.walk(rootDir, DirWalker.Order.PRE_ORDER, new TreeVisitor() {
+                @Override
+                public void visitDir(Dir dir, int depth) {
+                    totals[0]++;
+                }
+
+                @Override
+                public void visitFile(File file, int depth) {
+                    totals[0]++;
+                    totals[1] += file.getSize();
+                }
+            });
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(totals[0] + totals[1]);
+        return elapsed / 1e6 / ROUNDS;
+    }
+
+    // EFFECTS: return the average time in milliseconds of a stream over every node
+    private static double timeStream(Dir rootDir, boolean parallel) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            if (parallel) {
+                sink += DirWalker.stream(rootDir).parallel().mapToLong(DirWalkBenchmark::sizeOf).sum();
+            } else {
+                sink += DirWalker.stream(rootDir).mapToLong(DirWalkBenchmark::sizeOf).sum();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed / 1e6 / ROUNDS;
+    }
+
+    // EFFECTS: return the average time in milliseconds of a fork/join reduction over every node
+    private static double timeReduce(Dir rootDir) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += DirWalker.reduce(rootDir, DirWalkBenchmark::sizeOf, Long::sum);
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed / 1e6 / ROUNDS;
+    }
+
+    // EFFECTS: return the size of a file, 0 for a directory
+    private static long sizeOf(DirNode node) {
+        return node instanceof File ? ((File) node).getSize() : 0;
+    }
+
+    // EFFECTS: keep the JIT from eliminating the measured loop
+    private static void consume(long sink) {
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
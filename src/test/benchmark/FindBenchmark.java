@@ -0,0 +1,104 @@
+package benchmark;
+
+import model.Dir;
+import model.DirWalker;
+import model.EventLog;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import model.search.FindQuery;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+// Compares find with subtree pruning against testing every node of the tree with the same
+//     query. The tree has many projects whose files were last modified long ago; a few
+//     recent, large JSON files and a path-restricted query let whole projects be skipped.
+//     Run with: java benchmark.FindBenchmark [numProjects] [filesPerDir]
+public class FindBenchmark {
+    private static final int DIRS_PER_PROJECT = 10;
+    private static final int ROUNDS = 20;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    public static void main(String[] args) throws Exception {
+        int numProjects = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int filesPerDir = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        Dir rootDir = createTree(numProjects, filesPerDir, new Random(42));
+        System.out.printf("tree: %d directories, %d files%n", rootDir.getTotalNumSubDirs(), rootDir.getTotalNumFiles());
+
+        String[][] queries = {
+            {"-name", "*.json", "-size", "+10k", "-newer", "2025-01-01"},
+            {"-path", "~/project7/src*/*.java"},
+            {"-name", "*.java"}};
+        for (String[] expression : queries) {
+            FindQuery query = FindQuery.parse(List.of(expression));
+            System.out.printf("%-55s matches: %7d, pruned: %9.3f ms, full scan: %9.3f ms%n",
+                    String.join(" ", expression), query.find(rootDir).count(),
+                    timeFind(query, rootDir), timeScan(query, rootDir));
+        }
+    }
+
+    // EFFECTS: return a tree of numProjects projects of DIRS_PER_PROJECT directories with filesPerDir files
+    //     each, all modified in 2020 except for one large JSON file in every 50th project
+    private static Dir createTree(int numProjects, int filesPerDir, Random random)
+            throws IllegalNameException, DuplicateException, NotFoundException {
+        Dir rootDir = new Dir();
+        Date old = Date.from(LocalDate.of(2020, 1, 1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        for (int p = 0; p < numProjects; p++) {
+            rootDir.addSubDir("project" + p);
+            Dir project = rootDir.getSubDir("project" + p);
+            for (int d = 0; d < DIRS_PER_PROJECT; d++) {
+                project.addSubDir((d % 2 == 0 ? "src" : "res") + d);
+                List<File> files = new ArrayList<>();
+                for (int f = 0; f < filesPerDir; f++) {
+                    String name = "file" + f + (f % 5 == 0 ? ".json" : ".java");
+                    String content = "x".repeat(random.nextInt(20_000));
+                    Date modified = new Date(old.getTime() + random.nextInt(365) * DAY);
+                    files.add(new File(name, content, old, modified));
+                }
+                project.getSubDir((d % 2 == 0 ? "src" : "res") + d).addFiles(files);
+            }
+            if (p % 50 == 0) {
+                project.addFile(new File("recent.json", "x".repeat(50_000)));
+            }
+        }
+        EventLog.getInstance().clear();
+        return rootDir;
+    }
+
+    // EFFECTS: return the average time in milliseconds of running the query with pruning
+    private static double timeFind(FindQuery query, Dir rootDir) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += query.find(rootDir).count();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed / 1e6 / ROUNDS;
+    }
+
+    // EFFECTS: return the average time in milliseconds of testing the query on every node of the tree
+    private static double timeScan(FindQuery query, Dir rootDir) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += DirWalker.preOrder(rootDir, (dir, depth) -> true).filter(query::matches).count();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed / 1e6 / ROUNDS;
+    }
+
+    // EFFECTS: keep the JIT from eliminating the measured loop
+    private static void consume(long sink) {
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package benchmark;
+
+import model.Dir;
+import model.EventLog;
+import model.File;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Measures filling one flat directory one file at a time (addFile) and emptying it again (removeFile), in
+//     random name order, at doubling sizes; the time per operation should stay nearly flat as the directory
+//     grows, where copying all child names on every change makes it double with each size.
+//     Run with: java benchmark.FlatDirBenchmark [maxChildren]
+public class FlatDirBenchmark {
+    private static final int MIN_CHILDREN = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int maxChildren = args.length > 0 ? Integer.parseInt(args[0]) : 1_280_000;
+        System.out.printf("%12s %14s %14s%n", "children", "add (us/op)", "remove (us/op)");
+        for (int children = MIN_CHILDREN; children <= maxChildren; children *= 2) {
+            List<String> names = new ArrayList<>(children);
+            for (int i = 0; i < children; i++) {
+                names.add("file" + i);
+            }
+            Collections.shuffle(names, new Random(42));
+            Dir dir = new Dir();
+            long start = System.nanoTime();
+            for (String name : names) {
+                dir.addFile(new File(name));
+            }
+            double add = (System.nanoTime() - start) / 1e3 / children;
+            Collections.shuffle(names, new Random(7));
+            start = System.nanoTime();
+            for (String name : names) {
+                dir.removeFile(name);
+            }
+            double remove = (System.nanoTime() - start) / 1e3 / children;
+            System.out.printf("%12d %14.2f %14.2f%n", children, add, remove);
+            EventLog.getInstance().clear();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package benchmark;
+
+import model.Dir;
+import model.EventLog;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import model.search.TrigramIndex;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Compares grepping the tree through the trigram index with matching every line of every
+//     file, for a selective literal, a regex with a literal part and a regex with none.
+//     Run with: java benchmark.GrepBenchmark [numFiles] [linesPerFile]
+public class GrepBenchmark {
+    private static final String[] WORDS = {"int", "count", "return", "value", "list", "map", "for", "if",
+        "else", "while", "String", "name", "index", "size", "get", "set", "add", "remove", "node", "dir"};
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        int numFiles = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int linesPerFile = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        Dir rootDir = createTree(numFiles, linesPerFile, new Random(42));
+        System.out.printf("content:                    %10.1f MB%n", rootDir.getTotalSize() / 1e6);
+
+        long start = System.nanoTime();
+        TrigramIndex index = new TrigramIndex(rootDir);
+        System.out.printf("build index:                %10.1f ms%n", (System.nanoTime() - start) / 1e6);
+
+        String[] regexes = {"needle_\\d+", "remove\\(node[0-9]+\\)", "c.u.t"};
+        for (String regex : regexes) {
+            Pattern pattern = Pattern.compile(regex);
+            System.out.printf("grep %-22s candidates: %6d, index: %9.3f ms, scan: %9.3f ms%n", regex,
+                    index.candidates(regex, rootDir).size(), timeIndex(index, pattern, rootDir),
+                    timeScan(rootDir, pattern));
+        }
+    }
+
+    // EFFECTS: return a tree of numFiles files in directories of 100 files, each with linesPerFile lines of
+    //     code-like text; every 1000th file also contains a rare identifier
+    private static Dir createTree(int numFiles, int linesPerFile, Random random)
+            throws IllegalNameException, DuplicateException, NotFoundException {
+        Dir rootDir = new Dir();
+        for (int f = 0; f < numFiles; f++) {
+            String dirName = "dir" + f / 100;
+            if (!rootDir.containsSubDir(dirName)) {
+                rootDir.addSubDir(dirName);
+            }
+            StringBuilder content = new StringBuilder();
+            for (int line = 0; line < linesPerFile; line++) {
+                content.append("    ");
+                for (int w = 0; w < 6; w++) {
+                    content.append(WORDS[random.nextInt(WORDS.length)]).append(w % 2 == 0 ? "(" : ") ");
+                }
+                content.append(random.nextInt(1000)).append(";\n");
+            }
+            if (f % 1000 == 0) {
+                content.append("int needle_").append(f).append(" = 1;\n");
+            }
+            rootDir.getSubDir(dirName).addFile(new File("file" + f + ".java", content.toString()));
+        }
+        EventLog.getInstance().clear();
+        return rootDir;
+    }
+
+    // EFFECTS: return the average time in milliseconds of grepping the tree through the index
+    private static double timeIndex(TrigramIndex index, Pattern pattern, Dir rootDir) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += index.grep(pattern, rootDir).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed / 1e6 / ROUNDS;
+    }
+
+    // EFFECTS: return the average time in milliseconds of matching every line of every file
+    private static double timeScan(Dir rootDir, Pattern pattern) {
+        int rounds = Math.max(1, ROUNDS / 5);
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += scan(rootDir, pattern);
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed / 1e6 / rounds;
+    }
+
+    // EFFECTS: return the number of matches of the pattern in the lines of every file under dir
+    private static int scan(Dir dir, Pattern pattern) {
+        int count = 0;
+        for (File file : dir.getFiles()) {
+            for (String line : file.getContent().split("\n")) {
+                Matcher matcher = pattern.matcher(line);
+                while (matcher.find()) {
+                    count++;
+                }
+            }
+        }
+        for (Dir subDir : dir.getSubDirs()) {
+            count += scan(subDir, pattern);
+        }
+        return count;
+    }
+
+    // EFFECTS: keep the JIT from eliminating the measured loop
+    private static void consume(long sink) {
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package benchmark;
+
+import model.LargeFile;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Measures large-file mode on a generated log: the time to map it and index its lines, the heap that retains, the
+//     latency of loading a window of lines at a random place (as the editor does when the user scrolls or jumps),
+//     and the time to save it with edits in a few windows by streaming the base and the overlay.
+//     Run with: java -Xmx256m benchmark.LargeFileBenchmark [sizeInMB]
+public class LargeFileBenchmark {
+    private static final int WINDOW_LINES = 2_000;
+    private static final int WINDOWS = 200;
+    private static final int EDITS = 10;
+
+    public static void main(String[] args) throws Exception {
+        long size = (args.length > 0 ? Long.parseLong(args[0]) : 1024) << 20;
+        Path dir = Files.createTempDirectory("largefile");
+        Path path = dir.resolve("app.log");
+        writeLog(path, size, new Random(42));
+        System.out.printf("log: %.1f MB%n", Files.size(path) / 1e6);
+
+        long before = usedHeap();
+        long start = System.nanoTime();
+        try (LargeFile file = LargeFile.open(path)) {
+            double opened = (System.nanoTime() - start) / 1e6;
+            long heap = usedHeap() - before;
+            System.out.printf("open and index:   %10.1f ms, %d lines, heap %.2f MB%n", opened, file.getLineCount(),
+                    heap / 1e6);
+            System.out.printf("load a window:    %10.3f ms%n", timeWindows(file, new Random(7)) / 1e6);
+            Random random = new Random(11);
+            for (int e = 0; e < EDITS; e++) {
+                long line = (long) (random.nextDouble() * (file.getLineCount() - WINDOW_LINES));
+                file.replaceLines(line, line + 1, "edited line " + e + "\n");
+            }
+            start = System.nanoTime();
+            file.writeTo(dir.resolve("saved.log"));
+            double saved = (System.nanoTime() - start) / 1e6;
+            System.out.printf("save with edits:  %10.1f ms, %.0f MB/s%n", saved, Files.size(path) / 1e3 / saved);
+        }
+        Files.delete(path);
+        Files.delete(dir.resolve("saved.log"));
+        Files.delete(dir);
+    }
+
+    // EFFECTS: write a log of about the given number of bytes of timestamped lines to the given path
+    private static void writeLog(Path path, long size, Random random) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            long written = 0;
+            for (long line = 0; written < size; line++) {
+                String text = String.format("2024-03-08T13:%02d:%02d.%03d INFO  request %d served in %d ms%n",
+                        line / 60_000 % 60, line / 1000 % 60, line % 1000, random.nextInt(1_000_000),
+                        random.nextInt(500));
+                out.write(text);
+                written += text.length();
+            }
+        }
+    }
+
+    // EFFECTS: return the average time in nanoseconds of loading a window of lines at a random place
+    private static double timeWindows(LargeFile file, Random random) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int w = 0; w < WINDOWS; w++) {
+            long line = (long) (random.nextDouble() * Math.max(0, file.getLineCount() - WINDOW_LINES));
+            sink += file.getLines(line, WINDOW_LINES).length();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+        return (double) elapsed / WINDOWS;
+    }
+
+    // EFFECTS: return the bytes of heap in use after a garbage collection
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,117 @@
+package benchmark;
+
+import model.Dir;
+import model.EventLog;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import persistence.JsonReader;
+import persistence.JsonWriter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Compares loading a saved workspace with every content in the JSON file against loading it with the contents in
+//     a separate content file, read only when first needed: startup time and retained heap, and the latency of
+//     the first read of a file that was loaded lazily.
+//     Run with: java benchmark.LazyLoadBenchmark [numFiles] [fileSizeInKB]
+public class LazyLoadBenchmark {
+    private static final int READS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        int numFiles = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int fileSize = (args.length > 1 ? Integer.parseInt(args[1]) : 8) * 1024;
+        Path dir = Files.createTempDirectory("lazyload");
+        String inline = dir.resolve("inline.json").toString();
+        String separate = dir.resolve("separate.json").toString();
+        Dir rootDir = createTree(numFiles, fileSize, new Random(42));
+        write(new JsonWriter(inline), rootDir);
+        write(new JsonWriter(separate, dir.resolve("separate.content").toString()), rootDir);
+        rootDir = null;
+        System.out.printf("files: %d, content: %.1f MB%n", numFiles, (double) numFiles * fileSize / 1e6);
+
+        for (int round = 0; round < 2; round++) {
+            // the first round warms up the JIT
+            load("content inline:   ", inline, round == 1);
+            load("content separate: ", separate, round == 1);
+        }
+        Dir lazyDir = new JsonReader(separate).read();
+        System.out.printf("first read of a lazy file: %10.3f us%n", timeFirstReads(lazyDir) / 1e3);
+        for (String name : new String[]{"inline.json", "separate.json", "separate.content"}) {
+            Files.delete(dir.resolve(name));
+        }
+        Files.delete(dir);
+    }
+
+    // EFFECTS: return a tree of numFiles random text files of about fileSize characters, in directories of 100
+    private static Dir createTree(int numFiles, int fileSize, Random random)
+            throws IllegalNameException, DuplicateException, NotFoundException {
+        Dir rootDir = new Dir();
+        for (int f = 0; f < numFiles; f++) {
+            if (f % 100 == 0) {
+                rootDir.addSubDir("dir" + f / 100);
+            }
+            StringBuilder text = new StringBuilder(fileSize + 16);
+            while (text.length() < fileSize) {
+                text.append(random.nextInt(100_000)).append(random.nextInt(10) == 0 ? '\n' : ' ');
+            }
+            rootDir.getSubDir("dir" + f / 100).addFile(new File("file" + f, text.toString()));
+        }
+        EventLog.getInstance().clear();
+        return rootDir;
+    }
+
+    // EFFECTS: save the given tree with the given writer
+    private static void write(JsonWriter writer, Dir rootDir) throws Exception {
+        writer.open();
+        writer.write(rootDir);
+        writer.close();
+    }
+
+    // EFFECTS: load the tree saved at the given path and print the time it took and the heap it retains
+    private static void load(String label, String path, boolean print) throws Exception {
+        long before = usedHeap();
+        long start = System.nanoTime();
+        Dir rootDir = new JsonReader(path).read();
+        double elapsed = (System.nanoTime() - start) / 1e6;
+        long after = usedHeap();
+        EventLog.getInstance().clear();
+        if (print) {
+            System.out.printf("%s load %10.1f ms, heap %8.1f MB (%d files)%n", label, elapsed,
+                    (after - before) / 1e6, rootDir.getTotalNumFiles());
+        }
+    }
+
+    // MODIFIES: rootDir
+    // EFFECTS: return the average time in nanoseconds of the first read of the content of a file
+    private static double timeFirstReads(Dir rootDir) {
+        List<File> files = new ArrayList<>();
+        for (Dir dir : rootDir.getSubDirs()) {
+            files.addAll(dir.getFiles());
+        }
+        int reads = Math.min(READS, files.size());
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < reads; i++) {
+            sink += files.get(i).getContent().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+        return (double) elapsed / reads;
+    }
+
+    // EFFECTS: return the bytes of heap in use after a garbage collection
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
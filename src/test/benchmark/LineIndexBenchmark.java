@@ -0,0 +1,117 @@
+package benchmark;
+
+import model.EventLog;
+import model.File;
+
+import java.util.Date;
+import java.util.Random;
+
+// Compares finding the start of a random line through the line index of a file with scanning its
+//     content from the start, and shows that the index stays cheap across edits: after an edit only
+//     the new nodes of the rope count their line breaks.
+//     Run with: java benchmark.LineIndexBenchmark [sizeInMB]
+public class LineIndexBenchmark {
+    private static final int LOOKUPS = 100_000;
+    private static final int SCANS = 50;
+
+    public static void main(String[] args) throws Exception {
+        int size = (args.length > 0 ? Integer.parseInt(args[0]) : 50) * 1_000_000;
+        Random random = new Random(42);
+        File file = new File("doc.txt", createDocument(size, random));
+        String content = file.getContent();
+
+        long start = System.nanoTime();
+        int lineCount = file.getLineCount();
+        System.out.printf("lines: %d, first line count (finds line breaks): %9.1f ms%n", lineCount,
+                (System.nanoTime() - start) / 1e6);
+        System.out.printf("line start, index:          %10.3f us%n", timeIndex(file, random) / 1e3);
+        System.out.printf("line start, scan:           %10.3f us%n", timeScan(content, lineCount, random) / 1e3);
+        System.out.printf("edit, then line lookup:     %10.3f us%n", timeEdits(file, random) / 1e3);
+
+        System.out.printf("tail -n 10:                 %10.3f us%n", timeTail(file) / 1e3);
+    }
+
+    // EFFECTS: return the average time in nanoseconds of building the string of the last 10 lines
+    private static double timeTail(File file) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            int lineCount = file.getLineCount();
+            sink += file.getLines(lineCount - 10, lineCount).toString().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / LOOKUPS;
+    }
+
+    // EFFECTS: return a document of the given number of characters in lines of 1 to 120 characters
+    private static String createDocument(int size, Random random) {
+        char[] chars = new char[size];
+        int nextBreak = random.nextInt(120);
+        for (int i = 0; i < size; i++) {
+            if (i == nextBreak) {
+                chars[i] = '\n';
+                nextBreak = i + 1 + random.nextInt(120);
+            } else {
+                chars[i] = (char) ('a' + random.nextInt(26));
+            }
+        }
+        return new String(chars);
+    }
+
+    // EFFECTS: return the average time in nanoseconds of finding the start of a random line through the index
+    private static double timeIndex(File file, Random random) {
+        int lineCount = file.getLineCount();
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            sink += file.getLineStart(random.nextInt(lineCount));
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / LOOKUPS;
+    }
+
+    // EFFECTS: return the average time in nanoseconds of finding the start of a random line by scanning
+    //     the content for line breaks from the start
+    private static double timeScan(String content, int lineCount, Random random) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < SCANS; i++) {
+            int line = random.nextInt(lineCount);
+            int offset = 0;
+            for (int l = 0; l < line; l++) {
+                offset = content.indexOf('\n', offset) + 1;
+            }
+            sink += offset;
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / SCANS;
+    }
+
+    // MODIFIES: file
+    // EFFECTS: return the average time in nanoseconds of inserting a line at a random offset and then
+    //     counting the lines and finding the start of a random line
+    private static double timeEdits(File file, Random random) {
+        Date now = new Date();
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            file.insert(random.nextInt(file.getLength()), "new line\n", now);
+            int lineCount = file.getLineCount();
+            sink += file.getLineStart(random.nextInt(lineCount));
+            EventLog.getInstance().clear();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / LOOKUPS;
+    }
+
+    // EFFECTS: keep the JIT from eliminating the measured loop
+    private static void consume(long sink) {
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package benchmark;
+
+import model.Dir;
+import model.EventLog;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+
+// Compares hit and miss latency of the throwing lookup (Dir.getFile) and the null-returning
+//     lookup (Dir.findFile), and shows what a miss cost when the exception still recorded a
+//     stack trace. Run with: java benchmark.LookupMissBenchmark
+public class LookupMissBenchmark {
+    private static final int NUM_FILES = 10_000;
+    private static final int LOOKUPS = 2_000_000;
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        Dir dir = createDir();
+        String[] hits = new String[LOOKUPS];
+        String[] misses = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            hits[i] = "file" + (i % NUM_FILES);
+            misses[i] = "missing" + (i % NUM_FILES);
+        }
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            timeGetFile(dir, hits);
+            timeGetFile(dir, misses);
+            timeFindFile(dir, hits);
+            timeFindFile(dir, misses);
+            timeTracedMiss(dir, misses);
+        }
+        System.out.printf("%-34s %10s %10s%n", "", "hit ns/op", "miss ns/op");
+        System.out.printf("%-34s %10.1f %10.1f%n", "getFile (stack-trace-free throw)",
+                timeGetFile(dir, hits), timeGetFile(dir, misses));
+        System.out.printf("%-34s %10.1f %10.1f%n", "findFile (null on miss)",
+                timeFindFile(dir, hits), timeFindFile(dir, misses));
+        System.out.printf("%-34s %10s %10.1f%n", "throw with stack trace", "-", timeTracedMiss(dir, misses));
+    }
+
+    // EFFECTS: return a directory with NUM_FILES empty files
+    private static Dir createDir() throws IllegalNameException, DuplicateException {
+        Dir dir = new Dir();
+        for (int i = 0; i < NUM_FILES; i++) {
+            dir.addFile(new File("file" + i));
+        }
+        EventLog.getInstance().clear();
+        return dir;
+    }
+
+    // EFFECTS: return the average latency of getFile in nanoseconds, counting misses
+    private static double timeGetFile(Dir dir, String[] names) throws IllegalNameException {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (String name : names) {
+            try {
+                sink += dir.getFile(name).getSize() + 1;
+            } catch (NotFoundException e) {
+                sink += e.getMessage().length();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / names.length;
+    }
+
+    // EFFECTS: return the average latency of findFile in nanoseconds, counting misses
+    private static double timeFindFile(Dir dir, String[] names) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (String name : names) {
+            File file = dir.findFile(name);
+            sink += file == null ? 2 : file.getSize() + 1;
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / names.length;
+    }
+
+    // EFFECTS: return the average latency in nanoseconds of a miss reported the way it was before
+    //     lookups had a null-returning form, by an exception that records its stack trace
+    private static double timeTracedMiss(Dir dir, String[] names) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (String name : names) {
+            try {
+                File file = dir.findFile(name);
+                if (file == null) {
+                    throw new Exception("Dir.getFile: File can't be found.");
+                }
+                sink += file.getSize() + 1;
+            } catch (Exception e) {
+                sink += e.getMessage().length();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / names.length;
+    }
+
+    // EFFECTS: keep the JIT from eliminating the measured loop
+    private static void consume(long sink) {
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package benchmark;
+
+import model.Dir;
+import model.EventLog;
+import model.File;
+import model.PathIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Measures the latency of moving a directory between two parents for subtrees of 10 to 1,000,000 files: in the
+//     tree alone, where it should not grow with the subtree, and with a PathIndex attached, which re-keys every
+//     entry below the moved directory and so grows linearly with it.
+//     Run with: java benchmark.MoveBenchmark
+public class MoveBenchmark {
+    private static final int[] SUBTREE_SIZES = {10, 1_000, 100_000, 1_000_000};
+    private static final int FILES_PER_DIR = 1_000;
+    private static final int MOVES = 20_000;
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%12s %16s %16s%n", "files", "move (ns/op)", "indexed (ns/op)");
+        for (int size : SUBTREE_SIZES) {
+            Dir rootDir = new Dir();
+            rootDir.addSubDir("a");
+            rootDir.addSubDir("b");
+            rootDir.getSubDir("a").addSubDir(createSubtree(size));
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                timeMoves(rootDir, MOVES);
+            }
+            double move = timeMoves(rootDir, MOVES);
+            PathIndex pathIndex = new PathIndex(rootDir);
+            int indexedMoves = Math.max(2, MOVES / size);
+            timeMoves(rootDir, indexedMoves);
+            System.out.printf("%12d %16.1f %16.1f%n", size, move, timeMoves(rootDir, indexedMoves));
+            rootDir.removeObserver(pathIndex);
+            EventLog.getInstance().clear();
+        }
+    }
+
+    // EFFECTS: return a directory named "moved" holding the given number of files in subdirectories
+    private static Dir createSubtree(int numFiles) throws Exception {
+        Dir moved = new Dir("moved");
+        List<Dir> dirs = new ArrayList<>();
+        for (int d = 0; d * FILES_PER_DIR < numFiles; d++) {
+            Dir dir = new Dir("dir" + d);
+            List<File> files = new ArrayList<>();
+            for (int f = 0; f < Math.min(FILES_PER_DIR, numFiles - d * FILES_PER_DIR); f++) {
+                files.add(new File("file" + f));
+            }
+            dir.addFiles(files);
+            dirs.add(dir);
+        }
+        moved.addSubDirs(dirs);
+        return moved;
+    }
+
+    // EFFECTS: return the average latency of the given even number of moves of ~/a/moved to ~/b/moved and back,
+    //     in nanoseconds
+    private static double timeMoves(Dir rootDir, int moves) throws Exception {
+        Dir a = rootDir.getSubDir("a");
+        Dir b = rootDir.getSubDir("b");
+        long start = System.nanoTime();
+        for (int i = 0; i < moves; i += 2) {
+            a.moveSubDir("moved", b, "moved");
+            b.moveSubDir("moved", a, "moved");
+        }
+        long elapsed = System.nanoTime() - start;
+        EventLog.getInstance().clear();
+        return (double) elapsed / moves;
+    }
+}
@@ -0,0 +1,125 @@
+package benchmark;
+
+import model.Dir;
+import model.EventLog;
+import model.File;
+import model.OffHeapStore;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compares file contents kept on the heap as strings against contents kept off the heap by an OffHeapStore, under
+//     a mixed workload of reads of whole files and of line ranges and updates of whole files, run by several
+//     threads for a fixed time: throughput, and the time and number of garbage collections during the run.
+//     The heap holds every content in the first case, so each collection of the old generation traces it;
+//     in the second the heap only holds the handles and the short-lived strings decoded by reads.
+//     Run with: java -Xmx2g benchmark.OffHeapBenchmark [numFiles] [fileSizeInKB] [seconds] [threads]
+public class OffHeapBenchmark {
+    private static final int UPDATE_PERCENT = 10;
+    private static final int SLAB_SIZE = 1 << 22;
+
+    public static void main(String[] args) throws Exception {
+        int numFiles = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int fileSize = (args.length > 1 ? Integer.parseInt(args[1]) : 16) * 1024;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        System.out.printf("files: %d, content: %.1f MB, %d%% updates, %d threads, %d s%n", numFiles,
+                (double) numFiles * fileSize / 1e6, UPDATE_PERCENT, threads, seconds);
+        for (boolean offHeap : new boolean[]{false, true}) {
+            Dir rootDir = createTree(numFiles, fileSize, new Random(42));
+            if (offHeap) {
+                new OffHeapStore(rootDir, SLAB_SIZE);
+            }
+            List<File> files = new ArrayList<>();
+            for (Dir dir : rootDir.getSubDirs()) {
+                files.addAll(dir.getFiles());
+            }
+            // a short run first warms up the JIT
+            run(files, fileSize, threads, 1_000);
+            System.gc();
+            long[] gcBefore = gcTotals();
+            long ops = run(files, fileSize, threads, seconds * 1_000L);
+            long[] gcAfter = gcTotals();
+            System.out.printf("%s %12.0f ops/s, %5d collections, %8d ms in GC%n",
+                    offHeap ? "off heap:" : "on heap: ", (double) ops / seconds, gcAfter[0] - gcBefore[0],
+                    gcAfter[1] - gcBefore[1]);
+        }
+    }
+
+    // EFFECTS: return a tree of numFiles random text files of about fileSize characters, in directories of 100
+    private static Dir createTree(int numFiles, int fileSize, Random random)
+            throws IllegalNameException, DuplicateException, NotFoundException {
+        Dir rootDir = new Dir();
+        for (int f = 0; f < numFiles; f++) {
+            if (f % 100 == 0) {
+                rootDir.addSubDir("dir" + f / 100);
+            }
+            rootDir.getSubDir("dir" + f / 100).addFile(new File("file" + f, randomText(fileSize, random)));
+        }
+        EventLog.getInstance().clear();
+        return rootDir;
+    }
+
+    // EFFECTS: return random text of about the given number of characters, in lines of about ten words
+    private static String randomText(int size, Random random) {
+        StringBuilder text = new StringBuilder(size + 16);
+        while (text.length() < size) {
+            text.append(random.nextInt(100_000)).append(random.nextInt(10) == 0 ? '\n' : ' ');
+        }
+        return text.toString();
+    }
+
+    // MODIFIES: files
+    // EFFECTS: run the workload on the given number of threads for the given time and return the operations done;
+    //     each operation reads a whole file, reads ten lines of a file, or replaces a file with new text
+    private static long run(List<File> files, int fileSize, int threads, long millis) throws InterruptedException {
+        AtomicLong ops = new AtomicLong();
+        long deadline = System.currentTimeMillis() + millis;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            Thread worker = new Thread(() -> {
+                long done = 0;
+                long sink = 0;
+                while (System.currentTimeMillis() < deadline) {
+                    File file = files.get(random.nextInt(files.size()));
+                    int choice = random.nextInt(100);
+                    if (choice < UPDATE_PERCENT) {
+                        file.update(randomText(fileSize, random), new Date());
+                    } else if (choice < 55) {
+                        sink += file.getContent().length();
+                    } else {
+                        sink += file.getLines(0, Math.min(10, file.getLineCount())).length();
+                    }
+                    done++;
+                }
+                ops.addAndGet(done + (sink == Long.MIN_VALUE ? 1 : 0));
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        EventLog.getInstance().clear();
+        return ops.get();
+    }
+
+    // EFFECTS: return the number of garbage collections so far and the milliseconds they took, over all collectors
+    private static long[] gcTotals() {
+        long[] totals = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(0, collector.getCollectionCount());
+            totals[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,85 @@
+package benchmark;
+
+import model.Dir;
+import model.PathIndex;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+
+// Compares resolving a directory path through PathIndex with walking the tree one
+//     segment at a time, for paths of depth 2, 20 and 200.
+//     Run with: java benchmark.PathIndexBenchmark
+public class PathIndexBenchmark {
+    private static final int[] DEPTHS = {2, 20, 200};
+    private static final int LOOKUPS = 1_000_000;
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%8s %18s %18s%n", "depth", "index (ns/op)", "walk (ns/op)");
+        for (int depth : DEPTHS) {
+            Dir rootDir = new Dir();
+            String path = createChain(rootDir, depth);
+            PathIndex pathIndex = new PathIndex(rootDir);
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                timeIndex(pathIndex, path);
+                timeWalk(rootDir, path);
+            }
+            System.out.printf("%8d %18.1f %18.1f%n", depth, timeIndex(pathIndex, path), timeWalk(rootDir, path));
+        }
+    }
+
+    // MODIFIES: rootDir
+    // EFFECTS:  add a chain of nested directories of the given depth, each with a few siblings,
+    //     and return the absolute path of the deepest one
+    private static String createChain(Dir rootDir, int depth)
+            throws IllegalNameException, DuplicateException, NotFoundException {
+        Dir dir = rootDir;
+        StringBuilder path = new StringBuilder("~");
+        for (int i = 0; i < depth; i++) {
+            for (int j = 0; j < 8; j++) {
+                dir.addSubDir("sibling" + j);
+            }
+            dir.addSubDir("level" + i);
+            dir = dir.getSubDir("level" + i);
+            path.append("/level").append(i);
+        }
+        return path.toString();
+    }
+
+    // EFFECTS: return the average latency of resolving path through the index
+    private static double timeIndex(PathIndex pathIndex, String path) {
+        long sink = 0;
+        String probe = new String(path);
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            sink += pathIndex.getDir(probe).getNumSubDirs();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / LOOKUPS;
+    }
+
+    // EFFECTS: return the average latency of resolving path by splitting it and walking the tree
+    private static double timeWalk(Dir rootDir, String path) throws IllegalNameException, NotFoundException {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            String[] dirStrs = path.split("/");
+            Dir dir = rootDir;
+            for (int j = 1; j < dirStrs.length; j++) {
+                dir = dir.getSubDir(dirStrs[j]);
+            }
+            sink += dir.getNumSubDirs();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / LOOKUPS;
+    }
+
+    // EFFECTS: keep the JIT from eliminating the measured loop
+    private static void consume(long sink) {
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
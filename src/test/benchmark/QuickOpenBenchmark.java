@@ -0,0 +1,97 @@
+package benchmark;
+
+import model.Dir;
+import model.EventLog;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import model.search.NameIndex;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Measures fuzzy "go to file" queries against the name index: the time per keystroke while a query is
+//     typed one character at a time (each keystroke narrows the previous results), and the time of a
+//     query typed from scratch.
+//     Run with: java benchmark.QuickOpenBenchmark [numDirs] [filesPerDir]
+public class QuickOpenBenchmark {
+    private static final String[] PARTS = {"File", "Dir", "System", "Manager", "Index", "Path", "Node",
+        "Tree", "Search", "Editor", "Json", "Reader", "Writer", "Event", "Log", "Cursor", "Snapshot", "Walker"};
+    private static final List<String> QUERIES = List.of("fsmgr", "dirsnap", "pathidx", "jsonw", "etw");
+    private static final int ROUNDS = 50;
+
+    public static void main(String[] args) throws Exception {
+        int numDirs = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int filesPerDir = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Dir rootDir = createTree(numDirs, filesPerDir);
+
+        long start = System.nanoTime();
+        NameIndex index = new NameIndex(rootDir);
+        System.out.printf("build index:                %10.1f ms (%d paths)%n",
+                (System.nanoTime() - start) / 1e6, index.size());
+        for (int i = 0; i < ROUNDS / 5; i++) {
+            timeTyping(index);
+        }
+        System.out.printf("per keystroke while typing: %10.3f ms%n", timeTyping(index));
+        System.out.printf("whole query from scratch:   %10.3f ms%n", timeFromScratch(index));
+        System.out.println("best matches for 'fsmgr': " + index.search("fsmgr", 3, File.class).stream()
+                .map(File::getAbsPath).collect(Collectors.toList()));
+    }
+
+    // EFFECTS: return a tree of numDirs directories, two levels deep, with filesPerDir files each
+    private static Dir createTree(int numDirs, int filesPerDir)
+            throws IllegalNameException, DuplicateException, NotFoundException {
+        Dir rootDir = new Dir();
+        for (int d = 0; d < numDirs; d++) {
+            String outer = PARTS[d % PARTS.length].toLowerCase();
+            if (!rootDir.containsSubDir(outer)) {
+                rootDir.addSubDir(outer);
+            }
+            Dir dir = new Dir(PARTS[(d / PARTS.length) % PARTS.length].toLowerCase() + d);
+            for (int f = 0; f < filesPerDir; f++) {
+                dir.addFile(new File(PARTS[f % PARTS.length] + PARTS[(f * 7 + d) % PARTS.length] + f + ".java"));
+            }
+            rootDir.getSubDir(outer).addSubDir(dir);
+        }
+        EventLog.getInstance().clear();
+        return rootDir;
+    }
+
+    // EFFECTS: return the average time in milliseconds of a keystroke, typing each query one character at a time
+    private static double timeTyping(NameIndex index) {
+        long sink = 0;
+        int keystrokes = 0;
+        long start = System.nanoTime();
+        for (String query : QUERIES) {
+            for (int end = 1; end <= query.length(); end++) {
+                sink += index.search(query.substring(0, end), 30, File.class).size();
+                keystrokes++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed / 1e6 / keystrokes;
+    }
+
+    // EFFECTS: return the average time in milliseconds of a whole query with nothing to narrow from
+    private static double timeFromScratch(NameIndex index) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            for (String query : QUERIES) {
+                sink += index.search("~" + query, 30, File.class).size();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed / 1e6 / ROUNDS / QUERIES.size();
+    }
+
+    // EFFECTS: keep the JIT from eliminating the measured loop
+    private static void consume(long sink) {
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
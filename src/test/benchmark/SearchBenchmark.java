@@ -0,0 +1,147 @@
+package benchmark;
+
+import model.Dir;
+import model.EventLog;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import model.search.InvertedIndex;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Compares answering word and phrase queries from the inverted index with scanning the content of
+//     every file, and measures building the index and keeping it up to date after an edit.
+//     Run with: java benchmark.SearchBenchmark [numFiles] [wordsPerFile]
+public class SearchBenchmark {
+    private static final int VOCABULARY = 50_000;
+    private static final int ROUNDS = 100;
+
+    public static void main(String[] args) throws Exception {
+        int numFiles = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int wordsPerFile = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        Random random = new Random(42);
+        Dir rootDir = createTree(numFiles, wordsPerFile, random);
+        System.out.printf("content:                    %10.1f MB%n", rootDir.getTotalSize() / 1e6);
+
+        long start = System.nanoTime();
+        InvertedIndex index = new InvertedIndex(rootDir);
+        System.out.printf("build index:                %10.1f ms (%d tokens)%n",
+                (System.nanoTime() - start) / 1e6, index.getNumTokens());
+
+        String[] queries = {word(7), word(7) + " " + word(99), "\"" + word(3) + " " + word(4) + "\""};
+        for (String query : queries) {
+            System.out.printf("query %-20s index: %8.3f ms, scan: %8.3f ms%n", query,
+                    timeIndex(index, query), timeScan(rootDir, query));
+        }
+        System.out.printf("update one file:            %10.3f ms%n", timeUpdates(rootDir, numFiles, wordsPerFile,
+                random));
+    }
+
+    // EFFECTS: return a tree of numFiles files in directories of 100 files, each file holding wordsPerFile
+    //     words drawn from a skewed vocabulary, so a few words are common and most are rare
+    private static Dir createTree(int numFiles, int wordsPerFile, Random random)
+            throws IllegalNameException, DuplicateException, NotFoundException {
+        Dir rootDir = new Dir();
+        for (int f = 0; f < numFiles; f++) {
+            String dirName = "dir" + f / 100;
+            if (!rootDir.containsSubDir(dirName)) {
+                rootDir.addSubDir(dirName);
+            }
+            rootDir.getSubDir(dirName).addFile(new File("file" + f, text(wordsPerFile, random)));
+        }
+        EventLog.getInstance().clear();
+        return rootDir;
+    }
+
+    // EFFECTS: return the given number of random words separated by spaces
+    private static String text(int numWords, Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < numWords; w++) {
+            double skew = random.nextDouble();
+            text.append(word((int) (skew * skew * skew * VOCABULARY))).append(' ');
+        }
+        return text.toString();
+    }
+
+    // EFFECTS: return the word with the given rank in the vocabulary, spelled in lowercase letters
+    private static String word(int rank) {
+        StringBuilder word = new StringBuilder();
+        int remaining = rank;
+        do {
+            word.append((char) ('a' + remaining % 26));
+            remaining /= 26;
+        } while (remaining > 0);
+        return word.append("s").toString();
+    }
+
+    // EFFECTS: return the average time in milliseconds of answering the query from the index
+    private static double timeIndex(InvertedIndex index, String query) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += index.search(query).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed / 1e6 / ROUNDS;
+    }
+
+    // EFFECTS: return the average time in milliseconds of answering the query by scanning every file
+    //     for each of its words (or its phrase, when quoted)
+    private static double timeScan(Dir rootDir, String query) {
+        String[] needles = query.startsWith("\"") ? new String[]{query.replace("\"", "")} : query.split(" ");
+        int rounds = Math.max(1, ROUNDS / 20);
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += scan(rootDir, needles);
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed / 1e6 / rounds;
+    }
+
+    // EFFECTS: return the number of files under dir containing every needle, ignoring case
+    private static int scan(Dir dir, String[] needles) {
+        int count = 0;
+        for (File file : dir.getFiles()) {
+            String content = file.getContent().toLowerCase(Locale.ROOT);
+            boolean matches = true;
+            for (int n = 0; n < needles.length && matches; n++) {
+                matches = content.contains(needles[n]);
+            }
+            count += matches ? 1 : 0;
+        }
+        for (Dir subDir : dir.getSubDirs()) {
+            count += scan(subDir, needles);
+        }
+        return count;
+    }
+
+    // EFFECTS: return the average time in milliseconds of rewriting a random file, index update included
+    private static double timeUpdates(Dir rootDir, int numFiles, int wordsPerFile, Random random)
+            throws IllegalNameException, NotFoundException {
+        long elapsed = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            int f = random.nextInt(numFiles);
+            File file = rootDir.getSubDir("dir" + f / 100).getFile("file" + f);
+            String content = text(wordsPerFile, random);
+            long start = System.nanoTime();
+            file.update(content, new Date());
+            elapsed += System.nanoTime() - start;
+        }
+        EventLog.getInstance().clear();
+        return elapsed / 1e6 / ROUNDS;
+    }
+
+    // EFFECTS: keep the JIT from eliminating the measured loop
+    private static void consume(long sink) {
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package benchmark;
+
+import model.Dir;
+import model.DirSnapshot;
+import model.EventLog;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+// Compares taking a persistent snapshot of the tree with deep-copying it, in time and
+//     retained memory. A snapshot after a single file edit rebuilds only the path from the
+//     edited file to the root; a deep copy always copies every node.
+//     Run with: java benchmark.SnapshotBenchmark [numDirs] [filesPerDir]
+public class SnapshotBenchmark {
+    private static final int ROUNDS = 200;
+    private static final int WARMUP_ROUNDS = 50;
+
+    public static void main(String[] args) throws Exception {
+        int numDirs = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int filesPerDir = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Dir rootDir = createTree(numDirs, filesPerDir);
+        Random random = new Random(42);
+
+        long start = System.nanoTime();
+        DirSnapshot first = rootDir.snapshot();
+        System.out.printf("first snapshot:             %10.3f ms%n", (System.nanoTime() - start) / 1e6);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            editRandomFile(rootDir, random, numDirs, filesPerDir);
+            consume(rootDir.snapshot().getTotalSize() + deepCopy(rootDir).getTotalSize());
+        }
+        System.out.printf("snapshot after one edit:    %10.3f ms%n",
+                timeSnapshots(rootDir, random, numDirs, filesPerDir));
+        System.out.printf("deep copy:                  %10.3f ms%n", timeDeepCopy(rootDir));
+
+        System.out.printf("retained per snapshot:      %10.1f KB%n", retainedPerSnapshot(rootDir, random, numDirs,
+                filesPerDir) / 1024.0);
+        System.out.printf("retained per deep copy:     %10.1f KB%n", retainedPerDeepCopy(rootDir) / 1024.0);
+        consume(first.getTotalNumFiles());
+    }
+
+    // EFFECTS: return a tree of numDirs directories with filesPerDir files each
+    private static Dir createTree(int numDirs, int filesPerDir)
+            throws IllegalNameException, DuplicateException, NotFoundException {
+        Dir rootDir = new Dir();
+        for (int d = 0; d < numDirs; d++) {
+            rootDir.addSubDir("dir" + d);
+            Dir dir = rootDir.getSubDir("dir" + d);
+            for (int f = 0; f < filesPerDir; f++) {
+                dir.addFile(new File("file" + f, "content of file " + f + " in directory " + d));
+            }
+        }
+        EventLog.getInstance().clear();
+        return rootDir;
+    }
+
+    // MODIFIES: rootDir
+    // EFFECTS: rewrite the content of a random file in the tree
+    private static void editRandomFile(Dir rootDir, Random random, int numDirs, int filesPerDir)
+            throws IllegalNameException, NotFoundException {
+        Dir dir = rootDir.getSubDir("dir" + random.nextInt(numDirs));
+        dir.getFile("file" + random.nextInt(filesPerDir)).update("edited " + random.nextInt(), new Date());
+    }
+
+    // EFFECTS: return the average time in milliseconds of a snapshot taken after one edit
+    private static double timeSnapshots(Dir rootDir, Random random, int numDirs, int filesPerDir)
+            throws IllegalNameException, NotFoundException {
+        long elapsed = 0;
+        long sink = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            editRandomFile(rootDir, random, numDirs, filesPerDir);
+            long start = System.nanoTime();
+            sink += rootDir.snapshot().getTotalSize();
+            elapsed += System.nanoTime() - start;
+        }
+        EventLog.getInstance().clear();
+        consume(sink);
+        return elapsed / 1e6 / ROUNDS;
+    }
+
+    // EFFECTS: return the average time in milliseconds of a deep copy of the tree
+    private static double timeDeepCopy(Dir rootDir) throws IllegalNameException, DuplicateException {
+        int rounds = ROUNDS / 10;
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += deepCopy(rootDir).getTotalSize();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return elapsed / 1e6 / rounds;
+    }
+
+    // EFFECTS: return the heap in bytes retained by each of ROUNDS snapshots, each taken after one edit
+    private static double retainedPerSnapshot(Dir rootDir, Random random, int numDirs, int filesPerDir)
+            throws IllegalNameException, NotFoundException {
+        List<DirSnapshot> kept = new ArrayList<>();
+        kept.add(rootDir.snapshot());
+        long before = usedHeap();
+        for (int i = 0; i < ROUNDS; i++) {
+            editRandomFile(rootDir, random, numDirs, filesPerDir);
+            kept.add(rootDir.snapshot());
+        }
+        EventLog.getInstance().clear();
+        long after = usedHeap();
+        consume(kept.size());
+        return (double) (after - before) / ROUNDS;
+    }
+
+    // EFFECTS: return the heap in bytes retained by each of a few deep copies
+    private static double retainedPerDeepCopy(Dir rootDir) throws IllegalNameException, DuplicateException {
+        int rounds = ROUNDS / 20;
+        List<Dir> kept = new ArrayList<>();
+        long before = usedHeap();
+        for (int i = 0; i < rounds; i++) {
+            kept.add(deepCopy(rootDir));
+        }
+        long after = usedHeap();
+        consume(kept.size());
+        return (double) (after - before) / rounds;
+    }
+
+    // EFFECTS: return a copy of the given directory that shares nothing with it but strings
+    private static Dir deepCopy(Dir dir) throws IllegalNameException, DuplicateException {
+        Dir copy = dir.isRootDir() ? new Dir() : new Dir(dir.getName());
+        for (File file : dir.getFiles()) {
+            copy.addFile(new File(file.getName(), file.getContent(), file.getDateCreated(), file.getDateModified()));
+        }
+        for (Dir subDir : dir.getSubDirs()) {
+            copy.addSubDir(deepCopy(subDir));
+        }
+        EventLog.getInstance().clear();
+        return copy;
+    }
+
+    // EFFECTS: return the bytes of heap in use after a garbage collection
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // EFFECTS: keep the JIT from eliminating the measured loop
+    private static void consume(long sink) {
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
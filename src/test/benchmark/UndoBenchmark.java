@@ -0,0 +1,50 @@
+package benchmark;
+
+import model.Dir;
+import model.EditHistory;
+import model.File;
+
+import java.util.Date;
+import java.util.Random;
+
+// Measures the undo history on a large file edited in many places: the memory the history of delta steps takes
+//     against keeping a full copy of the content before each change (counted, as keeping them runs out of heap),
+//     and the time to undo every change.
+//     Run with: java benchmark.UndoBenchmark [sizeInKB] [edits]
+public class UndoBenchmark {
+    public static void main(String[] args) throws Exception {
+        int size = (args.length > 0 ? Integer.parseInt(args[0]) : 1024) << 10;
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        String text = "the quick brown fox jumps over the lazy dog\n".repeat(size / 44);
+        Dir rootDir = new Dir();
+        File file = new File("big.txt", text);
+        rootDir.addFile(file);
+        EditHistory history = new EditHistory(rootDir, Long.MAX_VALUE);
+        long copyBytes = 0;
+
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (int e = 0; e < edits; e++) {
+            copyBytes += 2L * file.getLength();
+            int offset = random.nextInt(file.getLength() - 10);
+            if (random.nextBoolean()) {
+                file.insert(offset, "edit " + e, new Date());
+            } else {
+                file.delete(offset, 1 + random.nextInt(10), new Date());
+            }
+        }
+        double editing = (System.nanoTime() - start) / 1e6;
+        System.out.printf("file: %.1f MB, %d edits in %.1f ms%n", text.length() / 1e6, edits, editing);
+        System.out.printf("delta history:    %12.1f KB%n", history.getUsedBytes() / 1e3);
+        System.out.printf("full copies:      %12.1f KB%n", copyBytes / 1e3);
+
+        start = System.nanoTime();
+        int undone = 0;
+        while (history.undo(file) >= 0) {
+            undone++;
+        }
+        double undoing = (System.nanoTime() - start) / 1e3;
+        System.out.printf("undo:             %12.2f us per change, %d changes, content restored: %b%n",
+                undoing / undone, undone, file.getContent().equals(text));
+    }
+}
@@ -0,0 +1,84 @@
+package benchmark;
+
+import model.EventLog;
+import model.File;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Random;
+
+// Compares keeping the UTF-8 size of a file up to date across edits, where only the new nodes of
+//     the rope count their bytes, with re-encoding the whole content after every edit.
+//     Run with: java benchmark.Utf8SizeBenchmark [sizeInMB]
+public class Utf8SizeBenchmark {
+    private static final int EDITS = 100_000;
+    private static final int ENCODES = 20;
+    private static final String[] INSERTS = {"plain text ", "caf\u00e9 ", "\u4e2d\u6587 ", "\ud83d\ude00 "};
+
+    public static void main(String[] args) throws Exception {
+        int size = (args.length > 0 ? Integer.parseInt(args[0]) : 50) * 1_000_000;
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        File file = new File("doc.txt", createDocument(size, random));
+        System.out.printf("bytes: %d, characters: %d, create and count:  %9.1f ms%n", file.getSize(),
+                file.getCharCount(), (System.nanoTime() - start) / 1e6);
+        System.out.printf("edit, then size (incremental): %10.3f us%n", timeEdits(file, random) / 1e3);
+        System.out.printf("edit, then size (re-encode):   %10.3f us%n", timeEncodes(file, random) / 1e3);
+    }
+
+    // EFFECTS: return a document of the given number of characters, mostly ASCII with some
+    //     2-, 3- and 4-byte characters
+    private static String createDocument(int size, Random random) {
+        StringBuilder text = new StringBuilder(size + 2);
+        while (text.length() < size) {
+            int kind = random.nextInt(100);
+            if (kind < 90) {
+                text.append((char) ('a' + random.nextInt(26)));
+            } else {
+                text.append(INSERTS[1 + (kind % 3)].charAt(0));
+            }
+        }
+        return text.toString();
+    }
+
+    // MODIFIES: file
+    // EFFECTS: return the average time in nanoseconds of inserting text at a random offset and then
+    //     reading the UTF-8 size the file keeps up to date
+    private static double timeEdits(File file, Random random) {
+        Date now = new Date();
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < EDITS; i++) {
+            file.insert(random.nextInt(file.getLength()), INSERTS[random.nextInt(INSERTS.length)], now);
+            sink += file.getSize();
+            EventLog.getInstance().clear();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / EDITS;
+    }
+
+    // MODIFIES: file
+    // EFFECTS: return the average time in nanoseconds of inserting text at a random offset and then
+    //     finding the UTF-8 size by encoding the whole content
+    private static double timeEncodes(File file, Random random) {
+        Date now = new Date();
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ENCODES; i++) {
+            file.insert(random.nextInt(file.getLength()), INSERTS[random.nextInt(INSERTS.length)], now);
+            sink += file.getContent().getBytes(StandardCharsets.UTF_8).length;
+            EventLog.getInstance().clear();
+        }
+        long elapsed = System.nanoTime() - start;
+        consume(sink);
+        return (double) elapsed / ENCODES;
+    }
+
+    // EFFECTS: keep the JIT from eliminating the measured loop
+    private static void consume(long sink) {
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
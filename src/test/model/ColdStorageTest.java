@@ -0,0 +1,98 @@
+package model;
+
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColdStorageTest {
+    private static final String TEXT = "caf\u00e9 line\n".repeat(500);
+
+    private Dir rootDir;
+    private File first;
+    private File second;
+    private ColdStorage storage;
+
+    @BeforeEach
+    public void setUp() {
+        rootDir = new Dir();
+        try {
+            rootDir.addSubDir("docs");
+            Dir docs = rootDir.getSubDir("docs");
+            first = new File("first.txt", TEXT);
+            second = new File("second.txt", "second\n" + TEXT);
+            docs.addFile(first);
+            docs.addFile(second);
+            rootDir.addFile(new File("empty.txt"));
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+        storage = new ColdStorage(rootDir, 0, 1);
+    }
+
+    @Test
+    public void testIdleFilesAreCompressed() {
+        DirSnapshot before = rootDir.snapshot();
+        assertEquals(2, storage.compressIdle());
+        long[] stats = storage.getStats();
+        assertEquals(2, stats[0]);
+        assertTrue(stats[1] < stats[2] / 10);
+        assertEquals(first.getSize() + second.getSize(), stats[2]);
+        assertEquals(TEXT.length(), first.getLength());
+        assertEquals(TEXT.length(), first.getCharCount());
+        assertEquals(500, first.getLineCount());
+        assertNotNull(first.getStoredContent());
+        assertEquals(before.getTotalSize(), rootDir.snapshot().getTotalSize());
+        assertEquals(0, storage.compressIdle());
+    }
+
+    @Test
+    public void testReadInflates() {
+        storage.compressIdle();
+        assertEquals(TEXT, first.getContent());
+        assertNull(first.getStoredContent());
+        assertEquals("second\n", second.getLines(0, 1).toString());
+        // the hot cache holds one file, so reading the second compresses the first again
+        assertNull(second.getStoredContent());
+        assertNotNull(first.getStoredContent());
+        assertEquals(TEXT, first.getContent());
+    }
+
+    @Test
+    public void testEditCompressedFile() {
+        storage.compressIdle();
+        first.insert(0, "title\n", new Date());
+        assertEquals("title\n" + TEXT, first.getContent());
+        assertNull(first.getStoredContent());
+        second.update("new", new Date());
+        assertEquals("new", second.getContent());
+        assertEquals(3, second.getSize());
+    }
+
+    @Test
+    public void testSnapshotOfCompressedFile() {
+        storage.compressIdle();
+        DirSnapshot snapshot = rootDir.snapshot();
+        FileSnapshot file = snapshot.getSubDir("docs").getFile("first.txt");
+        assertEquals(TEXT, file.getContent());
+        assertEquals(first.getSize(), file.getSize());
+        assertEquals(500, file.getLineCount());
+        assertEquals(TEXT, file.toJson().getString("content"));
+        assertNotNull(first.getStoredContent());
+    }
+
+    @Test
+    public void testSharedContentIsNotCompressed() throws IllegalNameException, DuplicateException {
+        ContentStore store = new ContentStore(rootDir);
+        rootDir.addFile(new File("copy.txt", TEXT));
+        store.sharePending();
+        assertEquals(1, storage.compressIdle());
+        assertNull(first.getStoredContent());
+        assertNotNull(second.getStoredContent());
+    }
+}
@@ -0,0 +1,139 @@
+package model;
+
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentStoreTest {
+    private static final String TEMPLATE = "<html>\n<body>template</body>\n</html>\n";
+
+    private Dir rootDir;
+    private Dir site;
+    private ContentStore store;
+
+    @BeforeEach
+    public void setUp() {
+        rootDir = new Dir();
+        try {
+            rootDir.addSubDir("site");
+            site = rootDir.getSubDir("site");
+            site.addFile(new File("a.html", new String(TEMPLATE)));
+            site.addFile(new File("b.html", new String(TEMPLATE)));
+            rootDir.addFile(new File("c.html", new String(TEMPLATE)));
+            rootDir.addFile(new File("notes.txt", "unique"));
+            rootDir.addFile(new File("empty.txt"));
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+        store = new ContentStore(rootDir);
+    }
+
+    @Test
+    public void testIdenticalContentIsShared() throws IllegalNameException, NotFoundException {
+        assertEquals(2, store.getBlobCount());
+        assertSame(site.getFile("a.html").getContent(), rootDir.getFile("c.html").getContent());
+        assertSame(site.getFile("a.html").getText(), site.getFile("b.html").getText());
+        assertEquals(3 * TEMPLATE.length() + 6, store.getSharedSize());
+        assertEquals(TEMPLATE.length() + 6, store.getStoredSize());
+    }
+
+    @Test
+    public void testAddedFilesAreShared() throws IllegalNameException, DuplicateException, NotFoundException {
+        site.addFile(new File("d.html", new String(TEMPLATE)));
+        assertEquals(2, store.getBlobCount());
+        assertSame(site.getFile("a.html").getContent(), site.getFile("d.html").getContent());
+        assertEquals(4 * TEMPLATE.length() + 6, store.getSharedSize());
+    }
+
+    @Test
+    public void testAddedFilesAreSharedOutsideTheTreeLocks() throws IllegalNameException, DuplicateException,
+            NotFoundException {
+        File added = new File("d.html", new String(TEMPLATE));
+        site.addFile(added);
+        assertNotSame(site.getFile("a.html").getContent(), added.getContent());
+        site.addFile(new File("e.html", new String(TEMPLATE)));
+        site.deleteFile("e.html");
+        File stored = new File("f.html", new Unloaded(TEMPLATE), new Date(), new Date());
+        site.addFile(stored);
+
+        store.sharePending();
+        assertSame(site.getFile("a.html").getContent(), added.getContent());
+        assertEquals(4 * TEMPLATE.length() + 6, store.getSharedSize());
+        assertNotNull(stored.getStoredContent());
+    }
+
+    @Test
+    public void testChangeBreaksSharing() throws IllegalNameException, NotFoundException {
+        File edited = site.getFile("a.html");
+        edited.insert(0, "<!-- edited -->\n", new Date());
+        assertEquals("<!-- edited -->\n" + TEMPLATE, edited.getContent());
+        assertEquals(TEMPLATE, site.getFile("b.html").getContent());
+        assertEquals(2 * TEMPLATE.length() + 6, store.getSharedSize());
+        rootDir.getFile("notes.txt").update("changed", new Date());
+        assertEquals(1, store.getBlobCount());
+        assertEquals(TEMPLATE.length(), store.getStoredSize());
+    }
+
+    @Test
+    public void testRemovingFilesFreesBlobs() throws IllegalNameException, NotFoundException {
+        rootDir.deleteFile("notes.txt");
+        assertEquals(1, store.getBlobCount());
+        rootDir.deleteSubDir("site");
+        assertEquals(1, store.getBlobCount());
+        assertEquals(TEMPLATE.length(), store.getSharedSize());
+        rootDir.deleteFile("c.html");
+        assertEquals(0, store.getBlobCount());
+        assertEquals(0, store.getSharedSize());
+        assertEquals(0, store.getStoredSize());
+    }
+
+    @Test
+    public void testMovesKeepSharing() throws IllegalNameException, DuplicateException, NotFoundException {
+        site.moveFile("a.html", rootDir, "moved.html");
+        assertEquals(2, store.getBlobCount());
+        assertEquals(3 * TEMPLATE.length() + 6, store.getSharedSize());
+        assertSame(rootDir.getFile("moved.html").getContent(), rootDir.getFile("c.html").getContent());
+    }
+
+    /**
+     * Represents content that isn't loaded until it is read.
+     */
+    private static class Unloaded implements StoredContent {
+        private final String content;
+
+        Unloaded(String content) {
+            this.content = content;
+        }
+
+        @Override
+        public String load() {
+            return content;
+        }
+
+        @Override
+        public int getLength() {
+            return content.length();
+        }
+
+        @Override
+        public long getSize() {
+            return content.length();
+        }
+
+        @Override
+        public int getCharCount() {
+            return content.length();
+        }
+
+        @Override
+        public int getLineCount() {
+            return 1;
+        }
+    }
+}
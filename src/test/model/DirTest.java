@@ -20,9 +20,11 @@ package model;
 import model.exceptions.DuplicateException;
 import model.exceptions.IllegalNameException;
 import model.exceptions.NotFoundException;
+import org.json.JSONArray;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Date;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -293,6 +295,26 @@ class DirTest {
         assertEquals(nameList, dirRoot.getOrderedFileNames());
     }
 
+    @Test
+    public void testGetFileNamesFromAndWithPrefix() {
+        files.forEach(file -> {
+            try {
+                dirRoot.addFile(file);
+            } catch (DuplicateException e) {
+                fail("DuplicateException shouldn't be thrown");
+            }
+        });
+        assertEquals(List.of("data.json", "Dir.java"), dirRoot.getFileNamesFrom(0, 2));
+        assertEquals(List.of("Editor.java", "File.java"), dirRoot.getFileNamesFrom(2, 2));
+        assertEquals(List.of("README.md"), dirRoot.getFileNamesFrom(4, 2));
+        assertEquals(List.of(), dirRoot.getFileNamesFrom(7, 2));
+
+        assertEquals(List.of("data.json", "Dir.java"), dirRoot.getFileNamesWithPrefix("d"));
+        assertEquals(List.of("Dir.java"), dirRoot.getFileNamesWithPrefix("DI"));
+        assertEquals(List.of(), dirRoot.getFileNamesWithPrefix("x"));
+        assertEquals(5, dirRoot.getFileNamesWithPrefix("").size());
+    }
+
     @Test
     public void testAddSubDirWithDirNameNothingThrown() {
         try {
@@ -554,6 +576,42 @@ class DirTest {
         }
     }
 
+    @Test
+    public void testSubtreeTotalsFollowAddUpdateAndDelete() {
+        try {
+            dirRoot.addSubDir("subdir");
+            Dir subdir = dirRoot.getSubDir("subdir");
+            subdir.addSubDir(dirNonRoot);
+            dirNonRoot.addFile(files.get(2));
+            dirRoot.addFile("empty.txt");
+            assertEquals(2, dirRoot.getTotalNumFiles());
+            assertEquals(2, dirRoot.getTotalNumSubDirs());
+            assertEquals(19, dirRoot.getTotalSize());
+            assertEquals(19, dirRoot.getTotalCharCount());
+            assertEquals(1, dirRoot.getTotalLineCount());
+
+            files.get(2).update("read\u00e9\nme\n", new Date());
+            assertEquals(10, dirRoot.getTotalSize());
+            assertEquals(10, subdir.getTotalSize());
+            assertEquals(9, subdir.getTotalCharCount());
+            assertEquals(2, dirRoot.getTotalLineCount());
+            assertTrue(dirRoot.toString().endsWith("10 bytes, 9 characters, 2 lines in total)"));
+
+            subdir.deleteSubDir("sub_dir");
+            assertEquals(1, dirRoot.getTotalNumFiles());
+            assertEquals(1, dirRoot.getTotalNumSubDirs());
+            assertEquals(0, dirRoot.getTotalSize());
+            assertEquals(0, dirRoot.getTotalCharCount());
+            assertEquals(0, dirRoot.getTotalLineCount());
+            assertNull(dirNonRoot.getParentDir());
+        } catch (IllegalNameException e) {
+            fail("IllegalNameException shouldn't be thrown");
+        } catch (NotFoundException e) {
+            fail("NotFoundException shouldn't be thrown");
+        } catch (DuplicateException e) {
+            fail("DuplicateException shouldn't be thrown");
+        }
+    }
 
     @Test
     public void testGetGetAbsPath() {
@@ -575,6 +633,384 @@ class DirTest {
         }
     }
 
+    @Test
+    public void testGetAbsPathAfterSubtreeIsMoved() {
+        try {
+            dirRoot.addSubDir("folder1");
+            dirRoot.addSubDir("folder2");
+            Dir folder1 = dirRoot.getSubDir("folder1");
+            Dir folder2 = dirRoot.getSubDir("folder2");
+            folder1.addSubDir(dirNonRoot);
+            dirNonRoot.addSubDir("nested");
+            Dir nested = dirNonRoot.getSubDir("nested");
+            assertEquals("~/folder1/sub_dir/nested", nested.getAbsPath());
+            assertSame(nested.getAbsPath(), nested.getAbsPath());
+
+            folder1.deleteSubDir("sub_dir");
+            assertEquals("sub_dir/nested", nested.getAbsPath());
+            folder2.addSubDir(dirNonRoot);
+            assertEquals("~/folder2/sub_dir", dirNonRoot.getAbsPath());
+            assertEquals("~/folder2/sub_dir/nested", nested.getAbsPath());
+        } catch (IllegalNameException e) {
+            fail("IllegalNameException shouldn't be thrown");
+        } catch (NotFoundException e) {
+            fail("NotFoundException shouldn't be thrown");
+        } catch (DuplicateException e) {
+            fail("DuplicateException shouldn't be thrown");
+        }
+    }
+
+    @Test
+    public void testGetAbsPathAfterLeafIsMovedOrSubtreeAdded() {
+        try {
+            dirRoot.addSubDir("folder1");
+            dirRoot.addSubDir("folder2");
+            Dir folder1 = dirRoot.getSubDir("folder1");
+            folder1.addSubDir("leaf");
+            Dir leaf = folder1.getSubDir("leaf");
+            assertEquals("~/folder1/leaf", leaf.getAbsPath());
+            folder1.moveSubDir("leaf", dirRoot.getSubDir("folder2"), "leaf");
+            assertEquals("~/folder2/leaf", leaf.getAbsPath());
+
+            // a subtree built outside the tree caches no path until it is added
+            dirNonRoot.addSubDir("nested");
+            Dir nested = dirNonRoot.getSubDir("nested");
+            assertEquals("sub_dir/nested", nested.getAbsPath());
+            leaf.addSubDir(dirNonRoot);
+            assertEquals("~/folder2/leaf/sub_dir/nested", nested.getAbsPath());
+        } catch (IllegalNameException e) {
+            fail("IllegalNameException shouldn't be thrown");
+        } catch (NotFoundException e) {
+            fail("NotFoundException shouldn't be thrown");
+        } catch (DuplicateException e) {
+            fail("DuplicateException shouldn't be thrown");
+        }
+    }
+
+    @Test
+    public void testConcurrentAddsAndDeletesKeepTotalsConsistent() throws InterruptedException {
+        int numThreads = 8;
+        int filesPerThread = 500;
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            String threadDirName = "thread" + t;
+            threads[t] = new Thread(() -> {
+                try {
+                    dirRoot.addSubDir(threadDirName);
+                    Dir threadDir = dirRoot.getSubDir(threadDirName);
+                    for (int i = 0; i < filesPerThread; i++) {
+                        threadDir.addFile(new File("file" + i, "abc"));
+                        dirRoot.addFile(threadDirName + "_file" + i);
+                        dirRoot.containsFile("thread0_file" + i);
+                    }
+                    for (int i = 0; i < filesPerThread; i += 2) {
+                        threadDir.deleteFile("file" + i);
+                    }
+                } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+                    fail("No exception should be thrown");
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(numThreads, dirRoot.getNumSubDirs());
+        assertEquals(numThreads * filesPerThread, dirRoot.getNumFiles());
+        assertEquals(numThreads * filesPerThread * 3 / 2, dirRoot.getTotalNumFiles());
+        assertEquals(numThreads * filesPerThread * 3 / 2, dirRoot.getTotalSize());
+        assertEquals(numThreads * filesPerThread, dirRoot.getOrderedFileNames().size());
+    }
+
+    @Test
+    public void testConcurrentMovesAndWritesKeepTotalsConsistent() throws Exception {
+        dirRoot.addSubDir("a");
+        dirRoot.addSubDir("b");
+        dirRoot.getSubDir("a").addSubDir("x");
+        Dir moved = dirRoot.getSubDir("a").getSubDir("x");
+        moved.addSubDir("deep");
+        File file = new File("f.txt");
+        moved.getSubDir("deep").addFile(file);
+        int rounds = 20_000;
+        Thread mover = new Thread(() -> {
+            for (int i = 0; i < rounds; i++) {
+                Dir from = moved.getParentDir();
+                Dir to = dirRoot.findSubDir(from.getName().equals("a") ? "b" : "a");
+                assertDoesNotThrow(() -> from.moveSubDir("x", to, "x"));
+            }
+        });
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < rounds; i++) {
+                file.insert(0, "z", new Date());
+            }
+        });
+        Thread creator = new Thread(() -> {
+            for (int i = 0; i < rounds; i++) {
+                String name = "tmp" + i;
+                assertDoesNotThrow(() -> dirRoot.addSubDir(name));
+                assertTrue(dirRoot.removeSubDir(name));
+            }
+        });
+        for (Thread thread : List.of(mover, writer, creator)) {
+            thread.start();
+        }
+        for (Thread thread : List.of(mover, writer, creator)) {
+            thread.join();
+        }
+        Dir other = dirRoot.findSubDir(moved.getParentDir().getName().equals("a") ? "b" : "a");
+        assertEquals(rounds, file.getSize());
+        assertEquals(rounds, dirRoot.getTotalSize());
+        assertEquals(rounds, moved.getParentDir().getTotalSize());
+        assertEquals(0, other.getTotalSize());
+        assertEquals(4, dirRoot.getTotalNumSubDirs());
+        assertEquals(1, dirRoot.getTotalNumFiles());
+    }
+
+    @Test
+    public void testCrossedConcurrentMovesNeverMakeACycle() throws Exception {
+        dirRoot.addSubDir("p");
+        dirRoot.addSubDir("q");
+        Dir first = dirRoot.getSubDir("p");
+        Dir second = dirRoot.getSubDir("q");
+        int rounds = 2000;
+        Thread[] threads = new Thread[2];
+        for (int t = 0; t < 2; t++) {
+            Dir dir = t == 0 ? first : second;
+            Dir into = t == 0 ? second : first;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    Dir parent = dir.getParentDir();
+                    try {
+                        // into the other directory, or back up to the root
+                        parent.moveSubDir(dir.getName(), parent == dirRoot ? into : dirRoot, dir.getName());
+                    } catch (IllegalNameException | NotFoundException | DuplicateException e) {
+                        // the other directory was moved below this one or away meanwhile
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Dir dir : List.of(first, second)) {
+            Dir ancestor = dir.getParentDir();
+            while (ancestor != null && ancestor != dirRoot && ancestor != dir) {
+                ancestor = ancestor.getParentDir();
+            }
+            assertEquals(dirRoot, ancestor);
+        }
+        assertEquals(2, dirRoot.getTotalNumSubDirs());
+    }
+
+    @Test
+    public void testToJsonKeepsInsertionOrder() {
+        try {
+            dirRoot.addFile("b.txt");
+            dirRoot.addFile("a.txt");
+            dirRoot.addFile("c.txt");
+            dirRoot.deleteFile("a.txt");
+            dirRoot.addFile("a.txt");
+
+            JSONArray fileArray = dirRoot.toJson().getJSONArray("files");
+            assertEquals(3, fileArray.length());
+            assertEquals("b.txt", fileArray.getJSONObject(0).getString("name"));
+            assertEquals("c.txt", fileArray.getJSONObject(1).getString("name"));
+            assertEquals("a.txt", fileArray.getJSONObject(2).getString("name"));
+        } catch (IllegalNameException e) {
+            fail("IllegalNameException shouldn't be thrown");
+        } catch (NotFoundException e) {
+            fail("NotFoundException shouldn't be thrown");
+        } catch (DuplicateException e) {
+            fail("DuplicateException shouldn't be thrown");
+        }
+    }
+
+    @Test
+    public void testAddFilesAndSubDirsInOneBatch() {
+        try {
+            EventLog.getInstance().clear();
+            dirRoot.addFile("existing.txt");
+            dirRoot.addFiles(files);
+            dirRoot.addSubDirs(List.of(new Dir("b"), dirNonRoot, new Dir("a")));
+
+            assertEquals(6, dirRoot.getNumFiles());
+            assertEquals(19, dirRoot.getTotalSize());
+            assertEquals(List.of("a", "b", "sub_dir"), dirRoot.getOrderedSubDirNames());
+            assertEquals(List.of("data.json", "Dir.java", "Editor.java", "existing.txt", "File.java", "README.md"),
+                    dirRoot.getOrderedFileNames());
+            assertEquals("~/sub_dir", dirNonRoot.getAbsPath());
+            int numEvents = 0;
+            for (Event event : EventLog.getInstance()) {
+                numEvents++;
+            }
+            // "Event log cleared.", then one event per add
+            assertEquals(4, numEvents);
+        } catch (IllegalNameException e) {
+            fail("IllegalNameException shouldn't be thrown");
+        } catch (DuplicateException e) {
+            fail("DuplicateException shouldn't be thrown");
+        }
+    }
+
+    @Test
+    public void testAddFilesWithDuplicateAddsNothing() {
+        try {
+            dirRoot.addFile("README.md");
+        } catch (IllegalNameException | DuplicateException e) {
+            fail("No exception should be thrown");
+        }
+        try {
+            dirRoot.addFiles(files);
+            fail("DuplicateException should be thrown");
+        } catch (DuplicateException e) {
+            // expected
+        }
+        try {
+            dirRoot.addSubDirs(List.of(new Dir("a"), new Dir("a")));
+            fail("DuplicateException should be thrown");
+        } catch (DuplicateException e) {
+            // expected
+        } catch (IllegalNameException e) {
+            fail("IllegalNameException shouldn't be thrown");
+        }
+        assertEquals(1, dirRoot.getNumFiles());
+        assertEquals(0, dirRoot.getNumSubDirs());
+        assertNull(files.get(0).getParentDir());
+    }
+
+    @Test
+    public void testMoveFileAndSubDirRelinkNodes() {
+        try {
+            Dir other = new Dir("other");
+            dirRoot.addSubDir(dirNonRoot);
+            dirRoot.addSubDir(other);
+            dirNonRoot.addFile(files.get(2));
+            dirNonRoot.addSubDir("nested");
+            Dir nested = dirNonRoot.getSubDir("nested");
+            nested.addFile(files.get(0));
+
+            dirNonRoot.moveFile("README.md", other, "NOTES.md");
+            assertFalse(dirNonRoot.containsFile("README.md"));
+            assertEquals(files.get(2), other.getFile("NOTES.md"));
+            assertEquals("~/other/NOTES.md", files.get(2).getAbsPath());
+            assertEquals(19, other.getTotalSize());
+            assertEquals(0, dirNonRoot.getTotalSize());
+
+            dirNonRoot.moveSubDir("nested", other, "moved");
+            assertEquals(nested, other.getSubDir("moved"));
+            assertEquals("moved", nested.getName());
+            assertEquals("~/other/moved/Dir.java", files.get(0).getAbsPath());
+            assertEquals(List.of("moved"), other.getOrderedSubDirNames());
+            assertEquals(0, dirNonRoot.getTotalNumFiles());
+            assertEquals(2, other.getTotalNumFiles());
+            assertEquals(3, dirRoot.getTotalNumSubDirs());
+
+            other.moveSubDir("moved", other, "renamed");
+            assertEquals("~/other/renamed", nested.getAbsPath());
+            assertEquals("renamed", dirRoot.snapshot().getSubDir("other").getSubDirs().get(0).getName());
+        } catch (IllegalNameException e) {
+            fail("IllegalNameException shouldn't be thrown");
+        } catch (NotFoundException e) {
+            fail("NotFoundException shouldn't be thrown");
+        } catch (DuplicateException e) {
+            fail("DuplicateException shouldn't be thrown");
+        }
+    }
+
+    @Test
+    public void testMoveRejectsDuplicatesAndCycles() {
+        try {
+            dirRoot.addSubDir(dirNonRoot);
+            dirNonRoot.addSubDir("nested");
+            dirRoot.addFile("a.txt");
+            dirRoot.addFile("b.txt");
+        } catch (IllegalNameException | DuplicateException e) {
+            fail("No exception should be thrown");
+        }
+        assertThrows(DuplicateException.class, () -> dirRoot.moveFile("a.txt", dirRoot, "b.txt"));
+        assertThrows(NotFoundException.class, () -> dirRoot.moveFile("c.txt", dirRoot, "d.txt"));
+        assertThrows(IllegalNameException.class, () -> dirRoot.moveFile("a.txt", dirRoot, " "));
+        assertThrows(IllegalNameException.class,
+                () -> dirRoot.moveSubDir("sub_dir", dirNonRoot.getSubDir("nested"), "loop"));
+        assertTrue(dirRoot.containsFile("a.txt"));
+        assertEquals(dirRoot, dirNonRoot.getParentDir());
+    }
+
+    @Test
+    public void testFindAndRemoveReturnSentinelsOnMiss() {
+        try {
+            dirRoot.addFile(files.get(0));
+            dirRoot.addSubDir(dirNonRoot);
+
+            assertEquals(files.get(0), dirRoot.findFile("Dir.java"));
+            assertEquals(dirNonRoot, dirRoot.findSubDir("sub_dir"));
+            assertNull(dirRoot.findFile("missing"));
+            assertNull(dirRoot.findFile(" "));
+            assertNull(dirRoot.findSubDir("missing"));
+            assertFalse(dirRoot.removeFile("missing"));
+            assertFalse(dirRoot.removeSubDir("missing"));
+
+            assertTrue(dirRoot.removeFile("Dir.java"));
+            assertTrue(dirRoot.removeSubDir("sub_dir"));
+            assertEquals(0, dirRoot.getTotalNumFiles());
+            assertEquals(0, dirRoot.getTotalNumSubDirs());
+        } catch (DuplicateException e) {
+            fail("DuplicateException shouldn't be thrown");
+        }
+    }
+
+    @Test
+    public void testSnapshotIsUnaffectedByLaterChanges() {
+        try {
+            dirRoot.addSubDir(dirNonRoot);
+            dirNonRoot.addFile(files.get(2));
+            DirSnapshot before = dirRoot.snapshot();
+
+            files.get(2).update("new", new Date());
+            dirNonRoot.addFile("extra.txt");
+            dirRoot.deleteSubDir("sub_dir");
+
+            DirSnapshot subDir = before.getSubDir("sub_dir");
+            assertEquals(1, subDir.getFiles().size());
+            assertEquals("this is readme file", subDir.getFile("README.md").getContent());
+            assertEquals(1, before.getTotalNumFiles());
+            assertEquals(19, before.getTotalSize());
+            assertEquals(0, dirRoot.snapshot().getSubDirs().size());
+        } catch (IllegalNameException e) {
+            fail("IllegalNameException shouldn't be thrown");
+        } catch (NotFoundException e) {
+            fail("NotFoundException shouldn't be thrown");
+        } catch (DuplicateException e) {
+            fail("DuplicateException shouldn't be thrown");
+        }
+    }
+
+    @Test
+    public void testSnapshotSharesUnchangedSubtrees() {
+        try {
+            Dir other = new Dir("other");
+            dirRoot.addSubDir(dirNonRoot);
+            dirRoot.addSubDir(other);
+            dirNonRoot.addFile(files.get(0));
+            other.addFile(files.get(1));
+            DirSnapshot first = dirRoot.snapshot();
+            assertSame(first, dirRoot.snapshot());
+
+            files.get(0).update("changed", new Date());
+            DirSnapshot second = dirRoot.snapshot();
+
+            assertNotSame(first, second);
+            assertNotSame(first.getSubDir("sub_dir"), second.getSubDir("sub_dir"));
+            assertSame(first.getSubDir("other"), second.getSubDir("other"));
+            assertEquals("changed", second.getSubDir("sub_dir").getFile("Dir.java").getContent());
+        } catch (IllegalNameException e) {
+            fail("IllegalNameException shouldn't be thrown");
+        } catch (DuplicateException e) {
+            fail("DuplicateException shouldn't be thrown");
+        }
+    }
+
     @Test
     public void testToString() {
         assertTrue(dirRoot.toString().contains("root (0 files)"));
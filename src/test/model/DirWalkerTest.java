@@ -0,0 +1,102 @@
+package model;
+
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DirWalkerTest {
+    private Dir rootDir;
+
+    @BeforeEach
+    public void setUp() {
+        // root: b/ (b1/ (x.txt), y.txt), a/, c.txt
+        rootDir = new Dir();
+        try {
+            rootDir.addSubDir("b");
+            rootDir.addSubDir("a");
+            rootDir.addFile(new File("c.txt", "ccc"));
+            Dir b = rootDir.getSubDir("b");
+            b.addSubDir("b1");
+            b.addFile(new File("y.txt", "yy"));
+            b.getSubDir("b1").addFile(new File("x.txt", "x"));
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    @Test
+    public void testPreOrderWalk() {
+        assertEquals(List.of("root@0", "a@1", "b@1", "b1@2", "x.txt@3", "y.txt@2", "c.txt@1"),
+                walk(DirWalker.Order.PRE_ORDER));
+    }
+
+    @Test
+    public void testPostOrderWalk() {
+        assertEquals(List.of("a@1", "x.txt@3", "b1@2", "y.txt@2", "b@1", "c.txt@1", "root@0"),
+                walk(DirWalker.Order.POST_ORDER));
+    }
+
+    @Test
+    public void testBreadthFirstWalk() {
+        assertEquals(List.of("root@0", "a@1", "b@1", "c.txt@1", "b1@2", "y.txt@2", "x.txt@3"),
+                walk(DirWalker.Order.BREADTH_FIRST));
+    }
+
+    @Test
+    public void testStreamVisitsEveryNodeOnce() {
+        List<String> sequential = DirWalker.stream(rootDir).map(DirNode::getAbsPath).sorted()
+                .collect(Collectors.toList());
+        List<String> parallel = DirWalker.stream(rootDir).parallel().map(DirNode::getAbsPath).sorted()
+                .collect(Collectors.toList());
+        assertEquals(List.of("~", "~/a", "~/b", "~/b/b1", "~/b/b1/x.txt", "~/b/y.txt", "~/c.txt"), sequential);
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testSpliteratorSplitsWithoutLosingNodes() {
+        Spliterator<DirNode> first = DirWalker.spliterator(rootDir);
+        assertEquals(7, first.estimateSize());
+        Spliterator<DirNode> second = first.trySplit();
+        assertNotNull(second);
+        List<DirNode> nodes = new ArrayList<>();
+        first.forEachRemaining(nodes::add);
+        second.forEachRemaining(nodes::add);
+        assertEquals(7, nodes.size());
+        assertEquals(7, nodes.stream().distinct().count());
+    }
+
+    @Test
+    public void testReduce() {
+        long totalSize = DirWalker.reduce(rootDir,
+                node -> node instanceof File ? ((File) node).getSize() : 0L, Long::sum);
+        int numNodes = DirWalker.reduce(rootDir, node -> 1, Integer::sum);
+        assertEquals(6, totalSize);
+        assertEquals(7, numNodes);
+    }
+
+    // EFFECTS: return "name@depth" of every node in the order the walk visits them
+    private List<String> walk(DirWalker.Order order) {
+        List<String> visited = new ArrayList<>();
+        DirWalker.walk(rootDir, order, new TreeVisitor() {
+            @Override
+            public void visitDir(Dir dir, int depth) {
+                visited.add(dir.getName() + "@" + depth);
+            }
+
+            @Override
+            public void visitFile(File file, int depth) {
+                visited.add(file.getName() + "@" + depth);
+            }
+        });
+        return visited;
+    }
+}
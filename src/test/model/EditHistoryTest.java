@@ -0,0 +1,201 @@
+package model;
+
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EditHistoryTest {
+    private static final long BUDGET = 1 << 20;
+
+    private Dir rootDir;
+    private Dir docs;
+    private File first;
+    private File second;
+    private EditHistory history;
+
+    @BeforeEach
+    public void setUp() {
+        rootDir = new Dir();
+        try {
+            rootDir.addSubDir("docs");
+            docs = rootDir.getSubDir("docs");
+            first = new File("first.txt", "hello world");
+            second = new File("second.txt", "second");
+            docs.addFile(first);
+            rootDir.addFile(second);
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+        history = new EditHistory(rootDir, BUDGET);
+    }
+
+    @Test
+    public void testUndoRedoInsertAndDelete() {
+        assertFalse(history.canUndo(first));
+        first.insert(5, ",", new Date());
+        first.delete(0, 1, new Date());
+        assertEquals("ello, world", first.getContent());
+        assertTrue(history.canUndo(first));
+        assertFalse(history.canUndo(second));
+
+        assertEquals(0, history.undo(first));
+        assertEquals("hello, world", first.getContent());
+        assertEquals(5, history.undo(first));
+        assertEquals("hello world", first.getContent());
+        assertEquals(-1, history.undo(first));
+        assertFalse(history.canUndo(first));
+
+        assertTrue(history.canRedo(first));
+        assertEquals(5, history.redo(first));
+        assertEquals(0, history.redo(first));
+        assertEquals("ello, world", first.getContent());
+        assertEquals(-1, history.redo(first));
+        assertEquals(0, history.undo(first));
+        assertEquals("hello, world", first.getContent());
+    }
+
+    @Test
+    public void testTypingAndDeletingAreMerged() {
+        first.insert(11, "!", new Date());
+        first.insert(12, "!", new Date());
+        first.insert(13, "?", new Date());
+        assertEquals("hello world!!?", first.getContent());
+        assertEquals(11, history.undo(first));
+        assertEquals("hello world", first.getContent());
+        assertFalse(history.canUndo(first));
+
+        history.redo(first);
+        first.replace(0, 5, "howdy", new Date());
+        first.delete(10, 1, new Date());
+        first.delete(9, 1, new Date());
+        assertEquals("howdy wor!!?", first.getContent());
+        assertEquals(9, history.undo(first));
+        assertEquals("howdy world!!?", first.getContent());
+        assertEquals(0, history.undo(first));
+        assertEquals("hello world!!?", first.getContent());
+    }
+
+    @Test
+    public void testUpdateKeepsOnlyTheRangeChanged() {
+        String text = "line of text\n".repeat(1000);
+        first.update(text, new Date());
+        long used = history.getUsedBytes();
+        first.update(text.substring(0, 6500) + "X" + text.substring(6501), new Date());
+        assertEquals(EditHistory.STEP_OVERHEAD + 2, history.getUsedBytes() - used);
+
+        assertEquals(6500, history.undo(first));
+        assertEquals(text, first.getContent());
+        assertEquals(0, history.undo(first));
+        assertEquals("hello world", first.getContent());
+    }
+
+    @Test
+    public void testNewEditClearsRedo() {
+        first.insert(0, "oh ", new Date());
+        history.undo(first);
+        assertTrue(history.canRedo(first));
+        first.insert(11, ".", new Date());
+        assertFalse(history.canRedo(first));
+        assertEquals(-1, history.redo(first));
+        assertEquals(11, history.undo(first));
+        assertEquals("hello world", first.getContent());
+    }
+
+    @Test
+    public void testOldestStepsAreEvictedFirst() {
+        first.insert(0, "a".repeat(100), new Date());
+        second.insert(0, "b".repeat(100), new Date());
+        second.replace(0, 1, "c", new Date());
+        // only the text removed is kept while a step can be undone
+        long insertBytes = EditHistory.STEP_OVERHEAD;
+        long replaceBytes = EditHistory.STEP_OVERHEAD + 2;
+        assertEquals(2 * insertBytes + replaceBytes, history.getUsedBytes());
+
+        history.setByteBudget(insertBytes + replaceBytes);
+        assertEquals(insertBytes + replaceBytes, history.getUsedBytes());
+        assertFalse(history.canUndo(first));
+        assertTrue(history.canUndo(second));
+
+        assertEquals(0, history.undo(second));
+        assertEquals("b".repeat(100) + "second", second.getContent());
+        // once undone, the step keeps the text inserted, which doesn't fit, so it is evicted with the steps
+        //     undone after it
+        assertEquals(0, history.undo(second));
+        assertEquals("second", second.getContent());
+        assertFalse(history.canRedo(second));
+        assertEquals(0, history.getUsedBytes());
+    }
+
+    @Test
+    public void testHistoryFollowsMovedFiles() {
+        first.insert(0, "oh ", new Date());
+        try {
+            docs.moveFile("first.txt", rootDir, "renamed.txt");
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+        assertEquals(0, history.undo(first));
+        assertEquals("hello world", first.getContent());
+
+        second.insert(0, "2nd ", new Date());
+        assertTrue(rootDir.removeFile("second.txt"));
+        assertFalse(history.canUndo(second));
+        assertTrue(rootDir.removeSubDir("docs"));
+        assertTrue(history.canRedo(first));
+        assertTrue(rootDir.removeFile("renamed.txt"));
+        assertFalse(history.canRedo(first));
+        assertEquals(0, history.getUsedBytes());
+    }
+
+    @Test
+    public void testUnknownContentEndsHistory() {
+        first.insert(0, "oh ", new Date());
+        first.update(new Unloaded("replaced"), new Date());
+        assertFalse(history.canUndo(first));
+        assertEquals(-1, history.undo(first));
+        assertEquals("replaced", first.getContent());
+        assertEquals(0, history.getUsedBytes());
+    }
+
+    /**
+     * Represents content that isn't loaded until it is read.
+     */
+    private static class Unloaded implements StoredContent {
+        private final String content;
+
+        Unloaded(String content) {
+            this.content = content;
+        }
+
+        @Override
+        public String load() {
+            return content;
+        }
+
+        @Override
+        public int getLength() {
+            return content.length();
+        }
+
+        @Override
+        public long getSize() {
+            return content.length();
+        }
+
+        @Override
+        public int getCharCount() {
+            return content.length();
+        }
+
+        @Override
+        public int getLineCount() {
+            return 1;
+        }
+    }
+}
@@ -139,6 +139,55 @@ public class FileTest {
         assertEquals(later, emptyFile.getDateModified());
     }
 
+    @Test
+    public void testInsertAndDelete() {
+        Date now = Calendar.getInstance().getTime();
+        FileSnapshot before = nonEmptyFile.snapshot();
+        nonEmptyFile.insert(0, "> ", now);
+        nonEmptyFile.delete(nonEmptyFile.getLength() - 1, 1, now);
+        String expected = "> " + testString.get(0).substring(0, testString.get(0).length() - 1);
+        assertEquals(expected.length(), nonEmptyFile.getSize());
+        assertEquals(expected, nonEmptyFile.getContent());
+        assertEquals("Lorem", nonEmptyFile.subSequence(2, 7).toString());
+        assertEquals(now, nonEmptyFile.getDateModified());
+        assertEquals(testString.get(0), before.getContent());
+        assertEquals(expected, nonEmptyFile.snapshot().getContent());
+        assertThrows(IndexOutOfBoundsException.class, () -> nonEmptyFile.insert(-1, "x", now));
+        assertThrows(IndexOutOfBoundsException.class, () -> nonEmptyFile.delete(0, 1000, now));
+        assertEquals(expected, nonEmptyFile.getContent());
+    }
+
+    @Test
+    public void testLines() {
+        Date now = Calendar.getInstance().getTime();
+        emptyFile.update(String.join("\n", testString), now);
+        assertEquals(3, emptyFile.getLineCount());
+        assertEquals(testString.get(0).length() + 1, emptyFile.getLineStart(1));
+        assertEquals(2, emptyFile.getLineOf(emptyFile.getLength()));
+        assertEquals(testString.get(2), emptyFile.getLines(2, 3).toString());
+        emptyFile.insert(0, "title\n", now);
+        assertEquals(4, emptyFile.getLineCount());
+        assertEquals(testString.get(0) + "\n", emptyFile.getLines(1, 2).toString());
+        emptyFile.delete(0, 6, now);
+        assertEquals(testString.get(1) + "\n", emptyFile.getLines(1, 2).toString());
+    }
+
+    @Test
+    public void testSizeCountsUtf8Bytes() {
+        Date now = Calendar.getInstance().getTime();
+        emptyFile.update("caf\u00e9\n", now);
+        assertEquals(6, emptyFile.getSize());
+        assertEquals(5, emptyFile.getLength());
+        assertEquals(5, emptyFile.getCharCount());
+        emptyFile.insert(5, "\ud83d\ude00", now);
+        assertEquals(10, emptyFile.getSize());
+        assertEquals(7, emptyFile.getLength());
+        assertEquals(6, emptyFile.getCharCount());
+        emptyFile.delete(3, 1, now);
+        assertEquals(8, emptyFile.getSize());
+        assertEquals(2, emptyFile.getLineCount());
+    }
+
     @Test
     public void testToString() {
         String containStr = "file2 (size: " + testString.get(0).length() + ")";
@@ -0,0 +1,105 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LargeFileTest {
+    private static final int LINES = 3 * LargeFile.LINE_STRIDE + 10;
+
+    // EFFECTS: return LINES numbered lines, every tenth with a character outside ASCII
+    private static String numberedLines() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            text.append("line ").append(i).append(i % 10 == 0 ? " caf\u00e9\n" : "\n");
+        }
+        return text.toString();
+    }
+
+    // EFFECTS: return the given lines of numberedLines()
+    private static String expectedLines(int from, int to) {
+        String[] lines = numberedLines().split("\n");
+        StringBuilder text = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            text.append(lines[i]).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Test
+    void testReadLinesAcrossRegions(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("log.txt");
+        Files.writeString(path, numberedLines());
+        // small regions, so lines span the boundaries between them
+        try (LargeFile file = LargeFile.open(path, 0, Files.size(path), 1000)) {
+            assertEquals(LINES, file.getLineCount());
+            assertEquals(expectedLines(0, 3), file.getLines(0, 3));
+            assertEquals(expectedLines(1020, 1030), file.getLines(1020, 10));
+            assertEquals(expectedLines(LINES - 2, LINES), file.getLines(LINES - 2, 100));
+            assertEquals("", file.getLines(LINES, 5));
+            assertFalse(file.isModified());
+            assertThrows(IndexOutOfBoundsException.class, () -> file.getLines(LINES + 1, 1));
+        }
+    }
+
+    @Test
+    void testLastLineWithoutBreak(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("short.txt");
+        Files.writeString(path, "first\nlast");
+        try (LargeFile file = LargeFile.open(path)) {
+            assertEquals(2, file.getLineCount());
+            assertEquals("last", file.getLines(1, 1));
+        }
+    }
+
+    @Test
+    void testReplaceLines(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("log.txt");
+        Files.writeString(path, numberedLines());
+        try (LargeFile file = LargeFile.open(path)) {
+            file.replaceLines(1, 3, "one\ntwo\nthree");
+            assertTrue(file.isModified());
+            assertEquals(LINES + 1, file.getLineCount());
+            assertEquals("line 0 caf\u00e9\none\ntwo\nthree\nline 3\n", file.getLines(0, 5));
+            file.replaceLines(2, 2000, "");
+            assertEquals(LINES + 1 - 1998, file.getLineCount());
+            assertEquals("one\n" + expectedLines(1999, 2000), file.getLines(1, 2));
+            file.replaceLines(file.getLineCount(), file.getLineCount(), "appended");
+            assertEquals("appended", file.getLines(file.getLineCount() - 1, 1));
+        }
+    }
+
+    @Test
+    void testWriteOverBase(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("log.txt");
+        Files.writeString(path, numberedLines());
+        try (LargeFile file = LargeFile.open(path)) {
+            file.replaceLines(0, 1, "first\n");
+            file.replaceLines(LINES - 1, LINES, "");
+            file.writeTo(path);
+            // the base is still readable after it is replaced on disk
+            assertEquals(expectedLines(1, 2), file.getLines(1, 1));
+        }
+        String expected = "first\n" + expectedLines(1, LINES - 1);
+        assertEquals(expected, Files.readString(path, StandardCharsets.UTF_8));
+        try (LargeFile file = LargeFile.open(path)) {
+            assertEquals(LINES - 1, file.getLineCount());
+        }
+    }
+
+    @Test
+    void testOpenPartOfFile(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("content");
+        Files.writeString(path, "header\nsecond\nthird\ntrailer");
+        try (LargeFile file = LargeFile.open(path, 7, 13)) {
+            assertEquals(2, file.getLineCount());
+            assertEquals("second\nthird\n", file.getLines(0, 2));
+        }
+    }
+}
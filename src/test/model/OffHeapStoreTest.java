@@ -0,0 +1,115 @@
+package model;
+
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapStoreTest {
+    private static final String TEXT = "caf\u00e9 line \ud83d\ude00\n".repeat(500);
+    private static final int SLAB_SIZE = 1 << 16;
+
+    private Dir rootDir;
+    private File first;
+    private File second;
+    private OffHeapStore store;
+
+    @BeforeEach
+    public void setUp() {
+        rootDir = new Dir();
+        try {
+            rootDir.addSubDir("docs");
+            Dir docs = rootDir.getSubDir("docs");
+            first = new File("first.txt", TEXT);
+            second = new File("second.txt", "second");
+            docs.addFile(first);
+            docs.addFile(second);
+            rootDir.addFile(new File("empty.txt"));
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+        store = new OffHeapStore(rootDir, SLAB_SIZE);
+    }
+
+    @Test
+    public void testFilesAreMovedOffHeap() {
+        assertTrue(first.getStoredContent().isResident());
+        assertTrue(second.getStoredContent().isResident());
+        assertEquals(first.getSize() + second.getSize(), store.getUsedBytes());
+        // the first file takes a slab of its own size class, the second the smallest
+        assertEquals(2L * SLAB_SIZE, store.getReservedBytes());
+        assertEquals(TEXT.length(), first.getLength());
+        assertEquals(TEXT.codePointCount(0, TEXT.length()), first.getCharCount());
+        assertEquals(500, first.getLineCount());
+    }
+
+    @Test
+    public void testReadDecodesWithoutKeeping() {
+        assertEquals(TEXT, first.getContent());
+        assertEquals("caf\u00e9 line \ud83d\ude00\n", first.getLines(1, 2).toString());
+        assertTrue(first.getStoredContent().isResident());
+        assertEquals("second", second.getContent());
+    }
+
+    @Test
+    public void testOpenReader() throws IOException {
+        StringBuilder read = new StringBuilder();
+        char[] buffer = new char[100];
+        try (Reader reader = first.openReader()) {
+            for (int count = reader.read(buffer); count >= 0; count = reader.read(buffer)) {
+                read.append(buffer, 0, count);
+            }
+        }
+        assertEquals(TEXT, read.toString());
+    }
+
+    @Test
+    public void testEditStaysOffHeap() {
+        first.insert(0, "title\n", new Date());
+        assertEquals("title\n" + TEXT, first.getContent());
+        assertTrue(first.getStoredContent().isResident());
+        second.update("new", new Date());
+        assertEquals("new", second.getContent());
+        assertEquals(3, second.getSize());
+        assertTrue(second.getStoredContent().isResident());
+    }
+
+    @Test
+    public void testAddedFileIsMovedOffHeap() {
+        try {
+            File added = new File("added.txt", "added");
+            rootDir.addFile(added);
+            assertTrue(added.getStoredContent().isResident());
+            assertEquals("added", added.getContent());
+        } catch (IllegalNameException | DuplicateException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    @Test
+    public void testSnapshotOutlivesEdit() {
+        FileSnapshot snapshot = first.snapshot();
+        first.update("replaced", new Date());
+        assertEquals(TEXT, snapshot.getContent());
+        assertEquals("replaced", first.getContent());
+    }
+
+    @Test
+    public void testUnpairedSurrogateStaysOnHeap() {
+        try {
+            File broken = new File("broken.txt", "half \ud83d");
+            rootDir.addFile(broken);
+            assertNull(broken.getStoredContent());
+            assertEquals("half \ud83d", broken.getContent());
+        } catch (IllegalNameException | DuplicateException e) {
+            fail("No exception should be thrown");
+        }
+    }
+}
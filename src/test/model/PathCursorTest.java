@@ -0,0 +1,99 @@
+package model;
+
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathCursorTest {
+    private static final int RESOLVES = 100_000;
+
+    private PathCursor cursor;
+    private Dir rootDir;
+    private Dir dirA;
+    private Dir dirB;
+    private Dir dirC;
+
+    @BeforeEach
+    public void setUp() {
+        cursor = new PathCursor();
+        rootDir = new Dir();
+        try {
+            rootDir.addSubDir("a");
+            dirA = rootDir.getSubDir("a");
+            dirA.addSubDir("b");
+            dirA.addSubDir("c");
+            dirB = dirA.getSubDir("b");
+            dirC = dirA.getSubDir("c");
+            dirC.addFile("notes.txt");
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    @Test
+    public void testResolveDirAbsolute() {
+        assertEquals(rootDir, cursor.resolveDir(rootDir, dirB, "~"));
+        assertEquals(dirB, cursor.resolveDir(rootDir, rootDir, "~/a/b"));
+        assertEquals(dirC, cursor.resolveDir(rootDir, rootDir, "~/a/b/../c"));
+        assertEquals(dirC, cursor.resolveDir(rootDir, rootDir, "~//a///c/"));
+        assertEquals(dirA, cursor.resolveDir(rootDir, rootDir, "~/../../a/./b/.."));
+        assertNull(cursor.resolveDir(rootDir, rootDir, "~/a/d"));
+        assertNull(cursor.resolveDir(rootDir, rootDir, "~/a/c/notes.txt"));
+    }
+
+    @Test
+    public void testResolveDirRelative() {
+        assertEquals(dirB, cursor.resolveDir(rootDir, dirA, "b"));
+        assertEquals(dirC, cursor.resolveDir(rootDir, dirB, "../c"));
+        assertEquals(dirA, cursor.resolveDir(rootDir, dirB, ".."));
+        assertEquals(dirB, cursor.resolveDir(rootDir, dirB, ""));
+        assertEquals(dirA, cursor.resolveDir(rootDir, dirC, "~/a"));
+        assertEquals(dirB, cursor.resolveDir(rootDir, rootDir, new StringBuilder("x/a/b"), 2, 5));
+    }
+
+    @Test
+    public void testResolveFile() {
+        assertEquals("notes.txt", cursor.resolveFile(rootDir, rootDir, "~/a/b/../c/notes.txt").getName());
+        assertEquals("notes.txt", cursor.resolveFile(rootDir, dirC, "notes.txt").getName());
+        assertEquals("notes.txt", cursor.resolveFile(rootDir, dirB, new StringBuilder("../c/notes.txt")).getName());
+        assertNull(cursor.resolveFile(rootDir, rootDir, "~/a/c/"));
+        assertNull(cursor.resolveFile(rootDir, rootDir, "~/a/b/notes.txt"));
+        assertNull(cursor.resolveFile(rootDir, rootDir, "~/x/notes.txt"));
+    }
+
+    @Test
+    public void testResolveAllocatesNothing() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        String dirPath = "~/a/b/../c//";
+        String filePath = "~/a/b/../c/notes.txt";
+        long sink = resolveRepeatedly(dirPath, filePath);
+
+        long before = threadBean.getCurrentThreadAllocatedBytes();
+        sink += resolveRepeatedly(dirPath, filePath);
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(4L * RESOLVES, sink);
+        assertTrue(allocated < 1024, "resolving allocated " + allocated + " bytes");
+    }
+
+    // EFFECTS: resolve the given paths RESOLVES times each and return the number of hits
+    private long resolveRepeatedly(String dirPath, String filePath) {
+        long hits = 0;
+        for (int i = 0; i < RESOLVES; i++) {
+            if (cursor.resolveDir(rootDir, rootDir, dirPath) == dirC) {
+                hits++;
+            }
+            if (cursor.resolveFile(rootDir, rootDir, filePath) != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,120 @@
+package model;
+
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathIndexTest {
+    private Dir rootDir;
+    private Dir src;
+    private PathIndex pathIndex;
+
+    @BeforeEach
+    public void setUp() {
+        rootDir = new Dir();
+        try {
+            rootDir.addSubDir("src");
+            src = rootDir.getSubDir("src");
+            src.addFile("Main.java");
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+        pathIndex = new PathIndex(rootDir);
+    }
+
+    @Test
+    public void testConstructorIndexesExistingNodes() {
+        assertEquals(rootDir, pathIndex.getDir("~"));
+        assertEquals(src, pathIndex.getDir("~/src"));
+        assertEquals("Main.java", pathIndex.getFile("~/src/Main.java").getName());
+        assertNull(pathIndex.getFile("~/src"));
+        assertNull(pathIndex.getDir("~/src/Main.java"));
+        assertEquals(3, pathIndex.size());
+    }
+
+    @Test
+    public void testAddedNodesAreIndexed() {
+        try {
+            Dir lib = new Dir("lib");
+            lib.addSubDir("json");
+            lib.getSubDir("json").addFile("JSONObject.java");
+            src.addSubDir(lib);
+            rootDir.addFile("README.md");
+
+            assertEquals(lib, pathIndex.getDir("~/src/lib"));
+            assertNotNull(pathIndex.getDir("~/src/lib/json"));
+            assertNotNull(pathIndex.getFile("~/src/lib/json/JSONObject.java"));
+            assertNotNull(pathIndex.getFile("~/README.md"));
+            assertEquals(7, pathIndex.size());
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    @Test
+    public void testRemovedNodesAreUnindexed() {
+        try {
+            src.addSubDir("lib");
+            src.getSubDir("lib").addFile("Util.java");
+            src.deleteFile("Main.java");
+            assertNull(pathIndex.getFile("~/src/Main.java"));
+
+            rootDir.deleteSubDir("src");
+            assertNull(pathIndex.getDir("~/src"));
+            assertNull(pathIndex.getDir("~/src/lib"));
+            assertNull(pathIndex.getFile("~/src/lib/Util.java"));
+            assertEquals(1, pathIndex.size());
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    @Test
+    public void testMovedNodesAreReindexed() {
+        try {
+            rootDir.addSubDir("lib");
+            Dir lib = rootDir.getSubDir("lib");
+            src.addSubDir("util");
+            Dir util = src.getSubDir("util");
+            util.addFile("Strings.java");
+            src.moveFile("Main.java", lib, "App.java");
+            src.moveSubDir("util", lib, "helpers");
+
+            assertNull(pathIndex.getFile("~/src/Main.java"));
+            assertEquals("App.java", pathIndex.getFile("~/lib/App.java").getName());
+            assertNull(pathIndex.getDir("~/src/util"));
+            assertEquals(util, pathIndex.getDir("~/lib/helpers"));
+            // entries below a moved directory are re-keyed with it
+            assertNull(pathIndex.getFile("~/src/util/Strings.java"));
+            assertNotNull(pathIndex.getFile("~/lib/helpers/Strings.java"));
+            assertEquals(6, pathIndex.size());
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    @Test
+    public void testMovedThenDeletedSubtreeLeavesNoEntries() {
+        try {
+            src.addSubDir("util");
+            Dir util = src.getSubDir("util");
+            util.addSubDir("text");
+            util.getSubDir("text").addFile("Strings.java");
+            rootDir.addSubDir("lib");
+            src.moveSubDir("util", rootDir.getSubDir("lib"), "helpers");
+            rootDir.moveSubDir("lib", src, "lib");
+            assertEquals(7, pathIndex.size());
+
+            src.deleteSubDir("lib");
+            assertEquals(3, pathIndex.size());
+            assertNull(pathIndex.getFile("~/src/util/text/Strings.java"));
+            assertNull(pathIndex.getFile("~/lib/helpers/text/Strings.java"));
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RopeTest {
+
+    @Test
+    public void testOfSharesString() {
+        String str = "hello world";
+        Rope rope = Rope.of(str);
+        assertEquals(11, rope.length());
+        assertSame(str, rope.toString());
+        assertEquals('w', rope.charAt(6));
+        assertEquals("", Rope.of("").toString());
+    }
+
+    @Test
+    public void testInsertDeleteSubSequence() {
+        Rope rope = Rope.of("hello world");
+        Rope edited = rope.insert(5, ",").insert(12, "!").delete(0, 1).insert(0, "J");
+        assertEquals("Jello, world!", edited.toString());
+        assertEquals("hello world", rope.toString());
+        assertEquals("world", edited.subSequence(7, 12).toString());
+        assertEquals("", edited.subSequence(3, 3).toString());
+        assertSame(edited, edited.insert(4, "").delete(4, 0));
+        assertEquals("Jello, world!", Rope.concat(edited.subSequence(0, 6), edited.subSequence(6, 13)).toString());
+    }
+
+    @Test
+    public void testOutOfRange() {
+        Rope rope = Rope.of("abc");
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.charAt(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.insert(4, "x"));
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.delete(2, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.subSequence(2, 1));
+    }
+
+    @Test
+    public void testRandomEditsMatchStringBuilder() {
+        Random random = new Random(7);
+        StringBuilder expected = new StringBuilder("x".repeat(10_000));
+        Rope rope = Rope.of(expected.toString());
+        for (int i = 0; i < 5_000; i++) {
+            int offset = random.nextInt(expected.length() + 1);
+            if (random.nextInt(3) > 0 || expected.length() == 0) {
+                String str = Integer.toString(random.nextInt(1 << (random.nextInt(20) + 1)), 36);
+                expected.insert(offset, str);
+                rope = rope.insert(offset, str);
+            } else {
+                int count = random.nextInt(Math.min(50, expected.length() - Math.min(offset, expected.length()) + 1));
+                expected.delete(offset, offset + count);
+                rope = rope.delete(offset, count);
+            }
+            assertEquals(expected.length(), rope.length());
+        }
+        assertEquals(expected.toString(), rope.toString());
+        int start = random.nextInt(expected.length() / 2);
+        assertEquals(expected.substring(start, start * 2), rope.subSequence(start, start * 2).toString());
+        assertEquals(expected.charAt(start), rope.charAt(start));
+        assertTrue(rope.height() <= 2 * (32 - Integer.numberOfLeadingZeros(rope.pieces())));
+    }
+
+    @Test
+    public void testLines() {
+        Rope rope = Rope.of("one\ntwo\n\nfour");
+        assertEquals(4, rope.lineCount());
+        assertEquals(List.of(0, 4, 8, 9, 13), List.of(rope.lineStart(0), rope.lineStart(1), rope.lineStart(2),
+                rope.lineStart(3), rope.lineStart(4)));
+        assertEquals(0, rope.lineOf(3));
+        assertEquals(1, rope.lineOf(4));
+        assertEquals(3, rope.lineOf(13));
+        assertEquals("two\n\n", rope.lines(1, 3).toString());
+        assertEquals(3, Rope.of("a\nb\nc\n").lineCount());
+        assertEquals(0, Rope.of("").lineCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.lineStart(5));
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.lines(2, 1));
+    }
+
+    @Test
+    public void testLinesFollowRandomEdits() {
+        Random random = new Random(11);
+        StringBuilder expected = new StringBuilder("line\n".repeat(1_000));
+        Rope rope = Rope.of(expected.toString());
+        for (int i = 0; i < 2_000; i++) {
+            int offset = random.nextInt(expected.length() + 1);
+            if (random.nextBoolean()) {
+                String str = random.nextBoolean() ? "\n" : "ab\ncd";
+                expected.insert(offset, str);
+                rope = rope.insert(offset, str);
+            } else {
+                int count = Math.min(random.nextInt(8), expected.length() - offset);
+                expected.delete(offset, offset + count);
+                rope = rope.delete(offset, count);
+            }
+            if (i % 100 == 0) {
+                assertLinesMatch(expected.toString(), rope, random);
+            }
+        }
+        assertLinesMatch(expected.toString(), rope, random);
+    }
+
+    @Test
+    public void testUtf8LengthAndCodePoints() {
+        String text = "a\u00e9\u4e2d\ud83d\ude00\n";
+        Rope rope = Rope.of(text);
+        assertEquals(1 + 2 + 3 + 4 + 1, rope.utf8Length());
+        assertEquals(5, rope.codePointCount());
+        assertEquals(0, Rope.of("").utf8Length());
+        Rope ascii = Rope.of("x".repeat(5_000)).insert(2_500, text);
+        assertEquals(5_000 + 11, ascii.utf8Length());
+        assertEquals(5_000 + 5, ascii.codePointCount());
+        assertEquals(5_000, ascii.delete(2_500, text.length()).utf8Length());
+    }
+
+    @Test
+    public void testUtf8LengthFollowsRandomEdits() {
+        Random random = new Random(13);
+        String[] pieces = {"a", "\u00e9", "\u4e2d", "\ud83d\ude00", "ab\u00e9cd"};
+        StringBuilder expected = new StringBuilder("\u4e2dx".repeat(2_000));
+        Rope rope = Rope.of(expected.toString());
+        for (int i = 0; i < 2_000; i++) {
+            int offset = codePointBoundary(expected, random.nextInt(expected.length() + 1));
+            if (random.nextBoolean()) {
+                String str = pieces[random.nextInt(pieces.length)];
+                expected.insert(offset, str);
+                rope = rope.insert(offset, str);
+            } else {
+                int end = codePointBoundary(expected, Math.min(offset + random.nextInt(8), expected.length()));
+                expected.delete(offset, end);
+                rope = rope.delete(offset, end - offset);
+            }
+            if (i % 100 == 0) {
+                assertUtf8Match(expected.toString(), rope);
+            }
+        }
+        assertUtf8Match(expected.toString(), rope);
+    }
+
+    // EFFECTS: return offset, moved back by one if it falls between the two halves of a surrogate pair
+    private int codePointBoundary(CharSequence text, int offset) {
+        boolean splitsPair = offset > 0 && offset < text.length() && Character.isLowSurrogate(text.charAt(offset));
+        return splitsPair ? offset - 1 : offset;
+    }
+
+    private void assertUtf8Match(String expected, Rope rope) {
+        assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, rope.utf8Length());
+        assertEquals(expected.codePointCount(0, expected.length()), rope.codePointCount());
+    }
+
+    private void assertLinesMatch(String expected, Rope rope, Random random) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int i = 0; i < expected.length(); i++) {
+            if (expected.charAt(i) == '\n' && i + 1 < expected.length()) {
+                starts.add(i + 1);
+            }
+        }
+        int lineCount = expected.isEmpty() ? 0 : starts.size();
+        assertEquals(lineCount, rope.lineCount());
+        for (int i = 0; i < 20 && lineCount > 0; i++) {
+            int line = random.nextInt(lineCount);
+            assertEquals((int) starts.get(line), rope.lineStart(line));
+            int offset = random.nextInt(expected.length() + 1);
+            assertEquals(expected.substring(0, offset).chars().filter(c -> c == '\n').count(), rope.lineOf(offset));
+        }
+    }
+
+    @Test
+    public void testTypingMergesPieces() {
+        Rope rope = Rope.of("a".repeat(100_000));
+        for (int i = 0; i < 1_000; i++) {
+            rope = rope.insert(50_000 + i, "b");
+        }
+        assertEquals(101_000, rope.length());
+        assertEquals("b".repeat(1_000), rope.subSequence(50_000, 51_000).toString());
+        assertTrue(rope.pieces() < 20);
+    }
+}
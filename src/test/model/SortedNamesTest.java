@@ -0,0 +1,68 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedNamesTest {
+    private static final int MANY = 200_000;
+
+    // EFFECTS: return the given number of distinct names in random order
+    private static List<String> shuffledNames(int count, long seed) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add((i % 2 == 0 ? "File" : "file") + i);
+        }
+        Collections.shuffle(names, new Random(seed));
+        return names;
+    }
+
+    @Test
+    public void testMatchesSortedSetAcrossChunks() {
+        SortedNames names = new SortedNames();
+        TreeSet<String> expected = new TreeSet<>(SortedNames.ORDER);
+        List<String> added = shuffledNames(5 * SortedNames.MAX_CHUNK, 1);
+        for (String name : added) {
+            names.add(name);
+            expected.add(name);
+        }
+        assertEquals(new ArrayList<>(expected), names.asList());
+        List<String> before = names.asList();
+
+        names.addAll(List.of("a-batch", "zz-batch"));
+        expected.addAll(List.of("a-batch", "zz-batch"));
+        for (String name : added.subList(0, added.size() - 10)) {
+            names.remove(name);
+            expected.remove(name);
+        }
+        names.remove("missing");
+        assertEquals(new ArrayList<>(expected), names.asList());
+        assertEquals(new ArrayList<>(expected).subList(2, 5), names.range(2, 3));
+        // a view taken earlier is a snapshot, unchanged by later changes
+        assertEquals(added.size(), before.size());
+        List<String> withPrefix = new ArrayList<>();
+        expected.stream().filter(name -> name.toLowerCase().startsWith("file1")).forEach(withPrefix::add);
+        assertEquals(withPrefix, names.withPrefix("FILE1"));
+    }
+
+    @Test
+    public void testChangesDontCopyAllNames() {
+        // copying every name on each change makes this take minutes rather than well under a second
+        assertTimeout(Duration.ofSeconds(10), () -> {
+            SortedNames names = new SortedNames();
+            List<String> shuffled = shuffledNames(MANY, 2);
+            shuffled.forEach(names::add);
+            assertEquals(MANY, names.asList().size());
+            Collections.shuffle(shuffled, new Random(3));
+            shuffled.forEach(names::remove);
+            assertTrue(names.asList().isEmpty());
+        });
+    }
+}
@@ -0,0 +1,139 @@
+package model.search;
+
+import model.Dir;
+import model.DirNode;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FindQueryTest {
+    private Dir rootDir;
+    private Dir app;
+    private Dir empty;
+
+    @BeforeEach
+    public void setUp() {
+        rootDir = new Dir();
+        Date old = FindQuery.parseDate("2020-06-01");
+        try {
+            rootDir.addSubDir("src");
+            rootDir.addSubDir("empty");
+            rootDir.addFile(new File("README.md", "read me"));
+            Dir src = rootDir.getSubDir("src");
+            src.addSubDir("app");
+            src.addFile(new File("Main.java", "class Main {}"));
+            app = src.getSubDir("app");
+            app.addFile(new File("config.json", "x".repeat(2000)));
+            app.addFile(new File("old.json", "{}", old, old));
+            empty = rootDir.getSubDir("empty");
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    @Test
+    public void testName() {
+        assertEquals(List.of("~/src/app/config.json", "~/src/app/old.json"), find("-name", "*.json"));
+        assertEquals(List.of("~/src/Main.java"), find("-name", "[A-Z]*.{java,kt}"));
+        assertEquals(List.of(), find("-name", "readme.md"));
+        assertEquals(List.of("~/README.md"), find("-iname", "readme.md"));
+        assertEquals(List.of("~/src/app/old.json"), find("-name", "*.json", "-name", "o??.*"));
+    }
+
+    @Test
+    public void testTypeAndDepth() {
+        assertEquals(List.of("~", "~/empty", "~/src", "~/src/app"), find("-type", "d"));
+        assertEquals(List.of("~/README.md"), find("-type", "f", "-maxdepth", "1"));
+        assertEquals(List.of("~"), find("-maxdepth", "0"));
+    }
+
+    @Test
+    public void testSize() {
+        assertEquals(List.of("~/src/app/config.json"), find("-size", "+1k"));
+        assertEquals(List.of("~/src/app/config.json"), find("-size", "2k"));
+        assertEquals(List.of("~/src/app/old.json"), find("-size", "2"));
+        assertEquals(List.of("~/src/app/old.json", "~/src/Main.java", "~/README.md"), find("-size", "-100c"));
+    }
+
+    @Test
+    public void testDates() {
+        assertEquals(List.of("~/src/app/old.json"), find("-older", "2021-01-01"));
+        assertEquals(List.of("~/src/app/old.json"), find("-colder", "2020-06-01T00:00:01"));
+        assertEquals(List.of(), find("-cnewer", "2020-06-01", "-name", "old.json"));
+        assertEquals(List.of("~/src/app/config.json", "~/src/Main.java", "~/README.md"),
+                find("-newer", "2021-01-01", "-type", "f"));
+    }
+
+    @Test
+    public void testPath() {
+        assertEquals(List.of("~/src/app", "~/src/app/config.json", "~/src/app/old.json"), find("-path", "~/src/a*"));
+        assertEquals(List.of("~/src/Main.java"), find("-path", "*/src/*.java"));
+    }
+
+    @Test
+    public void testSubtreesArePruned() {
+        FindQuery files = FindQuery.parse(List.of("-type", "f"));
+        assertFalse(files.canContainMatch(empty, 1));
+        assertTrue(files.canContainMatch(app, 2));
+        assertTrue(FindQuery.parse(List.of("-type", "d")).canContainMatch(empty, 1));
+        assertFalse(FindQuery.parse(List.of("-size", "+2k")).canContainMatch(app, 2));
+        assertFalse(FindQuery.parse(List.of("-path", "~/docs/*")).canContainMatch(app, 2));
+        assertTrue(FindQuery.parse(List.of("-path", "~/sr*")).canContainMatch(app, 2));
+        assertFalse(FindQuery.parse(List.of("-maxdepth", "2")).canContainMatch(app, 2));
+    }
+
+    @Test
+    public void testPruningByLatestModified() throws IllegalNameException, DuplicateException {
+        FindQuery query = FindQuery.parse(List.of("-newer", "2025-01-01"));
+        Date before = FindQuery.parseDate("2024-01-01");
+        Date after = FindQuery.parseDate("2025-06-01");
+        empty.addFiles(List.of(new File("a.txt", "a", before, before)));
+        assertFalse(query.canContainMatch(empty, 1));
+        empty.findFile("a.txt").update("b", after);
+        assertTrue(query.canContainMatch(empty, 1));
+        assertEquals(List.of("~/empty/a.txt"), query.find(empty).map(DirNode::getAbsPath).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testFindIsLazy() {
+        assertEquals("~/src/app/config.json",
+                FindQuery.parse(List.of("-name", "*.json")).find(rootDir).findFirst().get().getAbsPath());
+    }
+
+    @Test
+    public void testInvalidExpression() {
+        assertThrows(IllegalArgumentException.class, () -> FindQuery.parse(List.of("-bogus", "x")));
+        assertThrows(IllegalArgumentException.class, () -> FindQuery.parse(List.of("-name")));
+        assertThrows(IllegalArgumentException.class, () -> FindQuery.parse(List.of("-size", "10x")));
+        assertThrows(IllegalArgumentException.class, () -> FindQuery.parse(List.of("-type", "l")));
+        assertThrows(IllegalArgumentException.class, () -> FindQuery.parse(List.of("-newer", "yesterday")));
+        assertThrows(IllegalArgumentException.class, () -> FindQuery.parse(List.of("-maxdepth", "-1")));
+    }
+
+    @Test
+    public void testGlob() {
+        assertTrue(Glob.compile("*.json", false).test("a.json"));
+        assertFalse(Glob.compile("*.json", false).test("a.jsonl"));
+        assertTrue(Glob.compile("\\*.txt", false).test("*.txt"));
+        assertFalse(Glob.compile("\\*.txt", false).test("a.txt"));
+        assertTrue(Glob.compile("[!a-c]x", false).test("dx"));
+        assertFalse(Glob.compile("[!a-c]x", false).test("bx"));
+        assertTrue(Glob.compile("a.(b)+", false).test("a.(b)+"));
+        assertEquals("~/src/", Glob.literalPrefix("~/src/*.java"));
+    }
+
+    private List<String> find(String... expression) {
+        return FindQuery.parse(Arrays.asList(expression)).find(rootDir).map(DirNode::getAbsPath)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,175 @@
+package model.search;
+
+import model.Dir;
+import model.File;
+import model.StoredContent;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvertedIndexTest {
+    private Dir rootDir;
+    private Dir docs;
+    private InvertedIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        rootDir = new Dir();
+        try {
+            rootDir.addSubDir("docs");
+            docs = rootDir.getSubDir("docs");
+            docs.addFile(new File("fox.txt", "The quick brown fox jumps over the lazy dog."));
+            docs.addFile(new File("dog.txt", "A lazy, brown DOG sleeps; the fox is quick."));
+            rootDir.addFile(new File("notes.txt", "nothing to see here"));
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+        index = new InvertedIndex(rootDir);
+    }
+
+    @Test
+    public void testWordQueries() {
+        assertEquals(List.of("~/docs/dog.txt", "~/docs/fox.txt"), paths("fox"));
+        assertEquals(List.of("~/docs/dog.txt", "~/docs/fox.txt"), paths("Lazy dog"));
+        assertEquals(List.of("~/docs/fox.txt"), paths("jumps brown"));
+        assertEquals(List.of(), paths("fox nothing"));
+        assertEquals(List.of(), paths("cat"));
+        assertEquals(List.of(), paths("  ...  "));
+    }
+
+    @Test
+    public void testPhraseQueries() {
+        assertEquals(List.of("~/docs/fox.txt"), paths("\"quick brown fox\""));
+        assertEquals(List.of("~/docs/dog.txt"), paths("\"lazy brown\""));
+        assertEquals(List.of("~/docs/dog.txt"), paths("sleeps \"the fox\""));
+        assertEquals(List.of(), paths("\"fox quick\""));
+    }
+
+    @Test
+    public void testIndexFollowsChanges() {
+        try {
+            File fox = docs.getFile("fox.txt");
+            fox.update("a slow red fox", new Date());
+            assertEquals(List.of("~/docs/fox.txt"), paths("\"red fox\""));
+            assertEquals(List.of(), paths("jumps"));
+
+            docs.deleteFile("dog.txt");
+            assertEquals(List.of("~/docs/fox.txt"), paths("fox"));
+            assertEquals(List.of(), paths("sleeps"));
+
+            Dir archive = new Dir("archive");
+            archive.addFile(new File("old.txt", "an old red fox"));
+            rootDir.addSubDir(archive);
+            assertEquals(List.of("~/archive/old.txt", "~/docs/fox.txt"), paths("red fox"));
+
+            rootDir.moveSubDir("docs", archive, "docs");
+            assertEquals(List.of("~/archive/docs/fox.txt", "~/archive/old.txt"), paths("red fox"));
+
+            rootDir.deleteSubDir("archive");
+            assertEquals(List.of(), paths("fox"));
+            assertEquals(List.of("~/notes.txt"), paths("here"));
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    @Test
+    public void testEditsAreIndexedBeforeNextQuery() {
+        try {
+            File fox = docs.getFile("fox.txt");
+            fox.insert(0, "zebra ", new Date());
+            fox.insert(fox.getLength(), " okapi", new Date());
+            assertEquals(List.of("~/docs/fox.txt"), paths("zebra okapi"));
+            fox.delete(0, 6, new Date());
+            assertEquals(List.of(), paths("zebra"));
+
+            File dog = docs.getFile("dog.txt");
+            dog.insert(0, "zebra ", new Date());
+            docs.deleteFile("dog.txt");
+            assertEquals(List.of(), paths("zebra"));
+        } catch (IllegalNameException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    @Test
+    public void testAddedFilesAreIndexedWithoutLoadingThem() {
+        try {
+            Unloaded content = new Unloaded("a zebra and an okapi");
+            File stored = new File("stored.txt", content, new Date(), new Date());
+            docs.addFile(stored);
+            docs.addFile(new File("gone.txt", "zebra"));
+            docs.deleteFile("gone.txt");
+            assertEquals(0, content.loads);
+            assertEquals(List.of("~/docs/stored.txt"), paths("zebra"));
+            assertEquals(1, content.loads);
+            assertNotNull(stored.snapshot().getStoredContent());
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    @Test
+    public void testRemovedTokensAreDropped() {
+        int numTokens = index.getNumTokens();
+        try {
+            rootDir.getFile("notes.txt").update("nothing to see here, really", new Date());
+            assertEquals(numTokens + 1, index.getNumTokens());
+            rootDir.deleteFile("notes.txt");
+            assertEquals(numTokens - 4, index.getNumTokens());
+        } catch (IllegalNameException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    /**
+     * Represents content that isn't loaded until it is read, counting its loads.
+     */
+    private static class Unloaded implements StoredContent {
+        private final String content;
+        private int loads;
+
+        Unloaded(String content) {
+            this.content = content;
+        }
+
+        @Override
+        public String load() {
+            loads++;
+            return content;
+        }
+
+        @Override
+        public int getLength() {
+            return content.length();
+        }
+
+        @Override
+        public long getSize() {
+            return content.length();
+        }
+
+        @Override
+        public int getCharCount() {
+            return content.length();
+        }
+
+        @Override
+        public int getLineCount() {
+            return 1;
+        }
+    }
+
+    // EFFECTS: return the absolute paths of the files matching the given query
+    private List<String> paths(String query) {
+        return index.search(query).stream().map(File::getAbsPath).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,83 @@
+package model.search;
+
+import model.Dir;
+import model.DirNode;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameIndexTest {
+    private Dir rootDir;
+    private Dir src;
+    private NameIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        rootDir = new Dir();
+        try {
+            rootDir.addSubDir("src");
+            src = rootDir.getSubDir("src");
+            src.addSubDir("model");
+            src.getSubDir("model").addFile("FileSystem.java");
+            src.getSubDir("model").addFile("DirSnapshot.java");
+            src.addFile("Main.java");
+            rootDir.addFile("fsm.txt");
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+        index = new NameIndex(rootDir);
+    }
+
+    @Test
+    public void testSubsequenceMatchesAreRanked() {
+        assertEquals(List.of("~/fsm.txt", "~/src/model/FileSystem.java"), paths("fsm", File.class));
+        assertEquals(List.of("~/src/model/DirSnapshot.java"), paths("dsnap", File.class));
+        assertEquals(List.of("~/src/Main.java"), paths("SRC MAIN", File.class));
+        assertEquals(List.of(), paths("xyz", File.class));
+        assertEquals(List.of(), paths("", File.class));
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    public void testResultsAreFilteredAndLimited() {
+        assertEquals(List.of("~/src/model"), paths("model", Dir.class));
+        assertEquals(3, paths("model", DirNode.class).size());
+        assertEquals(1, index.search("java", 1, File.class).size());
+    }
+
+    @Test
+    public void testIndexFollowsChanges() {
+        try {
+            assertEquals(1, paths("sys", File.class).size());
+            src.addFile("System.java");
+            assertEquals(2, paths("sys", File.class).size());
+            assertEquals(2, paths("syst", File.class).size());
+
+            src.getSubDir("model").moveFile("FileSystem.java", rootDir, "Renamed.java");
+            assertEquals(List.of("~/src/System.java"), paths("system", File.class));
+            assertEquals(List.of("~/Renamed.java"), paths("renamed", File.class));
+
+            rootDir.moveSubDir("src", rootDir, "lib");
+            assertEquals(List.of("~/lib/model/DirSnapshot.java"), paths("dsnap", File.class));
+
+            rootDir.deleteSubDir("lib");
+            assertEquals(List.of(), paths("dsnap", File.class));
+            assertEquals(2, index.size());
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    // EFFECTS: return the absolute paths of the best ten nodes of the given type matching the query
+    private List<String> paths(String query, Class<? extends DirNode> type) {
+        return index.search(query, 10, type).stream().map(DirNode::getAbsPath).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,108 @@
+package model.search;
+
+import model.Dir;
+import model.DirNode;
+import model.File;
+import model.exceptions.DuplicateException;
+import model.exceptions.IllegalNameException;
+import model.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrigramIndexTest {
+    private Dir rootDir;
+    private Dir src;
+    private TrigramIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        rootDir = new Dir();
+        try {
+            rootDir.addSubDir("src");
+            src = rootDir.getSubDir("src");
+            src.addFile(new File("Main.java", "class Main {\n    int count = 0;\n    void run() { count++; }\n}\n"));
+            src.addFile(new File("Util.java", "class Util {\n    static int max(int a, int b) { return a; }\n}"));
+            rootDir.addFile(new File("notes.txt", "count the lines\nrun twice"));
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+        index = new TrigramIndex(rootDir);
+    }
+
+    @Test
+    public void testGrepReportsLineAndColumn() {
+        assertEquals(List.of("~/notes.txt:1:1: count the lines",
+                "~/src/Main.java:2:9:     int count = 0;",
+                "~/src/Main.java:3:18:     void run() { count++; }"), grep("count", rootDir));
+        assertEquals(List.of("~/src/Main.java:3:18:     void run() { count++; }"), grep("count\\+\\+", rootDir));
+        assertEquals(List.of("~/notes.txt:2:1: run twice"), grep("^run", rootDir));
+        assertEquals(List.of(), grep("^$", rootDir));
+    }
+
+    @Test
+    public void testGrepStaysInScope() {
+        assertEquals(2, grep("count", src).size());
+        assertEquals(List.of("~/src/Util.java:1:1: class Util {"), grep("class \\w+", src.findFile("Util.java")));
+    }
+
+    @Test
+    public void testGrepHonoursPatternFlags() {
+        List<GrepMatch> matches = index.grep(Pattern.compile("COUNT THE", Pattern.CASE_INSENSITIVE), rootDir);
+        assertEquals(List.of("~/notes.txt:1:1: count the lines"),
+                matches.stream().map(GrepMatch::toString).collect(Collectors.toList()));
+        matches = index.grep(Pattern.compile("count# comment", Pattern.COMMENTS), rootDir);
+        assertEquals(3, matches.size());
+        assertEquals(1, index.grep(Pattern.compile("count++", Pattern.LITERAL), rootDir).size());
+    }
+
+    @Test
+    public void testCandidatesAreNarrowedByLiterals() {
+        assertEquals(1, index.candidates("static int", rootDir).size());
+        assertEquals(0, index.candidates("no such text", rootDir).size());
+        assertEquals(3, index.candidates("c.u", rootDir).size());
+        assertEquals(3, index.candidates("Main|notes", rootDir).size());
+        assertEquals(2, index.candidates("cla(ss|zz) [MU]", rootDir).size());
+    }
+
+    @Test
+    public void testRequiredTrigrams() {
+        assertArrayEquals(Trigrams.of("foo.bar"), Trigrams.requiredBy("foo\\.bar"));
+        assertArrayEquals(Trigrams.of("abc"), Trigrams.requiredBy("abcd?e+"));
+        assertArrayEquals(new int[0], Trigrams.requiredBy("a.b"));
+        assertArrayEquals(new int[0], Trigrams.requiredBy("abc|def"));
+        assertArrayEquals(new int[0], Trigrams.requiredBy("(?i)abc"));
+        assertArrayEquals(new int[0], Trigrams.requiredBy("[abc]{2,3}\\x41bc"));
+    }
+
+    @Test
+    public void testIndexFollowsChanges() {
+        try {
+            src.getFile("Util.java").update("int total;", new Date());
+            assertEquals(0, index.candidates("static int", rootDir).size());
+            assertEquals(List.of("~/src/Util.java:1:5: int total;"), grep("total", rootDir));
+
+            src.deleteFile("Main.java");
+            assertEquals(List.of("~/notes.txt:1:1: count the lines"), grep("count", rootDir));
+
+            Dir lib = new Dir("lib");
+            lib.addFile(new File("List.java", "int count;"));
+            rootDir.addSubDir(lib);
+            assertEquals(2, grep("count", rootDir).size());
+        } catch (IllegalNameException | DuplicateException | NotFoundException e) {
+            fail("No exception should be thrown");
+        }
+    }
+
+    // EFFECTS: return the matches of the regex in scope as strings
+    private List<String> grep(String regex, DirNode scope) {
+        return index.grep(Pattern.compile(regex), scope).stream().map(GrepMatch::toString)
+                .collect(Collectors.toList());
+    }
+}
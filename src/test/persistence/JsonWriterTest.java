@@ -2,15 +2,19 @@ package persistence;
 
 import model.Dir;
 import model.File;
+import model.LargeFile;
 import model.exceptions.DuplicateException;
 import model.exceptions.IllegalNameException;
 import model.exceptions.NotFoundException;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Date;
 
-import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assertions.*;
 
 // Cite: this class is based on CPCS210/JsonSerilizationDemo
 public class JsonWriterTest extends JsonTest {
@@ -128,4 +132,99 @@ public class JsonWriterTest extends JsonTest {
         }
 
     }
+
+    @Test
+    void testWriterSeparateContent(@TempDir Path dir) throws Exception {
+        Dir rootDir = new Dir();
+        Date now = new Date("Fri Mar 08 13:21:20 PST 2024");
+        rootDir.addSubDir("folder1");
+        rootDir.getSubDir("folder1").addFile(new File("file1.txt", "first line\nsecond line\n", now, now));
+        rootDir.addFile(new File("file2.txt", "caf\u00e9", now, now));
+        rootDir.addFile(new File("empty.txt", "", now, now));
+        String json = dir.resolve("fs.json").toString();
+        Path content = dir.resolve("fs.content");
+        JsonWriter writer = new JsonWriter(json, content.toString());
+        writeTo(writer, rootDir);
+        assertFalse(Files.readString(Path.of(json)).contains("second line"));
+        assertEquals(23 + 5, Files.size(content));
+
+        rootDir.getFile("file2.txt").update("tea", now);
+        writeTo(writer, rootDir);
+        assertEquals(23 + 5 + 3, Files.size(content));
+
+        Dir readDir = new JsonReader(json).read();
+        File file1 = readDir.getSubDir("folder1").getFile("file1.txt");
+        assertEquals(2, file1.getLineCount());
+        assertEquals(23, file1.getSize());
+        writeTo(new JsonWriter(json, content.toString()), readDir);
+        assertEquals(23 + 5 + 3, Files.size(content));
+
+        readDir = new JsonReader(json).read();
+        checkFile("file1.txt", now.toString(), now.toString(), "first line\nsecond line\n",
+                readDir.getSubDir("folder1").getFile("file1.txt"));
+        checkFile("file2.txt", now.toString(), now.toString(), "tea", readDir.getFile("file2.txt"));
+        checkFile("empty.txt", now.toString(), now.toString(), "", readDir.getFile("empty.txt"));
+    }
+
+    @Test
+    void testWriterAfterLargeFileSaved(@TempDir Path dir) throws Exception {
+        Dir rootDir = new Dir();
+        Date now = new Date("Fri Mar 08 13:21:20 PST 2024");
+        rootDir.addFile(new File("log.txt", "first\ncaf\u00e9 \ud83d\ude00\nlast\n", now, now));
+        String json = dir.resolve("fs.json").toString();
+        Path content = dir.resolve("fs.content");
+        writeTo(new JsonWriter(json, content.toString()), rootDir);
+
+        Dir readDir = new JsonReader(json).read();
+        File log = readDir.getFile("log.txt");
+        ContentFile.Slice slice = (ContentFile.Slice) log.snapshot().getStoredContent();
+        ContentFile contentFile = new ContentFile(content);
+        try (LargeFile large = LargeFile.open(slice.getPath(), slice.getOffset(), slice.getSize())) {
+            large.replaceLines(0, 1, "start\n");
+            contentFile.open();
+            log.update(contentFile.append(large), now);
+            contentFile.close();
+        }
+        assertEquals(18, log.getCharCount());
+        assertEquals("start\ncaf\u00e9 \ud83d\ude00\nlast\n".length(), log.getLength());
+        assertEquals(3, log.getLineCount());
+        long size = Files.size(content);
+        writeTo(new JsonWriter(json, content.toString()), readDir);
+        assertEquals(size, Files.size(content));
+        checkFile("log.txt", now.toString(), now.toString(), "start\ncaf\u00e9 \ud83d\ude00\nlast\n",
+                new JsonReader(json).read().getFile("log.txt"));
+    }
+
+    @Test
+    void testWriterCompactsContentFile(@TempDir Path dir) throws Exception {
+        Dir rootDir = new Dir();
+        Date now = new Date("Fri Mar 08 13:21:20 PST 2024");
+        String kept = "kept\n".repeat(1000);
+        rootDir.addFile(new File("kept.txt", kept, now, now));
+        rootDir.addFile(new File("edited.txt", "", now, now));
+        String json = dir.resolve("fs.json").toString();
+        Path content = dir.resolve("fs.content");
+        writeTo(new JsonWriter(json, content.toString()), rootDir);
+        Dir readDir = new JsonReader(json).read();
+
+        JsonWriter writer = new JsonWriter(json, content.toString());
+        String edited = "";
+        for (int save = 0; save < 30; save++) {
+            edited = ("save " + save + "\n").repeat(20_000);
+            readDir.getFile("edited.txt").update(edited, now);
+            writeTo(writer, readDir);
+            assertTrue(Files.size(content) < 2 * ContentFile.MIN_COMPACT_BYTES + 2 * edited.length());
+        }
+        // still stored in the content file, moved to its new offset by the compactions
+        assertEquals(kept, readDir.getFile("kept.txt").getContent());
+        readDir = new JsonReader(json).read();
+        checkFile("kept.txt", now.toString(), now.toString(), kept, readDir.getFile("kept.txt"));
+        checkFile("edited.txt", now.toString(), now.toString(), edited, readDir.getFile("edited.txt"));
+    }
+
+    private void writeTo(JsonWriter writer, Dir rootDir) throws IOException {
+        writer.open();
+        writer.write(rootDir);
+        writer.close();
+    }
 }